@@ -0,0 +1,221 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of sampled insulin absorption curves, see equation (3) of the AIDA model. A curve
+ * holds the absorption rate of one injection at every integration step after the injection, and is
+ * identified by the insulin parameters S/A/B, the dose and the step size. The least recently used
+ * curve is evicted when the cache is full. All methods are thread-safe, so one cache can be shared
+ * by all simulation runs.
+ */
+public class AbsorptionCurveCache {
+	
+	/** Default maximum number of cached curves. */
+	public static final int DEFAULT_CAPACITY = 256;
+	
+	/** Number of steps sampled per curve, i.e. two days of one-minute steps. */
+	public static final int CURVE_LENGTH = 2 * (SimulationKernelAIDA.iterations + 1);
+	
+	/** Cache shared by all simulation kernels. */
+	private static final AbsorptionCurveCache shared = new AbsorptionCurveCache(DEFAULT_CAPACITY);
+	
+	/** Cached curves in access order. */
+	private final LinkedHashMap<Key, double[]> curves;
+	
+	/** Maximum number of cached curves. */
+	private int capacity;
+	
+	/** Number of curves found in the cache. */
+	private long hits;
+	
+	/** Number of curves that had to be computed. */
+	private long misses;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty cache.
+	 * 
+	 * @param capacity Maximum number of cached curves.
+	 */
+	public AbsorptionCurveCache(int capacity) {
+		setCapacity(capacity);
+		curves = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = -3407283518426315817L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+				return size() > AbsorptionCurveCache.this.capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cache shared by all simulation kernels.
+	 * 
+	 * @return The shared cache.
+	 */
+	public static AbsorptionCurveCache getShared() {
+		return shared;
+	}
+	
+	// Access
+	
+	/**
+	 * Returns the sampled absorption curve of an injection, computing it if it is not cached. Index
+	 * k of the array holds the absorption rate k steps after the injection (index 0 is always zero).
+	 * The array is shared and must not be modified.
+	 * 
+	 * @param s Insulin parameter S.
+	 * @param a Insulin parameter A.
+	 * @param b Insulin parameter B.
+	 * @param dose Insulin dose. (U)
+	 * @param step Integration step size. (hr)
+	 * @return The sampled curve with {@link #CURVE_LENGTH} values.
+	 */
+	public double[] getCurve(double s, double a, double b, double dose, double step) {
+		Key key = new Key(s, a, b, dose, step);
+		synchronized (this) {
+			double[] curve = curves.get(key);
+			if (curve != null) {
+				hits++;
+				return curve;
+			}
+			misses++;
+		}
+		
+		// Computed outside of the lock; another thread may compute the same curve concurrently,
+		// which only costs time since both results are identical
+		double T50 = a * dose + b;
+		double[] curve = new double[CURVE_LENGTH];
+		for (int k = 1; k < CURVE_LENGTH; k++)
+			curve[k] = absorptionRate(s, T50, dose, k * step);
+		synchronized (this) {
+			curves.put(key, curve);
+		}
+		return curve;
+	}
+	
+	/**
+	 * Calculates the insulin absorption rate of one injection, see equation (3).
+	 * 
+	 * @param s Insulin parameter S.
+	 * @param T50 Time at which 50% of the dose has been absorbed, see equation (4).
+	 * @param dose Insulin dose. (U)
+	 * @param t Time since the injection. (hr)
+	 * @return The absorption rate.
+	 */
+	public static double absorptionRate(double s, double T50, double dose, double t) {
+		// (3) Iabs(t) = (s * t^s * T50^s * D) / (t * [T50^s + t^s]^2)
+		return (s * Math.pow(t, s) * T50 * dose) / (t * Math.pow(T50 + Math.pow(t, s), 2.0));
+	}
+	
+	/**
+	 * Removes all curves and resets the statistics.
+	 */
+	public synchronized void clear() {
+		curves.clear();
+		hits = 0;
+		misses = 0;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.capacity
+	 */
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Getters/setters. Shrinking the capacity takes effect with the next added curve.
+	 * 
+	 * @param capacity Maximum number of cached curves.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Number of cached curves.
+	 * 
+	 * @return The size of the cache.
+	 */
+	public synchronized int size() {
+		return curves.size();
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Identifies a curve by its insulin parameters, dose and step size.
+	 */
+	private static class Key {
+		
+		private final double s, a, b, dose, step;
+		
+		public Key(double s, double a, double b, double dose, double step) {
+			this.s = s;
+			this.a = a;
+			this.b = b;
+			this.dose = dose;
+			this.step = step;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return Double.compare(s, other.s) == 0 && Double.compare(a, other.a) == 0 && Double.compare(b, other.b) == 0
+			        && Double.compare(dose, other.dose) == 0 && Double.compare(step, other.step) == 0;
+		}
+		
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(s);
+			bits = 31 * bits + Double.doubleToLongBits(a);
+			bits = 31 * bits + Double.doubleToLongBits(b);
+			bits = 31 * bits + Double.doubleToLongBits(dose);
+			bits = 31 * bits + Double.doubleToLongBits(step);
+			return (int) (bits ^ (bits >>> 32));
+		}
+	}
+}
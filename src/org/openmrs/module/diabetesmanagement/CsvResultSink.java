@@ -0,0 +1,67 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.openmrs.api.APIException;
+
+/**
+ * Writes the results of a multi-day simulation as comma-separated lines of minute offset, plasma
+ * glucose (mmol/l) and plasma insulin (mU/l), e.g. to a buffered file writer. Nothing is kept in
+ * memory; the writer is neither flushed nor closed.
+ */
+public class CsvResultSink implements ResultSink {
+	
+	/** The output. */
+	private final Writer out;
+	
+	/** Reused line buffer. */
+	private final StringBuilder line = new StringBuilder(64);
+	
+	/**
+	 * Creates a sink and writes the header line.
+	 * 
+	 * @param out The output.
+	 */
+	public CsvResultSink(Writer out) {
+		this.out = out;
+		try {
+			out.write("minute,glucose,insulin\n");
+		}
+		catch (IOException e) {
+			throw new APIException("Unable to write simulation results", e);
+		}
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.ResultSink#write(org.openmrs.module.diabetesmanagement.ResultChunk)
+	 */
+	public void write(ResultChunk chunk) {
+		double[] glucose = chunk.getGlucose(), insulin = chunk.getInsulin();
+		long minute = chunk.getStartMinute();
+		try {
+			for (int k = 0; k < chunk.size(); k++) {
+				line.setLength(0);
+				line.append(minute + (long) k * chunk.getStepMinutes()).append(',').append(glucose[k]).append(',')
+				        .append(insulin[k]).append('\n');
+				out.append(line);
+			}
+		}
+		catch (IOException e) {
+			throw new APIException("Unable to write simulation results", e);
+		}
+	}
+}
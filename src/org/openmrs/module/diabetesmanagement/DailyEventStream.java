@@ -0,0 +1,91 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Event stream made of daily schedules, e.g. a single schedule repeated every day, a weekly pattern
+ * of seven schedules, or one schedule per day with skipped doses and changed meals. Day d uses the
+ * schedule at index d modulo the number of schedules. Events at or after the end of a day are
+ * ignored, as they are in the periodic simulation.
+ */
+public class DailyEventStream implements EventStream {
+	
+	/** Minutes per day. */
+	private static final int MINUTES_PER_DAY = SimulationKernelAIDA.iterations;
+	
+	/** Daily schedules; null for days without events. */
+	private final EventSchedule[] schedules;
+	
+	/** Number of days of the stream. */
+	private final int days;
+	
+	/** Day of the current event. */
+	private int day;
+	
+	/** Index of the current event in the day's schedule. */
+	private int index = -1;
+	
+	// Constructors
+	
+	/**
+	 * Creates a stream.
+	 * 
+	 * @param days Number of days.
+	 * @param schedules Daily schedules, used in turn; null elements for days without events.
+	 */
+	public DailyEventStream(int days, EventSchedule... schedules) {
+		if (schedules.length == 0)
+			throw new IllegalArgumentException("At least one daily schedule is required!");
+		this.days = days;
+		this.schedules = schedules;
+	}
+	
+	// Access
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#next()
+	 */
+	public boolean next() {
+		while (day < days) {
+			EventSchedule schedule = schedules[day % schedules.length];
+			index++;
+			if (schedule != null && index < schedule.size() && schedule.getMinute(index) < MINUTES_PER_DAY)
+				return true;
+			day++;
+			index = -1;
+		}
+		return false;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#getMinute()
+	 */
+	public long getMinute() {
+		return (long) day * MINUTES_PER_DAY + schedules[day % schedules.length].getMinute(index);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#getType()
+	 */
+	public int getType() {
+		return schedules[day % schedules.length].getType(index);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#getAmount()
+	 */
+	public double getAmount() {
+		return schedules[day % schedules.length].getAmount(index);
+	}
+}
@@ -1,56 +1,127 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.diabetesmanagement;
-
-import java.io.File;
-import java.util.Date;
-
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.openmrs.module.Activator;
-import org.openmrs.util.OpenmrsUtil;
-
-/**
- * This class contains the logic that is run every time this module is either started or shutdown.
- */
-public class DiabetesManagementActivator implements Activator {
-	
-	/** Log for this class and subclasses. */
-	private final Log log = LogFactory.getLog(this.getClass());
-	
-	/**
-	 * @see org.openmrs.module.Activator#startup()
-	 */
-	public void startup() {
-		// log.info("Starting Diabetes Management module");
-		
-		// Cleaning up old (>30min) serialization data from simulation runs
-		Date now = new Date();
-		File dir = OpenmrsUtil.getDirectoryInApplicationDataDirectory("diabetesmanagement/simulation");
-		for (File f : dir.listFiles()) {
-			if (now.getTime() - f.lastModified() > 1800000) {
-				// log.info("Deleting old simulation result file: " + f.getName());
-				f.delete();
-			}
-		}
-	}
-	
-	/**
-	 * @see org.openmrs.module.Activator#shutdown()
-	 */
-	public void shutdown() {
-		log.info("Shutting down Diabetes Management module");
-	}
-	
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.File;
+import java.util.Date;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.Activator;
+import org.openmrs.module.diabetesmanagement.service.SimulationSweepService;
+import org.openmrs.util.OpenmrsConstants;
+import org.openmrs.util.OpenmrsUtil;
+
+/**
+ * This class contains the logic that is run every time this module is either started or shutdown.
+ */
+public class DiabetesManagementActivator implements Activator {
+	
+	/** Log for this class and subclasses. */
+	private final Log log = LogFactory.getLog(this.getClass());
+	
+	/** Global property holding the size of the heap tier of the result cache in KB. */
+	public static final String CACHE_SIZE_PROPERTY = "diabetesmanagement.simulation.cacheSize";
+	
+	/** Global property holding the size of the off-heap tier of the result cache in KB. */
+	public static final String OFF_HEAP_CACHE_SIZE_PROPERTY = "diabetesmanagement.simulation.offHeapCacheSize";
+	
+	/** Applies the result cache sizes whenever one of their global properties is saved. */
+	private final GlobalPropertyListener cacheSizeListener = new GlobalPropertyListener() {
+		
+		public boolean supportsPropertyName(String propertyName) {
+			return CACHE_SIZE_PROPERTY.equals(propertyName) || OFF_HEAP_CACHE_SIZE_PROPERTY.equals(propertyName);
+		}
+		
+		public void globalPropertyChanged(GlobalProperty newValue) {
+			applyCacheSizes();
+		}
+		
+		public void globalPropertyDeleted(String propertyName) {
+			applyCacheSizes();
+		}
+	};
+	
+	/**
+	 * @see org.openmrs.module.Activator#startup()
+	 */
+	public void startup() {
+		// log.info("Starting Diabetes Management module");
+		
+		// Cleaning up old (>30min) serialization data from simulation runs
+		Date now = new Date();
+		File dir = OpenmrsUtil.getDirectoryInApplicationDataDirectory("diabetesmanagement/simulation");
+		for (File f : dir.listFiles()) {
+			if (now.getTime() - f.lastModified() > 1800000) {
+				// log.info("Deleting old simulation result file: " + f.getName());
+				f.delete();
+			}
+		}
+		
+		applyCacheSizes();
+		Context.getAdministrationService().addGlobalPropertyListener(cacheSizeListener);
+	}
+	
+	/**
+	 * @see org.openmrs.module.Activator#shutdown()
+	 */
+	public void shutdown() {
+		log.info("Shutting down Diabetes Management module");
+		Context.getAdministrationService().removeGlobalPropertyListener(cacheSizeListener);
+		((SimulationSweepService) Context.getService(SimulationSweepService.class)).shutdown();
+	}
+	
+	/**
+	 * Sets the sizes of the shared result cache from their global properties. Missing or invalid
+	 * sizes leave the size of their tier unchanged.
+	 */
+	private void applyCacheSizes() {
+		SimulationResultCache cache = SimulationResultCache.getShared();
+		try {
+			Context.addProxyPrivilege(OpenmrsConstants.PRIV_VIEW_GLOBAL_PROPERTIES);
+			cache.setCapacity(getCacheSize(CACHE_SIZE_PROPERTY, cache.getHeapCapacity()), getCacheSize(
+			    OFF_HEAP_CACHE_SIZE_PROPERTY, cache.getOffHeapCapacity()));
+		}
+		finally {
+			Context.removeProxyPrivilege(OpenmrsConstants.PRIV_VIEW_GLOBAL_PROPERTIES);
+		}
+	}
+	
+	/**
+	 * Reads a result cache size from a global property.
+	 * 
+	 * @param property Name of the global property, holding the size in KB.
+	 * @param current The current size in bytes.
+	 * @return The size in bytes, or the current size if the property is missing or invalid.
+	 */
+	private long getCacheSize(String property, long current) {
+		String value = Context.getAdministrationService().getGlobalProperty(property, "").trim();
+		if (value.length() == 0)
+			return current;
+		try {
+			long size = Long.parseLong(value);
+			if (size < 0 || size > Long.MAX_VALUE >> 10)
+				throw new NumberFormatException("Out of range: " + value);
+			return size << 10;
+		}
+		catch (NumberFormatException e) {
+			log.warn("Invalid global property " + property + ", keeping " + (current >> 10) + " KB", e);
+			return current;
+		}
+	}
+
+}
@@ -0,0 +1,540 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Search for the insulin doses that keep one patient's glucose within a target range for a given
+ * meal plan and insulin pair. Doses are given at up to four injection times, each with a dose of
+ * both insulin types as on the simulation form, and are searched on a grid of
+ * {@link #getDoseIncrement()} units.
+ */
+public class DoseOptimization {
+	
+	/** Body weight. (kg) */
+	private double weight;
+	
+	/** Renal threshold of glucose. (mmol/l) */
+	private double RTG;
+	
+	/** Creatinine clearance rate. (ml/min) */
+	private double CCR;
+	
+	/** Hepatic insulin sensitivity. */
+	private double sh;
+	
+	/** Peripheral insulin sensitivity. */
+	private double sp;
+	
+	/** First insulin type. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Meals of the day; injections in this schedule are ignored. */
+	private EventSchedule meals;
+	
+	/** Minute offsets of the injections. */
+	private int[] injectionMinutes;
+	
+	/** Initial doses of the first insulin type, or null to start at zero. (U) */
+	private double[] doses1;
+	
+	/** Initial doses of the second insulin type, or null to start at zero. (U) */
+	private double[] doses2;
+	
+	/** Largest dose of a single injection. (U) */
+	private double maxDose = 40.0;
+	
+	/** Smallest dose difference searched. (U) */
+	private double doseIncrement = 0.5;
+	
+	/** Dose difference of the first search steps. (U) */
+	private double initialStep = 4.0;
+	
+	/** Lower bound of the target range. (mmol/l) */
+	private double targetLow = GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD;
+	
+	/** Upper bound of the target range. (mmol/l) */
+	private double targetHigh = 10.0;
+	
+	/** Largest acceptable time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD}. (min) */
+	private int maxMinutesBelow = 0;
+	
+	/** Largest number of search iterations. */
+	private int maxIterations = 200;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public DoseOptimization() {
+	}
+	
+	// Regimens
+	
+	/**
+	 * Creates the schedule of the meals and the given doses. Injections with a zero dose are left
+	 * out, as the model would treat them as replacing the previous injection.
+	 * 
+	 * @param doses1 Doses of the first insulin type, one per injection time. (U)
+	 * @param doses2 Doses of the second insulin type, one per injection time. (U)
+	 * @return The schedule.
+	 */
+	public EventSchedule createSchedule(double[] doses1, double[] doses2) {
+		EventSchedule schedule = new EventSchedule();
+		for (int k = 0; k < meals.size(); k++)
+			if (meals.getType(k) == EventSchedule.MEAL)
+				schedule.addMeal(meals.getMinute(k), meals.getAmount(k));
+		for (int k = 0; k < injectionMinutes.length; k++) {
+			if (doses1[k] > 0.0)
+				schedule.addInsulinInjection1(injectionMinutes[k], doses1[k]);
+			if (doses2[k] > 0.0)
+				schedule.addInsulinInjection2(injectionMinutes[k], doses2[k]);
+		}
+		return schedule;
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (meals == null || injectionMinutes == null)
+			throw new NullPointerException("Meals and injection times must be set!");
+		if (injectionMinutes.length == 0)
+			throw new IllegalArgumentException("At least one injection time must be set!");
+		if ((doses1 != null && doses1.length != injectionMinutes.length)
+		        || (doses2 != null && doses2.length != injectionMinutes.length))
+			throw new IllegalArgumentException("Expected " + injectionMinutes.length + " doses per insulin type!");
+		if (doseIncrement <= 0.0 || maxDose < doseIncrement)
+			throw new IllegalArgumentException("Dose increment must be positive and at most the maximum dose: "
+			        + doseIncrement);
+		if (targetLow >= targetHigh)
+			throw new IllegalArgumentException("Target range is empty: " + targetLow + " - " + targetHigh);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weight The weight to set.
+	 */
+	public void setWeight(double weight) {
+		this.weight = weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTG The RTG to set.
+	 */
+	public void setRTG(double RTG) {
+		this.RTG = RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCR
+	 */
+	public double getCCR() {
+		return CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCR The CCR to set.
+	 */
+	public void setCCR(double CCR) {
+		this.CCR = CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sh The sh to set.
+	 */
+	public void setSh(double sh) {
+		this.sh = sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sp The sp to set.
+	 */
+	public void setSp(double sp) {
+		this.sp = sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 The insulinType1 to set.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 The insulinType2 to set.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.meals
+	 */
+	public EventSchedule getMeals() {
+		return meals;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param meals The meals to set.
+	 */
+	public void setMeals(EventSchedule meals) {
+		this.meals = meals;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.injectionMinutes
+	 */
+	public int[] getInjectionMinutes() {
+		return injectionMinutes;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param injectionMinutes The injectionMinutes to set.
+	 */
+	public void setInjectionMinutes(int... injectionMinutes) {
+		this.injectionMinutes = injectionMinutes;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.doses1
+	 */
+	public double[] getDoses1() {
+		return doses1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param doses1 The doses1 to set.
+	 */
+	public void setDoses1(double... doses1) {
+		this.doses1 = doses1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.doses2
+	 */
+	public double[] getDoses2() {
+		return doses2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param doses2 The doses2 to set.
+	 */
+	public void setDoses2(double... doses2) {
+		this.doses2 = doses2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.maxDose
+	 */
+	public double getMaxDose() {
+		return maxDose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param maxDose The maxDose to set.
+	 */
+	public void setMaxDose(double maxDose) {
+		this.maxDose = maxDose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.doseIncrement
+	 */
+	public double getDoseIncrement() {
+		return doseIncrement;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param doseIncrement The doseIncrement to set.
+	 */
+	public void setDoseIncrement(double doseIncrement) {
+		this.doseIncrement = doseIncrement;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.initialStep
+	 */
+	public double getInitialStep() {
+		return initialStep;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param initialStep The initialStep to set.
+	 */
+	public void setInitialStep(double initialStep) {
+		this.initialStep = initialStep;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetLow
+	 */
+	public double getTargetLow() {
+		return targetLow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param targetLow The targetLow to set.
+	 */
+	public void setTargetLow(double targetLow) {
+		this.targetLow = targetLow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetHigh
+	 */
+	public double getTargetHigh() {
+		return targetHigh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param targetHigh The targetHigh to set.
+	 */
+	public void setTargetHigh(double targetHigh) {
+		this.targetHigh = targetHigh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.maxMinutesBelow
+	 */
+	public int getMaxMinutesBelow() {
+		return maxMinutesBelow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param maxMinutesBelow The maxMinutesBelow to set.
+	 */
+	public void setMaxMinutesBelow(int maxMinutesBelow) {
+		this.maxMinutesBelow = maxMinutesBelow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.maxIterations
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param maxIterations The maxIterations to set.
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+}
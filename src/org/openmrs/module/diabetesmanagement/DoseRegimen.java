@@ -0,0 +1,130 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Insulin doses found by a {@link DoseOptimization}, with the outcome of the simulated day.
+ */
+public class DoseRegimen {
+	
+	/** Minute offsets of the injections. */
+	private final int[] injectionMinutes;
+	
+	/** Doses of the first insulin type. (U) */
+	private final double[] doses1;
+	
+	/** Doses of the second insulin type. (U) */
+	private final double[] doses2;
+	
+	/** Time outside the target range on the last simulated day. (min) */
+	private final int minutesOutside;
+	
+	/** Time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} on the last simulated day. (min) */
+	private final int minutesBelow;
+	
+	/** Whether the time below the hypoglycemia threshold is acceptable. */
+	private final boolean feasible;
+	
+	/** Number of regimens simulated during the search. */
+	private final int evaluations;
+	
+	// Constructors
+	
+	/**
+	 * Creates a regimen.
+	 * 
+	 * @param injectionMinutes Minute offsets of the injections.
+	 * @param doses1 Doses of the first insulin type. (U)
+	 * @param doses2 Doses of the second insulin type. (U)
+	 * @param minutesOutside Time outside the target range. (min)
+	 * @param minutesBelow Time below the hypoglycemia threshold. (min)
+	 * @param feasible Whether the time below the threshold is acceptable.
+	 * @param evaluations Number of regimens simulated during the search.
+	 */
+	public DoseRegimen(int[] injectionMinutes, double[] doses1, double[] doses2, int minutesOutside, int minutesBelow,
+	    boolean feasible, int evaluations) {
+		this.injectionMinutes = injectionMinutes;
+		this.doses1 = doses1;
+		this.doses2 = doses2;
+		this.minutesOutside = minutesOutside;
+		this.minutesBelow = minutesBelow;
+		this.feasible = feasible;
+		this.evaluations = evaluations;
+	}
+	
+	// Getters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.injectionMinutes
+	 */
+	public int[] getInjectionMinutes() {
+		return injectionMinutes;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.doses1
+	 */
+	public double[] getDoses1() {
+		return doses1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.doses2
+	 */
+	public double[] getDoses2() {
+		return doses2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.minutesOutside
+	 */
+	public int getMinutesOutside() {
+		return minutesOutside;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.minutesBelow
+	 */
+	public int getMinutesBelow() {
+		return minutesBelow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.feasible
+	 */
+	public boolean isFeasible() {
+		return feasible;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.evaluations
+	 */
+	public int getEvaluations() {
+		return evaluations;
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Dual number for forward-mode automatic differentiation: a value together with its partial
+ * derivatives with respect to a fixed number of variables. Arithmetic on dual numbers applies the
+ * chain rule, so running the model equations on them yields the exact derivatives of the results
+ * along with the results, in a single pass and without finite differences.
+ */
+public final class DualNumber {
+	
+	/** The value. */
+	private final double value;
+	
+	/** Partial derivatives of the value. */
+	private final double[] derivatives;
+	
+	// Constructors
+	
+	/**
+	 * Creates a constant.
+	 * 
+	 * @param value The value.
+	 * @param variables Number of variables.
+	 */
+	public DualNumber(double value, int variables) {
+		this(value, new double[variables]);
+	}
+	
+	/**
+	 * Creates a dual number from a value and its derivatives. The array is not copied.
+	 * 
+	 * @param value The value.
+	 * @param derivatives Partial derivatives of the value.
+	 */
+	private DualNumber(double value, double[] derivatives) {
+		this.value = value;
+		this.derivatives = derivatives;
+	}
+	
+	/**
+	 * Creates a variable, whose derivative with respect to itself is 1.
+	 * 
+	 * @param value The value.
+	 * @param index Index of the variable.
+	 * @param variables Number of variables.
+	 * @return The variable.
+	 */
+	public static DualNumber variable(double value, int index, int variables) {
+		double[] derivatives = new double[variables];
+		derivatives[index] = 1.0;
+		return new DualNumber(value, derivatives);
+	}
+	
+	// Arithmetic
+	
+	/**
+	 * Sum.
+	 * 
+	 * @param x The other summand.
+	 * @return this + x
+	 */
+	public DualNumber plus(DualNumber x) {
+		double[] d = new double[derivatives.length];
+		for (int k = 0; k < d.length; k++)
+			d[k] = derivatives[k] + x.derivatives[k];
+		return new DualNumber(value + x.value, d);
+	}
+	
+	/**
+	 * Sum with a constant.
+	 * 
+	 * @param x The constant.
+	 * @return this + x
+	 */
+	public DualNumber plus(double x) {
+		return new DualNumber(value + x, derivatives);
+	}
+	
+	/**
+	 * Difference.
+	 * 
+	 * @param x The subtrahend.
+	 * @return this - x
+	 */
+	public DualNumber minus(DualNumber x) {
+		double[] d = new double[derivatives.length];
+		for (int k = 0; k < d.length; k++)
+			d[k] = derivatives[k] - x.derivatives[k];
+		return new DualNumber(value - x.value, d);
+	}
+	
+	/**
+	 * Difference with a constant.
+	 * 
+	 * @param x The constant.
+	 * @return this - x
+	 */
+	public DualNumber minus(double x) {
+		return new DualNumber(value - x, derivatives);
+	}
+	
+	/**
+	 * Product.
+	 * 
+	 * @param x The other factor.
+	 * @return this * x
+	 */
+	public DualNumber times(DualNumber x) {
+		double[] d = new double[derivatives.length];
+		for (int k = 0; k < d.length; k++)
+			d[k] = derivatives[k] * x.value + value * x.derivatives[k];
+		return new DualNumber(value * x.value, d);
+	}
+	
+	/**
+	 * Product with a constant.
+	 * 
+	 * @param x The constant.
+	 * @return this * x
+	 */
+	public DualNumber times(double x) {
+		double[] d = new double[derivatives.length];
+		for (int k = 0; k < d.length; k++)
+			d[k] = derivatives[k] * x;
+		return new DualNumber(value * x, d);
+	}
+	
+	/**
+	 * Quotient.
+	 * 
+	 * @param x The divisor.
+	 * @return this / x
+	 */
+	public DualNumber divide(DualNumber x) {
+		double[] d = new double[derivatives.length];
+		double q = value / x.value;
+		for (int k = 0; k < d.length; k++)
+			d[k] = (derivatives[k] - q * x.derivatives[k]) / x.value;
+		return new DualNumber(q, d);
+	}
+	
+	/**
+	 * Quotient by a constant.
+	 * 
+	 * @param x The constant.
+	 * @return this / x
+	 */
+	public DualNumber divide(double x) {
+		return times(1.0 / x);
+	}
+	
+	// Access
+	
+	/**
+	 * The value.
+	 * 
+	 * @return this.value
+	 */
+	public double getValue() {
+		return value;
+	}
+	
+	/**
+	 * Partial derivative with respect to a variable.
+	 * 
+	 * @param index Index of the variable.
+	 * @return The derivative.
+	 */
+	public double getDerivative(int index) {
+		return derivatives[index];
+	}
+	
+	/**
+	 * Number of variables.
+	 * 
+	 * @return The number of partial derivatives.
+	 */
+	public int getVariables() {
+		return derivatives.length;
+	}
+}
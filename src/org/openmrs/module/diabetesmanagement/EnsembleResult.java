@@ -0,0 +1,213 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Date;
+
+/**
+ * Streaming summary of the glucose results of an {@link UncertaintyEnsemble}. Members are added one
+ * at a time into fixed-width histograms per band point, so percentile bands of any size of ensemble
+ * take constant memory. Counts are integers, so partial results of parallel tasks can be merged in
+ * any order with the same outcome.
+ */
+public class EnsembleResult {
+	
+	/** Percentiles of the standard bands. */
+	public static final double[] PERCENTILES = { 5.0, 25.0, 50.0, 75.0, 95.0 };
+	
+	/** Width of a histogram bin. (mmol/l) */
+	public static final double BIN_WIDTH = 0.05;
+	
+	/** Number of histogram bins; higher values are counted in the last bin. */
+	public static final int BINS = 800;
+	
+	/** Minutes between two band points. */
+	private final int interval;
+	
+	/** Number of band points. */
+	private final int points;
+	
+	/** Histogram counts, BINS per band point. */
+	private final int[] counts;
+	
+	/** Number of members below the hypoglycemia threshold, per band point. */
+	private final int[] below;
+	
+	/** Number of members. */
+	private int members;
+	
+	/** Number of members with at least one hypoglycemic value during the day. */
+	private int hypoglycemicMembers;
+	
+	/** Total time below the hypoglycemia threshold of all members. (min) */
+	private long minutesBelow;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty result for one day.
+	 * 
+	 * @param interval Minutes between two band points; must divide a day.
+	 */
+	public EnsembleResult(int interval) {
+		if (interval < 1 || 1440 % interval != 0)
+			throw new IllegalArgumentException("Band interval must divide a day: " + interval);
+		this.interval = interval;
+		this.points = 1440 / interval + 1;
+		this.counts = new int[points * BINS];
+		this.below = new int[points];
+	}
+	
+	// Accumulation
+	
+	/**
+	 * Adds the results of one member.
+	 * 
+	 * @param glucose Glucose results of the day, e.g. of a {@link SimulationBatchAIDA}.
+	 * @param offset Index of the member's first value.
+	 * @param count Number of values of the day, including both midnights.
+	 * @param stepMinutes Minutes between two values; must divide the band interval.
+	 */
+	public void add(double[] glucose, int offset, int count, int stepMinutes) {
+		if (interval % stepMinutes != 0 || (count - 1) * stepMinutes != 1440)
+			throw new IllegalArgumentException("Results do not cover a day at a divisor of " + interval + " minutes!");
+		int stride = interval / stepMinutes;
+		for (int point = 0; point < points; point++) {
+			double g = glucose[offset + point * stride];
+			int bin = (int) (g / BIN_WIDTH);
+			counts[point * BINS + (bin < 0 ? 0 : bin >= BINS ? BINS - 1 : bin)]++;
+			if (g < GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD)
+				below[point]++;
+		}
+		int minutes = GlucoseMetrics.minutesBelow(glucose, offset, count, stepMinutes,
+		    GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD);
+		if (minutes > 0)
+			hypoglycemicMembers++;
+		minutesBelow += minutes;
+		members++;
+	}
+	
+	/**
+	 * Adds the counts of another result with the same band interval.
+	 * 
+	 * @param other The other result.
+	 */
+	public void merge(EnsembleResult other) {
+		if (other.interval != interval)
+			throw new IllegalArgumentException("Band intervals differ: " + other.interval);
+		for (int k = 0; k < counts.length; k++)
+			counts[k] += other.counts[k];
+		for (int k = 0; k < points; k++)
+			below[k] += other.below[k];
+		members += other.members;
+		hypoglycemicMembers += other.hypoglycemicMembers;
+		minutesBelow += other.minutesBelow;
+	}
+	
+	// Results
+	
+	/**
+	 * Number of members.
+	 * 
+	 * @return this.members
+	 */
+	public int getMembers() {
+		return members;
+	}
+	
+	/**
+	 * Minutes between two band points.
+	 * 
+	 * @return this.interval
+	 */
+	public int getInterval() {
+		return interval;
+	}
+	
+	/**
+	 * Number of band points.
+	 * 
+	 * @return this.points
+	 */
+	public int getPointCount() {
+		return points;
+	}
+	
+	/**
+	 * Estimates a percentile of the glucose level at a band point, interpolating linearly within the
+	 * histogram bin. The error is at most {@link #BIN_WIDTH}.
+	 * 
+	 * @param percentile The percentile, between 0 and 100.
+	 * @param point Index of the band point.
+	 * @return The glucose level. (mmol/l)
+	 */
+	public double getPercentile(double percentile, int point) {
+		if (members == 0)
+			return Double.NaN;
+		double rank = percentile / 100.0 * members;
+		int base = point * BINS;
+		int cumulative = 0;
+		for (int bin = 0; bin < BINS; bin++) {
+			int count = counts[base + bin];
+			if (count > 0 && cumulative + count >= rank)
+				return (bin + (rank - cumulative) / count) * BIN_WIDTH;
+			cumulative += count;
+		}
+		return BINS * BIN_WIDTH;
+	}
+	
+	/**
+	 * Estimates a percentile band over the day.
+	 * 
+	 * @param percentile The percentile, between 0 and 100.
+	 * @param start Time of the first band point.
+	 * @return The band.
+	 */
+	public TimeSeries getBand(double percentile, Date start) {
+		double[] values = new double[points];
+		for (int point = 0; point < points; point++)
+			values[point] = getPercentile(percentile, point);
+		return new TimeSeries(start, interval, values);
+	}
+	
+	/**
+	 * Probability of a glucose level below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} at a band
+	 * point.
+	 * 
+	 * @param point Index of the band point.
+	 * @return The probability.
+	 */
+	public double getHypoglycemiaProbability(int point) {
+		return members == 0 ? 0.0 : (double) below[point] / members;
+	}
+	
+	/**
+	 * Probability of at least one glucose level below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD}
+	 * during the day.
+	 * 
+	 * @return The probability.
+	 */
+	public double getHypoglycemiaProbability() {
+		return members == 0 ? 0.0 : (double) hypoglycemicMembers / members;
+	}
+	
+	/**
+	 * Expected time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} during the day.
+	 * 
+	 * @return The mean time. (min)
+	 */
+	public double getMeanMinutesBelow() {
+		return members == 0 ? 0.0 : (double) minutesBelow / members;
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Compiled schedule of meals and insulin injections for the simulation model. Events are stored as
+ * integer minute offsets from midnight, sorted in ascending order, together with their type and
+ * amount, so the model can walk through them with a cursor instead of looking up dates.
+ */
+public class EventSchedule {
+	
+	/** Event type of a meal. (amount in g carbohydrate) */
+	public static final int MEAL = 0;
+	
+	/** Event type of an injection of the first insulin type. (amount in U) */
+	public static final int INSULIN_1 = 1;
+	
+	/** Event type of an injection of the second insulin type. (amount in U) */
+	public static final int INSULIN_2 = 2;
+	
+	/** Minute offsets of the events, in ascending order. */
+	private int[] minutes;
+	
+	/** Types of the events. */
+	private int[] types;
+	
+	/** Amounts of the events. */
+	private double[] amounts;
+	
+	/** Number of events. */
+	private int size;
+	
+	// Constructors
+	
+	/** Default constructor. Creates an empty schedule. */
+	public EventSchedule() {
+		minutes = new int[16];
+		types = new int[16];
+		amounts = new double[16];
+	}
+	
+	/**
+	 * Compiles a schedule from the date-keyed meals and insulin injections used by
+	 * {@link SimulationModelAIDA}. Only events on the given day at full minutes are included.
+	 * 
+	 * @param meals Times and carbohydrate amounts of meals, or null.
+	 * @param insulinInjections1 Injection times and doses of the first insulin type, or null.
+	 * @param insulinInjections2 Injection times and doses of the second insulin type, or null.
+	 * @param day Any time on the simulated day.
+	 * @return The compiled schedule.
+	 */
+	public static EventSchedule fromMaps(Map<Date, Double> meals, Map<Date, Double> insulinInjections1,
+	                                     Map<Date, Double> insulinInjections2, Date day) {
+		EventSchedule schedule = new EventSchedule();
+		Calendar ref = Calendar.getInstance();
+		ref.setTime(day);
+		Calendar cal = Calendar.getInstance();
+		schedule.addAll(meals, MEAL, ref, cal);
+		schedule.addAll(insulinInjections1, INSULIN_1, ref, cal);
+		schedule.addAll(insulinInjections2, INSULIN_2, ref, cal);
+		return schedule;
+	}
+	
+	// Modification
+	
+	/**
+	 * Adds a meal.
+	 * 
+	 * @param minute Minute offset from midnight.
+	 * @param carbs Carbohydrate amount in g.
+	 */
+	public void addMeal(int minute, double carbs) {
+		add(minute, MEAL, carbs);
+	}
+	
+	/**
+	 * Adds an injection of the first insulin type.
+	 * 
+	 * @param minute Minute offset from midnight.
+	 * @param dose Insulin dose in U.
+	 */
+	public void addInsulinInjection1(int minute, double dose) {
+		add(minute, INSULIN_1, dose);
+	}
+	
+	/**
+	 * Adds an injection of the second insulin type.
+	 * 
+	 * @param minute Minute offset from midnight.
+	 * @param dose Insulin dose in U.
+	 */
+	public void addInsulinInjection2(int minute, double dose) {
+		add(minute, INSULIN_2, dose);
+	}
+	
+	/**
+	 * Adds an event, keeping the events sorted by minute. Events at the same minute keep the order
+	 * in which they were added.
+	 * 
+	 * @param minute Minute offset from midnight.
+	 * @param type Event type ({@link #MEAL}, {@link #INSULIN_1} or {@link #INSULIN_2}).
+	 * @param amount Amount of carbohydrate (g) or insulin (U).
+	 */
+	public void add(int minute, int type, double amount) {
+		if (minute < 0)
+			throw new IllegalArgumentException("Minute offset must not be negative: " + minute);
+		if (type < MEAL || type > INSULIN_2)
+			throw new IllegalArgumentException("Unknown event type: " + type);
+		
+		if (size == minutes.length) {
+			int capacity = size * 2;
+			int[] newMinutes = new int[capacity];
+			int[] newTypes = new int[capacity];
+			double[] newAmounts = new double[capacity];
+			System.arraycopy(minutes, 0, newMinutes, 0, size);
+			System.arraycopy(types, 0, newTypes, 0, size);
+			System.arraycopy(amounts, 0, newAmounts, 0, size);
+			minutes = newMinutes;
+			types = newTypes;
+			amounts = newAmounts;
+		}
+		
+		int k = size;
+		while (k > 0 && minutes[k - 1] > minute) {
+			minutes[k] = minutes[k - 1];
+			types[k] = types[k - 1];
+			amounts[k] = amounts[k - 1];
+			k--;
+		}
+		minutes[k] = minute;
+		types[k] = type;
+		amounts[k] = amount;
+		size++;
+	}
+	
+	// Access
+	
+	/**
+	 * Number of events.
+	 * 
+	 * @return this.size
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Minute offset of the event at the given index.
+	 * 
+	 * @param index Index of the event.
+	 * @return Minute offset from midnight.
+	 */
+	public int getMinute(int index) {
+		return minutes[index];
+	}
+	
+	/**
+	 * Type of the event at the given index.
+	 * 
+	 * @param index Index of the event.
+	 * @return The event type.
+	 */
+	public int getType(int index) {
+		return types[index];
+	}
+	
+	/**
+	 * Amount of the event at the given index.
+	 * 
+	 * @param index Index of the event.
+	 * @return Amount of carbohydrate (g) or insulin (U).
+	 */
+	public double getAmount(int index) {
+		return amounts[index];
+	}
+	
+	/**
+	 * Adds the entries of a date-keyed map, if they are on the reference day at full minutes.
+	 * 
+	 * @param events Time-stamped amounts, or null.
+	 * @param type Event type of the entries.
+	 * @param ref Calendar set to the reference day.
+	 * @param cal Calendar used for the conversion.
+	 */
+	private void addAll(Map<Date, Double> events, int type, Calendar ref, Calendar cal) {
+		if (events == null)
+			return;
+		for (Entry<Date, Double> e : events.entrySet()) {
+			if (e.getKey() == null || e.getValue() == null)
+				continue;
+			cal.setTime(e.getKey());
+			if (cal.get(Calendar.YEAR) == ref.get(Calendar.YEAR)
+			        && cal.get(Calendar.DAY_OF_YEAR) == ref.get(Calendar.DAY_OF_YEAR) && cal.get(Calendar.SECOND) == 0
+			        && cal.get(Calendar.MILLISECOND) == 0)
+				add(cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE), type, e.getValue());
+		}
+	}
+}
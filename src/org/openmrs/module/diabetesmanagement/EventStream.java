@@ -0,0 +1,53 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Time-ordered stream of meals and insulin injections for multi-day simulations, see
+ * {@link SimulationKernelAIDA#runStream(EventStream, int, ResultSink)}. Unlike an
+ * {@link EventSchedule}, events are not repeated every day, and they are read one at a time, so a
+ * stream can cover any number of days without holding all of its events.
+ */
+public interface EventStream {
+	
+	/**
+	 * Advances to the next event. Must be called before the first event is read.
+	 * 
+	 * @return true if there is another event; false at the end of the stream.
+	 */
+	public boolean next();
+	
+	/**
+	 * Minute offset of the current event from midnight of the first simulated day. Events must be
+	 * in ascending order.
+	 * 
+	 * @return The minute offset.
+	 */
+	public long getMinute();
+	
+	/**
+	 * Type of the current event.
+	 * 
+	 * @return {@link EventSchedule#MEAL}, {@link EventSchedule#INSULIN_1} or
+	 *         {@link EventSchedule#INSULIN_2}.
+	 */
+	public int getType();
+	
+	/**
+	 * Amount of the current event.
+	 * 
+	 * @return Amount of carbohydrate (g) or insulin (U).
+	 */
+	public double getAmount();
+}
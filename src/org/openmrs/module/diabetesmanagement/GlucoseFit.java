@@ -0,0 +1,869 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Estimation of a patient's insulin sensitivities and optionally RTG from observed glucose levels.
+ * The parameters are fitted by the Levenberg-Marquardt method, minimizing the squared error between
+ * the observed levels and the simulated levels of the last day at the same times of day. The
+ * Jacobian is computed by running the glucose equation of the Euler method on {@link DualNumber}s.
+ * <p>
+ * The Euler method looks NHGB up in the row of the truncated effective insulin level, which makes
+ * the glucose level a step function of sh. For the fit, NHGB is interpolated linearly between the
+ * rows instead, so it has a useful derivative. As in the Euler method, Ieq is always zero, so sp
+ * has no influence on the results; it is then reported as not fitted rather than given an
+ * arbitrary value.
+ */
+public class GlucoseFit {
+	
+	/** Index of sh in the parameter vector. */
+	public static final int SH = 0;
+	
+	/** Index of sp in the parameter vector. */
+	public static final int SP = 1;
+	
+	/** Index of RTG in the parameter vector. */
+	public static final int RTG_INDEX = 2;
+	
+	/** Smallest fitted insulin sensitivity. */
+	private static final double MIN_SENSITIVITY = 0.01;
+	
+	/** Body weight. (kg) */
+	private double weight;
+	
+	/** Creatinine clearance rate. (ml/min) */
+	private double CCR;
+	
+	/** Initial renal threshold of glucose. (mmol/l) */
+	private double RTG;
+	
+	/** Initial hepatic insulin sensitivity. */
+	private double sh;
+	
+	/** Initial peripheral insulin sensitivity. */
+	private double sp;
+	
+	/** Whether sh is fitted. */
+	private boolean fitSh = true;
+	
+	/** Whether sp is fitted. */
+	private boolean fitSp = true;
+	
+	/** Whether RTG is fitted. */
+	private boolean fitRTG = false;
+	
+	/** First insulin type. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Daily meals and injections. */
+	private EventSchedule schedule;
+	
+	/** Minute offsets of the observations from midnight. */
+	private int[] observationMinutes;
+	
+	/** Observed glucose levels. (mmol/l) */
+	private double[] observedGlucose;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	/** Largest number of iterations. */
+	private int maxIterations = 50;
+	
+	/** Relative decrease of the squared error below which the fit has converged. */
+	private double tolerance = 1e-6;
+	
+	/** Glucose input via the gut wall at each step, computed on first use. */
+	private double[] gutInput;
+	
+	/** Plasma insulin concentration after each step, looked up on first use. */
+	private double[] insulin;
+	
+	/** Observation times in ascending order, sorted on first use. */
+	private int[] sortedMinutes;
+	
+	/** Observed glucose levels in the order of 'sortedMinutes'. */
+	private double[] sortedGlucose;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public GlucoseFit() {
+	}
+	
+	// Fitting
+	
+	/**
+	 * Fits the selected parameters.
+	 * 
+	 * @return The estimate.
+	 */
+	public ParameterEstimate fit() {
+		validate();
+		boolean[] free = { fitSh, fitSp, fitRTG };
+		double[] p = { sh, sp, RTG };
+		int n = observedGlucose.length;
+		
+		double[] r = new double[n];
+		double[][] J = new double[n][3];
+		double sse = evaluate(p, r, J);
+		double initialSse = sse;
+		double[][] A = new double[3][3];
+		double[] g = new double[3];
+		boolean[] fitted = new boolean[3];
+		double lambda = 1e-3;
+		int iteration = 0;
+		boolean converged = false;
+		double[] trial = new double[3];
+		double[] rTrial = new double[n];
+		double[][] JTrial = new double[n][3];
+		
+		while (iteration < maxIterations && !converged) {
+			iteration++;
+			
+			// Normal equations of the parameters that influence the results
+			normalEquations(J, r, A, g);
+			int active = 0;
+			for (int j = 0; j < 3; j++) {
+				fitted[j] = free[j] && A[j][j] > 0.0;
+				if (fitted[j])
+					active++;
+			}
+			if (active == 0 || sse == 0.0)
+				break;
+			
+			// Increase the damping until the step decreases the error
+			while (true) {
+				double[] step = solve(A, g, fitted, lambda);
+				for (int j = 0; j < 3; j++)
+					trial[j] = p[j] + step[j];
+				trial[SH] = Math.max(MIN_SENSITIVITY, trial[SH]);
+				trial[SP] = Math.max(MIN_SENSITIVITY, trial[SP]);
+				trial[RTG_INDEX] = Math.max(0.0, trial[RTG_INDEX]);
+				double trialSse = evaluate(trial, rTrial, JTrial);
+				if (trialSse < sse) {
+					converged = sse - trialSse <= tolerance * sse;
+					System.arraycopy(trial, 0, p, 0, 3);
+					System.arraycopy(rTrial, 0, r, 0, n);
+					for (int k = 0; k < n; k++)
+						System.arraycopy(JTrial[k], 0, J[k], 0, 3);
+					sse = trialSse;
+					lambda = Math.max(lambda / 10.0, 1e-12);
+					break;
+				}
+				lambda *= 10.0;
+				if (lambda > 1e12) {
+					converged = true;
+					break;
+				}
+			}
+		}
+		
+		return new ParameterEstimate(p[SH], p[SP], p[RTG_INDEX], fitted[SH], fitted[SP], fitted[RTG_INDEX], Math
+		        .sqrt(initialSse / n), Math.sqrt(sse / n), n, iteration, converged);
+	}
+	
+	/**
+	 * Simulates the glucose levels at the observation times, with their derivatives with respect to
+	 * sh, sp and RTG.
+	 * 
+	 * @param sh Hepatic insulin sensitivity.
+	 * @param sp Peripheral insulin sensitivity.
+	 * @param RTG Renal threshold of glucose.
+	 * @return The simulated glucose levels, one per observation.
+	 */
+	public DualNumber[] simulate(double sh, double sp, double RTG) {
+		final int stepsPerDay = SimulationKernelAIDA.iterations + 1;
+		final double h = SimulationKernelAIDA.h;
+		final double c = SimulationKernelAIDA.c, GI = SimulationKernelAIDA.GI, GX = SimulationKernelAIDA.GX;
+		final double Km = SimulationKernelAIDA.Km, Vg = SimulationKernelAIDA.Vg, Ibasal = SimulationKernelAIDA.Ibasal;
+		final double[] table = SimulationKernelAIDA.NHGBtable;
+		final int columns = SimulationKernelAIDA.NHGB_COLUMNS, maxRow = SimulationKernelAIDA.NHGB_MAX_ROW;
+		
+		double[] insulin = InsulinTrajectoryCache.getShared().getTrajectory(insulinType1.getParameterS(),
+		    insulinType1.getParameterA(), insulinType1.getParameterB(), insulinType2.getParameterS(),
+		    insulinType2.getParameterA(), insulinType2.getParameterB(), weight, I, schedule, days,
+		    AbsorptionCurveCache.getShared()).getInsulin();
+		double[] Gin = getGutInput();
+		int column = AG <= 1.1 ? 0 : AG >= 4.4 ? 2 : 1;
+		
+		DualNumber dsh = DualNumber.variable(sh, SH, 3);
+		DualNumber dsp = DualNumber.variable(sp, SP, 3);
+		DualNumber dRTG = DualNumber.variable(RTG, RTG_INDEX, 3);
+		DualNumber zero = new DualNumber(0.0, 3);
+		DualNumber g = new DualNumber(this.G, 3);
+		double renal = CCR * 60.0 / 1000.0;
+		double volume = Vg * weight;
+		double Ieq = 0.0;
+		
+		DualNumber[] result = new DualNumber[observationMinutes.length];
+		int n = 0;
+		for (int i = 0; i < days; i++) {
+			for (int j = 0; j < stepsPerDay; j++, n++) {
+				// NHGB interpolated between the rows of the effective insulin level after the last step
+				double Iprev = n == 0 ? I : insulin[n - 1];
+				DualNumber NHGB;
+				double x = sh * Iprev / Ibasal;
+				if (x >= maxRow)
+					NHGB = new DualNumber(table[maxRow * columns + column], 3);
+				else {
+					int row = (int) x;
+					double lower = table[row * columns + column], upper = table[(row + 1) * columns + column];
+					NHGB = dsh.times(Iprev / Ibasal).minus(row).times(upper - lower).plus(lower);
+				}
+				
+				// (8) Gout and (15) Gren
+				DualNumber Gout = g.times(dsp.times(c * weight * Ieq).plus(GI * weight)).times(Km + GX).divide(
+				    g.plus(Km).times(GX));
+				DualNumber Gren = g.getValue() > RTG ? g.minus(dRTG).times(renal) : zero;
+				
+				// (7) dG/dt = (Gin(t) + NHGB(t) - Gout(t) - Gren(t)) / Vg
+				g = g.plus(NHGB.minus(Gout).minus(Gren).plus(Gin[n]).times(h / volume));
+				if (g.getValue() < 0.0)
+					g = zero;
+				
+				if (i == days - 1)
+					for (int k = 0; k < observationMinutes.length; k++)
+						if (observationMinutes[k] == j)
+							result[k] = g;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Simulates the sum of squared residuals, without derivatives. Apart from the first call, this
+	 * allocates no objects, so it is suited as likelihood for samplers that run the model many
+	 * thousand times. After the first call, it only reads the fit and can be called from several
+	 * threads, as long as no setter is called.
+	 * 
+	 * @param sh Hepatic insulin sensitivity.
+	 * @param sp Peripheral insulin sensitivity.
+	 * @param RTG Renal threshold of glucose.
+	 * @return The sum of squared residuals.
+	 */
+	public double sumOfSquares(double sh, double sp, double RTG) {
+		final int stepsPerDay = SimulationKernelAIDA.iterations + 1;
+		final double h = SimulationKernelAIDA.h;
+		final double c = SimulationKernelAIDA.c, GI = SimulationKernelAIDA.GI, GX = SimulationKernelAIDA.GX;
+		final double Km = SimulationKernelAIDA.Km, Vg = SimulationKernelAIDA.Vg, Ibasal = SimulationKernelAIDA.Ibasal;
+		final double[] table = SimulationKernelAIDA.NHGBtable;
+		final int columns = SimulationKernelAIDA.NHGB_COLUMNS, maxRow = SimulationKernelAIDA.NHGB_MAX_ROW;
+		
+		if (insulin == null) {
+			validate();
+			insulin = InsulinTrajectoryCache.getShared().getTrajectory(insulinType1.getParameterS(),
+			    insulinType1.getParameterA(), insulinType1.getParameterB(), insulinType2.getParameterS(),
+			    insulinType2.getParameterA(), insulinType2.getParameterB(), weight, I, schedule, days,
+			    AbsorptionCurveCache.getShared()).getInsulin();
+			sortObservations();
+		}
+		final double[] insulin = this.insulin, Gin = getGutInput();
+		final int[] minutes = sortedMinutes;
+		final double[] observed = sortedGlucose;
+		int column = AG <= 1.1 ? 0 : AG >= 4.4 ? 2 : 1;
+		double renal = CCR * 60.0 / 1000.0;
+		double volume = Vg * weight;
+		double Ieq = 0.0;
+		
+		double g = this.G, sse = 0.0;
+		int n = 0, next = 0;
+		int firstOfLastDay = (days - 1) * stepsPerDay;
+		for (; n < days * stepsPerDay; n++) {
+			double Iprev = n == 0 ? I : insulin[n - 1];
+			double x = sh * Iprev / Ibasal;
+			double NHGB;
+			if (x >= maxRow)
+				NHGB = table[maxRow * columns + column];
+			else {
+				int row = (int) x;
+				double lower = table[row * columns + column];
+				NHGB = lower + (x - row) * (table[(row + 1) * columns + column] - lower);
+			}
+			double Gout = (g * ((c * weight) * sp * Ieq + (GI * weight)) * (Km + GX)) / (GX * (Km + g));
+			double Gren = g > RTG ? renal * (g - RTG) : 0.0;
+			g += (Gin[n] + NHGB - Gout - Gren) * (h / volume);
+			if (g < 0.0)
+				g = 0.0;
+			
+			while (n >= firstOfLastDay && next < minutes.length && minutes[next] == n - firstOfLastDay) {
+				double r = g - observed[next++];
+				sse += r * r;
+			}
+		}
+		return sse;
+	}
+	
+	/**
+	 * Number of observations.
+	 * 
+	 * @return The number of observations.
+	 */
+	public int getObservationCount() {
+		return observedGlucose.length;
+	}
+	
+	/**
+	 * Sorts the observations by time of day, for the allocation-free evaluation.
+	 */
+	private void sortObservations() {
+		Integer[] order = new Integer[observationMinutes.length];
+		for (int k = 0; k < order.length; k++)
+			order[k] = k;
+		Arrays.sort(order, new Comparator<Integer>() {
+			
+			public int compare(Integer a, Integer b) {
+				return observationMinutes[a] - observationMinutes[b];
+			}
+		});
+		sortedMinutes = new int[order.length];
+		sortedGlucose = new double[order.length];
+		for (int k = 0; k < order.length; k++) {
+			sortedMinutes[k] = observationMinutes[order[k]];
+			sortedGlucose[k] = observedGlucose[order[k]];
+		}
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (schedule == null)
+			throw new NullPointerException("Schedule must be set!");
+		if (observationMinutes == null || observedGlucose == null)
+			throw new NullPointerException("Observations must be set!");
+		if (observationMinutes.length != observedGlucose.length || observedGlucose.length == 0)
+			throw new IllegalArgumentException("Expected the same positive number of times and values: "
+			        + observationMinutes.length + ", " + observedGlucose.length);
+		for (int minute : observationMinutes)
+			if (minute < 0 || minute > SimulationKernelAIDA.iterations)
+				throw new IllegalArgumentException("Observation time out of range: " + minute);
+	}
+	
+	/**
+	 * Simulates the observations and their residuals.
+	 * 
+	 * @param p sh, sp and RTG.
+	 * @param r Receives the residuals.
+	 * @param J Receives the derivatives of the residuals.
+	 * @return The sum of squared residuals.
+	 */
+	private double evaluate(double[] p, double[] r, double[][] J) {
+		DualNumber[] simulated = simulate(p[SH], p[SP], p[RTG_INDEX]);
+		double sse = 0.0;
+		for (int k = 0; k < r.length; k++) {
+			r[k] = simulated[k].getValue() - observedGlucose[k];
+			for (int j = 0; j < 3; j++)
+				J[k][j] = simulated[k].getDerivative(j);
+			sse += r[k] * r[k];
+		}
+		return sse;
+	}
+	
+	/**
+	 * Computes the normal equations J^T J and J^T r.
+	 * 
+	 * @param J The Jacobian.
+	 * @param r The residuals.
+	 * @param A Receives J^T J.
+	 * @param g Receives J^T r.
+	 */
+	private static void normalEquations(double[][] J, double[] r, double[][] A, double[] g) {
+		for (int a = 0; a < 3; a++) {
+			g[a] = 0.0;
+			for (int b = 0; b < 3; b++)
+				A[a][b] = 0.0;
+		}
+		for (int k = 0; k < r.length; k++) {
+			for (int a = 0; a < 3; a++) {
+				g[a] += J[k][a] * r[k];
+				for (int b = 0; b < 3; b++)
+					A[a][b] += J[k][a] * J[k][b];
+			}
+		}
+	}
+	
+	/**
+	 * Solves the damped normal equations (A + lambda diag(A)) step = -g for the active parameters by
+	 * Gaussian elimination.
+	 * 
+	 * @param A J^T J.
+	 * @param g J^T r.
+	 * @param active Which parameters are changed.
+	 * @param lambda The damping.
+	 * @return The step, zero for inactive parameters.
+	 */
+	private static double[] solve(double[][] A, double[] g, boolean[] active, double lambda) {
+		int[] index = new int[3];
+		int size = 0;
+		for (int j = 0; j < 3; j++)
+			if (active[j])
+				index[size++] = j;
+		double[][] M = new double[size][size + 1];
+		for (int a = 0; a < size; a++) {
+			for (int b = 0; b < size; b++)
+				M[a][b] = A[index[a]][index[b]];
+			M[a][a] *= 1.0 + lambda;
+			M[a][size] = -g[index[a]];
+		}
+		for (int col = 0; col < size; col++) {
+			int pivot = col;
+			for (int row = col + 1; row < size; row++)
+				if (Math.abs(M[row][col]) > Math.abs(M[pivot][col]))
+					pivot = row;
+			double[] swap = M[col];
+			M[col] = M[pivot];
+			M[pivot] = swap;
+			for (int row = col + 1; row < size; row++) {
+				double f = M[row][col] / M[col][col];
+				for (int k = col; k <= size; k++)
+					M[row][k] -= f * M[col][k];
+			}
+		}
+		double[] step = new double[3];
+		for (int a = size - 1; a >= 0; a--) {
+			double sum = M[a][size];
+			for (int b = a + 1; b < size; b++)
+				sum -= M[a][b] * step[index[b]];
+			step[index[a]] = sum / M[a][a];
+		}
+		return step;
+	}
+	
+	/**
+	 * Computes the glucose input via the gut wall at each step, exactly as the Euler method of
+	 * {@link SimulationKernelAIDA}. It only depends on the meals.
+	 * 
+	 * @return Gin after each step.
+	 */
+	private double[] getGutInput() {
+		if (gutInput != null)
+			return gutInput;
+		final int stepsPerDay = SimulationKernelAIDA.iterations + 1;
+		final double h = SimulationKernelAIDA.h;
+		final double kgabs = SimulationKernelAIDA.kgabs, Vmaxge = SimulationKernelAIDA.Vmaxge;
+		double[] result = new double[days * stepsPerDay];
+		double Ggut = 0.0, Ch = 0.0, Tmaxge = 0.0, Tascge = 0.5, Tdesge = 0.5;
+		int t_meal = 0;
+		int n = 0;
+		for (int i = 0; i < days; i++) {
+			int cursor = 0;
+			for (int j = 0; j < stepsPerDay; j++, n++) {
+				boolean meal = false;
+				double carbs = 0.0;
+				while (cursor < schedule.size() && schedule.getMinute(cursor) == j) {
+					if (schedule.getType(cursor) == EventSchedule.MEAL) {
+						meal = true;
+						carbs = schedule.getAmount(cursor);
+					}
+					cursor++;
+				}
+				
+				// (10) to (12) Gastric emptying parameters
+				if (meal) {
+					Ch = carbs / 180.0 * 1000.0;
+					t_meal = 0;
+					double Chcrit = ((Tascge + Tdesge) * Vmaxge) / 2.0;
+					if (Ch <= Chcrit) {
+						Tascge = Ch / Vmaxge;
+						Tdesge = Tascge;
+					} else {
+						Tascge = 0.5;
+						Tdesge = 0.5;
+					}
+					if (Ch > Chcrit)
+						Tmaxge = (Ch - (0.5 * Vmaxge) * (2.0 * (Tascge + Tdesge))) / Vmaxge;
+					else
+						Tmaxge = 0.0;
+				} else if (Ch > 0.0)
+					t_meal++;
+				
+				// (9) d(Ggut)/dt = Gempt - kgabs * Ggut, (14) Gin = kgabs * Ggut
+				double Gempt = SimulationBatchAIDA.gastricEmptying(t_meal * h, Tascge, Tmaxge, Tdesge);
+				Ggut += h * (Gempt - kgabs * Ggut);
+				if (Ggut < 0.0)
+					Ggut = 0.0;
+				result[n] = kgabs * Ggut;
+			}
+		}
+		gutInput = result;
+		return result;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Sets the observations.
+	 * 
+	 * @param minutes Minute offsets of the observations from midnight.
+	 * @param glucose Observed glucose levels. (mmol/l)
+	 */
+	public void setObservations(int[] minutes, double[] glucose) {
+		this.observationMinutes = minutes;
+		this.observedGlucose = glucose;
+		this.insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weight The weight to set.
+	 */
+	public void setWeight(double weight) {
+		this.weight = weight;
+		insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCR
+	 */
+	public double getCCR() {
+		return CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCR The CCR to set.
+	 */
+	public void setCCR(double CCR) {
+		this.CCR = CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTG The RTG to set.
+	 */
+	public void setRTG(double RTG) {
+		this.RTG = RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sh The sh to set.
+	 */
+	public void setSh(double sh) {
+		this.sh = sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sp The sp to set.
+	 */
+	public void setSp(double sp) {
+		this.sp = sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.fitSh
+	 */
+	public boolean isFitSh() {
+		return fitSh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param fitSh The fitSh to set.
+	 */
+	public void setFitSh(boolean fitSh) {
+		this.fitSh = fitSh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.fitSp
+	 */
+	public boolean isFitSp() {
+		return fitSp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param fitSp The fitSp to set.
+	 */
+	public void setFitSp(boolean fitSp) {
+		this.fitSp = fitSp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.fitRTG
+	 */
+	public boolean isFitRTG() {
+		return fitRTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param fitRTG The fitRTG to set.
+	 */
+	public void setFitRTG(boolean fitRTG) {
+		this.fitRTG = fitRTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 The insulinType1 to set.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+		insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 The insulinType2 to set.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+		insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule The schedule to set.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+		gutInput = null;
+		insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.observationMinutes
+	 */
+	public int[] getObservationMinutes() {
+		return observationMinutes;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.observedGlucose
+	 */
+	public double[] getObservedGlucose() {
+		return observedGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+		insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+		gutInput = null;
+		insulin = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.maxIterations
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param maxIterations The maxIterations to set.
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.tolerance
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param tolerance The tolerance to set.
+	 */
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Outcome metrics of a simulated day, calculated from dense glucose results such as those of
+ * {@link SimulationBatchAIDA}. All methods work on a range of a primitive array, so they can be
+ * applied to one member of a batch without copying.
+ */
+public class GlucoseMetrics {
+	
+	/** Glucose level below which a value counts as hypoglycemic. (mmol/l) */
+	public static final double HYPOGLYCEMIA_THRESHOLD = 3.9;
+	
+	/** Utility class, not instantiated. */
+	private GlucoseMetrics() {
+	}
+	
+	/**
+	 * Mean glucose level of one day. The last value (the second midnight) is excluded, so every
+	 * interval of the day is counted once.
+	 * 
+	 * @param values Glucose results.
+	 * @param offset Index of the first value of the day.
+	 * @param count Number of values of the day, including both midnights.
+	 * @return The mean glucose level. (mmol/l)
+	 */
+	public static double mean(double[] values, int offset, int count) {
+		double sum = 0.0;
+		for (int k = offset; k < offset + count - 1; k++)
+			sum += values[k];
+		return sum / (count - 1);
+	}
+	
+	/**
+	 * Time spent below the given glucose level during one day, counting each value that is below
+	 * the level as one full interval. The last value (the second midnight) is excluded.
+	 * 
+	 * @param values Glucose results.
+	 * @param offset Index of the first value of the day.
+	 * @param count Number of values of the day, including both midnights.
+	 * @param stepMinutes Minutes between two values.
+	 * @param level The glucose level, e.g. {@link #HYPOGLYCEMIA_THRESHOLD}. (mmol/l)
+	 * @return The time below the level. (min)
+	 */
+	public static int minutesBelow(double[] values, int offset, int count, int stepMinutes, double level) {
+		int below = 0;
+		for (int k = offset; k < offset + count - 1; k++)
+			if (values[k] < level)
+				below++;
+		return below * stepMinutes;
+	}
+	
+	/**
+	 * Time spent above the given glucose level during one day, counting each value that is above
+	 * the level as one full interval. The last value (the second midnight) is excluded.
+	 * 
+	 * @param values Glucose results.
+	 * @param offset Index of the first value of the day.
+	 * @param count Number of values of the day, including both midnights.
+	 * @param stepMinutes Minutes between two values.
+	 * @param level The glucose level. (mmol/l)
+	 * @return The time above the level. (min)
+	 */
+	public static int minutesAbove(double[] values, int offset, int count, int stepMinutes, double level) {
+		int above = 0;
+		for (int k = offset; k < offset + count - 1; k++)
+			if (values[k] > level)
+				above++;
+		return above * stepMinutes;
+	}
+	
+	/**
+	 * Area between the glucose curve and the nearest bound of a target range during one day, where
+	 * the curve is outside the range. Unlike the time outside the range, the area also tells apart
+	 * days that are outside the range all the time. The last value (the second midnight) is
+	 * excluded.
+	 * 
+	 * @param values Glucose results.
+	 * @param offset Index of the first value of the day.
+	 * @param count Number of values of the day, including both midnights.
+	 * @param stepMinutes Minutes between two values.
+	 * @param low Lower bound of the range. (mmol/l)
+	 * @param high Upper bound of the range. (mmol/l)
+	 * @return The area outside the range. (mmol/l min)
+	 */
+	public static double areaOutside(double[] values, int offset, int count, int stepMinutes, double low, double high) {
+		double area = 0.0;
+		for (int k = offset; k < offset + count - 1; k++) {
+			if (values[k] < low)
+				area += low - values[k];
+			else if (values[k] > high)
+				area += values[k] - high;
+		}
+		return area * stepMinutes;
+	}
+	
+	/**
+	 * Highest glucose level of one day.
+	 * 
+	 * @param values Glucose results.
+	 * @param offset Index of the first value of the day.
+	 * @param count Number of values of the day.
+	 * @return The peak glucose level. (mmol/l)
+	 */
+	public static double peak(double[] values, int offset, int count) {
+		double peak = Double.NEGATIVE_INFINITY;
+		for (int k = offset; k < offset + count; k++)
+			if (values[k] > peak)
+				peak = values[k];
+		return peak;
+	}
+	
+	/**
+	 * Lowest glucose level of one day.
+	 * 
+	 * @param values Glucose results.
+	 * @param offset Index of the first value of the day.
+	 * @param count Number of values of the day.
+	 * @return The lowest glucose level. (mmol/l)
+	 */
+	public static double nadir(double[] values, int offset, int count) {
+		double nadir = Double.POSITIVE_INFINITY;
+		for (int k = offset; k < offset + count; k++)
+			if (values[k] < nadir)
+				nadir = values[k];
+		return nadir;
+	}
+}
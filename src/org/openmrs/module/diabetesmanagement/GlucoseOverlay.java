@@ -0,0 +1,172 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Result sink comparing the simulated glucose levels with a patient's recorded blood glucose
+ * observations while a replay runs. The simulated level at the time of each observation is
+ * interpolated linearly between the neighbouring results, so each day's results can be discarded
+ * once they have been compared; results are passed on to another sink, if any.
+ */
+public class GlucoseOverlay implements ResultSink {
+	
+	/** Milliseconds per minute. */
+	private static final double MILLIS_PER_MINUTE = 60000.0;
+	
+	/** Cursor over the recorded glucose observations. */
+	private final ObservationCursor observations;
+	
+	/** Midnight of the first simulated day in milliseconds. */
+	private final long start;
+	
+	/** Factor converting recorded values to mmol/l. */
+	private final double factor;
+	
+	/** Sink receiving the results after the comparison, or null. */
+	private final ResultSink delegate;
+	
+	/** Whether the cursor is on an observation that has not been compared yet. */
+	private boolean pending;
+	
+	/** Whether the cursor is exhausted. */
+	private boolean exhausted;
+	
+	/** Last simulated glucose level of the previous day, or NaN before the first day. */
+	private double previous = Double.NaN;
+	
+	/** Error statistics of the compared observations. */
+	private final PredictionError error = new PredictionError();
+	
+	// Constructors
+	
+	/**
+	 * Creates an overlay.
+	 * 
+	 * @param observations Cursor over the recorded glucose observations.
+	 * @param start Midnight of the first simulated day in milliseconds.
+	 * @param factor Factor converting recorded values to mmol/l, e.g. 1/18 for mg/dl.
+	 * @param delegate Sink receiving the results after the comparison, or null.
+	 */
+	public GlucoseOverlay(ObservationCursor observations, long start, double factor, ResultSink delegate) {
+		this.observations = observations;
+		this.start = start;
+		this.factor = factor;
+		this.delegate = delegate;
+	}
+	
+	// Accumulation
+	
+	/**
+	 * Compares all observations up to the last result of the day. Observations after it are
+	 * compared with the next day, as they lie between this day's last result and the next day's
+	 * first one; observations after the last simulated day are not compared.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.ResultSink#write(org.openmrs.module.diabetesmanagement.ResultChunk)
+	 */
+	public void write(ResultChunk chunk) {
+		double[] glucose = chunk.getGlucose();
+		int size = chunk.size();
+		int step = chunk.getStepMinutes();
+		long first = chunk.getStartMinute();
+		long last = first + (long) (size - 1) * step;
+		
+		while (pending || (!exhausted && advance())) {
+			double minute = (observations.getDatetime() - start) / MILLIS_PER_MINUTE;
+			if (minute > last)
+				break;
+			pending = false;
+			double simulated;
+			if (minute < first) {
+				if (Double.isNaN(previous))
+					continue;
+				simulated = previous + (glucose[0] - previous) * (minute - (first - step)) / step;
+			} else {
+				double x = (minute - first) / step;
+				int k = (int) x;
+				simulated = k >= size - 1 ? glucose[size - 1] : glucose[k] + (glucose[k + 1] - glucose[k]) * (x - k);
+			}
+			compare(minute, observations.getValue() * factor, simulated);
+		}
+		previous = glucose[size - 1];
+		
+		if (delegate != null)
+			delegate.write(chunk);
+	}
+	
+	/**
+	 * Compares one recorded glucose level with the simulated one. Subclasses may override this to
+	 * collect further statistics.
+	 * 
+	 * @param minute Minute offset of the observation from midnight of the first simulated day.
+	 * @param recorded Recorded glucose level. (mmol/l)
+	 * @param simulated Simulated glucose level. (mmol/l)
+	 */
+	protected void compare(double minute, double recorded, double simulated) {
+		error.add(recorded, simulated);
+	}
+	
+	/**
+	 * Moves the cursor to the next observation with a value.
+	 * 
+	 * @return true if there is one.
+	 */
+	private boolean advance() {
+		while (observations.next())
+			if (observations.getValue() != null) {
+				pending = true;
+				return true;
+			}
+		exhausted = true;
+		return false;
+	}
+	
+	// Results
+	
+	/**
+	 * Error statistics of the compared observations.
+	 * 
+	 * @return this.error
+	 */
+	public PredictionError getError() {
+		return error;
+	}
+	
+	/**
+	 * Number of compared observations.
+	 * 
+	 * @return The number of observations.
+	 */
+	public long getCount() {
+		return error.getCount();
+	}
+	
+	/**
+	 * Mean absolute difference between simulated and recorded glucose levels.
+	 * 
+	 * @return The mean absolute error in mmol/l, or NaN if nothing was compared.
+	 */
+	public double getMeanAbsoluteError() {
+		return error.getMeanAbsoluteError();
+	}
+	
+	/**
+	 * Mean difference between simulated and recorded glucose levels.
+	 * 
+	 * @return The bias in mmol/l (positive if the model overestimates), or NaN if nothing was
+	 *         compared.
+	 */
+	public double getBias() {
+		return error.getBias();
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Running summary of the glucose results of a multi-day simulation: mean, standard deviation,
+ * extremes and the time below, within and above a target range. Receives the results as a
+ * {@link ResultSink}, so its memory does not depend on the number of days, and summaries of several
+ * runs can be merged.
+ */
+public class GlucoseSummary implements ResultSink {
+	
+	/** Default upper limit of the target range. (mmol/l) */
+	public static final double TARGET_HIGH = 10.0;
+	
+	/** Lower limit of the target range. (mmol/l) */
+	private final double targetLow;
+	
+	/** Upper limit of the target range. (mmol/l) */
+	private final double targetHigh;
+	
+	/** Number of values. */
+	private long count;
+	
+	/** Running mean and sum of squared differences from the mean (Welford). */
+	private double mean, m2;
+	
+	/** Extreme values. */
+	private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+	
+	/** Time below and above the target range. (min) */
+	private long minutesBelow, minutesAbove;
+	
+	/** Total time covered by the values. (min) */
+	private long minutes;
+	
+	/** Number of days received. */
+	private int days;
+	
+	// Constructors
+	
+	/**
+	 * Creates a summary for the target range from {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} to
+	 * {@link #TARGET_HIGH}.
+	 */
+	public GlucoseSummary() {
+		this(GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD, TARGET_HIGH);
+	}
+	
+	/**
+	 * Creates a summary for the given target range.
+	 * 
+	 * @param targetLow Lower limit of the target range. (mmol/l)
+	 * @param targetHigh Upper limit of the target range. (mmol/l)
+	 */
+	public GlucoseSummary(double targetLow, double targetHigh) {
+		if (targetLow >= targetHigh)
+			throw new IllegalArgumentException("Target range is empty: " + targetLow + " - " + targetHigh);
+		this.targetLow = targetLow;
+		this.targetHigh = targetHigh;
+	}
+	
+	// Accumulation
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.ResultSink#write(org.openmrs.module.diabetesmanagement.ResultChunk)
+	 */
+	public void write(ResultChunk chunk) {
+		double[] glucose = chunk.getGlucose();
+		int step = chunk.getStepMinutes();
+		for (int k = 0; k < chunk.size(); k++)
+			add(glucose[k], step);
+		days++;
+	}
+	
+	/**
+	 * Adds a single value, counted as one interval of the given length.
+	 * 
+	 * @param glucose Glucose level. (mmol/l)
+	 * @param stepMinutes Length of the interval. (min)
+	 */
+	public void add(double glucose, int stepMinutes) {
+		count++;
+		double delta = glucose - mean;
+		mean += delta / count;
+		m2 += delta * (glucose - mean);
+		if (glucose < min)
+			min = glucose;
+		if (glucose > max)
+			max = glucose;
+		if (glucose < targetLow)
+			minutesBelow += stepMinutes;
+		else if (glucose > targetHigh)
+			minutesAbove += stepMinutes;
+		minutes += stepMinutes;
+	}
+	
+	/**
+	 * Adds the values of another summary with the same target range.
+	 * 
+	 * @param other The other summary.
+	 */
+	public void merge(GlucoseSummary other) {
+		if (other.targetLow != targetLow || other.targetHigh != targetHigh)
+			throw new IllegalArgumentException("Target ranges differ: " + other.targetLow + " - " + other.targetHigh);
+		if (other.count == 0)
+			return;
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+		mean += delta * other.count / total;
+		count = total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		minutesBelow += other.minutesBelow;
+		minutesAbove += other.minutesAbove;
+		minutes += other.minutes;
+		days += other.days;
+	}
+	
+	// Results
+	
+	/**
+	 * Mean glucose level.
+	 * 
+	 * @return The mean, or NaN without values. (mmol/l)
+	 */
+	public double getMean() {
+		return count == 0 ? Double.NaN : mean;
+	}
+	
+	/**
+	 * Sample standard deviation of the glucose levels.
+	 * 
+	 * @return The standard deviation, or NaN with fewer than two values. (mmol/l)
+	 */
+	public double getStandardDeviation() {
+		return count < 2 ? Double.NaN : Math.sqrt(m2 / (count - 1));
+	}
+	
+	/**
+	 * Fraction of the time within the target range.
+	 * 
+	 * @return The fraction, or NaN without values.
+	 */
+	public double getTimeInRange() {
+		return minutes == 0 ? Double.NaN : (double) (minutes - minutesBelow - minutesAbove) / minutes;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.count
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.min
+	 */
+	public double getMin() {
+		return min;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.max
+	 */
+	public double getMax() {
+		return max;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.minutesBelow
+	 */
+	public long getMinutesBelow() {
+		return minutesBelow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.minutesAbove
+	 */
+	public long getMinutesAbove() {
+		return minutesAbove;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetLow
+	 */
+	public double getTargetLow() {
+		return targetLow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetHigh
+	 */
+	public double getTargetHigh() {
+		return targetHigh;
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-silico trial comparing insulin regimens on a {@link VirtualPopulation}: every member is
+ * simulated under every arm with the same parameters (a paired design), and the outcomes of the
+ * last simulated day are compared with those of the first arm, the reference.
+ */
+public class InSilicoTrial {
+	
+	/** The virtual population. */
+	private VirtualPopulation population = new VirtualPopulation();
+	
+	/** Arms of the trial; the first is the reference. */
+	private final List<TrialArm> arms = new ArrayList<TrialArm>();
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public InSilicoTrial() {
+	}
+	
+	// Arms
+	
+	/**
+	 * Adds an arm; the first arm added is the reference.
+	 * 
+	 * @param arm The arm.
+	 */
+	public void addArm(TrialArm arm) {
+		arms.add(arm);
+	}
+	
+	/**
+	 * Names of the arms, in the order they were added.
+	 * 
+	 * @return The names.
+	 */
+	public String[] getArmNames() {
+		String[] names = new String[arms.size()];
+		for (int k = 0; k < names.length; k++)
+			names[k] = arms.get(k).getName();
+		return names;
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (population == null)
+			throw new NullPointerException("Population must be set!");
+		population.validate();
+		if (arms.size() < 2)
+			throw new IllegalArgumentException("At least two arms are required: " + arms.size());
+		for (TrialArm arm : arms) {
+			if (arm.getInsulinType1() == null || arm.getInsulinType2() == null)
+				throw new NullPointerException("Both insulin types of arm " + arm.getName() + " must be set!");
+			if (arm.getSchedule() == null)
+				throw new NullPointerException("Schedule of arm " + arm.getName() + " must be set!");
+		}
+		if (days < 1)
+			throw new IllegalArgumentException("Number of days must be positive: " + days);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.population
+	 */
+	public VirtualPopulation getPopulation() {
+		return population;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param population The population to set.
+	 */
+	public void setPopulation(VirtualPopulation population) {
+		this.population = population;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.arms
+	 */
+	public List<TrialArm> getArms() {
+		return arms;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+}
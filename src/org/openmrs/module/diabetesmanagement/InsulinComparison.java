@@ -0,0 +1,338 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.List;
+
+/**
+ * Comparison of all pairs of insulin types for one patient, meal plan and dose schedule. Every
+ * ordered pair of the given types, including a type paired with itself, takes the places of the
+ * first and second insulin type of the schedule, so the same doses are given at the same times
+ * with different absorption profiles.
+ */
+public class InsulinComparison {
+	
+	/** Body weight. (kg) */
+	private double weight;
+	
+	/** Renal threshold of glucose. (mmol/l) */
+	private double RTG;
+	
+	/** Creatinine clearance rate. (ml/min) */
+	private double CCR;
+	
+	/** Hepatic insulin sensitivity. */
+	private double sh;
+	
+	/** Peripheral insulin sensitivity. */
+	private double sp;
+	
+	/** Insulin types to pair. */
+	private List<InsulinType> insulinTypes;
+	
+	/** Meals and injections of both insulin types. */
+	private EventSchedule schedule;
+	
+	/** Lower bound of the target range. (mmol/l) */
+	private double targetLow = GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD;
+	
+	/** Upper bound of the target range. (mmol/l) */
+	private double targetHigh = GlucoseSummary.TARGET_HIGH;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public InsulinComparison() {
+	}
+	
+	// Pairs
+	
+	/**
+	 * Number of pairs.
+	 * 
+	 * @return The square of the number of insulin types.
+	 */
+	public int size() {
+		return insulinTypes.size() * insulinTypes.size();
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinTypes == null || schedule == null)
+			throw new NullPointerException("Insulin types and schedule must be set!");
+		if (insulinTypes.isEmpty())
+			throw new IllegalArgumentException("At least one insulin type must be set!");
+		for (InsulinType type : insulinTypes)
+			if (type == null || type.getParameterS() == null || type.getParameterA() == null
+			        || type.getParameterB() == null)
+				throw new NullPointerException("Insulin types must have all absorption parameters set!");
+		if (targetLow >= targetHigh)
+			throw new IllegalArgumentException("Target range is empty: " + targetLow + " - " + targetHigh);
+		if (days < 1)
+			throw new IllegalArgumentException("Number of days must be positive: " + days);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weight The weight to set.
+	 */
+	public void setWeight(double weight) {
+		this.weight = weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTG The RTG to set.
+	 */
+	public void setRTG(double RTG) {
+		this.RTG = RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCR
+	 */
+	public double getCCR() {
+		return CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCR The CCR to set.
+	 */
+	public void setCCR(double CCR) {
+		this.CCR = CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sh The sh to set.
+	 */
+	public void setSh(double sh) {
+		this.sh = sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sp The sp to set.
+	 */
+	public void setSp(double sp) {
+		this.sp = sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinTypes
+	 */
+	public List<InsulinType> getInsulinTypes() {
+		return insulinTypes;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinTypes The insulinTypes to set.
+	 */
+	public void setInsulinTypes(List<InsulinType> insulinTypes) {
+		this.insulinTypes = insulinTypes;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule The schedule to set.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetLow
+	 */
+	public double getTargetLow() {
+		return targetLow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param targetLow The targetLow to set.
+	 */
+	public void setTargetLow(double targetLow) {
+		this.targetLow = targetLow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetHigh
+	 */
+	public double getTargetHigh() {
+		return targetHigh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param targetHigh The targetHigh to set.
+	 */
+	public void setTargetHigh(double targetHigh) {
+		this.targetHigh = targetHigh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+}
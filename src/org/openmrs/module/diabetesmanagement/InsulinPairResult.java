@@ -0,0 +1,173 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Outcome of the last simulated day of one insulin pair of an {@link InsulinComparison}. Pairs are
+ * ranked by the time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD}, then by the time outside
+ * the target range, then by the area outside the range. Glucose levels are in mmol/l, unless
+ * converted by {@link #inMgdl()}.
+ */
+public class InsulinPairResult implements Comparable<InsulinPairResult> {
+	
+	/** First insulin type. */
+	private final InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private final InsulinType insulinType2;
+	
+	/** Mean glucose level. (mmol/l) */
+	private final double meanGlucose;
+	
+	/** Highest glucose level. (mmol/l) */
+	private final double peakGlucose;
+	
+	/** Time below the hypoglycemia threshold. (min) */
+	private final int minutesBelow;
+	
+	/** Time outside the target range. (min) */
+	private final int minutesOutside;
+	
+	/** Area between the glucose curve and the target range. (mmol/l * min) */
+	private final double areaOutside;
+	
+	/** Fraction of the day within the target range. */
+	private final double timeInRange;
+	
+	// Constructors
+	
+	/**
+	 * Creates a result.
+	 * 
+	 * @param insulinType1 First insulin type.
+	 * @param insulinType2 Second insulin type.
+	 * @param meanGlucose Mean glucose level. (mmol/l)
+	 * @param peakGlucose Highest glucose level. (mmol/l)
+	 * @param minutesBelow Time below the hypoglycemia threshold. (min)
+	 * @param minutesOutside Time outside the target range. (min)
+	 * @param areaOutside Area outside the target range. (mmol/l * min)
+	 * @param timeInRange Fraction of the day within the target range.
+	 */
+	public InsulinPairResult(InsulinType insulinType1, InsulinType insulinType2, double meanGlucose, double peakGlucose,
+	    int minutesBelow, int minutesOutside, double areaOutside, double timeInRange) {
+		this.insulinType1 = insulinType1;
+		this.insulinType2 = insulinType2;
+		this.meanGlucose = meanGlucose;
+		this.peakGlucose = peakGlucose;
+		this.minutesBelow = minutesBelow;
+		this.minutesOutside = minutesOutside;
+		this.areaOutside = areaOutside;
+		this.timeInRange = timeInRange;
+	}
+	
+	/**
+	 * Returns a copy with the glucose levels converted from mmol/l to mg/dl.
+	 * 
+	 * @return The copy.
+	 */
+	public InsulinPairResult inMgdl() {
+		double f = TimeSeries.MGDL_PER_MMOL;
+		return new InsulinPairResult(insulinType1, insulinType2, meanGlucose * f, peakGlucose * f, minutesBelow,
+		        minutesOutside, areaOutside * f, timeInRange);
+	}
+	
+	// Ranking
+	
+	/**
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 * @param other Another result.
+	 * @return Negative if this pair ranks before the other.
+	 */
+	public int compareTo(InsulinPairResult other) {
+		if (minutesBelow != other.minutesBelow)
+			return minutesBelow < other.minutesBelow ? -1 : 1;
+		if (minutesOutside != other.minutesOutside)
+			return minutesOutside < other.minutesOutside ? -1 : 1;
+		return Double.compare(areaOutside, other.areaOutside);
+	}
+	
+	// Getters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.meanGlucose
+	 */
+	public double getMeanGlucose() {
+		return meanGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.peakGlucose
+	 */
+	public double getPeakGlucose() {
+		return peakGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.minutesBelow
+	 */
+	public int getMinutesBelow() {
+		return minutesBelow;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.minutesOutside
+	 */
+	public int getMinutesOutside() {
+		return minutesOutside;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.areaOutside
+	 */
+	public double getAreaOutside() {
+		return areaOutside;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.timeInRange
+	 */
+	public double getTimeInRange() {
+		return timeInRange;
+	}
+}
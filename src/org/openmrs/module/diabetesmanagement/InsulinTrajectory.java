@@ -0,0 +1,163 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Plasma and active insulin levels of the AIDA model at every Euler step of a multi-day run. The
+ * insulin equations (1) and (2) are linear and do not depend on the glucose subsystem, so the
+ * trajectory is determined by the insulin types, the injections, the body weight and the initial
+ * insulin level alone. It can therefore be computed once and reused by all runs that only differ in
+ * glucose-related parameters (RTG, CCR, sh, sp, meals). The arithmetic is exactly that of
+ * {@link SimulationKernelAIDA}, so using a trajectory does not change any results.
+ */
+public class InsulinTrajectory {
+	
+	/** Number of simulated days. */
+	private final int days;
+	
+	/** Plasma insulin concentration after each step. (mU/l) */
+	private final double[] insulin;
+	
+	/** Active insulin pool after each step. */
+	private final double[] activeInsulin;
+	
+	// Constructors
+	
+	/**
+	 * Computes the trajectory.
+	 * 
+	 * @param s1 Parameter S of the first insulin type.
+	 * @param a1 Parameter A of the first insulin type.
+	 * @param b1 Parameter B of the first insulin type.
+	 * @param s2 Parameter S of the second insulin type.
+	 * @param a2 Parameter A of the second insulin type.
+	 * @param b2 Parameter B of the second insulin type.
+	 * @param weight Body weight. (kg)
+	 * @param I Initial plasma insulin concentration. (mU/l)
+	 * @param schedule Daily schedule; only the injections are used.
+	 * @param days Number of simulated days.
+	 * @param curves Cache of absorption curves, or null.
+	 */
+	public InsulinTrajectory(double s1, double a1, double b1, double s2, double a2, double b2, double weight, double I,
+	    EventSchedule schedule, int days, AbsorptionCurveCache curves) {
+		final int stepsPerDay = SimulationKernelAIDA.iterations + 1;
+		final double h = SimulationKernelAIDA.h;
+		final double Vi = SimulationKernelAIDA.Vi, ke = SimulationKernelAIDA.ke;
+		final double k1 = SimulationKernelAIDA.k1, k2 = SimulationKernelAIDA.k2;
+		this.days = days;
+		insulin = new double[days * stepsPerDay];
+		activeInsulin = new double[days * stepsPerDay];
+		
+		double Ia = 0.0;
+		double D1 = 0.0, D2 = 0.0, T50_1 = 0.0, T50_2 = 0.0;
+		int t_insulin1 = 0, t_insulin2 = 0;
+		double[] curve1 = null, curve2 = null;
+		int events = schedule.size();
+		int n = 0;
+		for (int i = 0; i < days; ++i) {
+			int cursor = 0;
+			for (int j = 0; j < stepsPerDay; ++j) {
+				boolean injection1 = false, injection2 = false;
+				double dose1 = 0.0, dose2 = 0.0;
+				while (cursor < events && schedule.getMinute(cursor) == j) {
+					if (schedule.getType(cursor) == EventSchedule.INSULIN_1) {
+						injection1 = true;
+						dose1 = schedule.getAmount(cursor);
+					} else if (schedule.getType(cursor) == EventSchedule.INSULIN_2) {
+						injection2 = true;
+						dose2 = schedule.getAmount(cursor);
+					}
+					cursor++;
+				}
+				
+				// (4) T50^s = a * D + b
+				if (injection1) {
+					t_insulin1 = 0;
+					if (curves != null && (curve1 == null || dose1 != D1))
+						curve1 = curves.getCurve(s1, a1, b1, dose1, h);
+					D1 = dose1;
+					T50_1 = a1 * D1 + b1;
+				} else if (D1 > 0.0)
+					t_insulin1++;
+				if (injection2) {
+					t_insulin2 = 0;
+					if (curves != null && (curve2 == null || dose2 != D2))
+						curve2 = curves.getCurve(s2, a2, b2, dose2, h);
+					D2 = dose2;
+					T50_2 = a2 * D2 + b2;
+				} else if (D2 > 0.0)
+					t_insulin2++;
+				
+				// (3) Iabs(t)
+				double Iabs1 = 0.0, Iabs2 = 0.0;
+				if (t_insulin1 > 0) {
+					if (curve1 != null && t_insulin1 < curve1.length)
+						Iabs1 = curve1[t_insulin1];
+					else
+						Iabs1 = AbsorptionCurveCache.absorptionRate(s1, T50_1, D1, t_insulin1 * h);
+				}
+				if (t_insulin2 > 0) {
+					if (curve2 != null && t_insulin2 < curve2.length)
+						Iabs2 = curve2[t_insulin2];
+					else
+						Iabs2 = AbsorptionCurveCache.absorptionRate(s2, T50_2, D2, t_insulin2 * h);
+				}
+				double Iabs = Iabs1 + Iabs2;
+				
+				// (1) dI/dt = Iabs / Vi - ke * I
+				I += h * ((Iabs * (Vi * weight)) - ke * I);
+				if (I < 0.0)
+					I = 0.0;
+				
+				// (2) dIa/dt = (k1 * I) - (k2 * Ia)
+				Ia += h * (k1 * I - k2 * Ia);
+				
+				insulin[n] = I;
+				activeInsulin[n] = Ia;
+				n++;
+			}
+		}
+	}
+	
+	// Access
+	
+	/**
+	 * Number of simulated days.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Plasma insulin concentration after each step; index (day * 1441 + minute). The array is
+	 * shared and must not be modified.
+	 * 
+	 * @return this.insulin
+	 */
+	public double[] getInsulin() {
+		return insulin;
+	}
+	
+	/**
+	 * Active insulin pool after each step; index (day * 1441 + minute). The array is shared and
+	 * must not be modified.
+	 * 
+	 * @return this.activeInsulin
+	 */
+	public double[] getActiveInsulin() {
+		return activeInsulin;
+	}
+}
@@ -0,0 +1,225 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link InsulinTrajectory} objects, keyed by the insulin type pair, the injection
+ * schedule, the body weight, the initial insulin level and the number of days. Parameter sweeps and
+ * Monte Carlo runs over glucose-related parameters hit the same entry over and over, so only the
+ * glucose subsystem has to be integrated. The least recently used trajectory is evicted when the
+ * cache is full. All methods are thread-safe.
+ */
+public class InsulinTrajectoryCache {
+	
+	/** Default maximum number of cached trajectories. */
+	public static final int DEFAULT_CAPACITY = 64;
+	
+	/** Cache shared by all simulation kernels. */
+	private static final InsulinTrajectoryCache shared = new InsulinTrajectoryCache(DEFAULT_CAPACITY);
+	
+	/** Cached trajectories in access order. */
+	private final LinkedHashMap<Key, InsulinTrajectory> trajectories;
+	
+	/** Maximum number of cached trajectories. */
+	private int capacity;
+	
+	/** Number of trajectories found in the cache. */
+	private long hits;
+	
+	/** Number of trajectories that had to be computed. */
+	private long misses;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty cache.
+	 * 
+	 * @param capacity Maximum number of cached trajectories.
+	 */
+	public InsulinTrajectoryCache(int capacity) {
+		setCapacity(capacity);
+		trajectories = new LinkedHashMap<Key, InsulinTrajectory>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 6385013374425936261L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, InsulinTrajectory> eldest) {
+				return size() > InsulinTrajectoryCache.this.capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cache shared by all simulation kernels.
+	 * 
+	 * @return The shared cache.
+	 */
+	public static InsulinTrajectoryCache getShared() {
+		return shared;
+	}
+	
+	// Access
+	
+	/**
+	 * Returns the insulin trajectory for the given inputs, computing it if it is not cached. See
+	 * {@link InsulinTrajectory#InsulinTrajectory} for the parameters.
+	 * 
+	 * @param s1 Parameter S of the first insulin type.
+	 * @param a1 Parameter A of the first insulin type.
+	 * @param b1 Parameter B of the first insulin type.
+	 * @param s2 Parameter S of the second insulin type.
+	 * @param a2 Parameter A of the second insulin type.
+	 * @param b2 Parameter B of the second insulin type.
+	 * @param weight Body weight. (kg)
+	 * @param I Initial plasma insulin concentration. (mU/l)
+	 * @param schedule Daily schedule; only the injections are used.
+	 * @param days Number of simulated days.
+	 * @param curves Cache of absorption curves used for the computation, or null.
+	 * @return The trajectory.
+	 */
+	public InsulinTrajectory getTrajectory(double s1, double a1, double b1, double s2, double a2, double b2,
+	    double weight, double I, EventSchedule schedule, int days, AbsorptionCurveCache curves) {
+		Key key = new Key(new double[] { s1, a1, b1, s2, a2, b2, weight, I }, schedule, days);
+		synchronized (this) {
+			InsulinTrajectory trajectory = trajectories.get(key);
+			if (trajectory != null) {
+				hits++;
+				return trajectory;
+			}
+			misses++;
+		}
+		
+		// Computed outside of the lock; a concurrent computation of the same trajectory only costs
+		// time since both results are identical
+		InsulinTrajectory trajectory = new InsulinTrajectory(s1, a1, b1, s2, a2, b2, weight, I, schedule, days, curves);
+		synchronized (this) {
+			trajectories.put(key, trajectory);
+		}
+		return trajectory;
+	}
+	
+	/**
+	 * Removes all trajectories and resets the statistics.
+	 */
+	public synchronized void clear() {
+		trajectories.clear();
+		hits = 0;
+		misses = 0;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.capacity
+	 */
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Getters/setters. Shrinking the capacity takes effect with the next added trajectory.
+	 * 
+	 * @param capacity Maximum number of cached trajectories.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Number of cached trajectories.
+	 * 
+	 * @return The size of the cache.
+	 */
+	public synchronized int size() {
+		return trajectories.size();
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Identifies a trajectory by its parameters, injections and number of days.
+	 */
+	private static class Key {
+		
+		private final double[] params;
+		
+		private final int[] minutes;
+		
+		private final double[] doses;
+		
+		private final int days;
+		
+		private final int hash;
+		
+		public Key(double[] params, EventSchedule schedule, int days) {
+			int n = 0;
+			for (int k = 0; k < schedule.size(); k++)
+				if (schedule.getType(k) != EventSchedule.MEAL)
+					n++;
+			// The type is encoded in the sign of the minute: channel 1 >= 0, channel 2 < 0
+			minutes = new int[n];
+			doses = new double[n];
+			n = 0;
+			for (int k = 0; k < schedule.size(); k++) {
+				if (schedule.getType(k) == EventSchedule.MEAL)
+					continue;
+				minutes[n] = schedule.getType(k) == EventSchedule.INSULIN_1 ? schedule.getMinute(k) : -1 - schedule
+				        .getMinute(k);
+				doses[n] = schedule.getAmount(k);
+				n++;
+			}
+			this.params = params;
+			this.days = days;
+			hash = 31 * (31 * (31 * Arrays.hashCode(params) + Arrays.hashCode(minutes)) + Arrays.hashCode(doses)) + days;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return hash == other.hash && days == other.days && Arrays.equals(params, other.params)
+			        && Arrays.equals(minutes, other.minutes) && Arrays.equals(doses, other.doses);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
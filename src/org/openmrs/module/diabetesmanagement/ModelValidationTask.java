@@ -0,0 +1,303 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
+import org.openmrs.Person;
+import org.openmrs.api.APIException;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.service.InsulinTypeService;
+import org.openmrs.module.diabetesmanagement.service.SimulationReplayService;
+import org.openmrs.scheduler.tasks.AbstractTask;
+import org.openmrs.util.OpenmrsUtil;
+
+/**
+ * Scheduled task that validates the model retrospectively: the recorded meals and injections of
+ * every patient with an open diabetes mellitus problem are replayed over the recent past, and the
+ * simulated glucose levels are compared with the recorded ones. The errors (MAE, bias, MARD and
+ * Clarke error grid zones) of each patient are written to a CSV report, and those of the cohort to
+ * the log. Patients are read in pages and validated in parallel by a fixed number of threads; after
+ * every page a checkpoint is saved, so a validation interrupted by a restart resumes with the next
+ * page. Meant to run nightly.
+ */
+public class ModelValidationTask extends AbstractTask {
+	
+	/** Global property holding the number of past days replayed. */
+	public static final String DAYS_PROPERTY = "diabetesmanagement.validation.days";
+	
+	/** Global property holding the number of threads validating patients. */
+	public static final String PARALLELISM_PROPERTY = "diabetesmanagement.validation.parallelism";
+	
+	/** Number of patients per page, and between two checkpoints. */
+	public static final int PAGE_SIZE = 200;
+	
+	/** Initial arterial glucose of the replayed model. (mmol/l) */
+	private static final double INITIAL_AG = 4.4;
+	
+	/** Logger for this class. */
+	private final Log log = LogFactory.getLog(this.getClass());
+	
+	/**
+	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
+	 */
+	@Override
+	public void execute() {
+		Context.openSession();
+		try {
+			if (!Context.isAuthenticated())
+				authenticate();
+			validateAll();
+		}
+		catch (Exception e) {
+			log.error("Error while validating the model", e);
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	/**
+	 * Validates all remaining pages of diabetic patients, starting a new validation if the last one
+	 * was complete.
+	 * 
+	 * @throws IOException If the report cannot be written.
+	 */
+	private void validateAll() throws IOException {
+		AdministrationService as = Context.getAdministrationService();
+		DiabetesManagementConfig config = new DiabetesManagementConfig();
+		Map<String, Concept> concepts = config.getRelevantConcepts();
+		List<Concept> problems = new ArrayList<Concept>();
+		if (concepts.get("t1dm") != null)
+			problems.add(concepts.get("t1dm"));
+		if (concepts.get("t2dm") != null)
+			problems.add(concepts.get("t2dm"));
+		if (problems.isEmpty() || concepts.get("glu") == null || concepts.get("carbs") == null) {
+			log.warn("Diabetes mellitus, glucose or carbohydrate concepts not configured, skipping model validation");
+			return;
+		}
+		String[] names = as.getGlobalProperty(ParameterFitTask.INSULIN_TYPES_PROPERTY, "").split(",");
+		InsulinTypeService its = (InsulinTypeService) Context.getService(InsulinTypeService.class);
+		InsulinType insulin1 = names.length == 2 ? its.getInsulinTypeByName(names[0].trim()) : null;
+		InsulinType insulin2 = names.length == 2 ? its.getInsulinTypeByName(names[1].trim()) : null;
+		if (insulin1 == null || insulin2 == null || insulin1.getConcept() == null || insulin2.getConcept() == null) {
+			log.warn("Invalid insulin types in " + ParameterFitTask.INSULIN_TYPES_PROPERTY + ", skipping model validation");
+			return;
+		}
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		String value = as.getGlobalProperty(PARALLELISM_PROPERTY, "");
+		if (value.trim().length() > 0)
+			threads = Math.max(1, Integer.parseInt(value.trim()));
+		
+		// Resume the last validation, or start a new one
+		File dir = OpenmrsUtil.getDirectoryInApplicationDataDirectory("diabetesmanagement/validation");
+		File checkpointFile = new File(dir, "checkpoint.ser");
+		File report = new File(dir, "patients.csv");
+		ValidationCheckpoint checkpoint = ValidationCheckpoint.load(checkpointFile);
+		if (checkpoint == null || checkpoint.isComplete()) {
+			Calendar cal = Calendar.getInstance();
+			Date to = cal.getTime();
+			cal.add(Calendar.DAY_OF_MONTH, -Integer.parseInt(as.getGlobalProperty(DAYS_PROPERTY, "90")));
+			checkpoint = new ValidationCheckpoint(cal.getTime(), to);
+			Writer writer = new OutputStreamWriter(new FileOutputStream(report), "UTF-8");
+			try {
+				writer.write("patient,observations,mae,bias,mard,zoneA,zoneB,zoneC,zoneD,zoneE\n");
+			}
+			finally {
+				writer.close();
+			}
+			checkpoint.setReportLength(report.length());
+			checkpoint.save(checkpointFile);
+		} else {
+			log.info("Resuming model validation after patient " + checkpoint.getLastPatientId());
+			// Drop report lines of a page that was not checkpointed
+			RandomAccessFile file = new RandomAccessFile(report, "rw");
+			try {
+				file.setLength(checkpoint.getReportLength());
+			}
+			finally {
+				file.close();
+			}
+		}
+		
+		SimulationReplayService srs = (SimulationReplayService) Context.getService(SimulationReplayService.class);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Integer> ids;
+			while (!(ids = srs.getPatientIdsWithOpenProblems(problems, checkpoint.getLastPatientId(), PAGE_SIZE))
+			        .isEmpty()) {
+				PredictionError[] errors = validatePage(pool, threads, ids, insulin1, insulin2, checkpoint);
+				
+				// Report first, then checkpoint, so a checkpointed page is always complete in the report
+				StringBuilder lines = new StringBuilder();
+				int validated = 0;
+				for (int k = 0; k < ids.size(); k++) {
+					PredictionError error = errors[k];
+					if (error == null || error.getCount() == 0)
+						continue;
+					lines.append(ids.get(k)).append(',').append(error.getCount()).append(',').append(
+					    error.getMeanAbsoluteError()).append(',').append(error.getBias()).append(',').append(
+					    error.getMeanAbsoluteRelativeDifference());
+					for (int zone = PredictionError.ZONE_A; zone <= PredictionError.ZONE_E; zone++)
+						lines.append(',').append(error.getZoneFraction(zone));
+					lines.append('\n');
+					checkpoint.getCohort().merge(error);
+					validated++;
+				}
+				Writer writer = new OutputStreamWriter(new FileOutputStream(report, true), "UTF-8");
+				try {
+					writer.write(lines.toString());
+				}
+				finally {
+					writer.close();
+				}
+				checkpoint.update(ids.get(ids.size() - 1), validated, ids.size() - validated, report.length());
+				checkpoint.save(checkpointFile);
+				Context.clearSession();
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		checkpoint.setComplete(true);
+		checkpoint.save(checkpointFile);
+		
+		PredictionError cohort = checkpoint.getCohort();
+		log.info("Validated the model on " + checkpoint.getPatients() + " patients (" + checkpoint.getSkipped()
+		        + " without glucose observations), " + cohort.getCount() + " glucose observations: MAE "
+		        + cohort.getMeanAbsoluteError() + " mmol/l, bias " + cohort.getBias() + " mmol/l, MARD "
+		        + cohort.getMeanAbsoluteRelativeDifference() + ", Clarke zones A-E "
+		        + Arrays.toString(new double[] { cohort.getZoneFraction(PredictionError.ZONE_A),
+		                cohort.getZoneFraction(PredictionError.ZONE_B), cohort.getZoneFraction(PredictionError.ZONE_C),
+		                cohort.getZoneFraction(PredictionError.ZONE_D), cohort.getZoneFraction(PredictionError.ZONE_E) }));
+	}
+	
+	/**
+	 * Validates a page of patients in parallel. Each thread opens its own session and takes the
+	 * next patient of the page until all are done.
+	 * 
+	 * @param pool The thread pool.
+	 * @param threads Number of threads of the pool.
+	 * @param ids IDs of the patients.
+	 * @param insulin1 First insulin type.
+	 * @param insulin2 Second insulin type.
+	 * @param checkpoint Checkpoint holding the validated period.
+	 * @return Errors of the patients, null where the validation failed.
+	 */
+	private PredictionError[] validatePage(ExecutorService pool, int threads, final List<Integer> ids,
+	                                       final InsulinType insulin1, final InsulinType insulin2,
+	                                       final ValidationCheckpoint checkpoint) {
+		final PredictionError[] errors = new PredictionError[ids.size()];
+		final AtomicInteger next = new AtomicInteger();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int t = 0; t < Math.min(threads, ids.size()); t++)
+			futures.add(pool.submit(new Callable<Void>() {
+				
+				public Void call() {
+					Context.openSession();
+					try {
+						if (!Context.isAuthenticated())
+							authenticate();
+						for (int k = next.getAndIncrement(); k < ids.size(); k = next.getAndIncrement()) {
+							try {
+								errors[k] = validatePatient(ids.get(k), insulin1, insulin2, checkpoint.getFrom(),
+								    checkpoint.getTo());
+							}
+							catch (Exception e) {
+								log.warn("Could not validate the model on patient " + ids.get(k), e);
+							}
+							finally {
+								Context.clearSession();
+							}
+						}
+					}
+					finally {
+						Context.closeSession();
+					}
+					return null;
+				}
+			}));
+		try {
+			for (Future<Void> future : futures)
+				future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Model validation interrupted", e);
+		}
+		catch (ExecutionException e) {
+			throw new APIException("Error while validating the model", e.getCause());
+		}
+		return errors;
+	}
+	
+	/**
+	 * Replays a patient's recorded meals and injections with the patient's last parameter values.
+	 * The day before the period is replayed first and not scored, so the scored replay starts from
+	 * the state reached with the patient's own events instead of the initial state.
+	 * 
+	 * @param patientId ID of the patient.
+	 * @param insulin1 First insulin type.
+	 * @param insulin2 Second insulin type.
+	 * @param from Start of the period.
+	 * @param to End of the period.
+	 * @return The errors of the simulated glucose levels.
+	 */
+	private PredictionError validatePatient(Integer patientId, InsulinType insulin1, InsulinType insulin2, Date from,
+	                                        Date to) {
+		Person p = Context.getPersonService().getPerson(patientId);
+		double[] parameters = new DiabetesManagementConfig().getPatientParameters(p);
+		
+		// Insulin parameters are set by the replay
+		SimulationModelAIDA model = new SimulationModelAIDA(parameters[VirtualPopulation.WEIGHT],
+		        parameters[VirtualPopulation.RTG], parameters[VirtualPopulation.CCR], parameters[VirtualPopulation.SH],
+		        parameters[VirtualPopulation.SP], null, null, null, null, null, null, null, null, null, INITIAL_AG);
+		SimulationReplayService srs = (SimulationReplayService) Context.getService(SimulationReplayService.class);
+		
+		// Warm-up day, ending at the midnight where the scored replay starts
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(from);
+		cal.set(Calendar.HOUR_OF_DAY, 0);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		Date midnight = cal.getTime();
+		cal.add(Calendar.DAY_OF_MONTH, -1);
+		srs.replay(p, model, insulin1, insulin2, cal.getTime(), midnight, null);
+		model.setWarmState(model.getFinalState());
+		
+		return srs.replay(p, model, insulin1, insulin2, from, to, null).getError();
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Date;
+import java.util.List;
+
+import org.openmrs.Concept;
+import org.openmrs.Person;
+import org.openmrs.module.diabetesmanagement.service.SimulationReplayService;
+
+/**
+ * Forward-only cursor over a patient's numeric observations of some concepts in ascending order of
+ * their date/time. Observations are read in pages with
+ * {@link SimulationReplayService#getObservationPage(Person, List, Date, Date, Date, Integer, int)},
+ * each continuing after the last row of the previous one, so only one page is held at a time
+ * however long the period is.
+ */
+public class ObservationCursor {
+	
+	/** Service reading the pages. */
+	private final SimulationReplayService service;
+	
+	/** The patient. */
+	private final Person person;
+	
+	/** Concepts of the observations. */
+	private final List<Concept> concepts;
+	
+	/** Start of the period (inclusive). */
+	private final Date from;
+	
+	/** End of the period (exclusive). */
+	private final Date to;
+	
+	/** Maximum number of rows per page. */
+	private final int pageSize;
+	
+	/** Current page, or null before the first page. */
+	private List<Object[]> page;
+	
+	/** Index of the current row in the page. */
+	private int index;
+	
+	/** Number of pages read. */
+	private int pages;
+	
+	/** Date/time of the last row read, where the next page continues. */
+	private Date afterDatetime;
+	
+	/** ID of the last row read, where the next page continues. */
+	private Integer afterObsId;
+	
+	/** Date/time of the current observation in milliseconds. */
+	private long datetime;
+	
+	/** Concept ID of the current observation. */
+	private int conceptId;
+	
+	/** Numeric value of the current observation, or null. */
+	private Double value;
+	
+	// Constructors
+	
+	/**
+	 * Creates a cursor before the first observation.
+	 * 
+	 * @param service Service reading the pages.
+	 * @param person The patient.
+	 * @param concepts Concepts of the observations.
+	 * @param from Start of the period (inclusive).
+	 * @param to End of the period (exclusive).
+	 * @param pageSize Maximum number of rows per page.
+	 */
+	public ObservationCursor(SimulationReplayService service, Person person, List<Concept> concepts, Date from, Date to,
+	    int pageSize) {
+		if (pageSize <= 0)
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		this.service = service;
+		this.person = person;
+		this.concepts = concepts;
+		this.from = from;
+		this.to = to;
+		this.pageSize = pageSize;
+	}
+	
+	// Access
+	
+	/**
+	 * Advances to the next observation, reading the next page when the current one is exhausted.
+	 * Must be called before the first observation is read.
+	 * 
+	 * @return true if there is another observation; false at the end.
+	 */
+	public boolean next() {
+		while (true) {
+			if (page != null && ++index < page.size()) {
+				Object[] row = page.get(index);
+				afterObsId = (Integer) row[0];
+				afterDatetime = (Date) row[1];
+				datetime = afterDatetime.getTime();
+				conceptId = (Integer) row[2];
+				value = (Double) row[3];
+				return true;
+			}
+			// A short page is the last one
+			if (page != null && page.size() < pageSize)
+				return false;
+			page = service.getObservationPage(person, concepts, from, to, afterDatetime, afterObsId, pageSize);
+			index = -1;
+			pages++;
+			if (page.isEmpty())
+				return false;
+		}
+	}
+	
+	/**
+	 * Date/time of the current observation.
+	 * 
+	 * @return Milliseconds since the epoch.
+	 */
+	public long getDatetime() {
+		return datetime;
+	}
+	
+	/**
+	 * Concept ID of the current observation.
+	 * 
+	 * @return this.conceptId
+	 */
+	public int getConceptId() {
+		return conceptId;
+	}
+	
+	/**
+	 * Numeric value of the current observation.
+	 * 
+	 * @return this.value, possibly null
+	 */
+	public Double getValue() {
+		return value;
+	}
+	
+	/**
+	 * Number of pages read so far.
+	 * 
+	 * @return this.pages
+	 */
+	public int getPages() {
+		return pages;
+	}
+}
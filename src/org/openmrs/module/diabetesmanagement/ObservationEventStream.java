@@ -0,0 +1,118 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Event stream of a patient's recorded carbohydrate intake and insulin doses, read from an
+ * {@link ObservationCursor} over the observations of their concepts. Observations without a value
+ * or of other concepts are skipped; times are truncated to full minutes.
+ */
+public class ObservationEventStream implements EventStream {
+	
+	/** Milliseconds per minute. */
+	private static final long MILLIS_PER_MINUTE = 60000L;
+	
+	/** Cursor over the observations. */
+	private final ObservationCursor observations;
+	
+	/** Midnight of the first simulated day in milliseconds. */
+	private final long start;
+	
+	/** Concept ID of carbohydrate intake. */
+	private final int carbsConceptId;
+	
+	/** Concept ID of doses of the first insulin type. */
+	private final int insulin1ConceptId;
+	
+	/** Concept ID of doses of the second insulin type. */
+	private final int insulin2ConceptId;
+	
+	/** Minute offset of the current event. */
+	private long minute;
+	
+	/** Type of the current event. */
+	private int type;
+	
+	/** Amount of the current event. */
+	private double amount;
+	
+	// Constructors
+	
+	/**
+	 * Creates a stream. If both insulin types have the same concept, its doses are taken as doses
+	 * of the first type.
+	 * 
+	 * @param observations Cursor over the observations of the three concepts.
+	 * @param start Midnight of the first simulated day in milliseconds.
+	 * @param carbsConceptId Concept ID of carbohydrate intake (g).
+	 * @param insulin1ConceptId Concept ID of doses of the first insulin type (U).
+	 * @param insulin2ConceptId Concept ID of doses of the second insulin type (U).
+	 */
+	public ObservationEventStream(ObservationCursor observations, long start, int carbsConceptId,
+	    int insulin1ConceptId, int insulin2ConceptId) {
+		this.observations = observations;
+		this.start = start;
+		this.carbsConceptId = carbsConceptId;
+		this.insulin1ConceptId = insulin1ConceptId;
+		this.insulin2ConceptId = insulin2ConceptId;
+	}
+	
+	// Access
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#next()
+	 */
+	public boolean next() {
+		while (observations.next()) {
+			Double value = observations.getValue();
+			if (value == null)
+				continue;
+			int conceptId = observations.getConceptId();
+			if (conceptId == carbsConceptId)
+				type = EventSchedule.MEAL;
+			else if (conceptId == insulin1ConceptId)
+				type = EventSchedule.INSULIN_1;
+			else if (conceptId == insulin2ConceptId)
+				type = EventSchedule.INSULIN_2;
+			else
+				continue;
+			long millis = observations.getDatetime() - start;
+			minute = millis >= 0 ? millis / MILLIS_PER_MINUTE : (millis - MILLIS_PER_MINUTE + 1) / MILLIS_PER_MINUTE;
+			amount = value;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#getMinute()
+	 */
+	public long getMinute() {
+		return minute;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#getType()
+	 */
+	public int getType() {
+		return type;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.EventStream#getAmount()
+	 */
+	public double getAmount() {
+		return amount;
+	}
+}
@@ -0,0 +1,186 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Patient parameters estimated by a {@link GlucoseFit}, with the quality of the fit.
+ */
+public class ParameterEstimate {
+	
+	/** Hepatic insulin sensitivity. */
+	private final double sh;
+	
+	/** Peripheral insulin sensitivity. */
+	private final double sp;
+	
+	/** Renal threshold of glucose. (mmol/l) */
+	private final double RTG;
+	
+	/** Whether sh was fitted; otherwise it is the initial value. */
+	private final boolean shFitted;
+	
+	/** Whether sp was fitted; otherwise it is the initial value. */
+	private final boolean spFitted;
+	
+	/** Whether RTG was fitted; otherwise it is the initial value. */
+	private final boolean RTGFitted;
+	
+	/** Root mean square error of the initial parameters. (mmol/l) */
+	private final double initialError;
+	
+	/** Root mean square error of the estimated parameters. (mmol/l) */
+	private final double error;
+	
+	/** Number of observations. */
+	private final int observations;
+	
+	/** Number of iterations. */
+	private final int iterations;
+	
+	/** Whether the fit has converged. */
+	private final boolean converged;
+	
+	// Constructors
+	
+	/**
+	 * Creates an estimate.
+	 * 
+	 * @param sh Hepatic insulin sensitivity.
+	 * @param sp Peripheral insulin sensitivity.
+	 * @param RTG Renal threshold of glucose.
+	 * @param shFitted Whether sh was fitted.
+	 * @param spFitted Whether sp was fitted.
+	 * @param RTGFitted Whether RTG was fitted.
+	 * @param initialError Root mean square error of the initial parameters.
+	 * @param error Root mean square error of the estimated parameters.
+	 * @param observations Number of observations.
+	 * @param iterations Number of iterations.
+	 * @param converged Whether the fit has converged.
+	 */
+	public ParameterEstimate(double sh, double sp, double RTG, boolean shFitted, boolean spFitted, boolean RTGFitted,
+	    double initialError, double error, int observations, int iterations, boolean converged) {
+		this.sh = sh;
+		this.sp = sp;
+		this.RTG = RTG;
+		this.shFitted = shFitted;
+		this.spFitted = spFitted;
+		this.RTGFitted = RTGFitted;
+		this.initialError = initialError;
+		this.error = error;
+		this.observations = observations;
+		this.iterations = iterations;
+		this.converged = converged;
+	}
+	
+	// Getters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.shFitted
+	 */
+	public boolean isShFitted() {
+		return shFitted;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.spFitted
+	 */
+	public boolean isSpFitted() {
+		return spFitted;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTGFitted
+	 */
+	public boolean isRTGFitted() {
+		return RTGFitted;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.initialError
+	 */
+	public double getInitialError() {
+		return initialError;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.error
+	 */
+	public double getError() {
+		return error;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.observations
+	 */
+	public int getObservations() {
+		return observations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.converged
+	 */
+	public boolean isConverged() {
+		return converged;
+	}
+}
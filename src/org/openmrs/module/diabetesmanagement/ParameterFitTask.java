@@ -0,0 +1,255 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
+import org.openmrs.ConceptNumeric;
+import org.openmrs.Obs;
+import org.openmrs.Person;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.ObsService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.service.InsulinTypeService;
+import org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService;
+import org.openmrs.module.diabetesmanagement.service.SimulationSweepService;
+import org.openmrs.scheduler.tasks.AbstractTask;
+
+/**
+ * Scheduled task that fits sh, sp and optionally RTG of every diabetic patient to the recent
+ * glucose observations, and saves the fitted values as obs, so the simulation form picks them up.
+ * The module does not record meals or injections, so all patients are assumed to follow the daily
+ * regimen given in the global properties. Optionally, the posterior of the parameters is sampled
+ * and its summaries are saved, unless they are conditioned on the same observations already. Meant
+ * to run nightly.
+ */
+public class ParameterFitTask extends AbstractTask {
+	
+	/** Global property holding the number of past days whose observations are fitted. */
+	public static final String DAYS_PROPERTY = "diabetesmanagement.fit.days";
+	
+	/** Global property holding the daily regimen assumed for all patients. */
+	public static final String REGIMEN_PROPERTY = "diabetesmanagement.fit.regimen";
+	
+	/** Global property holding the names of the two insulin types of the regimen. */
+	public static final String INSULIN_TYPES_PROPERTY = "diabetesmanagement.fit.insulinTypes";
+	
+	/** Global property telling whether RTG is fitted as well. */
+	public static final String FIT_RTG_PROPERTY = "diabetesmanagement.fit.rtg";
+	
+	/** Global property telling whether the posterior of the fitted parameters is sampled as well. */
+	public static final String POSTERIOR_PROPERTY = "diabetesmanagement.fit.posterior";
+	
+	/** Smallest number of observations fitted. */
+	public static final int MIN_OBSERVATIONS = 4;
+	
+	/** Logger for this class. */
+	private final Log log = LogFactory.getLog(this.getClass());
+	
+	/**
+	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
+	 */
+	@Override
+	public void execute() {
+		Context.openSession();
+		try {
+			if (!Context.isAuthenticated())
+				authenticate();
+			fitAll();
+		}
+		catch (Exception e) {
+			log.error("Error while fitting patient parameters", e);
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	/**
+	 * Fits and saves the parameters of all diabetic patients with enough recent observations.
+	 */
+	private void fitAll() {
+		AdministrationService as = Context.getAdministrationService();
+		ObsService os = Context.getObsService();
+		DiabetesManagementConfig config = new DiabetesManagementConfig();
+		Map<String, Concept> concepts = config.getRelevantConcepts();
+		Concept glucose = concepts.get("glu");
+		if (glucose == null) {
+			log.warn("No glucose concept configured, skipping parameter fitting");
+			return;
+		}
+		
+		// Regimen and insulin types assumed for all patients
+		EventSchedule schedule = parseRegimen(as.getGlobalProperty(REGIMEN_PROPERTY, ""));
+		String[] names = as.getGlobalProperty(INSULIN_TYPES_PROPERTY, "").split(",");
+		InsulinTypeService its = (InsulinTypeService) Context.getService(InsulinTypeService.class);
+		InsulinType insulin1 = names.length == 2 ? its.getInsulinTypeByName(names[0].trim()) : null;
+		InsulinType insulin2 = names.length == 2 ? its.getInsulinTypeByName(names[1].trim()) : null;
+		if (schedule == null || insulin1 == null || insulin2 == null) {
+			log.warn("Invalid regimen or insulin types in " + REGIMEN_PROPERTY + " and " + INSULIN_TYPES_PROPERTY
+			        + ", skipping parameter fitting");
+			return;
+		}
+		boolean fitRTG = Boolean.valueOf(as.getGlobalProperty(FIT_RTG_PROPERTY, "false"));
+		double factor = 1.0;
+		if (glucose instanceof ConceptNumeric && ((ConceptNumeric) glucose).getUnits() != null
+		        && ((ConceptNumeric) glucose).getUnits().toLowerCase().equals("mg/dl"))
+			factor = 1.0 / TimeSeries.MGDL_PER_MMOL;
+		
+		// Recent glucose observations, grouped by person
+		Calendar cal = Calendar.getInstance();
+		Date now = cal.getTime();
+		cal.add(Calendar.DAY_OF_MONTH, -Integer.parseInt(as.getGlobalProperty(DAYS_PROPERTY, "14")));
+		Map<Person, List<Obs>> observations = new LinkedHashMap<Person, List<Obs>>();
+		for (Obs o : os.getObservations(null, null, Arrays.asList(glucose), null, null, null, null, null, null, cal
+		        .getTime(), now, false)) {
+			if (o.getValueNumeric() == null)
+				continue;
+			List<Obs> list = observations.get(o.getPerson());
+			if (list == null)
+				observations.put(o.getPerson(), list = new ArrayList<Obs>());
+			list.add(o);
+		}
+		
+		// One fit per diabetic patient
+		List<Obs> lastObs = new ArrayList<Obs>();
+		List<GlucoseFit> fits = new ArrayList<GlucoseFit>();
+		for (Map.Entry<Person, List<Obs>> e : observations.entrySet()) {
+			List<Obs> list = e.getValue();
+			if (list.size() < MIN_OBSERVATIONS || !config.checkPatientForDiabetesMellitus(e.getKey().getPersonId()))
+				continue;
+			int[] minutes = new int[list.size()];
+			double[] values = new double[list.size()];
+			for (int k = 0; k < list.size(); k++) {
+				cal.setTime(list.get(k).getObsDatetime());
+				minutes[k] = cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE);
+				values[k] = list.get(k).getValueNumeric() * factor;
+			}
+			
+			double[] parameters = config.getPatientParameters(e.getKey());
+			GlucoseFit fit = new GlucoseFit();
+			fit.setWeight(parameters[VirtualPopulation.WEIGHT]);
+			fit.setRTG(parameters[VirtualPopulation.RTG]);
+			fit.setCCR(parameters[VirtualPopulation.CCR]);
+			fit.setSh(parameters[VirtualPopulation.SH]);
+			fit.setSp(parameters[VirtualPopulation.SP]);
+			fit.setFitRTG(fitRTG);
+			fit.setInsulinType1(insulin1);
+			fit.setInsulinType2(insulin2);
+			fit.setSchedule(schedule);
+			fit.setObservations(minutes, values);
+			lastObs.add(DiabetesManagementConfig.getLastObs(list));
+			fits.add(fit);
+		}
+		
+		// Fit in parallel, and save the values that improve the fit
+		SimulationSweepService sss = (SimulationSweepService) Context.getService(SimulationSweepService.class);
+		List<ParameterEstimate> estimates = sss.fitParameters(fits);
+		int saved = 0;
+		for (int k = 0; k < estimates.size(); k++) {
+			ParameterEstimate estimate = estimates.get(k);
+			if (!(estimate.getError() < estimate.getInitialError()))
+				continue;
+			String comment = "Fitted to " + estimate.getObservations() + " glucose observations";
+			Obs last = lastObs.get(k);
+			if (estimate.isShFitted())
+				saveObs(os, last, concepts.get("sh"), estimate.getSh(), now, comment);
+			if (estimate.isSpFitted())
+				saveObs(os, last, concepts.get("sp"), estimate.getSp(), now, comment);
+			if (estimate.isRTGFitted())
+				saveObs(os, last, concepts.get("rtg"), estimate.getRTG(), now, comment);
+			saved++;
+		}
+		log.info("Fitted parameters of " + fits.size() + " patients, saved " + saved);
+		
+		// Posterior summaries, skipping patients without new observations
+		if (!Boolean.valueOf(as.getGlobalProperty(POSTERIOR_PROPERTY, "false")))
+			return;
+		PosteriorSummaryService pss = (PosteriorSummaryService) Context.getService(PosteriorSummaryService.class);
+		int sampled = 0;
+		for (int k = 0; k < fits.size(); k++) {
+			Obs last = lastObs.get(k);
+			List<PosteriorSummary> old = pss.getPosteriorSummaries(last.getPerson());
+			if (!old.isEmpty() && last.getObsDatetime().equals(old.get(0).getLastObservation()))
+				continue;
+			PosteriorSampler sampler = new PosteriorSampler();
+			sampler.setFit(fits.get(k));
+			sampler.setSeed(last.getPerson().getPersonId());
+			List<PosteriorSummary> summaries = sss.samplePosterior(sampler);
+			for (PosteriorSummary summary : summaries)
+				summary.setLastObservation(last.getObsDatetime());
+			pss.savePosteriorSummaries(last.getPerson(), summaries);
+			sampled++;
+		}
+		log.info("Sampled posteriors of " + sampled + " patients");
+	}
+	
+	/**
+	 * Parses a daily regimen of the form "HHmm carbs dose1 dose2;...", e.g. "0800 80 6 0;2200 0 0 12".
+	 * 
+	 * @param regimen The regimen.
+	 * @return The schedule, or null if the regimen is invalid.
+	 */
+	static EventSchedule parseRegimen(String regimen) {
+		EventSchedule schedule = new EventSchedule();
+		try {
+			for (String entry : regimen.split(";")) {
+				String[] fields = entry.trim().split("\\s+");
+				if (fields.length != 4)
+					return null;
+				int minute = Integer.parseInt(fields[0].substring(0, 2)) * 60 + Integer.parseInt(fields[0].substring(2));
+				double carbs = Double.parseDouble(fields[1]);
+				double dose1 = Double.parseDouble(fields[2]), dose2 = Double.parseDouble(fields[3]);
+				if (carbs > 0.0)
+					schedule.addMeal(minute, carbs);
+				if (dose1 > 0.0)
+					schedule.addInsulinInjection1(minute, dose1);
+				if (dose2 > 0.0)
+					schedule.addInsulinInjection2(minute, dose2);
+			}
+		}
+		catch (RuntimeException e) {
+			return null;
+		}
+		return schedule.size() > 0 ? schedule : null;
+	}
+	
+	/**
+	 * Saves a fitted value as obs of the person and location of a glucose observation.
+	 * 
+	 * @param os The obs service.
+	 * @param glucose The last fitted glucose observation.
+	 * @param concept The concept, or null to skip.
+	 * @param value The value.
+	 * @param date Date of the obs.
+	 * @param comment Comment of the obs.
+	 */
+	private static void saveObs(ObsService os, Obs glucose, Concept concept, double value, Date date, String comment) {
+		if (concept == null)
+			return;
+		Obs obs = new Obs(glucose.getPerson(), concept, date, glucose.getLocation());
+		obs.setValueNumeric(value);
+		obs.setComment(comment);
+		os.saveObs(obs, null);
+	}
+}
@@ -0,0 +1,342 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Grid of patient parameters to be simulated with the same insulin types and daily schedule. The
+ * grid is the cartesian product of the values of weight, RTG, CCR, sh and sp; members are numbered
+ * in row-major order, with sp varying fastest.
+ */
+public class ParameterSweep {
+	
+	/** Body weights. (kg) */
+	private double[] weights;
+	
+	/** Renal thresholds of glucose. (mmol/l) */
+	private double[] RTGs;
+	
+	/** Creatinine clearance rates. (ml/min) */
+	private double[] CCRs;
+	
+	/** Hepatic insulin sensitivities. */
+	private double[] shs;
+	
+	/** Peripheral insulin sensitivities. */
+	private double[] sps;
+	
+	/** First insulin type. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Daily meals and injections. */
+	private EventSchedule schedule;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public ParameterSweep() {
+	}
+	
+	/**
+	 * Creates evenly spaced values, e.g. for one axis of the grid.
+	 * 
+	 * @param from First value.
+	 * @param to Last value.
+	 * @param steps Number of values; 1 returns only 'from'.
+	 * @return The values.
+	 */
+	public static double[] range(double from, double to, int steps) {
+		if (steps < 1)
+			throw new IllegalArgumentException("Number of steps must be positive: " + steps);
+		double[] values = new double[steps];
+		for (int k = 0; k < steps; k++)
+			values[k] = steps == 1 ? from : from + (to - from) * k / (steps - 1);
+		return values;
+	}
+	
+	// Grid
+	
+	/**
+	 * Number of parameter combinations.
+	 * 
+	 * @return The size of the grid.
+	 */
+	public int size() {
+		return weights.length * RTGs.length * CCRs.length * shs.length * sps.length;
+	}
+	
+	/**
+	 * Decodes the number of a parameter combination.
+	 * 
+	 * @param index Number of the combination.
+	 * @return weight, RTG, CCR, sh and sp of the combination.
+	 */
+	public double[] getParameters(int index) {
+		double sp = sps[index % sps.length];
+		index /= sps.length;
+		double sh = shs[index % shs.length];
+		index /= shs.length;
+		double CCR = CCRs[index % CCRs.length];
+		index /= CCRs.length;
+		double RTG = RTGs[index % RTGs.length];
+		index /= RTGs.length;
+		return new double[] { weights[index], RTG, CCR, sh, sp };
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 */
+	public void validate() {
+		if (weights == null || RTGs == null || CCRs == null || shs == null || sps == null)
+			throw new NullPointerException("Weight, RTG, CCR, sh and sp values must be set!");
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (schedule == null)
+			throw new NullPointerException("Schedule must be set!");
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weights
+	 */
+	public double[] getWeights() {
+		return weights;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weights Body weights. (kg)
+	 */
+	public void setWeights(double... weights) {
+		this.weights = weights;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTGs
+	 */
+	public double[] getRTGs() {
+		return RTGs;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTGs Renal thresholds of glucose. (mmol/l)
+	 */
+	public void setRTGs(double... RTGs) {
+		this.RTGs = RTGs;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCRs
+	 */
+	public double[] getCCRs() {
+		return CCRs;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCRs Creatinine clearance rates. (ml/min)
+	 */
+	public void setCCRs(double... CCRs) {
+		this.CCRs = CCRs;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.shs
+	 */
+	public double[] getShs() {
+		return shs;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param shs Hepatic insulin sensitivities.
+	 */
+	public void setShs(double... shs) {
+		this.shs = shs;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sps
+	 */
+	public double[] getSps() {
+		return sps;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sps Peripheral insulin sensitivities.
+	 */
+	public void setSps(double... sps) {
+		this.sps = sps;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 First insulin type.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 Second insulin type.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule Daily meals and injections.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G Initial plasma glucose level.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I Initial plasma insulin concentration.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG Arterial glucose level.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days Number of simulated days.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+}
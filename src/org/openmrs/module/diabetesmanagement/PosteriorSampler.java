@@ -0,0 +1,732 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Bayesian posterior of a patient's parameters given the glucose observations of a
+ * {@link GlucoseFit}, sampled with independent adaptive Metropolis chains. The insulin
+ * sensitivities have log-normal priors around the fit's initial values and RTG has a normal prior;
+ * observation errors are normal. Each chain adapts its Gaussian proposal to the covariance of its
+ * own draws after every round. Sampling stops as soon as the split R-hat and the effective sample
+ * size of all parameters reach their targets, using the second half of each chain.
+ * <p>
+ * As sp has no influence on the simulated glucose (see {@link GlucoseFit}), its posterior equals
+ * its prior.
+ */
+public class PosteriorSampler {
+	
+	/** Names of the parameters, indexed like {@link GlucoseFit#SH}, {@link GlucoseFit#SP}, {@link GlucoseFit#RTG_INDEX}. */
+	public static final String[] PARAMETER_NAMES = { "sh", "sp", "rtg" };
+	
+	/** Optimal scale of the adaptive Metropolis proposal per dimension. */
+	private static final double SCALE = 2.38 * 2.38;
+	
+	/** Observations, model and initial values; its fit flags select the sampled parameters. */
+	private GlucoseFit fit;
+	
+	/** Number of chains. */
+	private int chains = 4;
+	
+	/** Seed of the random streams. */
+	private long seed;
+	
+	/** Standard deviation of the observation errors. (mmol/l) */
+	private double noise = 1.0;
+	
+	/** Standard deviation of the logarithm of the insulin sensitivities in the prior. */
+	private double sensitivitySpread = 0.5;
+	
+	/** Standard deviation of RTG in the prior. (mmol/l) */
+	private double RTGSpread = 2.0;
+	
+	/** Effective sample size at which sampling stops. */
+	private int targetEss = 400;
+	
+	/** Split R-hat at which sampling stops. */
+	private double maxRhat = 1.05;
+	
+	/** Number of iterations of each chain between two convergence checks. */
+	private int roundLength = 250;
+	
+	/** Largest number of iterations of each chain. */
+	private int maxIterations = 20000;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public PosteriorSampler() {
+	}
+	
+	// Sampling
+	
+	/**
+	 * Creates the chains, each with its own random stream split from the seed.
+	 * 
+	 * @return The chains.
+	 */
+	public Chain[] createChains() {
+		// Initializes the fit's evaluation path, which is read-only afterwards
+		fit.sumOfSquares(fit.getSh(), fit.getSp(), fit.getRTG());
+		if (chains < 1)
+			throw new IllegalArgumentException("Number of chains must be positive: " + chains);
+		List<Integer> sampled = new ArrayList<Integer>();
+		if (fit.isFitSh())
+			sampled.add(GlucoseFit.SH);
+		if (fit.isFitSp())
+			sampled.add(GlucoseFit.SP);
+		if (fit.isFitRTG())
+			sampled.add(GlucoseFit.RTG_INDEX);
+		if (sampled.isEmpty())
+			throw new IllegalArgumentException("At least one parameter must be sampled!");
+		int[] parameters = new int[sampled.size()];
+		for (int j = 0; j < parameters.length; j++)
+			parameters[j] = sampled.get(j);
+		
+		SplittableRandom root = new SplittableRandom(seed);
+		Chain[] result = new Chain[chains];
+		for (int k = 0; k < chains; k++)
+			result[k] = new Chain(this, parameters, root.split());
+		return result;
+	}
+	
+	/**
+	 * Checks whether the chains have reached the target split R-hat and effective sample size.
+	 * 
+	 * @param chains The chains.
+	 * @return True if sampling can stop.
+	 */
+	public boolean isConverged(Chain[] chains) {
+		if (chains[0].size() < 2 * roundLength)
+			return false;
+		for (int j = 0; j < chains[0].parameters.length; j++) {
+			double[][] draws = getKeptDraws(chains, j);
+			if (!(rhat(draws) <= maxRhat) || !(ess(draws) >= targetEss))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks whether the chains have reached the largest number of iterations.
+	 * 
+	 * @param chains The chains.
+	 * @return True if sampling must stop.
+	 */
+	public boolean isExhausted(Chain[] chains) {
+		return chains[0].size() >= maxIterations;
+	}
+	
+	/**
+	 * Summarizes the posterior of all parameters from the second half of each chain. Parameters
+	 * that are not sampled are left out.
+	 * 
+	 * @param chains The chains.
+	 * @return The summaries, without person and observation date.
+	 */
+	public List<PosteriorSummary> summarize(Chain[] chains) {
+		List<PosteriorSummary> result = new ArrayList<PosteriorSummary>();
+		int[] parameters = chains[0].parameters;
+		for (int j = 0; j < parameters.length; j++) {
+			double[][] draws = getKeptDraws(chains, j);
+			int n = draws[0].length;
+			double[] values = new double[draws.length * n];
+			for (int k = 0; k < draws.length; k++)
+				for (int i = 0; i < n; i++)
+					values[k * n + i] = parameters[j] == GlucoseFit.RTG_INDEX ? draws[k][i] : Math.exp(draws[k][i]);
+			double mean = 0.0, squares = 0.0;
+			for (double v : values)
+				mean += v;
+			mean /= values.length;
+			for (double v : values)
+				squares += (v - mean) * (v - mean);
+			Arrays.sort(values);
+			
+			PosteriorSummary summary = new PosteriorSummary();
+			summary.setParameter(PARAMETER_NAMES[parameters[j]]);
+			summary.setMean(mean);
+			summary.setStandardDeviation(Math.sqrt(squares / Math.max(1, values.length - 1)));
+			summary.setLowerBound(quantile(values, 0.025));
+			summary.setMedian(quantile(values, 0.5));
+			summary.setUpperBound(quantile(values, 0.975));
+			summary.setRhat(rhat(draws));
+			summary.setEffectiveSampleSize(ess(draws));
+			summary.setObservations(fit.getObservationCount());
+			result.add(summary);
+		}
+		return result;
+	}
+	
+	/**
+	 * Log posterior density of the parameters, up to a constant.
+	 * 
+	 * @param p sh, sp and RTG.
+	 * @return The log density, or negative infinity outside the support.
+	 */
+	double logPosterior(double[] p) {
+		if (p[GlucoseFit.SH] <= 0.0 || p[GlucoseFit.SP] <= 0.0 || p[GlucoseFit.RTG_INDEX] < 0.0)
+			return Double.NEGATIVE_INFINITY;
+		double zsh = Math.log(p[GlucoseFit.SH] / fit.getSh()) / sensitivitySpread;
+		double zsp = Math.log(p[GlucoseFit.SP] / fit.getSp()) / sensitivitySpread;
+		double zrtg = (p[GlucoseFit.RTG_INDEX] - fit.getRTG()) / RTGSpread;
+		double sse = fit.sumOfSquares(p[GlucoseFit.SH], p[GlucoseFit.SP], p[GlucoseFit.RTG_INDEX]);
+		return -0.5 * (zsh * zsh + zsp * zsp + zrtg * zrtg) - sse / (2.0 * noise * noise);
+	}
+	
+	/**
+	 * Gets the second halves of all chains' draws of a parameter.
+	 * 
+	 * @param chains The chains.
+	 * @param j Index of the sampled parameter.
+	 * @return The kept draws, one array per chain.
+	 */
+	private static double[][] getKeptDraws(Chain[] chains, int j) {
+		int size = chains[0].size();
+		double[][] draws = new double[chains.length][];
+		for (int k = 0; k < chains.length; k++)
+			draws[k] = Arrays.copyOfRange(chains[k].draws[j], size - size / 2, size);
+		return draws;
+	}
+	
+	/**
+	 * Linearly interpolated quantile of sorted values.
+	 * 
+	 * @param sorted The values in ascending order.
+	 * @param q The quantile, between 0 and 1.
+	 * @return The quantile.
+	 */
+	private static double quantile(double[] sorted, double q) {
+		double position = q * (sorted.length - 1);
+		int lower = (int) Math.floor(position);
+		int upper = Math.min(lower + 1, sorted.length - 1);
+		return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+	}
+	
+	// Diagnostics
+	
+	/**
+	 * Split R-hat of the Gelman-Rubin diagnostic: each chain is split into halves, and the variance
+	 * between the half chains is compared to the variance within them.
+	 * 
+	 * @param draws Draws of one parameter, one array of equal length per chain.
+	 * @return The split R-hat; values close to 1 indicate convergence.
+	 */
+	public static double rhat(double[][] draws) {
+		double[][] split = split(draws);
+		int m = split.length, n = split[0].length;
+		double[] means = new double[m];
+		double grand = 0.0, W = 0.0;
+		for (int k = 0; k < m; k++) {
+			means[k] = mean(split[k]);
+			grand += means[k] / m;
+			W += variance(split[k], means[k]) / m;
+		}
+		double B = 0.0;
+		for (int k = 0; k < m; k++)
+			B += (means[k] - grand) * (means[k] - grand) * n / (m - 1);
+		if (W == 0.0)
+			return B == 0.0 ? 1.0 : Double.POSITIVE_INFINITY;
+		return Math.sqrt(((n - 1.0) / n * W + B / n) / W);
+	}
+	
+	/**
+	 * Effective sample size of the draws of all chains, from the autocorrelations combined across the
+	 * split chains and truncated by Geyer's initial positive sequence.
+	 * 
+	 * @param draws Draws of one parameter, one array of equal length per chain.
+	 * @return The effective sample size.
+	 */
+	public static double ess(double[][] draws) {
+		double[][] split = split(draws);
+		int m = split.length, n = split[0].length;
+		double[] means = new double[m];
+		double grand = 0.0, W = 0.0;
+		for (int k = 0; k < m; k++) {
+			means[k] = mean(split[k]);
+			grand += means[k] / m;
+			W += variance(split[k], means[k]) / m;
+		}
+		double B = 0.0;
+		for (int k = 0; k < m; k++)
+			B += (means[k] - grand) * (means[k] - grand) * n / (m - 1);
+		double varPlus = (n - 1.0) / n * W + B / n;
+		if (varPlus == 0.0)
+			return m * n;
+		
+		// Sum of autocorrelations in pairs of lags, while the pair sums are positive
+		double tau = -1.0;
+		for (int lag = 0; lag + 1 < n; lag += 2) {
+			double pair = autocorrelation(split, means, lag, W, varPlus)
+			        + autocorrelation(split, means, lag + 1, W, varPlus);
+			if (pair < 0.0)
+				break;
+			tau += 2.0 * pair;
+		}
+		return m * n / Math.max(tau, 1.0 / Math.log10(m * n + 10.0));
+	}
+	
+	/**
+	 * Autocorrelation at a lag, combined across chains.
+	 * 
+	 * @param split The chains.
+	 * @param means Means of the chains.
+	 * @param lag The lag.
+	 * @param W Mean variance within the chains.
+	 * @param varPlus Estimated posterior variance.
+	 * @return The autocorrelation.
+	 */
+	private static double autocorrelation(double[][] split, double[] means, int lag, double W, double varPlus) {
+		int m = split.length, n = split[0].length;
+		double acov = 0.0;
+		for (int k = 0; k < m; k++) {
+			double sum = 0.0;
+			for (int i = 0; i + lag < n; i++)
+				sum += (split[k][i] - means[k]) * (split[k][i + lag] - means[k]);
+			acov += sum / n / m;
+		}
+		return 1.0 - (W * (n - 1.0) / n - acov) / varPlus;
+	}
+	
+	/**
+	 * Splits each chain into halves.
+	 * 
+	 * @param draws The chains.
+	 * @return Twice as many chains of half the length.
+	 */
+	private static double[][] split(double[][] draws) {
+		int half = draws[0].length / 2;
+		double[][] result = new double[2 * draws.length][];
+		for (int k = 0; k < draws.length; k++) {
+			result[2 * k] = Arrays.copyOfRange(draws[k], 0, half);
+			result[2 * k + 1] = Arrays.copyOfRange(draws[k], draws[k].length - half, draws[k].length);
+		}
+		return result;
+	}
+	
+	/**
+	 * Mean of values.
+	 * 
+	 * @param values The values.
+	 * @return The mean.
+	 */
+	private static double mean(double[] values) {
+		double sum = 0.0;
+		for (double v : values)
+			sum += v;
+		return sum / values.length;
+	}
+	
+	/**
+	 * Sample variance of values.
+	 * 
+	 * @param values The values.
+	 * @param mean Their mean.
+	 * @return The variance.
+	 */
+	private static double variance(double[] values, double mean) {
+		double sum = 0.0;
+		for (double v : values)
+			sum += (v - mean) * (v - mean);
+		return sum / (values.length - 1);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.fit
+	 */
+	public GlucoseFit getFit() {
+		return fit;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param fit The fit to set.
+	 */
+	public void setFit(GlucoseFit fit) {
+		this.fit = fit;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.chains
+	 */
+	public int getChains() {
+		return chains;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param chains The chains to set.
+	 */
+	public void setChains(int chains) {
+		this.chains = chains;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param seed The seed to set.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.noise
+	 */
+	public double getNoise() {
+		return noise;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param noise The noise to set.
+	 */
+	public void setNoise(double noise) {
+		this.noise = noise;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sensitivitySpread
+	 */
+	public double getSensitivitySpread() {
+		return sensitivitySpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sensitivitySpread The sensitivitySpread to set.
+	 */
+	public void setSensitivitySpread(double sensitivitySpread) {
+		this.sensitivitySpread = sensitivitySpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTGSpread
+	 */
+	public double getRTGSpread() {
+		return RTGSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTGSpread The RTGSpread to set.
+	 */
+	public void setRTGSpread(double RTGSpread) {
+		this.RTGSpread = RTGSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.targetEss
+	 */
+	public int getTargetEss() {
+		return targetEss;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param targetEss The targetEss to set.
+	 */
+	public void setTargetEss(int targetEss) {
+		this.targetEss = targetEss;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.maxRhat
+	 */
+	public double getMaxRhat() {
+		return maxRhat;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param maxRhat The maxRhat to set.
+	 */
+	public void setMaxRhat(double maxRhat) {
+		this.maxRhat = maxRhat;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.roundLength
+	 */
+	public int getRoundLength() {
+		return roundLength;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param roundLength The roundLength to set.
+	 */
+	public void setRoundLength(int roundLength) {
+		this.roundLength = roundLength;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.maxIterations
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param maxIterations The maxIterations to set.
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+	
+	/**
+	 * One Markov chain with its own random stream and adaptive proposal. Sampled parameters are
+	 * stored on the log scale for the insulin sensitivities. Advancing the chain allocates no
+	 * objects, apart from growing the draw arrays once per round.
+	 */
+	public static class Chain {
+		
+		private final PosteriorSampler sampler;
+		
+		/** Indexes of the sampled parameters in sh, sp and RTG. */
+		private final int[] parameters;
+		
+		private final SplittableRandom random;
+		
+		/** Current state as sh, sp and RTG. */
+		private final double[] state = new double[3];
+		
+		/** Proposed state as sh, sp and RTG. */
+		private final double[] proposal = new double[3];
+		
+		/** Current point in the sampling space. */
+		private final double[] x;
+		
+		/** Proposed point in the sampling space. */
+		private final double[] y;
+		
+		/** Standard normal numbers of a proposal. */
+		private final double[] z;
+		
+		/** Running mean of the draws. */
+		private final double[] mean;
+		
+		/** Running sum of squared deviations of the draws. */
+		private final double[][] comoment;
+		
+		/** Cholesky factor of the proposal covariance. */
+		private final double[][] cholesky;
+		
+		/** Draws of each sampled parameter. */
+		private double[][] draws;
+		
+		/** Number of draws. */
+		private int size;
+		
+		/** Number of accepted proposals. */
+		private int accepted;
+		
+		/** Log posterior density of the current state. */
+		private double logDensity;
+		
+		/**
+		 * Creates a chain at the initial values of the fit.
+		 * 
+		 * @param sampler The sampler.
+		 * @param parameters Indexes of the sampled parameters.
+		 * @param random The chain's random stream.
+		 */
+		Chain(PosteriorSampler sampler, int[] parameters, SplittableRandom random) {
+			this.sampler = sampler;
+			this.parameters = parameters;
+			this.random = random;
+			int d = parameters.length;
+			x = new double[d];
+			y = new double[d];
+			z = new double[d];
+			mean = new double[d];
+			comoment = new double[d][d];
+			cholesky = new double[d][d];
+			draws = new double[d][sampler.roundLength];
+			
+			GlucoseFit fit = sampler.fit;
+			state[GlucoseFit.SH] = fit.getSh();
+			state[GlucoseFit.SP] = fit.getSp();
+			state[GlucoseFit.RTG_INDEX] = fit.getRTG();
+			for (int j = 0; j < d; j++) {
+				boolean rtg = parameters[j] == GlucoseFit.RTG_INDEX;
+				double spread = rtg ? sampler.RTGSpread : sampler.sensitivitySpread;
+				x[j] = (rtg ? state[parameters[j]] : Math.log(state[parameters[j]])) + 0.5 * spread * gaussian();
+				cholesky[j][j] = 0.1 * spread;
+			}
+			toState(x, state);
+			logDensity = sampler.logPosterior(state);
+		}
+		
+		/**
+		 * Runs the chain for a number of iterations, then adapts the proposal to the covariance of
+		 * all draws so far.
+		 * 
+		 * @param iterations Number of iterations.
+		 */
+		public void advance(int iterations) {
+			int d = x.length;
+			if (size + iterations > draws[0].length) {
+				int capacity = Math.max(2 * draws[0].length, size + iterations);
+				for (int j = 0; j < d; j++)
+					draws[j] = Arrays.copyOf(draws[j], capacity);
+			}
+			
+			for (int it = 0; it < iterations; it++) {
+				// Gaussian proposal around the current point
+				for (int j = 0; j < d; j++)
+					z[j] = gaussian();
+				for (int a = 0; a < d; a++) {
+					double sum = x[a];
+					for (int b = 0; b <= a; b++)
+						sum += cholesky[a][b] * z[b];
+					y[a] = sum;
+				}
+				System.arraycopy(state, 0, proposal, 0, 3);
+				toState(y, proposal);
+				
+				// Metropolis acceptance, with the Jacobian of the log transform
+				double logProposal = sampler.logPosterior(proposal);
+				double ratio = logProposal - logDensity;
+				for (int j = 0; j < d; j++)
+					if (parameters[j] != GlucoseFit.RTG_INDEX)
+						ratio += y[j] - x[j];
+				if (ratio >= 0.0 || Math.log(random.nextDouble()) < ratio) {
+					System.arraycopy(y, 0, x, 0, d);
+					System.arraycopy(proposal, 0, state, 0, 3);
+					logDensity = logProposal;
+					accepted++;
+				}
+				
+				// Store the draw and update the running covariance (Welford)
+				size++;
+				for (int j = 0; j < d; j++) {
+					draws[j][size - 1] = x[j];
+					z[j] = x[j] - mean[j];
+					mean[j] += z[j] / size;
+				}
+				for (int a = 0; a < d; a++)
+					for (int b = 0; b <= a; b++)
+						comoment[a][b] += z[a] * (x[b] - mean[b]);
+			}
+			adapt();
+		}
+		
+		/**
+		 * Number of draws.
+		 * 
+		 * @return this.size
+		 */
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * Fraction of accepted proposals.
+		 * 
+		 * @return The acceptance rate.
+		 */
+		public double getAcceptanceRate() {
+			return size == 0 ? 0.0 : (double) accepted / size;
+		}
+		
+		/**
+		 * Sets the proposal covariance to the scaled covariance of the draws, regularized to stay
+		 * positive definite, and factorizes it.
+		 */
+		private void adapt() {
+			int d = x.length;
+			if (size < 2 * d + 2)
+				return;
+			double scale = SCALE / d;
+			for (int a = 0; a < d; a++) {
+				for (int b = 0; b <= a; b++) {
+					double c = scale * comoment[a][b] / (size - 1);
+					if (a == b)
+						c += 1e-10;
+					for (int k = 0; k < b; k++)
+						c -= cholesky[a][k] * cholesky[b][k];
+					if (a == b)
+						cholesky[a][a] = Math.sqrt(Math.max(c, 1e-12));
+					else
+						cholesky[a][b] = c / cholesky[b][b];
+				}
+			}
+		}
+		
+		/**
+		 * Converts a point of the sampling space into parameter values.
+		 * 
+		 * @param point The point.
+		 * @param target Receives the values of the sampled parameters.
+		 */
+		private void toState(double[] point, double[] target) {
+			for (int j = 0; j < point.length; j++)
+				target[parameters[j]] = parameters[j] == GlucoseFit.RTG_INDEX ? point[j] : Math.exp(point[j]);
+		}
+		
+		/**
+		 * Draws a standard normal number with the Box-Muller transform.
+		 * 
+		 * @return The number.
+		 */
+		private double gaussian() {
+			double u = 1.0 - random.nextDouble();
+			double v = random.nextDouble();
+			return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * v);
+		}
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Date;
+
+import org.openmrs.BaseOpenmrsData;
+import org.openmrs.Person;
+
+/**
+ * Posterior summary of one simulation parameter of a person, as sampled by the
+ * {@link PosteriorSampler}. The date of the last glucose observation tells whether the summary is
+ * still up to date or must be sampled again.
+ */
+public class PosteriorSummary extends BaseOpenmrsData {
+	
+	// Members
+	
+	/** Unique ID of this object. */
+	private Integer posteriorSummaryId;
+	
+	/** Person whose parameter was sampled. */
+	private Person person;
+	
+	/** Parameter name, one of {@link PosteriorSampler#PARAMETER_NAMES}. */
+	private String parameter;
+	
+	/** Posterior mean. */
+	private Double mean;
+	
+	/** Posterior standard deviation. */
+	private Double standardDeviation;
+	
+	/** 2.5% quantile. */
+	private Double lowerBound;
+	
+	/** Posterior median. */
+	private Double median;
+	
+	/** 97.5% quantile. */
+	private Double upperBound;
+	
+	/** Split R-hat of the chains. */
+	private Double rhat;
+	
+	/** Effective sample size of the chains. */
+	private Double effectiveSampleSize;
+	
+	/** Number of glucose observations the posterior is conditioned on. */
+	private Integer observations;
+	
+	/** Date of the last glucose observation the posterior is conditioned on. */
+	private Date lastObservation;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public PosteriorSummary() {
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.posteriorSummaryId
+	 */
+	public Integer getPosteriorSummaryId() {
+		return posteriorSummaryId;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param posteriorSummaryId The posteriorSummaryId to set.
+	 */
+	public void setPosteriorSummaryId(Integer posteriorSummaryId) {
+		this.posteriorSummaryId = posteriorSummaryId;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.person
+	 */
+	public Person getPerson() {
+		return person;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param person The person to set.
+	 */
+	public void setPerson(Person person) {
+		this.person = person;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.parameter
+	 */
+	public String getParameter() {
+		return parameter;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param parameter The parameter to set.
+	 */
+	public void setParameter(String parameter) {
+		this.parameter = parameter;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mean
+	 */
+	public Double getMean() {
+		return mean;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mean The mean to set.
+	 */
+	public void setMean(Double mean) {
+		this.mean = mean;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.standardDeviation
+	 */
+	public Double getStandardDeviation() {
+		return standardDeviation;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param standardDeviation The standardDeviation to set.
+	 */
+	public void setStandardDeviation(Double standardDeviation) {
+		this.standardDeviation = standardDeviation;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.lowerBound
+	 */
+	public Double getLowerBound() {
+		return lowerBound;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param lowerBound The lowerBound to set.
+	 */
+	public void setLowerBound(Double lowerBound) {
+		this.lowerBound = lowerBound;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.median
+	 */
+	public Double getMedian() {
+		return median;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param median The median to set.
+	 */
+	public void setMedian(Double median) {
+		this.median = median;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.upperBound
+	 */
+	public Double getUpperBound() {
+		return upperBound;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param upperBound The upperBound to set.
+	 */
+	public void setUpperBound(Double upperBound) {
+		this.upperBound = upperBound;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.rhat
+	 */
+	public Double getRhat() {
+		return rhat;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param rhat The rhat to set.
+	 */
+	public void setRhat(Double rhat) {
+		this.rhat = rhat;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.effectiveSampleSize
+	 */
+	public Double getEffectiveSampleSize() {
+		return effectiveSampleSize;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param effectiveSampleSize The effectiveSampleSize to set.
+	 */
+	public void setEffectiveSampleSize(Double effectiveSampleSize) {
+		this.effectiveSampleSize = effectiveSampleSize;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.observations
+	 */
+	public Integer getObservations() {
+		return observations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param observations The observations to set.
+	 */
+	public void setObservations(Integer observations) {
+		this.observations = observations;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.lastObservation
+	 */
+	public Date getLastObservation() {
+		return lastObservation;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param lastObservation The lastObservation to set.
+	 */
+	public void setLastObservation(Date lastObservation) {
+		this.lastObservation = lastObservation;
+	}
+	
+	/**
+	 * @see org.openmrs.OpenmrsObject#getId()
+	 * @return this.posteriorSummaryId
+	 */
+	public Integer getId() {
+		return getPosteriorSummaryId();
+	}
+	
+	/**
+	 * @see org.openmrs.OpenmrsObject#setId(java.lang.Integer)
+	 * @param id The id to set.
+	 */
+	public void setId(Integer id) {
+		setPosteriorSummaryId(id);
+	}
+}
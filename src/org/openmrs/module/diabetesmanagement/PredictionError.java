@@ -0,0 +1,174 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.Serializable;
+
+/**
+ * Running error statistics of simulated against recorded glucose levels: mean absolute error, bias,
+ * mean absolute relative difference (MARD) and the distribution over the zones of the Clarke error
+ * grid. Statistics of several patients can be merged into those of a cohort.
+ */
+public class PredictionError implements Serializable {
+	
+	private static final long serialVersionUID = 6120839542093457711L;
+	
+	/** Clarke zone A: clinically accurate. */
+	public static final int ZONE_A = 0;
+	
+	/** Clarke zone B: benign errors. */
+	public static final int ZONE_B = 1;
+	
+	/** Clarke zone C: overcorrection. */
+	public static final int ZONE_C = 2;
+	
+	/** Clarke zone D: failure to detect. */
+	public static final int ZONE_D = 3;
+	
+	/** Clarke zone E: erroneous treatment. */
+	public static final int ZONE_E = 4;
+	
+	/** Number of compared values. */
+	private long count;
+	
+	/** Sum of absolute differences. (mmol/l) */
+	private double sumAbsoluteError;
+	
+	/** Sum of differences, simulated minus recorded. (mmol/l) */
+	private double sumError;
+	
+	/** Sum of absolute differences relative to the recorded values. */
+	private double sumRelativeError;
+	
+	/** Number of values in the sum of relative differences (recorded values above zero). */
+	private long relativeCount;
+	
+	/** Number of values in each Clarke zone. */
+	private final long[] zones = new long[5];
+	
+	// Accumulation
+	
+	/**
+	 * Adds a pair of recorded and simulated glucose levels.
+	 * 
+	 * @param recorded Recorded glucose level. (mmol/l)
+	 * @param simulated Simulated glucose level. (mmol/l)
+	 */
+	public void add(double recorded, double simulated) {
+		double error = simulated - recorded;
+		count++;
+		sumAbsoluteError += Math.abs(error);
+		sumError += error;
+		if (recorded > 0.0) {
+			sumRelativeError += Math.abs(error) / recorded;
+			relativeCount++;
+		}
+		zones[clarkeZone(recorded * TimeSeries.MGDL_PER_MMOL, simulated * TimeSeries.MGDL_PER_MMOL)]++;
+	}
+	
+	/**
+	 * Adds the values of another instance, e.g. a patient's to the cohort's.
+	 * 
+	 * @param other The other instance.
+	 */
+	public void merge(PredictionError other) {
+		count += other.count;
+		sumAbsoluteError += other.sumAbsoluteError;
+		sumError += other.sumError;
+		sumRelativeError += other.sumRelativeError;
+		relativeCount += other.relativeCount;
+		for (int k = 0; k < zones.length; k++)
+			zones[k] += other.zones[k];
+	}
+	
+	/**
+	 * Zone of the Clarke error grid of a glucose estimate.
+	 * 
+	 * @param reference Reference (recorded) glucose level. (mg/dl)
+	 * @param estimate Estimated (simulated) glucose level. (mg/dl)
+	 * @return One of {@link #ZONE_A} to {@link #ZONE_E}.
+	 */
+	public static int clarkeZone(double reference, double estimate) {
+		if (reference <= 70.0 && estimate <= 70.0 || estimate >= 0.8 * reference && estimate <= 1.2 * reference)
+			return ZONE_A;
+		if (reference >= 180.0 && estimate <= 70.0 || reference <= 70.0 && estimate >= 180.0)
+			return ZONE_E;
+		if (reference >= 70.0 && reference <= 290.0 && estimate >= reference + 110.0 || reference >= 130.0
+		        && reference <= 180.0 && estimate <= 1.4 * reference - 182.0)
+			return ZONE_C;
+		if (reference >= 240.0 && estimate >= 70.0 && estimate <= 180.0 || reference <= 175.0 / 3.0 && estimate >= 70.0
+		        && estimate <= 180.0 || reference >= 175.0 / 3.0 && reference <= 70.0 && estimate >= 1.2 * reference)
+			return ZONE_D;
+		return ZONE_B;
+	}
+	
+	// Results
+	
+	/**
+	 * Number of compared values.
+	 * 
+	 * @return this.count
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Mean absolute difference between simulated and recorded glucose levels.
+	 * 
+	 * @return The mean absolute error in mmol/l, or NaN if nothing was compared.
+	 */
+	public double getMeanAbsoluteError() {
+		return count == 0 ? Double.NaN : sumAbsoluteError / count;
+	}
+	
+	/**
+	 * Mean difference between simulated and recorded glucose levels.
+	 * 
+	 * @return The bias in mmol/l (positive if the model overestimates), or NaN if nothing was
+	 *         compared.
+	 */
+	public double getBias() {
+		return count == 0 ? Double.NaN : sumError / count;
+	}
+	
+	/**
+	 * Mean absolute difference relative to the recorded glucose levels (MARD).
+	 * 
+	 * @return The MARD as a fraction, or NaN if nothing was compared.
+	 */
+	public double getMeanAbsoluteRelativeDifference() {
+		return relativeCount == 0 ? Double.NaN : sumRelativeError / relativeCount;
+	}
+	
+	/**
+	 * Number of values in a zone of the Clarke error grid.
+	 * 
+	 * @param zone One of {@link #ZONE_A} to {@link #ZONE_E}.
+	 * @return The number of values.
+	 */
+	public long getZoneCount(int zone) {
+		return zones[zone];
+	}
+	
+	/**
+	 * Fraction of the values in a zone of the Clarke error grid.
+	 * 
+	 * @param zone One of {@link #ZONE_A} to {@link #ZONE_E}.
+	 * @return The fraction, or NaN if nothing was compared.
+	 */
+	public double getZoneFraction(int zone) {
+		return count == 0 ? Double.NaN : (double) zones[zone] / count;
+	}
+}
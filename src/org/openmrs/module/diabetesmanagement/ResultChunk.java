@@ -0,0 +1,117 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Plasma glucose and insulin results of one day of a multi-day simulation: a fixed number of values
+ * from midnight on, every 'stepMinutes' minutes, without the following midnight, which is the first
+ * value of the next chunk. Chunks are reused by the simulation, see {@link ResultSink}.
+ */
+public class ResultChunk {
+	
+	/** Day of the results, starting at 0. */
+	private int day;
+	
+	/** Minutes between two values. */
+	private final int stepMinutes;
+	
+	/** Plasma glucose levels. (mmol/l) */
+	private final double[] glucose;
+	
+	/** Plasma insulin concentrations. (mU/l) */
+	private final double[] insulin;
+	
+	// Constructors
+	
+	/**
+	 * Creates a chunk for one day of results.
+	 * 
+	 * @param stepMinutes Minutes between two values; must divide the minutes of a day.
+	 */
+	public ResultChunk(int stepMinutes) {
+		if (stepMinutes <= 0 || SimulationKernelAIDA.iterations % stepMinutes != 0)
+			throw new IllegalArgumentException("Step size must divide " + SimulationKernelAIDA.iterations + ": "
+			        + stepMinutes);
+		this.stepMinutes = stepMinutes;
+		glucose = new double[SimulationKernelAIDA.iterations / stepMinutes];
+		insulin = new double[glucose.length];
+	}
+	
+	// Access
+	
+	/**
+	 * Minute offset of the first value from midnight of the first simulated day.
+	 * 
+	 * @return The minute offset.
+	 */
+	public long getStartMinute() {
+		return (long) day * SimulationKernelAIDA.iterations;
+	}
+	
+	/**
+	 * Number of values.
+	 * 
+	 * @return The size.
+	 */
+	public int size() {
+		return glucose.length;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.day
+	 */
+	public int getDay() {
+		return day;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param day The day to set.
+	 */
+	void setDay(int day) {
+		this.day = day;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.stepMinutes
+	 */
+	public int getStepMinutes() {
+		return stepMinutes;
+	}
+	
+	/**
+	 * Plasma glucose levels; the array is reused for the next chunk.
+	 * 
+	 * @return this.glucose
+	 */
+	public double[] getGlucose() {
+		return glucose;
+	}
+	
+	/**
+	 * Plasma insulin concentrations; the array is reused for the next chunk.
+	 * 
+	 * @return this.insulin
+	 */
+	public double[] getInsulin() {
+		return insulin;
+	}
+}
@@ -0,0 +1,30 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Receiver of the results of a multi-day simulation, see
+ * {@link SimulationKernelAIDA#runStream(EventStream, int, ResultSink)}, e.g. a file writer or an
+ * aggregator.
+ */
+public interface ResultSink {
+	
+	/**
+	 * Receives the results of one simulated day. The chunk and its arrays are reused for the next
+	 * day, so values that are needed later must be copied.
+	 * 
+	 * @param chunk The results.
+	 */
+	public void write(ResultChunk chunk);
+}
@@ -0,0 +1,402 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+
+/**
+ * Grid of scalings of one patient's insulin doses and meal carbohydrates, to show the margin to
+ * hypoglycemia around a regimen. Cell (dose, carbs) multiplies all injections of the schedule by
+ * the dose scaling and all meals by the carbohydrate scaling; cells are numbered in row-major
+ * order, with the carbohydrate scaling varying fastest.
+ */
+public class RiskGrid {
+	
+	/** Largest number of cells, so a single request cannot occupy the simulation threads for long. */
+	public static final int MAX_SIZE = 10000;
+	
+	/** Body weight. (kg) */
+	private double weight;
+	
+	/** Renal threshold of glucose. (mmol/l) */
+	private double RTG;
+	
+	/** Creatinine clearance rate. (ml/min) */
+	private double CCR;
+	
+	/** Hepatic insulin sensitivity. */
+	private double sh;
+	
+	/** Peripheral insulin sensitivity. */
+	private double sp;
+	
+	/** First insulin type. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Unscaled daily meals and injections. */
+	private EventSchedule schedule;
+	
+	/** Factors applied to all insulin doses, one per row. */
+	private double[] doseScales;
+	
+	/** Factors applied to all meal carbohydrates, one per column. */
+	private double[] carbScales;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public RiskGrid() {
+	}
+	
+	// Grid
+	
+	/**
+	 * Number of cells.
+	 * 
+	 * @return The size of the grid.
+	 */
+	public int size() {
+		return doseScales.length * carbScales.length;
+	}
+	
+	/**
+	 * Creates the schedule of one cell. Events scaled to zero are left out, as the model would
+	 * treat them as replacing the previous event of the same type.
+	 * 
+	 * @param index Number of the cell.
+	 * @return The schedule with scaled doses and carbohydrates.
+	 */
+	public EventSchedule createSchedule(int index) {
+		double doseScale = doseScales[index / carbScales.length];
+		double carbScale = carbScales[index % carbScales.length];
+		EventSchedule scaled = new EventSchedule();
+		for (int k = 0; k < schedule.size(); k++) {
+			int type = schedule.getType(k);
+			double amount = schedule.getAmount(k) * (type == EventSchedule.MEAL ? carbScale : doseScale);
+			if (amount > 0.0)
+				scaled.add(schedule.getMinute(k), type, amount);
+		}
+		return scaled;
+	}
+	
+	/**
+	 * Describes all inputs except the scalings, so cells of grids that differ only in their
+	 * scalings can be recognized, e.g. after panning or zooming.
+	 * 
+	 * @return The fingerprint.
+	 */
+	public String getFingerprint() {
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append(Arrays.toString(new double[] { weight, RTG, CCR, sh, sp, insulinType1.getParameterS(),
+		        insulinType1.getParameterA(), insulinType1.getParameterB(), insulinType2.getParameterS(),
+		        insulinType2.getParameterA(), insulinType2.getParameterB(), G, I, AG }));
+		fingerprint.append(days);
+		for (int k = 0; k < schedule.size(); k++)
+			fingerprint.append(';').append(schedule.getMinute(k)).append(',').append(schedule.getType(k)).append(',')
+			        .append(schedule.getAmount(k));
+		return fingerprint.toString();
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (schedule == null || doseScales == null || carbScales == null)
+			throw new NullPointerException("Schedule, dose and carbohydrate scalings must be set!");
+		if (doseScales.length == 0 || carbScales.length == 0)
+			throw new IllegalArgumentException("At least one dose and one carbohydrate scaling must be set!");
+		if (size() > MAX_SIZE)
+			throw new IllegalArgumentException("Grid has more than " + MAX_SIZE + " cells: " + size());
+		for (double scale : doseScales)
+			if (scale < 0.0)
+				throw new IllegalArgumentException("Dose scaling must not be negative: " + scale);
+		for (double scale : carbScales)
+			if (scale < 0.0)
+				throw new IllegalArgumentException("Carbohydrate scaling must not be negative: " + scale);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weight The weight to set.
+	 */
+	public void setWeight(double weight) {
+		this.weight = weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTG The RTG to set.
+	 */
+	public void setRTG(double RTG) {
+		this.RTG = RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCR
+	 */
+	public double getCCR() {
+		return CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCR The CCR to set.
+	 */
+	public void setCCR(double CCR) {
+		this.CCR = CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sh The sh to set.
+	 */
+	public void setSh(double sh) {
+		this.sh = sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sp The sp to set.
+	 */
+	public void setSp(double sp) {
+		this.sp = sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 The insulinType1 to set.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 The insulinType2 to set.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule The schedule to set.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.doseScales
+	 */
+	public double[] getDoseScales() {
+		return doseScales;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param doseScales The doseScales to set.
+	 */
+	public void setDoseScales(double... doseScales) {
+		this.doseScales = doseScales;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.carbScales
+	 */
+	public double[] getCarbScales() {
+		return carbScales;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param carbScales The carbScales to set.
+	 */
+	public void setCarbScales(double... carbScales) {
+		this.carbScales = carbScales;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the cells of {@link RiskGrid}s, keyed by the grid's fingerprint and the cell's
+ * dose and carbohydrate scalings. Panning or zooming a grid keeps the fingerprint, so cells at the
+ * same scalings are not simulated again. Scalings are compared in millionths, so values computed
+ * by different steps match. The least recently used cell is evicted when the cache is full. All
+ * methods are thread-safe.
+ */
+public class RiskGridCache {
+	
+	/** Default maximum number of cached cells, e.g. ten grids of 40 x 40 cells. */
+	public static final int DEFAULT_CAPACITY = 16384;
+	
+	/** Cache shared by all requests. */
+	private static final RiskGridCache shared = new RiskGridCache(DEFAULT_CAPACITY);
+	
+	/** Lowest glucose level and time below the hypoglycemia threshold of cached cells, in access order. */
+	private final LinkedHashMap<Key, double[]> cells;
+	
+	/** Maximum number of cached cells. */
+	private int capacity;
+	
+	/** Number of cells found in the cache. */
+	private long hits;
+	
+	/** Number of cells not found in the cache. */
+	private long misses;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty cache.
+	 * 
+	 * @param capacity Maximum number of cached cells.
+	 */
+	public RiskGridCache(int capacity) {
+		setCapacity(capacity);
+		cells = new LinkedHashMap<Key, double[]>(256, 0.75f, true) {
+			
+			private static final long serialVersionUID = -2270418337958460125L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+				return size() > RiskGridCache.this.capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the cache shared by all requests.
+	 * 
+	 * @return The shared cache.
+	 */
+	public static RiskGridCache getShared() {
+		return shared;
+	}
+	
+	// Access
+	
+	/**
+	 * Copies all cached cells of a grid into its result.
+	 * 
+	 * @param grid The grid.
+	 * @param fingerprint Fingerprint of the grid.
+	 * @param result Result receiving the cached cells.
+	 * @return Numbers of the cells that are not cached.
+	 */
+	public synchronized int[] get(RiskGrid grid, String fingerprint, RiskGridResult result) {
+		int[] missing = new int[result.size()];
+		int n = 0;
+		for (int index = 0; index < result.size(); index++) {
+			double[] cell = cells.get(new Key(grid, fingerprint, index));
+			if (cell != null)
+				result.set(index, cell[0], (int) cell[1]);
+			else
+				missing[n++] = index;
+		}
+		hits += result.size() - n;
+		misses += n;
+		int[] trimmed = new int[n];
+		System.arraycopy(missing, 0, trimmed, 0, n);
+		return trimmed;
+	}
+	
+	/**
+	 * Adds cells of a grid from its result.
+	 * 
+	 * @param grid The grid.
+	 * @param fingerprint Fingerprint of the grid.
+	 * @param result Result holding the cells.
+	 * @param indexes Numbers of the cells to add.
+	 */
+	public synchronized void put(RiskGrid grid, String fingerprint, RiskGridResult result, int[] indexes) {
+		for (int index : indexes)
+			cells.put(new Key(grid, fingerprint, index), new double[] { result.getMinGlucose(index),
+			        result.getMinutesBelow(index) });
+	}
+	
+	/**
+	 * Removes all cells and resets the statistics.
+	 */
+	public synchronized void clear() {
+		cells.clear();
+		hits = 0;
+		misses = 0;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.capacity
+	 */
+	public synchronized int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Getters/setters. Shrinking the capacity takes effect with the next added cell.
+	 * 
+	 * @param capacity Maximum number of cached cells.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Number of cached cells.
+	 * 
+	 * @return The size of the cache.
+	 */
+	public synchronized int size() {
+		return cells.size();
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Identifies a cell by the fingerprint of its grid and its scalings in millionths.
+	 */
+	private static class Key {
+		
+		private final String fingerprint;
+		
+		private final long dose, carbs;
+		
+		private final int hash;
+		
+		public Key(RiskGrid grid, String fingerprint, int index) {
+			int columns = grid.getCarbScales().length;
+			this.fingerprint = fingerprint;
+			dose = Math.round(grid.getDoseScales()[index / columns] * 1e6);
+			carbs = Math.round(grid.getCarbScales()[index % columns] * 1e6);
+			hash = 31 * (31 * fingerprint.hashCode() + (int) (dose ^ (dose >>> 32))) + (int) (carbs ^ (carbs >>> 32));
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return hash == other.hash && dose == other.dose && carbs == other.carbs
+			        && fingerprint.equals(other.fingerprint);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
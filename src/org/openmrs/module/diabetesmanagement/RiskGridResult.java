@@ -0,0 +1,146 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Hypoglycemia risk of each cell of a {@link RiskGrid}: the lowest glucose level and the time below
+ * {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} on the last simulated day. Both are also available
+ * as one row per dose scaling, e.g. for rendering a heat-map. Glucose levels are in mmol/l, unless
+ * converted by {@link #inMgdl()}.
+ */
+public class RiskGridResult {
+	
+	/** The simulated grid. */
+	private final RiskGrid grid;
+	
+	/** Lowest glucose level of the last simulated day. (mmol/l) */
+	private final double[] minGlucose;
+	
+	/** Time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} on the last simulated day. (min) */
+	private final int[] minutesBelow;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty result.
+	 * 
+	 * @param grid The simulated grid.
+	 */
+	public RiskGridResult(RiskGrid grid) {
+		this.grid = grid;
+		minGlucose = new double[grid.size()];
+		minutesBelow = new int[grid.size()];
+	}
+	
+	/**
+	 * Stores the metrics of one cell.
+	 * 
+	 * @param index Number of the cell.
+	 * @param min Lowest glucose level.
+	 * @param below Time below the hypoglycemia threshold.
+	 */
+	public void set(int index, double min, int below) {
+		minGlucose[index] = min;
+		minutesBelow[index] = below;
+	}
+	
+	/**
+	 * Returns a copy with the glucose levels converted from mmol/l to mg/dl.
+	 * 
+	 * @return The copy.
+	 */
+	public RiskGridResult inMgdl() {
+		RiskGridResult result = new RiskGridResult(grid);
+		for (int k = 0; k < minGlucose.length; k++)
+			result.set(k, minGlucose[k] * TimeSeries.MGDL_PER_MMOL, minutesBelow[k]);
+		return result;
+	}
+	
+	// Access
+	
+	/**
+	 * Number of the cell with the given indexes into the scalings of the grid.
+	 * 
+	 * @param dose Index of the dose scaling.
+	 * @param carbs Index of the carbohydrate scaling.
+	 * @return Number of the cell.
+	 */
+	public int getIndex(int dose, int carbs) {
+		return dose * grid.getCarbScales().length + carbs;
+	}
+	
+	/**
+	 * Number of cells.
+	 * 
+	 * @return The size of the result.
+	 */
+	public int size() {
+		return minGlucose.length;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.grid
+	 */
+	public RiskGrid getGrid() {
+		return grid;
+	}
+	
+	/**
+	 * Lowest glucose level of the last simulated day.
+	 * 
+	 * @param index Number of the cell.
+	 * @return The lowest glucose level. (mmol/l)
+	 */
+	public double getMinGlucose(int index) {
+		return minGlucose[index];
+	}
+	
+	/**
+	 * Time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} on the last simulated day.
+	 * 
+	 * @param index Number of the cell.
+	 * @return The time below the threshold. (min)
+	 */
+	public int getMinutesBelow(int index) {
+		return minutesBelow[index];
+	}
+	
+	/**
+	 * Lowest glucose levels, one row per dose scaling.
+	 * 
+	 * @return The levels. (mmol/l)
+	 */
+	public double[][] getMinGlucoseRows() {
+		int columns = grid.getCarbScales().length;
+		double[][] rows = new double[grid.getDoseScales().length][columns];
+		for (int k = 0; k < minGlucose.length; k++)
+			rows[k / columns][k % columns] = minGlucose[k];
+		return rows;
+	}
+	
+	/**
+	 * Times below the hypoglycemia threshold, one row per dose scaling.
+	 * 
+	 * @return The times. (min)
+	 */
+	public int[][] getMinutesBelowRows() {
+		int columns = grid.getCarbScales().length;
+		int[][] rows = new int[grid.getDoseScales().length][columns];
+		for (int k = 0; k < minutesBelow.length; k++)
+			rows[k / columns][k % columns] = minutesBelow[k];
+		return rows;
+	}
+}
@@ -0,0 +1,433 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+
+/**
+ * Variance-based global sensitivity analysis of the AIDA model's outcomes with respect to the
+ * patient parameters and the absorption parameters of the first insulin type. Each parameter is
+ * uniformly distributed over its range; parameters with an empty range are fixed. The model is
+ * evaluated by the scheme of Saltelli (2010): two matrices A and B of {@link #getSamples()} rows are
+ * taken from a Sobol sequence of twice as many dimensions as there are varied parameters, and for
+ * every varied parameter a third matrix is A with that parameter's column taken from B.
+ */
+public class SensitivityAnalysis {
+	
+	/** Index of the body weight. */
+	public static final int WEIGHT = VirtualPopulation.WEIGHT;
+	
+	/** Index of the RTG. */
+	public static final int RTG = VirtualPopulation.RTG;
+	
+	/** Index of the CCR. */
+	public static final int CCR = VirtualPopulation.CCR;
+	
+	/** Index of the hepatic insulin sensitivity. */
+	public static final int SH = VirtualPopulation.SH;
+	
+	/** Index of the peripheral insulin sensitivity. */
+	public static final int SP = VirtualPopulation.SP;
+	
+	/** Index of the parameter S of the first insulin type. */
+	public static final int INSULIN_S = 5;
+	
+	/** Index of the parameter A of the first insulin type. */
+	public static final int INSULIN_A = 6;
+	
+	/** Index of the parameter B of the first insulin type. */
+	public static final int INSULIN_B = 7;
+	
+	/** Number of parameters. */
+	public static final int PARAMETERS = 8;
+	
+	/** Lower bounds of the parameters; NaN for the insulin parameters means the first type's value. */
+	private final double[] lower = { 50.0, 8.0, 60.0, 0.2, 0.2, Double.NaN, Double.NaN, Double.NaN };
+	
+	/** Upper bounds of the parameters; NaN for the insulin parameters means the first type's value. */
+	private final double[] upper = { 100.0, 10.0, 140.0, 0.8, 0.8, Double.NaN, Double.NaN, Double.NaN };
+	
+	/** First insulin type, providing the insulin parameters without a range. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Daily meals and injections. */
+	private EventSchedule schedule;
+	
+	/** Number of rows of the matrices A and B; a power of 2 balances the Sobol points. */
+	private int samples = 1024;
+	
+	/** Number of bootstrap resamples for the confidence intervals. */
+	private int resamples = 200;
+	
+	/** Level of the bootstrap confidence intervals. */
+	private double confidenceLevel = 0.95;
+	
+	/** Seed of the bootstrap resampling. */
+	private long seed;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public SensitivityAnalysis() {
+	}
+	
+	// Sampling
+	
+	/**
+	 * Indexes of the parameters with a non-empty range.
+	 * 
+	 * @return The varied parameters, in ascending order.
+	 */
+	public int[] getVariedParameters() {
+		int[] varied = new int[PARAMETERS];
+		int n = 0;
+		for (int p = 0; p < PARAMETERS; p++)
+			if (getUpper(p) > getLower(p))
+				varied[n++] = p;
+		return Arrays.copyOf(varied, n);
+	}
+	
+	/**
+	 * Number of model runs: one per row of A, B and each matrix of a varied parameter.
+	 * 
+	 * @return The number of runs.
+	 */
+	public int getRuns() {
+		return samples * (getVariedParameters().length + 2);
+	}
+	
+	/**
+	 * Creates the Sobol sequence of the matrices A and B.
+	 * 
+	 * @return The sequence.
+	 */
+	public SobolSequence createSequence() {
+		return new SobolSequence(2 * getVariedParameters().length);
+	}
+	
+	/**
+	 * Parameters of one model run. Run r belongs to row r % samples of matrix r / samples, where
+	 * matrix 0 is A, matrix 1 is B and matrix 2 + k takes the k-th varied parameter from B.
+	 * 
+	 * @param sequence Sequence created by {@link #createSequence()}.
+	 * @param varied Result of {@link #getVariedParameters()}.
+	 * @param run Number of the run.
+	 * @param point Array for the Sobol point, with one value per dimension.
+	 * @param parameters Receives the parameters, indexed as {@link #WEIGHT} to {@link #INSULIN_B}.
+	 */
+	public void getParameters(SobolSequence sequence, int[] varied, int run, double[] point, double[] parameters) {
+		int matrix = run / samples, row = run % samples;
+		sequence.get(row + 1, point);
+		for (int p = 0; p < PARAMETERS; p++)
+			parameters[p] = getLower(p);
+		for (int k = 0; k < varied.length; k++) {
+			int p = varied[k];
+			boolean fromB = matrix == 1 || matrix == 2 + k;
+			double u = point[fromB ? varied.length + k : k];
+			parameters[p] = getLower(p) + u * (getUpper(p) - getLower(p));
+		}
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (schedule == null)
+			throw new NullPointerException("Schedule must be set!");
+		for (int p = 0; p < PARAMETERS; p++)
+			if (!(getLower(p) <= getUpper(p)))
+				throw new IllegalArgumentException("Range of parameter " + p + " is invalid: " + getLower(p) + " - "
+				        + getUpper(p));
+		int varied = getVariedParameters().length;
+		if (varied == 0 || 2 * varied > SobolSequence.MAX_DIMENSIONS)
+			throw new IllegalArgumentException("Between 1 and " + SobolSequence.MAX_DIMENSIONS / 2
+			        + " parameters must be varied: " + varied);
+		if (samples < 2 || resamples < 1)
+			throw new IllegalArgumentException("Numbers of samples and resamples must be at least 2 and 1: " + samples
+			        + ", " + resamples);
+		if (!(confidenceLevel > 0.0 && confidenceLevel < 1.0))
+			throw new IllegalArgumentException("Confidence level must be between 0 and 1: " + confidenceLevel);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Lower bound of a parameter's range.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @return The lower bound.
+	 */
+	public double getLower(int parameter) {
+		return Double.isNaN(lower[parameter]) ? getInsulinParameter(parameter) : lower[parameter];
+	}
+	
+	/**
+	 * Upper bound of a parameter's range.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @return The upper bound.
+	 */
+	public double getUpper(int parameter) {
+		return Double.isNaN(upper[parameter]) ? getInsulinParameter(parameter) : upper[parameter];
+	}
+	
+	/**
+	 * Sets the range of a parameter; an empty range fixes the parameter.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @param lower The lower bound.
+	 * @param upper The upper bound.
+	 */
+	public void setRange(int parameter, double lower, double upper) {
+		this.lower[parameter] = lower;
+		this.upper[parameter] = upper;
+	}
+	
+	/**
+	 * Parameter S, A or B of the first insulin type.
+	 * 
+	 * @param parameter Index of the parameter.
+	 * @return The parameter's value, or NaN if not an insulin parameter or not available.
+	 */
+	private double getInsulinParameter(int parameter) {
+		Double value = null;
+		if (insulinType1 != null) {
+			if (parameter == INSULIN_S)
+				value = insulinType1.getParameterS();
+			else if (parameter == INSULIN_A)
+				value = insulinType1.getParameterA();
+			else if (parameter == INSULIN_B)
+				value = insulinType1.getParameterB();
+		}
+		return value != null ? value : Double.NaN;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 The insulinType1 to set.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 The insulinType2 to set.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule The schedule to set.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.samples
+	 */
+	public int getSamples() {
+		return samples;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param samples The samples to set.
+	 */
+	public void setSamples(int samples) {
+		this.samples = samples;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.resamples
+	 */
+	public int getResamples() {
+		return resamples;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param resamples The resamples to set.
+	 */
+	public void setResamples(int resamples) {
+		this.resamples = resamples;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.confidenceLevel
+	 */
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param confidenceLevel The confidenceLevel to set.
+	 */
+	public void setConfidenceLevel(double confidenceLevel) {
+		this.confidenceLevel = confidenceLevel;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param seed The seed to set.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * First-order and total Sobol indices of a {@link SensitivityAnalysis}, per outcome and parameter,
+ * with bootstrap confidence intervals. Outcomes are numbered as in {@link TrialResult}. First-order
+ * indices are estimated as in Saltelli (2010), total indices as in Jansen (1999). Parameters that
+ * were not varied have indices of 0; all indices of an outcome without variance are NaN.
+ */
+public class SensitivityResult {
+	
+	/** Number of rows of the matrices A and B. */
+	private final int samples;
+	
+	/** Variance of each outcome over the matrices A and B. */
+	private final double[] variance;
+	
+	/** First-order indices and their confidence bounds, per outcome and parameter. */
+	private final double[][] firstOrder, firstOrderLow, firstOrderHigh;
+	
+	/** Total indices and their confidence bounds, per outcome and parameter. */
+	private final double[][] total, totalLow, totalHigh;
+	
+	// Constructors
+	
+	/**
+	 * Estimates the indices from the outcomes of all model runs.
+	 * 
+	 * @param analysis The analysis.
+	 * @param outcomes {@link TrialResult#OUTCOMES} outcomes per run, in the order of the runs of
+	 *            {@link SensitivityAnalysis#getParameters}.
+	 */
+	public SensitivityResult(SensitivityAnalysis analysis, double[] outcomes) {
+		samples = analysis.getSamples();
+		int[] varied = analysis.getVariedParameters();
+		int n = samples, outcomeCount = TrialResult.OUTCOMES, parameters = SensitivityAnalysis.PARAMETERS;
+		variance = new double[outcomeCount];
+		firstOrder = new double[outcomeCount][parameters];
+		firstOrderLow = new double[outcomeCount][parameters];
+		firstOrderHigh = new double[outcomeCount][parameters];
+		total = new double[outcomeCount][parameters];
+		totalLow = new double[outcomeCount][parameters];
+		totalHigh = new double[outcomeCount][parameters];
+		
+		// Row indexes of the full sample and of the bootstrap resamples
+		int[] rows = new int[n];
+		for (int j = 0; j < n; j++)
+			rows[j] = j;
+		int resamples = analysis.getResamples();
+		double[][][] firstOrderBoot = new double[outcomeCount][varied.length][resamples];
+		double[][][] totalBoot = new double[outcomeCount][varied.length][resamples];
+		double[] estimates = new double[2 * varied.length + 1];
+		
+		for (int o = 0; o < outcomeCount; o++) {
+			estimate(outcomes, o, varied.length, rows, estimates);
+			variance[o] = estimates[0];
+			for (int k = 0; k < varied.length; k++) {
+				firstOrder[o][varied[k]] = estimates[1 + k];
+				total[o][varied[k]] = estimates[1 + varied.length + k];
+			}
+		}
+		SplittableRandom random = new SplittableRandom(analysis.getSeed());
+		for (int r = 0; r < resamples; r++) {
+			for (int j = 0; j < n; j++)
+				rows[j] = random.nextInt(n);
+			for (int o = 0; o < outcomeCount; o++) {
+				estimate(outcomes, o, varied.length, rows, estimates);
+				for (int k = 0; k < varied.length; k++) {
+					firstOrderBoot[o][k][r] = estimates[1 + k];
+					totalBoot[o][k][r] = estimates[1 + varied.length + k];
+				}
+			}
+		}
+		
+		// Percentile intervals
+		double alpha = (1.0 - analysis.getConfidenceLevel()) / 2.0;
+		for (int o = 0; o < outcomeCount; o++) {
+			for (int k = 0; k < varied.length; k++) {
+				int p = varied[k];
+				firstOrderLow[o][p] = percentile(firstOrderBoot[o][k], alpha);
+				firstOrderHigh[o][p] = percentile(firstOrderBoot[o][k], 1.0 - alpha);
+				totalLow[o][p] = percentile(totalBoot[o][k], alpha);
+				totalHigh[o][p] = percentile(totalBoot[o][k], 1.0 - alpha);
+			}
+		}
+	}
+	
+	/**
+	 * Estimates the variance and the indices of one outcome from the given rows.
+	 * 
+	 * @param outcomes Outcomes of all runs.
+	 * @param o Index of the outcome.
+	 * @param varied Number of varied parameters.
+	 * @param rows Rows of the sample, possibly repeated.
+	 * @param estimates Receives the variance, the first-order indices and the total indices.
+	 */
+	private void estimate(double[] outcomes, int o, int varied, int[] rows, double[] estimates) {
+		int n = samples, stride = TrialResult.OUTCOMES;
+		double sum = 0.0, sumSquares = 0.0;
+		for (int j : rows) {
+			double a = outcomes[j * stride + o], b = outcomes[(n + j) * stride + o];
+			sum += a + b;
+			sumSquares += a * a + b * b;
+		}
+		double mean = sum / (2 * n);
+		double var = sumSquares / (2 * n) - mean * mean;
+		estimates[0] = var;
+		for (int k = 0; k < varied; k++) {
+			int offset = (2 + k) * n;
+			double first = 0.0, tot = 0.0;
+			for (int j : rows) {
+				double a = outcomes[j * stride + o], b = outcomes[(n + j) * stride + o];
+				double ab = outcomes[(offset + j) * stride + o];
+				first += b * (ab - a);
+				tot += (a - ab) * (a - ab);
+			}
+			estimates[1 + k] = var > 0.0 ? first / n / var : Double.NaN;
+			estimates[1 + varied + k] = var > 0.0 ? tot / (2 * n) / var : Double.NaN;
+		}
+	}
+	
+	/**
+	 * Percentile of the given values; NaN values sort last.
+	 * 
+	 * @param values The values; sorted by this method.
+	 * @param fraction Fraction of values below the percentile.
+	 * @return The percentile.
+	 */
+	private static double percentile(double[] values, double fraction) {
+		Arrays.sort(values);
+		int index = (int) Math.round(fraction * (values.length - 1));
+		return values[index];
+	}
+	
+	// Results
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.samples
+	 */
+	public int getSamples() {
+		return samples;
+	}
+	
+	/**
+	 * Variance of an outcome over the matrices A and B.
+	 * 
+	 * @param outcome Index of the outcome, e.g. {@link TrialResult#MEAN_GLUCOSE}.
+	 * @return The variance.
+	 */
+	public double getVariance(int outcome) {
+		return variance[outcome];
+	}
+	
+	/**
+	 * First-order index: the fraction of the outcome's variance caused by the parameter alone.
+	 * 
+	 * @param outcome Index of the outcome, e.g. {@link TrialResult#MEAN_GLUCOSE}.
+	 * @param parameter Index of the parameter, e.g. {@link SensitivityAnalysis#SH}.
+	 * @return The index.
+	 */
+	public double getFirstOrder(int outcome, int parameter) {
+		return firstOrder[outcome][parameter];
+	}
+	
+	/**
+	 * Bootstrap confidence interval of a first-order index.
+	 * 
+	 * @param outcome Index of the outcome.
+	 * @param parameter Index of the parameter.
+	 * @return Lower and upper bound.
+	 */
+	public double[] getFirstOrderInterval(int outcome, int parameter) {
+		return new double[] { firstOrderLow[outcome][parameter], firstOrderHigh[outcome][parameter] };
+	}
+	
+	/**
+	 * Total index: the fraction of the outcome's variance caused by the parameter, including all
+	 * interactions with other parameters.
+	 * 
+	 * @param outcome Index of the outcome, e.g. {@link TrialResult#MEAN_GLUCOSE}.
+	 * @param parameter Index of the parameter, e.g. {@link SensitivityAnalysis#SH}.
+	 * @return The index.
+	 */
+	public double getTotal(int outcome, int parameter) {
+		return total[outcome][parameter];
+	}
+	
+	/**
+	 * Bootstrap confidence interval of a total index.
+	 * 
+	 * @param outcome Index of the outcome.
+	 * @param parameter Index of the parameter.
+	 * @return Lower and upper bound.
+	 */
+	public double[] getTotalInterval(int outcome, int parameter) {
+		return new double[] { totalLow[outcome][parameter], totalHigh[outcome][parameter] };
+	}
+}
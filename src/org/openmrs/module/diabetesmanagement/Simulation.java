@@ -1,1188 +1,1763 @@
-/**
- * The contents of this file are subject to the OpenMRS Public License
- * Version 1.0 (the "License"); you may not use this file except in
- * compliance with the License. You may obtain a copy of the License at
- * http://license.openmrs.org
- *
- * Software distributed under the License is distributed on an "AS IS"
- * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
- * License for the specific language governing rights and limitations
- * under the License.
- *
- * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
- */
-package org.openmrs.module.diabetesmanagement;
-
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import org.openmrs.Concept;
-import org.openmrs.ConceptNumeric;
-
-/**
- * Simulation reference object. Contains the simulation parameters and two simulation model
- * instances (current and previous).
- */
-public class Simulation {
-	
-	// Members
-	
-	/** Simulation model instance for the current run. */
-	private SimulationModelAIDA simCurrent;
-	
-	/** Simulation model instance for the previous run. */
-	private SimulationModelAIDA simPrevious;
-	
-	/** Indicates that results for the current run are available. */
-	private Boolean resultsAvailableCurrent;
-	
-	/** Indicates that results for the previous run are available. */
-	private Boolean resultsAvailablePrevious;
-	
-	/** Simulation runtime in milliseconds. */
-	private Double executionTime;
-	
-	/** Initial plasma glucose level. */
-	private Double initialGlucose;
-	
-	/** Initial arterial glucose level. */
-	private Double initialArterialGlucose;
-	
-	/** Initial plasma insulin level. */
-	private Double initialInsulin;
-	
-	/** Initial active insulin level. */
-	private Double initialActiveInsulin;
-	
-	/** Patient's body weight. (kg) */
-	private Double weight;
-	
-	/** Patient's renal threshold of glucose. (mmol/l) */
-	private Double RTG;
-	
-	/** Patient's creatinine clearance rate (glomerular filtration). (ml/min) */
-	private Double CCR;
-	
-	/** Patient's hepatic insulin sensivity. */
-	private Double sh;
-	
-	/** Patient's peripheral insulin sensivity. */
-	private Double sp;
-	
-	/**
-	 * Indicates whether the weight value is generic or an actual observation value of a real
-	 * patient.
-	 */
-	private Boolean patientSpecificWeight = false;
-	
-	/** Indicates whether the RTG value is generic or an actual observation value of a real patient. */
-	private Boolean patientSpecificRTG = false;
-	
-	/** Indicates whether the CCR value is generic or an actual observation value of a real patient. */
-	private Boolean patientSpecificCCR = false;
-	
-	/** Indicates whether the Sh value is generic or an actual observation value of a real patient. */
-	private Boolean patientSpecificSh = false;
-	
-	/** Indicates whether the Sp value is generic or an actual observation value of a real patient. */
-	private Boolean patientSpecificSp = false;
-	
-	/** Meal #1 time entered by the user. */
-	private String mealTime1;
-	
-	/** Meal #2 time entered by the user. */
-	private String mealTime2;
-	
-	/** Meal #3 time entered by the user. */
-	private String mealTime3;
-	
-	/** Meal #4 time entered by the user. */
-	private String mealTime4;
-	
-	/** Meal #5 time entered by the user. */
-	private String mealTime5;
-	
-	/** Meal #6 time entered by the user. */
-	private String mealTime6;
-	
-	/** Meal #1 carbohydates (g) entered by the user. */
-	private String mealCarbs1;
-	
-	/** Meal #2 carbohydates (g) entered by the user. */
-	private String mealCarbs2;
-	
-	/** Meal #3 carbohydates (g) entered by the user. */
-	private String mealCarbs3;
-	
-	/** Meal #4 carbohydates (g) entered by the user. */
-	private String mealCarbs4;
-	
-	/** Meal #5 carbohydates (g) entered by the user. */
-	private String mealCarbs5;
-	
-	/** Meal #6 carbohydates (g) entered by the user. */
-	private String mealCarbs6;
-	
-	/** Insulin injection #1 time entered by the user. */
-	private String insulinTime1;
-	
-	/** Insulin injection #2 time entered by the user. */
-	private String insulinTime2;
-	
-	/** Insulin injection #3 time entered by the user. */
-	private String insulinTime3;
-	
-	/** Insulin injection #4 time entered by the user. */
-	private String insulinTime4;
-	
-	/** First InsulinType insulin injection #1 dose entered by the user. */
-	private String insulin1Dose1;
-	
-	/** First InsulinType insulin injection #2 dose entered by the user. */
-	private String insulin1Dose2;
-	
-	/** First InsulinType insulin injection #3 dose entered by the user. */
-	private String insulin1Dose3;
-	
-	/** First InsulinType insulin injection #4 dose entered by the user. */
-	private String insulin1Dose4;
-	
-	/** Second InsulinType insulin injection #1 dose entered by the user. */
-	private String insulin2Dose1;
-	
-	/** Second InsulinType insulin injection #2 dose entered by the user. */
-	private String insulin2Dose2;
-	
-	/** Second InsulinType insulin injection #3 dose entered by the user. */
-	private String insulin2Dose3;
-	
-	/** Second InsulinType insulin injection #4 dose entered by the user. */
-	private String insulin2Dose4;
-	
-	/** List of available InsulinTypes. */
-	private List<InsulinType> insulinList;
-	
-	/** First InsulinType selected from the list. */
-	private InsulinType insulin1;
-	
-	/** Second InsulinType selected from the list. */
-	private InsulinType insulin2;
-	
-	/** Needed to determine the locally used units for glucose (mmol/l or mg/dl). */
-	private Concept conceptGlucose;
-	
-	// Constructors
-	
-	/** Default constructor. */
-	public Simulation() {
-		conceptGlucose = new DiabetesManagementConfig().getRelevantConcepts().get("glu");
-	}
-	
-	/**
-	 * All required parameters constructor.
-	 * 
-	 * @param weight The patient's weight.
-	 * @param RTG The patient's renal threshold of glucose.
-	 * @param CCR The patient's creatinine clearance rate.
-	 * @param sh The patient's hepatic glucose sensivity.
-	 * @param sp The patient's peripheral glucose sensivity.
-	 * @param initialActiveInsulin The patient's initial active insulin level.
-	 */
-	public Simulation(Double weight, Double RTG, Double CCR, Double sh, Double sp, Double initialActiveInsulin) {
-		this.weight = weight;
-		this.RTG = RTG;
-		this.CCR = CCR;
-		this.sh = sh;
-		this.sp = sp;
-		this.initialActiveInsulin = initialActiveInsulin;
-		conceptGlucose = new DiabetesManagementConfig().getRelevantConcepts().get("glu");
-	}
-	
-	// Getters/setters
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.executionTime
-	 */
-	public Double getExecutionTime() {
-		return executionTime;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param executionTime The executionTime to set.
-	 */
-	public void setExecutionTime(Double executionTime) {
-		this.executionTime = executionTime;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.initialArterialGlucose
-	 */
-	public Double getInitialArterialGlucose() {
-		return initialArterialGlucose;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param initialArterialGlucose The initialArterialGlucose to set.
-	 */
-	public void setInitialArterialGlucose(Double initialArterialGlucose) {
-		this.initialArterialGlucose = initialArterialGlucose;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.initialGlucose
-	 */
-	public Double getInitialGlucose() {
-		return initialGlucose;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param initialGlucose The initialGlucose to set.
-	 */
-	public void setInitialGlucose(Double initialGlucose) {
-		this.initialGlucose = initialGlucose;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.initialInsulin
-	 */
-	public Double getInitialInsulin() {
-		return initialInsulin;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param initialInsulin The initialInsulin to set.
-	 */
-	public void setInitialInsulin(Double initialInsulin) {
-		this.initialInsulin = initialInsulin;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.initialActiveInsulin
-	 */
-	public Double getInitialActiveInsulin() {
-		return initialActiveInsulin;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param initialActiveInsulin The initialActiveInsulin to set.
-	 */
-	public void setInitialActiveInsulin(Double initialActiveInsulin) {
-		this.initialActiveInsulin = initialActiveInsulin;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.weight
-	 */
-	public Double getWeight() {
-		return weight;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param weight The weight to set.
-	 */
-	public void setWeight(Double weight) {
-		this.weight = weight;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.RTG
-	 */
-	public Double getRTG() {
-		return RTG;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param rtg The rtg to set.
-	 */
-	public void setRTG(Double rtg) {
-		RTG = rtg;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.CCR
-	 */
-	public Double getCCR() {
-		return CCR;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param ccr The ccr to set.
-	 */
-	public void setCCR(Double ccr) {
-		CCR = ccr;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.sh
-	 */
-	public Double getSh() {
-		return sh;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param sh The sh to set.
-	 */
-	public void setSh(Double sh) {
-		this.sh = sh;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.sp
-	 */
-	public Double getSp() {
-		return sp;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param sp The sp to set.
-	 */
-	public void setSp(Double sp) {
-		this.sp = sp;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.patientSpecificWeight
-	 */
-	public Boolean getPatientSpecificWeight() {
-		return patientSpecificWeight;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param patientSpecificWeight The patientSpecificWeight to set.
-	 */
-	public void setPatientSpecificWeight(Boolean patientSpecificWeight) {
-		this.patientSpecificWeight = patientSpecificWeight;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.patientSpecificRTG
-	 */
-	public Boolean getPatientSpecificRTG() {
-		return patientSpecificRTG;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param patientSpecificRTG The patientSpecificRTG to set.
-	 */
-	public void setPatientSpecificRTG(Boolean patientSpecificRTG) {
-		this.patientSpecificRTG = patientSpecificRTG;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.patientSpecificCCR
-	 */
-	public Boolean getPatientSpecificCCR() {
-		return patientSpecificCCR;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param patientSpecificCCR The patientSpecificCCR to set.
-	 */
-	public void setPatientSpecificCCR(Boolean patientSpecificCCR) {
-		this.patientSpecificCCR = patientSpecificCCR;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.patientSpecificSp
-	 */
-	public Boolean getPatientSpecificSh() {
-		return patientSpecificSh;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param patientSpecificSh The patientSpecificSh to set.
-	 */
-	public void setPatientSpecificSh(Boolean patientSpecificSh) {
-		this.patientSpecificSh = patientSpecificSh;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.patientSpecificSp
-	 */
-	public Boolean getPatientSpecificSp() {
-		return patientSpecificSp;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param patientSpecificSp The patientSpecificSp to set.
-	 */
-	public void setPatientSpecificSp(Boolean patientSpecificSp) {
-		this.patientSpecificSp = patientSpecificSp;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealTime1
-	 */
-	public String getMealTime1() {
-		return mealTime1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealTime1 The mealTime1 to set.
-	 */
-	public void setMealTime1(String mealTime1) {
-		this.mealTime1 = mealTime1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealTime2
-	 */
-	public String getMealTime2() {
-		return mealTime2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealTime2 The mealTime2 to set.
-	 */
-	public void setMealTime2(String mealTime2) {
-		this.mealTime2 = mealTime2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealTime3
-	 */
-	public String getMealTime3() {
-		return mealTime3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealTime3 The mealTime3 to set.
-	 */
-	public void setMealTime3(String mealTime3) {
-		this.mealTime3 = mealTime3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealTime4
-	 */
-	public String getMealTime4() {
-		return mealTime4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealTime4 The mealTime4 to set.
-	 */
-	public void setMealTime4(String mealTime4) {
-		this.mealTime4 = mealTime4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealTime5
-	 */
-	public String getMealTime5() {
-		return mealTime5;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealTime5 The mealTime5 to set.
-	 */
-	public void setMealTime5(String mealTime5) {
-		this.mealTime5 = mealTime5;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealTime6
-	 */
-	public String getMealTime6() {
-		return mealTime6;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealTime6 The mealTime6 to set.
-	 */
-	public void setMealTime6(String mealTime6) {
-		this.mealTime6 = mealTime6;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealCarbs1
-	 */
-	public String getMealCarbs1() {
-		return mealCarbs1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealCarbs1 The mealCarbs1 to set.
-	 */
-	public void setMealCarbs1(String mealCarbs1) {
-		this.mealCarbs1 = mealCarbs1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealCarbs2
-	 */
-	public String getMealCarbs2() {
-		return mealCarbs2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealCarbs2 The mealCarbs2 to set.
-	 */
-	public void setMealCarbs2(String mealCarbs2) {
-		this.mealCarbs2 = mealCarbs2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealCarbs3
-	 */
-	public String getMealCarbs3() {
-		return mealCarbs3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealCarbs3 The mealCarbs3 to set.
-	 */
-	public void setMealCarbs3(String mealCarbs3) {
-		this.mealCarbs3 = mealCarbs3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealCarbs4
-	 */
-	public String getMealCarbs4() {
-		return mealCarbs4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealCarbs4 The mealCarbs4 to set.
-	 */
-	public void setMealCarbs4(String mealCarbs4) {
-		this.mealCarbs4 = mealCarbs4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealCarbs5
-	 */
-	public String getMealCarbs5() {
-		return mealCarbs5;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealCarbs5 The mealCarbs5 to set.
-	 */
-	public void setMealCarbs5(String mealCarbs5) {
-		this.mealCarbs5 = mealCarbs5;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.mealCarbs6
-	 */
-	public String getMealCarbs6() {
-		return mealCarbs6;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param mealCarbs6 The mealCarbs6 to set.
-	 */
-	public void setMealCarbs6(String mealCarbs6) {
-		this.mealCarbs6 = mealCarbs6;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulinTime1
-	 */
-	public String getInsulinTime1() {
-		return insulinTime1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulinTime1 The insulinTime1 to set.
-	 */
-	public void setInsulinTime1(String insulinTime1) {
-		this.insulinTime1 = insulinTime1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulinTime2
-	 */
-	public String getInsulinTime2() {
-		return insulinTime2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulinTime2 The insulinTime2 to set.
-	 */
-	public void setInsulinTime2(String insulinTime2) {
-		this.insulinTime2 = insulinTime2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulinTime3
-	 */
-	public String getInsulinTime3() {
-		return insulinTime3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulinTime3 The insulinTime3 to set.
-	 */
-	public void setInsulinTime3(String insulinTime3) {
-		this.insulinTime3 = insulinTime3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulinTime4
-	 */
-	public String getInsulinTime4() {
-		return insulinTime4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulinTime4 The insulinTime4 to set.
-	 */
-	public void setInsulinTime4(String insulinTime4) {
-		this.insulinTime4 = insulinTime4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin1Dose1
-	 */
-	public String getInsulin1Dose1() {
-		return insulin1Dose1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin1Dose1 The insulin1Dose1 to set.
-	 */
-	public void setInsulin1Dose1(String insulin1Dose1) {
-		this.insulin1Dose1 = insulin1Dose1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin1Dose2
-	 */
-	public String getInsulin1Dose2() {
-		return insulin1Dose2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin1Dose2 The insulin1Dose2 to set.
-	 */
-	public void setInsulin1Dose2(String insulin1Dose2) {
-		this.insulin1Dose2 = insulin1Dose2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin1Dose3
-	 */
-	public String getInsulin1Dose3() {
-		return insulin1Dose3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin1Dose3 The insulin1Dose3 to set.
-	 */
-	public void setInsulin1Dose3(String insulin1Dose3) {
-		this.insulin1Dose3 = insulin1Dose3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin1Dose4
-	 */
-	public String getInsulin1Dose4() {
-		return insulin1Dose4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin1Dose4 The insulin1Dose4 to set.
-	 */
-	public void setInsulin1Dose4(String insulin1Dose4) {
-		this.insulin1Dose4 = insulin1Dose4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin2Dose1
-	 */
-	public String getInsulin2Dose1() {
-		return insulin2Dose1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin2Dose1 The insulin2Dose1 to set.
-	 */
-	public void setInsulin2Dose1(String insulin2Dose1) {
-		this.insulin2Dose1 = insulin2Dose1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin2Dose2
-	 */
-	public String getInsulin2Dose2() {
-		return insulin2Dose2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin2Dose2 The insulin2Dose2 to set.
-	 */
-	public void setInsulin2Dose2(String insulin2Dose2) {
-		this.insulin2Dose2 = insulin2Dose2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin2Dose3
-	 */
-	public String getInsulin2Dose3() {
-		return insulin2Dose3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin2Dose3 The insulin2Dose3 to set.
-	 */
-	public void setInsulin2Dose3(String insulin2Dose3) {
-		this.insulin2Dose3 = insulin2Dose3;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin2Dose4
-	 */
-	public String getInsulin2Dose4() {
-		return insulin2Dose4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin2Dose4 The insulin2Dose4 to set.
-	 */
-	public void setInsulin2Dose4(String insulin2Dose4) {
-		this.insulin2Dose4 = insulin2Dose4;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulinList
-	 */
-	public List<InsulinType> getInsulinList() {
-		return insulinList;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulinList The insulinList to set.
-	 */
-	public void setInsulinList(List<InsulinType> insulinList) {
-		this.insulinList = insulinList;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin1
-	 */
-	public InsulinType getInsulin1() {
-		return insulin1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin1 The insulin1 to set.
-	 */
-	public void setInsulin1(InsulinType insulin1) {
-		this.insulin1 = insulin1;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @return this.insulin2
-	 */
-	public InsulinType getInsulin2() {
-		return insulin2;
-	}
-	
-	/**
-	 * Getters/setters.
-	 * 
-	 * @param insulin2 The insulin2 to set.
-	 */
-	public void setInsulin2(InsulinType insulin2) {
-		this.insulin2 = insulin2;
-	}
-	
-	/**
-	 * Returns the converted (Map<Date, Double>) meal intake data from simCurrent.
-	 * 
-	 * @return this.simCurrent.meals
-	 */
-	public Map<Date, Double> getMealsCurrent() {
-		if (simCurrent == null)
-			return null;
-		else
-			return simCurrent.getMeals();
-	}
-	
-	/**
-	 * Returns the converted (Map<Date, Double>) meal intake data from simPrevious.
-	 * 
-	 * @return this.simPrevious.meals
-	 */
-	public Map<Date, Double> getMealsPrevious() {
-		if (simPrevious == null)
-			return null;
-		else
-			return simPrevious.getMeals();
-	}
-	
-	/**
-	 * Returns the first InsulinType insulin injection data from simCurrent.
-	 * 
-	 * @return this.simCurrent.insulinInjection
-	 */
-	public Map<Date, Double> getInsulinInjections1() {
-		return simCurrent.getInsulinInjections1();
-	}
-	
-	/**
-	 * Returns the second InsulinType insulin injection data from simCurrent.
-	 * 
-	 * @return this.simCurrent.insulinInjection
-	 */
-	public Map<Date, Double> getInsulinInjections2() {
-		return simCurrent.getInsulinInjections2();
-	}
-	
-	/**
-	 * Returns the plasma glucose result data from simCurrent.
-	 * 
-	 * @return this.simCurrent.resultGlucoseCurrent
-	 */
-	public Map<Date, Double> getResultGlucoseCurrent() {
-		if (simCurrent == null)
-			return null;
-		else
-			return simCurrent.getResultGlucose();
-	}
-	
-	/**
-	 * Returns the plasma glucose result data from simPrevious.
-	 * 
-	 * @return this.simPrevious.resultGlucoseCurrent
-	 */
-	public Map<Date, Double> getResultGlucosePrevious() {
-		if (simPrevious == null)
-			return null;
-		else
-			return simPrevious.getResultGlucose();
-	}
-	
-	/**
-	 * Returns the plasma insulin result data from simCurrent.
-	 * 
-	 * @return this.simCurrent.resultInsulinCurrent
-	 */
-	public Map<Date, Double> getResultInsulinCurrent() {
-		if (simCurrent == null)
-			return null;
-		else
-			return simCurrent.getResultInsulin();
-	}
-	
-	/**
-	 * Returns the plasma insulin result data from simPrevious.
-	 * 
-	 * @return this.simPrevious.resultInsulinCurrent
-	 */
-	public Map<Date, Double> getResultInsulinPrevious() {
-		if (simPrevious == null)
-			return null;
-		else
-			return simPrevious.getResultInsulin();
-	}
-	
-	/**
-	 * Checks whether plasma glucose/insulin results are available for the current simulation run.
-	 * 
-	 * @return true if results Maps are not null and not empty; false otherwise.
-	 */
-	public Boolean getResultsAvailableCurrent() {
-		return resultsAvailableCurrent;
-	}
-	
-	/**
-	 * Checks whether plasma glucose/insulin results are available for the previous simulation run.
-	 * 
-	 * @return true if results Maps are not null and not empty; false otherwise.
-	 */
-	public Boolean getResultsAvailablePrevious() {
-		return resultsAvailablePrevious;
-	}
-	
-	/**
-	 * Runs a fresh simulation with current parameters. Saves previous simulation beforehand.
-	 * 
-	 * @throws ParseException In case of parsing errors.
-	 * @should throw NullPointerException when insulin types or initial values not set
-	 * @should contain simCurrent after first run
-	 * @should contain current glucose result set after first run
-	 * @should contain current insulin result set after first run
-	 * @should contain simPrevious after second run
-	 * @should contain previous glucose result set after second run
-	 * @should contain previous insulin result set after second run
-	 */
-	public void runSimulation() throws ParseException {
-		if (insulin1 == null || insulin2 == null)
-			throw new NullPointerException("Insulin types must be set before running!");
-		
-		Map<Date, Double> meals = new HashMap<Date, Double>();
-		Map<Date, Double> insulinInjections1 = new HashMap<Date, Double>();
-		Map<Date, Double> insulinInjections2 = new HashMap<Date, Double>();
-		Calendar now = Calendar.getInstance();
-		Calendar cal = Calendar.getInstance();
-		
-		// Convert meals to the model's format (Map<Date, Double>)
-		if (mealTime1 != null && mealTime1.length() > 0 && mealCarbs1 != null && mealCarbs1.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime1));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			meals.put(cal.getTime(), Double.valueOf(mealCarbs1));
-		}
-		if (mealTime2 != null && mealTime2.length() > 0 && mealCarbs2 != null && mealCarbs2.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime2));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			meals.put(cal.getTime(), Double.valueOf(mealCarbs2));
-		}
-		if (mealTime3 != null && mealTime3.length() > 0 && mealCarbs3 != null && mealCarbs3.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime3));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			meals.put(cal.getTime(), Double.valueOf(mealCarbs3));
-		}
-		if (mealTime4 != null && mealTime4.length() > 0 && mealCarbs4 != null && mealCarbs4.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime4));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			meals.put(cal.getTime(), Double.valueOf(mealCarbs4));
-		}
-		if (mealTime5 != null && mealTime5.length() > 0 && mealCarbs5 != null && mealCarbs5.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime5));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			meals.put(cal.getTime(), Double.valueOf(mealCarbs5));
-		}
-		if (mealTime6 != null && mealTime6.length() > 0 && mealCarbs6 != null && mealCarbs6.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime6));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			meals.put(cal.getTime(), Double.valueOf(mealCarbs6));
-		}
-		
-		// Convert insulin injections to the model's format (Map<Date, Double>)
-		if (insulinTime1 != null && insulinTime1.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime1));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			if (insulin1Dose1 != null && insulin1Dose1.length() > 0)
-				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose1));
-			if (insulin2Dose1 != null && insulin2Dose1.length() > 0)
-				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose1));
-		}
-		if (insulinTime2 != null && insulinTime2.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime2));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			if (insulin1Dose2 != null && insulin1Dose2.length() > 0)
-				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose2));
-			if (insulin2Dose2 != null && insulin2Dose2.length() > 0)
-				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose2));
-		}
-		if (insulinTime3 != null && insulinTime3.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime3));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			if (insulin1Dose3 != null && insulin1Dose3.length() > 0)
-				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose3));
-			if (insulin2Dose3 != null && insulin2Dose3.length() > 0)
-				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose3));
-			
-		}
-		if (insulinTime4 != null && insulinTime4.length() > 0) {
-			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime4));
-			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
-			if (insulin1Dose4 != null && insulin1Dose4.length() > 0)
-				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose4));
-			if (insulin2Dose4 != null && insulin2Dose4.length() > 0)
-				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose4));
-		}
-		
-		resultsAvailableCurrent = false;
-		resultsAvailablePrevious = false;
-		if (simCurrent != null)
-			simPrevious = simCurrent;
-		
-		simCurrent = new SimulationModelAIDA(weight, RTG, CCR, sh, sp, insulin1.getParameterS(), insulin1.getParameterA(),
-		        insulin1.getParameterB(), insulin2.getParameterS(), insulin2.getParameterA(), insulin2.getParameterB(),
-		        meals, insulinInjections1, insulinInjections2, initialArterialGlucose);
-		
-		simCurrent.runSimulation();
-		
-		// If both glucose and insulin results are not empty, set the flag
-		if (simCurrent != null && simCurrent.getResultGlucose() != null && simCurrent.getResultInsulin() != null
-		        && !simCurrent.getResultGlucose().isEmpty() && !simCurrent.getResultInsulin().isEmpty()) {
-			
-			// Convert mmol/l results to mg/dl, if necessary
-			if (conceptGlucose != null && ((ConceptNumeric) conceptGlucose).getUnits() != null) {
-				if (((ConceptNumeric) conceptGlucose).getUnits().toLowerCase().equals("mg/dl"))
-					simCurrent.convertToMgdl();
-			}
-			resultsAvailableCurrent = true;
-			
-		}
-		if (simPrevious != null && simPrevious.getResultGlucose() != null && simPrevious.getResultInsulin() != null
-		        && !simPrevious.getResultGlucose().isEmpty() && !simPrevious.getResultInsulin().isEmpty())
-			resultsAvailablePrevious = true;
-	}
-}
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.Concept;
+import org.openmrs.ConceptNumeric;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.service.SimulationSweepService;
+
+/**
+ * Simulation reference object. Contains the simulation parameters and two simulation model
+ * instances (current and previous).
+ */
+public class Simulation {
+	
+	// Members
+	
+	/** Glucose levels separating the colours of the risk map, in ascending order. (mmol/l) */
+	public static final double[] RISK_THRESHOLDS = { 3.0, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD, 5.0 };
+	
+	/** Logger for this class. */
+	private final Log log = LogFactory.getLog(this.getClass());
+	
+	/** Simulation model instance for the current run. */
+	private SimulationModelAIDA simCurrent;
+	
+	/** Simulation model instance for the previous run. */
+	private SimulationModelAIDA simPrevious;
+	
+	/** Indicates that results for the current run are available. */
+	private Boolean resultsAvailableCurrent;
+	
+	/** Indicates that results for the previous run are available. */
+	private Boolean resultsAvailablePrevious;
+	
+	/** Simulation runtime in milliseconds. */
+	private Double executionTime;
+	
+	/** Initial plasma glucose level. */
+	private Double initialGlucose;
+	
+	/** Initial arterial glucose level. */
+	private Double initialArterialGlucose;
+	
+	/** Initial plasma insulin level. */
+	private Double initialInsulin;
+	
+	/** Initial active insulin level. */
+	private Double initialActiveInsulin;
+	
+	/** Patient's body weight. (kg) */
+	private Double weight;
+	
+	/** Patient's renal threshold of glucose. (mmol/l) */
+	private Double RTG;
+	
+	/** Patient's creatinine clearance rate (glomerular filtration). (ml/min) */
+	private Double CCR;
+	
+	/** Patient's hepatic insulin sensivity. */
+	private Double sh;
+	
+	/** Patient's peripheral insulin sensivity. */
+	private Double sp;
+	
+	/**
+	 * Indicates whether the weight value is generic or an actual observation value of a real
+	 * patient.
+	 */
+	private Boolean patientSpecificWeight = false;
+	
+	/** Indicates whether the RTG value is generic or an actual observation value of a real patient. */
+	private Boolean patientSpecificRTG = false;
+	
+	/** Indicates whether the CCR value is generic or an actual observation value of a real patient. */
+	private Boolean patientSpecificCCR = false;
+	
+	/** Indicates whether the Sh value is generic or an actual observation value of a real patient. */
+	private Boolean patientSpecificSh = false;
+	
+	/** Indicates whether the Sp value is generic or an actual observation value of a real patient. */
+	private Boolean patientSpecificSp = false;
+	
+	/** Meal #1 time entered by the user. */
+	private String mealTime1;
+	
+	/** Meal #2 time entered by the user. */
+	private String mealTime2;
+	
+	/** Meal #3 time entered by the user. */
+	private String mealTime3;
+	
+	/** Meal #4 time entered by the user. */
+	private String mealTime4;
+	
+	/** Meal #5 time entered by the user. */
+	private String mealTime5;
+	
+	/** Meal #6 time entered by the user. */
+	private String mealTime6;
+	
+	/** Meal #1 carbohydates (g) entered by the user. */
+	private String mealCarbs1;
+	
+	/** Meal #2 carbohydates (g) entered by the user. */
+	private String mealCarbs2;
+	
+	/** Meal #3 carbohydates (g) entered by the user. */
+	private String mealCarbs3;
+	
+	/** Meal #4 carbohydates (g) entered by the user. */
+	private String mealCarbs4;
+	
+	/** Meal #5 carbohydates (g) entered by the user. */
+	private String mealCarbs5;
+	
+	/** Meal #6 carbohydates (g) entered by the user. */
+	private String mealCarbs6;
+	
+	/** Insulin injection #1 time entered by the user. */
+	private String insulinTime1;
+	
+	/** Insulin injection #2 time entered by the user. */
+	private String insulinTime2;
+	
+	/** Insulin injection #3 time entered by the user. */
+	private String insulinTime3;
+	
+	/** Insulin injection #4 time entered by the user. */
+	private String insulinTime4;
+	
+	/** First InsulinType insulin injection #1 dose entered by the user. */
+	private String insulin1Dose1;
+	
+	/** First InsulinType insulin injection #2 dose entered by the user. */
+	private String insulin1Dose2;
+	
+	/** First InsulinType insulin injection #3 dose entered by the user. */
+	private String insulin1Dose3;
+	
+	/** First InsulinType insulin injection #4 dose entered by the user. */
+	private String insulin1Dose4;
+	
+	/** Second InsulinType insulin injection #1 dose entered by the user. */
+	private String insulin2Dose1;
+	
+	/** Second InsulinType insulin injection #2 dose entered by the user. */
+	private String insulin2Dose2;
+	
+	/** Second InsulinType insulin injection #3 dose entered by the user. */
+	private String insulin2Dose3;
+	
+	/** Second InsulinType insulin injection #4 dose entered by the user. */
+	private String insulin2Dose4;
+	
+	/** List of available InsulinTypes. */
+	private List<InsulinType> insulinList;
+	
+	/** First InsulinType selected from the list. */
+	private InsulinType insulin1;
+	
+	/** Second InsulinType selected from the list. */
+	private InsulinType insulin2;
+	
+	/** Minutes between two result values (1, 5 or 15). */
+	private Integer resultInterval = SimulationKernelAIDA.RESULT_INTERVAL;
+	
+	/** Steady state tolerance; if set, runs stop as soon as the daily state difference is smaller. */
+	private Double steadyStateTolerance;
+	
+	/** Indicates that each run starts from the final state of the previous run. */
+	private Boolean warmStart = Boolean.FALSE;
+	
+	/** Needed to determine the locally used units for glucose (mmol/l or mg/dl). */
+	private Concept conceptGlucose;
+	
+	/** Outcomes of all insulin pairs, best first, or null if not compared yet. */
+	private List<InsulinPairResult> insulinComparison;
+	
+	/** Smallest dose scaling of the hypoglycemia risk map. */
+	private Double riskDoseFrom = 0.5;
+	
+	/** Largest dose scaling of the hypoglycemia risk map. */
+	private Double riskDoseTo = 1.5;
+	
+	/** Smallest carbohydrate scaling of the hypoglycemia risk map. */
+	private Double riskCarbsFrom = 0.5;
+	
+	/** Largest carbohydrate scaling of the hypoglycemia risk map. */
+	private Double riskCarbsTo = 1.5;
+	
+	/** Number of dose and carbohydrate scalings of the hypoglycemia risk map. */
+	private Integer riskSteps = 40;
+	
+	/** Hypoglycemia risk map, or null if not computed yet. */
+	private RiskGridResult riskMap;
+	
+	/** Index of the meal template of the live preview. */
+	private Integer previewTemplate = 0;
+	
+	/** Dose scaling of the live preview. */
+	private Double previewDoseScale = 1.0;
+	
+	/** Carbohydrate scaling of the live preview. */
+	private Double previewCarbScale = 1.0;
+	
+	/** Surrogate grids of the meal templates, created by the first preview. */
+	private List<SurrogateGrid> surrogateGrids;
+	
+	/** Glucose profile of the last preview, or null if none. */
+	private double[] previewGlucose;
+	
+	/** Error estimate of the surrogate model of the last preview, or null if the full model was run. */
+	private Double previewError;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public Simulation() {
+		conceptGlucose = new DiabetesManagementConfig().getRelevantConcepts().get("glu");
+	}
+	
+	/**
+	 * All required parameters constructor.
+	 * 
+	 * @param weight The patient's weight.
+	 * @param RTG The patient's renal threshold of glucose.
+	 * @param CCR The patient's creatinine clearance rate.
+	 * @param sh The patient's hepatic glucose sensivity.
+	 * @param sp The patient's peripheral glucose sensivity.
+	 * @param initialActiveInsulin The patient's initial active insulin level.
+	 */
+	public Simulation(Double weight, Double RTG, Double CCR, Double sh, Double sp, Double initialActiveInsulin) {
+		this.weight = weight;
+		this.RTG = RTG;
+		this.CCR = CCR;
+		this.sh = sh;
+		this.sp = sp;
+		this.initialActiveInsulin = initialActiveInsulin;
+		conceptGlucose = new DiabetesManagementConfig().getRelevantConcepts().get("glu");
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.executionTime
+	 */
+	public Double getExecutionTime() {
+		return executionTime;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param executionTime The executionTime to set.
+	 */
+	public void setExecutionTime(Double executionTime) {
+		this.executionTime = executionTime;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.initialArterialGlucose
+	 */
+	public Double getInitialArterialGlucose() {
+		return initialArterialGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param initialArterialGlucose The initialArterialGlucose to set.
+	 */
+	public void setInitialArterialGlucose(Double initialArterialGlucose) {
+		this.initialArterialGlucose = initialArterialGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.initialGlucose
+	 */
+	public Double getInitialGlucose() {
+		return initialGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param initialGlucose The initialGlucose to set.
+	 */
+	public void setInitialGlucose(Double initialGlucose) {
+		this.initialGlucose = initialGlucose;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.initialInsulin
+	 */
+	public Double getInitialInsulin() {
+		return initialInsulin;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param initialInsulin The initialInsulin to set.
+	 */
+	public void setInitialInsulin(Double initialInsulin) {
+		this.initialInsulin = initialInsulin;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.initialActiveInsulin
+	 */
+	public Double getInitialActiveInsulin() {
+		return initialActiveInsulin;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param initialActiveInsulin The initialActiveInsulin to set.
+	 */
+	public void setInitialActiveInsulin(Double initialActiveInsulin) {
+		this.initialActiveInsulin = initialActiveInsulin;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weight
+	 */
+	public Double getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weight The weight to set.
+	 */
+	public void setWeight(Double weight) {
+		this.weight = weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public Double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param rtg The rtg to set.
+	 */
+	public void setRTG(Double rtg) {
+		RTG = rtg;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCR
+	 */
+	public Double getCCR() {
+		return CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param ccr The ccr to set.
+	 */
+	public void setCCR(Double ccr) {
+		CCR = ccr;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public Double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sh The sh to set.
+	 */
+	public void setSh(Double sh) {
+		this.sh = sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public Double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sp The sp to set.
+	 */
+	public void setSp(Double sp) {
+		this.sp = sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.patientSpecificWeight
+	 */
+	public Boolean getPatientSpecificWeight() {
+		return patientSpecificWeight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param patientSpecificWeight The patientSpecificWeight to set.
+	 */
+	public void setPatientSpecificWeight(Boolean patientSpecificWeight) {
+		this.patientSpecificWeight = patientSpecificWeight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.patientSpecificRTG
+	 */
+	public Boolean getPatientSpecificRTG() {
+		return patientSpecificRTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param patientSpecificRTG The patientSpecificRTG to set.
+	 */
+	public void setPatientSpecificRTG(Boolean patientSpecificRTG) {
+		this.patientSpecificRTG = patientSpecificRTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.patientSpecificCCR
+	 */
+	public Boolean getPatientSpecificCCR() {
+		return patientSpecificCCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param patientSpecificCCR The patientSpecificCCR to set.
+	 */
+	public void setPatientSpecificCCR(Boolean patientSpecificCCR) {
+		this.patientSpecificCCR = patientSpecificCCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.patientSpecificSp
+	 */
+	public Boolean getPatientSpecificSh() {
+		return patientSpecificSh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param patientSpecificSh The patientSpecificSh to set.
+	 */
+	public void setPatientSpecificSh(Boolean patientSpecificSh) {
+		this.patientSpecificSh = patientSpecificSh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.patientSpecificSp
+	 */
+	public Boolean getPatientSpecificSp() {
+		return patientSpecificSp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param patientSpecificSp The patientSpecificSp to set.
+	 */
+	public void setPatientSpecificSp(Boolean patientSpecificSp) {
+		this.patientSpecificSp = patientSpecificSp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealTime1
+	 */
+	public String getMealTime1() {
+		return mealTime1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealTime1 The mealTime1 to set.
+	 */
+	public void setMealTime1(String mealTime1) {
+		this.mealTime1 = mealTime1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealTime2
+	 */
+	public String getMealTime2() {
+		return mealTime2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealTime2 The mealTime2 to set.
+	 */
+	public void setMealTime2(String mealTime2) {
+		this.mealTime2 = mealTime2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealTime3
+	 */
+	public String getMealTime3() {
+		return mealTime3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealTime3 The mealTime3 to set.
+	 */
+	public void setMealTime3(String mealTime3) {
+		this.mealTime3 = mealTime3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealTime4
+	 */
+	public String getMealTime4() {
+		return mealTime4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealTime4 The mealTime4 to set.
+	 */
+	public void setMealTime4(String mealTime4) {
+		this.mealTime4 = mealTime4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealTime5
+	 */
+	public String getMealTime5() {
+		return mealTime5;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealTime5 The mealTime5 to set.
+	 */
+	public void setMealTime5(String mealTime5) {
+		this.mealTime5 = mealTime5;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealTime6
+	 */
+	public String getMealTime6() {
+		return mealTime6;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealTime6 The mealTime6 to set.
+	 */
+	public void setMealTime6(String mealTime6) {
+		this.mealTime6 = mealTime6;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealCarbs1
+	 */
+	public String getMealCarbs1() {
+		return mealCarbs1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealCarbs1 The mealCarbs1 to set.
+	 */
+	public void setMealCarbs1(String mealCarbs1) {
+		this.mealCarbs1 = mealCarbs1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealCarbs2
+	 */
+	public String getMealCarbs2() {
+		return mealCarbs2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealCarbs2 The mealCarbs2 to set.
+	 */
+	public void setMealCarbs2(String mealCarbs2) {
+		this.mealCarbs2 = mealCarbs2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealCarbs3
+	 */
+	public String getMealCarbs3() {
+		return mealCarbs3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealCarbs3 The mealCarbs3 to set.
+	 */
+	public void setMealCarbs3(String mealCarbs3) {
+		this.mealCarbs3 = mealCarbs3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealCarbs4
+	 */
+	public String getMealCarbs4() {
+		return mealCarbs4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealCarbs4 The mealCarbs4 to set.
+	 */
+	public void setMealCarbs4(String mealCarbs4) {
+		this.mealCarbs4 = mealCarbs4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealCarbs5
+	 */
+	public String getMealCarbs5() {
+		return mealCarbs5;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealCarbs5 The mealCarbs5 to set.
+	 */
+	public void setMealCarbs5(String mealCarbs5) {
+		this.mealCarbs5 = mealCarbs5;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.mealCarbs6
+	 */
+	public String getMealCarbs6() {
+		return mealCarbs6;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param mealCarbs6 The mealCarbs6 to set.
+	 */
+	public void setMealCarbs6(String mealCarbs6) {
+		this.mealCarbs6 = mealCarbs6;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinTime1
+	 */
+	public String getInsulinTime1() {
+		return insulinTime1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinTime1 The insulinTime1 to set.
+	 */
+	public void setInsulinTime1(String insulinTime1) {
+		this.insulinTime1 = insulinTime1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinTime2
+	 */
+	public String getInsulinTime2() {
+		return insulinTime2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinTime2 The insulinTime2 to set.
+	 */
+	public void setInsulinTime2(String insulinTime2) {
+		this.insulinTime2 = insulinTime2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinTime3
+	 */
+	public String getInsulinTime3() {
+		return insulinTime3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinTime3 The insulinTime3 to set.
+	 */
+	public void setInsulinTime3(String insulinTime3) {
+		this.insulinTime3 = insulinTime3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinTime4
+	 */
+	public String getInsulinTime4() {
+		return insulinTime4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinTime4 The insulinTime4 to set.
+	 */
+	public void setInsulinTime4(String insulinTime4) {
+		this.insulinTime4 = insulinTime4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin1Dose1
+	 */
+	public String getInsulin1Dose1() {
+		return insulin1Dose1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin1Dose1 The insulin1Dose1 to set.
+	 */
+	public void setInsulin1Dose1(String insulin1Dose1) {
+		this.insulin1Dose1 = insulin1Dose1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin1Dose2
+	 */
+	public String getInsulin1Dose2() {
+		return insulin1Dose2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin1Dose2 The insulin1Dose2 to set.
+	 */
+	public void setInsulin1Dose2(String insulin1Dose2) {
+		this.insulin1Dose2 = insulin1Dose2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin1Dose3
+	 */
+	public String getInsulin1Dose3() {
+		return insulin1Dose3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin1Dose3 The insulin1Dose3 to set.
+	 */
+	public void setInsulin1Dose3(String insulin1Dose3) {
+		this.insulin1Dose3 = insulin1Dose3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin1Dose4
+	 */
+	public String getInsulin1Dose4() {
+		return insulin1Dose4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin1Dose4 The insulin1Dose4 to set.
+	 */
+	public void setInsulin1Dose4(String insulin1Dose4) {
+		this.insulin1Dose4 = insulin1Dose4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin2Dose1
+	 */
+	public String getInsulin2Dose1() {
+		return insulin2Dose1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin2Dose1 The insulin2Dose1 to set.
+	 */
+	public void setInsulin2Dose1(String insulin2Dose1) {
+		this.insulin2Dose1 = insulin2Dose1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin2Dose2
+	 */
+	public String getInsulin2Dose2() {
+		return insulin2Dose2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin2Dose2 The insulin2Dose2 to set.
+	 */
+	public void setInsulin2Dose2(String insulin2Dose2) {
+		this.insulin2Dose2 = insulin2Dose2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin2Dose3
+	 */
+	public String getInsulin2Dose3() {
+		return insulin2Dose3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin2Dose3 The insulin2Dose3 to set.
+	 */
+	public void setInsulin2Dose3(String insulin2Dose3) {
+		this.insulin2Dose3 = insulin2Dose3;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin2Dose4
+	 */
+	public String getInsulin2Dose4() {
+		return insulin2Dose4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin2Dose4 The insulin2Dose4 to set.
+	 */
+	public void setInsulin2Dose4(String insulin2Dose4) {
+		this.insulin2Dose4 = insulin2Dose4;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinList
+	 */
+	public List<InsulinType> getInsulinList() {
+		return insulinList;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinList The insulinList to set.
+	 */
+	public void setInsulinList(List<InsulinType> insulinList) {
+		this.insulinList = insulinList;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin1
+	 */
+	public InsulinType getInsulin1() {
+		return insulin1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin1 The insulin1 to set.
+	 */
+	public void setInsulin1(InsulinType insulin1) {
+		this.insulin1 = insulin1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulin2
+	 */
+	public InsulinType getInsulin2() {
+		return insulin2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulin2 The insulin2 to set.
+	 */
+	public void setInsulin2(InsulinType insulin2) {
+		this.insulin2 = insulin2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.resultInterval
+	 */
+	public Integer getResultInterval() {
+		return resultInterval;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param resultInterval Minutes between two result values (1, 5 or 15).
+	 */
+	public void setResultInterval(Integer resultInterval) {
+		this.resultInterval = resultInterval;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.steadyStateTolerance
+	 */
+	public Double getSteadyStateTolerance() {
+		return steadyStateTolerance;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param steadyStateTolerance The tolerance, or null to always simulate three days.
+	 */
+	public void setSteadyStateTolerance(Double steadyStateTolerance) {
+		this.steadyStateTolerance = steadyStateTolerance;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.warmStart
+	 */
+	public Boolean getWarmStart() {
+		return warmStart;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param warmStart true to start each run from the final state of the previous run, see
+	 *            {@link SimulationModelAIDA#warmStartFrom(SimulationModelAIDA)}.
+	 */
+	public void setWarmStart(Boolean warmStart) {
+		this.warmStart = warmStart;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.riskDoseFrom
+	 */
+	public Double getRiskDoseFrom() {
+		return riskDoseFrom;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param riskDoseFrom The riskDoseFrom to set.
+	 */
+	public void setRiskDoseFrom(Double riskDoseFrom) {
+		this.riskDoseFrom = riskDoseFrom;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.riskDoseTo
+	 */
+	public Double getRiskDoseTo() {
+		return riskDoseTo;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param riskDoseTo The riskDoseTo to set.
+	 */
+	public void setRiskDoseTo(Double riskDoseTo) {
+		this.riskDoseTo = riskDoseTo;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.riskCarbsFrom
+	 */
+	public Double getRiskCarbsFrom() {
+		return riskCarbsFrom;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param riskCarbsFrom The riskCarbsFrom to set.
+	 */
+	public void setRiskCarbsFrom(Double riskCarbsFrom) {
+		this.riskCarbsFrom = riskCarbsFrom;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.riskCarbsTo
+	 */
+	public Double getRiskCarbsTo() {
+		return riskCarbsTo;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param riskCarbsTo The riskCarbsTo to set.
+	 */
+	public void setRiskCarbsTo(Double riskCarbsTo) {
+		this.riskCarbsTo = riskCarbsTo;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.riskSteps
+	 */
+	public Integer getRiskSteps() {
+		return riskSteps;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param riskSteps The riskSteps to set.
+	 */
+	public void setRiskSteps(Integer riskSteps) {
+		this.riskSteps = riskSteps;
+	}
+	
+	/**
+	 * Gets the last hypoglycemia risk map.
+	 * 
+	 * @return The risk map, or null if not computed yet.
+	 */
+	public RiskGridResult getRiskMap() {
+		return riskMap;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.previewTemplate
+	 */
+	public Integer getPreviewTemplate() {
+		return previewTemplate;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param previewTemplate The previewTemplate to set.
+	 */
+	public void setPreviewTemplate(Integer previewTemplate) {
+		this.previewTemplate = previewTemplate;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.previewDoseScale
+	 */
+	public Double getPreviewDoseScale() {
+		return previewDoseScale;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param previewDoseScale The previewDoseScale to set.
+	 */
+	public void setPreviewDoseScale(Double previewDoseScale) {
+		this.previewDoseScale = previewDoseScale;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.previewCarbScale
+	 */
+	public Double getPreviewCarbScale() {
+		return previewCarbScale;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param previewCarbScale The previewCarbScale to set.
+	 */
+	public void setPreviewCarbScale(Double previewCarbScale) {
+		this.previewCarbScale = previewCarbScale;
+	}
+	
+	/**
+	 * Gets the meal templates of the live preview.
+	 * 
+	 * @return The templates, as daily regimens.
+	 */
+	public String[] getPreviewTemplates() {
+		return SurrogateBuildTask.getTemplates();
+	}
+	
+	/**
+	 * Gets the glucose profile of the last preview, from midnight to midnight in steps of
+	 * {@link SurrogateGrid#PROFILE_MINUTES} minutes.
+	 * 
+	 * @return The profile, or null if there was no preview yet.
+	 */
+	public double[] getPreviewGlucose() {
+		return previewGlucose;
+	}
+	
+	/**
+	 * Gets the error estimate of the surrogate model of the last preview.
+	 * 
+	 * @return The error estimate, or null if the full model was run.
+	 */
+	public Double getPreviewError() {
+		return previewError;
+	}
+	
+	/**
+	 * Returns the number of days simulated in the current run.
+	 * 
+	 * @return this.simCurrent.daysSimulated
+	 */
+	public Integer getDaysSimulatedCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getDaysSimulated();
+	}
+	
+	/**
+	 * Returns the remaining day-to-day difference of the state variables of the current run.
+	 * 
+	 * @return this.simCurrent.residual
+	 */
+	public Double getResidualCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getResidual();
+	}
+	
+	/**
+	 * Returns the converted (Map<Date, Double>) meal intake data from simCurrent.
+	 * 
+	 * @return this.simCurrent.meals
+	 */
+	public Map<Date, Double> getMealsCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getMeals();
+	}
+	
+	/**
+	 * Returns the converted (Map<Date, Double>) meal intake data from simPrevious.
+	 * 
+	 * @return this.simPrevious.meals
+	 */
+	public Map<Date, Double> getMealsPrevious() {
+		if (simPrevious == null)
+			return null;
+		else
+			return simPrevious.getMeals();
+	}
+	
+	/**
+	 * Returns the first InsulinType insulin injection data from simCurrent.
+	 * 
+	 * @return this.simCurrent.insulinInjection
+	 */
+	public Map<Date, Double> getInsulinInjections1() {
+		return simCurrent.getInsulinInjections1();
+	}
+	
+	/**
+	 * Returns the second InsulinType insulin injection data from simCurrent.
+	 * 
+	 * @return this.simCurrent.insulinInjection
+	 */
+	public Map<Date, Double> getInsulinInjections2() {
+		return simCurrent.getInsulinInjections2();
+	}
+	
+	/**
+	 * Returns the plasma glucose result data from simCurrent.
+	 * 
+	 * @return this.simCurrent.resultGlucoseCurrent
+	 */
+	public Map<Date, Double> getResultGlucoseCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getResultGlucose();
+	}
+	
+	/**
+	 * Returns the plasma glucose result data from simPrevious.
+	 * 
+	 * @return this.simPrevious.resultGlucoseCurrent
+	 */
+	public Map<Date, Double> getResultGlucosePrevious() {
+		if (simPrevious == null)
+			return null;
+		else
+			return simPrevious.getResultGlucose();
+	}
+	
+	/**
+	 * Returns the plasma insulin result data from simCurrent.
+	 * 
+	 * @return this.simCurrent.resultInsulinCurrent
+	 */
+	public Map<Date, Double> getResultInsulinCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getResultInsulin();
+	}
+	
+	/**
+	 * Returns the plasma insulin result data from simPrevious.
+	 * 
+	 * @return this.simPrevious.resultInsulinCurrent
+	 */
+	public Map<Date, Double> getResultInsulinPrevious() {
+		if (simPrevious == null)
+			return null;
+		else
+			return simPrevious.getResultInsulin();
+	}
+	
+	/**
+	 * Returns the plasma glucose result series from simCurrent.
+	 * 
+	 * @return this.simCurrent.glucose
+	 */
+	public TimeSeries getGlucoseCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getGlucose();
+	}
+	
+	/**
+	 * Returns the plasma glucose result series from simPrevious.
+	 * 
+	 * @return this.simPrevious.glucose
+	 */
+	public TimeSeries getGlucosePrevious() {
+		if (simPrevious == null)
+			return null;
+		else
+			return simPrevious.getGlucose();
+	}
+	
+	/**
+	 * Returns the plasma insulin result series from simCurrent.
+	 * 
+	 * @return this.simCurrent.insulin
+	 */
+	public TimeSeries getInsulinCurrent() {
+		if (simCurrent == null)
+			return null;
+		else
+			return simCurrent.getInsulin();
+	}
+	
+	/**
+	 * Returns the plasma insulin result series from simPrevious.
+	 * 
+	 * @return this.simPrevious.insulin
+	 */
+	public TimeSeries getInsulinPrevious() {
+		if (simPrevious == null)
+			return null;
+		else
+			return simPrevious.getInsulin();
+	}
+	
+	/**
+	 * Checks whether plasma glucose/insulin results are available for the current simulation run.
+	 * 
+	 * @return true if results Maps are not null and not empty; false otherwise.
+	 */
+	public Boolean getResultsAvailableCurrent() {
+		return resultsAvailableCurrent;
+	}
+	
+	/**
+	 * Checks whether plasma glucose/insulin results are available for the previous simulation run.
+	 * 
+	 * @return true if results Maps are not null and not empty; false otherwise.
+	 */
+	public Boolean getResultsAvailablePrevious() {
+		return resultsAvailablePrevious;
+	}
+	
+	/**
+	 * Gets the outcomes of the last comparison of all insulin pairs.
+	 * 
+	 * @return The outcomes, best first, or null if not compared yet.
+	 */
+	public List<InsulinPairResult> getInsulinComparison() {
+		return insulinComparison;
+	}
+	
+	/**
+	 * Gets the units of the glucose results, those of the glucose concept of this installation.
+	 * 
+	 * @return "mg/dl" or "mmol/l".
+	 */
+	public String getGlucoseUnits() {
+		return isMgdl() ? "mg/dl" : "mmol/l";
+	}
+	
+	/**
+	 * Gets the hypoglycemia threshold in the units of the glucose results.
+	 * 
+	 * @return {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD}, converted if necessary.
+	 */
+	public double getHypoglycemiaThreshold() {
+		return toGlucoseUnits(GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD);
+	}
+	
+	/**
+	 * Gets the glucose levels separating the colours of the risk map in the units of the glucose
+	 * results.
+	 * 
+	 * @return {@link #RISK_THRESHOLDS}, converted if necessary.
+	 */
+	public double[] getRiskThresholds() {
+		double[] thresholds = new double[RISK_THRESHOLDS.length];
+		for (int k = 0; k < thresholds.length; k++)
+			thresholds[k] = toGlucoseUnits(RISK_THRESHOLDS[k]);
+		return thresholds;
+	}
+	
+	/**
+	 * Converts a glucose threshold to the units of the glucose results, rounding mg/dl to whole
+	 * numbers.
+	 * 
+	 * @param level The threshold. (mmol/l)
+	 * @return The converted threshold.
+	 */
+	private double toGlucoseUnits(double level) {
+		return isMgdl() ? Math.round(level * TimeSeries.MGDL_PER_MMOL) : level;
+	}
+	
+	/**
+	 * Checks whether the glucose concept of this installation is measured in mg/dl.
+	 * 
+	 * @return true for mg/dl; false for mmol/l.
+	 */
+	private boolean isMgdl() {
+		return conceptGlucose != null && ((ConceptNumeric) conceptGlucose).getUnits() != null
+		        && ((ConceptNumeric) conceptGlucose).getUnits().toLowerCase().equals("mg/dl");
+	}
+	
+	/**
+	 * Runs a fresh simulation with current parameters. Saves previous simulation beforehand.
+	 * 
+	 * @throws ParseException In case of parsing errors.
+	 * @should throw NullPointerException when insulin types or initial values not set
+	 * @should contain simCurrent after first run
+	 * @should contain current glucose result set after first run
+	 * @should contain current insulin result set after first run
+	 * @should contain simPrevious after second run
+	 * @should contain previous glucose result set after second run
+	 * @should contain previous insulin result set after second run
+	 */
+	public void runSimulation() throws ParseException {
+		if (insulin1 == null || insulin2 == null)
+			throw new NullPointerException("Insulin types must be set before running!");
+		
+		Map<Date, Double> meals = new HashMap<Date, Double>();
+		Map<Date, Double> insulinInjections1 = new HashMap<Date, Double>();
+		Map<Date, Double> insulinInjections2 = new HashMap<Date, Double>();
+		parseEvents(meals, insulinInjections1, insulinInjections2);
+		
+		resultsAvailableCurrent = false;
+		resultsAvailablePrevious = false;
+		insulinComparison = null;
+		riskMap = null;
+		if (simCurrent != null)
+			simPrevious = simCurrent;
+		
+		simCurrent = new SimulationModelAIDA(weight, RTG, CCR, sh, sp, insulin1.getParameterS(), insulin1.getParameterA(),
+		        insulin1.getParameterB(), insulin2.getParameterS(), insulin2.getParameterA(), insulin2.getParameterB(),
+		        meals, insulinInjections1, insulinInjections2, initialArterialGlucose);
+		if (resultInterval != null)
+			simCurrent.setResultInterval(resultInterval);
+		simCurrent.setSteadyStateTolerance(steadyStateTolerance);
+		simCurrent.setResultCache(SimulationResultCache.getShared());
+		simCurrent.setCheckpointInterval(SimulationKernelAIDA.CHECKPOINT_INTERVAL);
+		if (simPrevious != null) {
+			simCurrent.resumeFrom(simPrevious);
+			if (Boolean.TRUE.equals(warmStart))
+				simCurrent.warmStartFrom(simPrevious);
+		}
+		
+		simCurrent.runSimulation();
+		
+		// If both glucose and insulin results are not empty, set the flag
+		if (simCurrent != null && simCurrent.getGlucose() != null && simCurrent.getInsulin() != null
+		        && simCurrent.getGlucose().size() > 0 && simCurrent.getInsulin().size() > 0) {
+			
+			// Convert mmol/l results to mg/dl, if necessary
+			if (conceptGlucose != null && ((ConceptNumeric) conceptGlucose).getUnits() != null) {
+				if (((ConceptNumeric) conceptGlucose).getUnits().toLowerCase().equals("mg/dl"))
+					simCurrent.convertToMgdl();
+			}
+			resultsAvailableCurrent = true;
+		
+		}
+		if (simPrevious != null && simPrevious.getGlucose() != null && simPrevious.getInsulin() != null
+		        && simPrevious.getGlucose().size() > 0 && simPrevious.getInsulin().size() > 0)
+			resultsAvailablePrevious = true;
+	}
+	
+	/**
+	 * Simulates every ordered pair of the active insulin types with the current meals and doses,
+	 * and keeps the pairs ranked by their outcome.
+	 * 
+	 * @throws ParseException In case of parsing errors.
+	 * @should throw NullPointerException when insulin list not set
+	 */
+	public void compareInsulinTypes() throws ParseException {
+		if (insulinList == null)
+			throw new NullPointerException("Insulin types must be set before comparing!");
+		
+		Map<Date, Double> meals = new HashMap<Date, Double>();
+		Map<Date, Double> insulinInjections1 = new HashMap<Date, Double>();
+		Map<Date, Double> insulinInjections2 = new HashMap<Date, Double>();
+		parseEvents(meals, insulinInjections1, insulinInjections2);
+		
+		InsulinComparison comparison = new InsulinComparison();
+		comparison.setWeight(weight);
+		comparison.setRTG(RTG);
+		comparison.setCCR(CCR);
+		comparison.setSh(sh);
+		comparison.setSp(sp);
+		comparison.setInsulinTypes(insulinList);
+		comparison.setSchedule(EventSchedule.fromMaps(meals, insulinInjections1, insulinInjections2, new Date()));
+		if (initialArterialGlucose != null)
+			comparison.setAG(initialArterialGlucose);
+		insulinComparison = Context.getService(SimulationSweepService.class).compareInsulinTypes(comparison);
+		
+		// Convert mmol/l results to mg/dl, if necessary
+		if (isMgdl()) {
+			for (int k = 0; k < insulinComparison.size(); k++)
+				insulinComparison.set(k, insulinComparison.get(k).inMgdl());
+		}
+	}
+	
+	/**
+	 * Calculates the lowest glucose level and the time below the hypoglycemia threshold over a grid
+	 * of scalings of the current insulin doses and meal carbohydrates.
+	 * 
+	 * @throws ParseException In case of parsing errors.
+	 * @should throw NullPointerException when insulin types not set
+	 * @should throw IllegalArgumentException when the number of steps exceeds the grid size
+	 */
+	public void computeRiskMap() throws ParseException {
+		if (insulin1 == null || insulin2 == null)
+			throw new NullPointerException("Insulin types must be set before running!");
+		if (riskDoseFrom == null || riskDoseTo == null || riskCarbsFrom == null || riskCarbsTo == null
+		        || riskSteps == null)
+			throw new NullPointerException("Risk map scalings and number of steps must be set!");
+		
+		// Checked before the scalings are allocated
+		if (riskSteps < 1 || (long) riskSteps * riskSteps > RiskGrid.MAX_SIZE)
+			throw new IllegalArgumentException("Number of steps must be between 1 and "
+			        + (int) Math.sqrt(RiskGrid.MAX_SIZE) + ": " + riskSteps);
+		
+		Map<Date, Double> meals = new HashMap<Date, Double>();
+		Map<Date, Double> insulinInjections1 = new HashMap<Date, Double>();
+		Map<Date, Double> insulinInjections2 = new HashMap<Date, Double>();
+		parseEvents(meals, insulinInjections1, insulinInjections2);
+		
+		RiskGrid grid = new RiskGrid();
+		grid.setWeight(weight);
+		grid.setRTG(RTG);
+		grid.setCCR(CCR);
+		grid.setSh(sh);
+		grid.setSp(sp);
+		grid.setInsulinType1(insulin1);
+		grid.setInsulinType2(insulin2);
+		grid.setSchedule(EventSchedule.fromMaps(meals, insulinInjections1, insulinInjections2, new Date()));
+		grid.setDoseScales(ParameterSweep.range(riskDoseFrom, riskDoseTo, riskSteps));
+		grid.setCarbScales(ParameterSweep.range(riskCarbsFrom, riskCarbsTo, riskSteps));
+		if (initialArterialGlucose != null)
+			grid.setAG(initialArterialGlucose);
+		riskMap = Context.getService(SimulationSweepService.class).computeRiskGrid(grid);
+		
+		// Convert mmol/l results to mg/dl, if necessary
+		if (isMgdl())
+			riskMap = riskMap.inMgdl();
+	}
+	
+	/**
+	 * Predicts the glucose profile of the selected meal template with the current patient
+	 * parameters and the preview's scalings, from the template's surrogate model where its error
+	 * estimate is small enough, and from the full model otherwise.
+	 * 
+	 * @should throw IllegalArgumentException when the meal template is invalid
+	 */
+	public void previewProfile() {
+		if (surrogateGrids == null)
+			surrogateGrids = SurrogateBuildTask.createGrids();
+		int template = previewTemplate != null ? previewTemplate : -1;
+		if (template < 0 || template >= surrogateGrids.size() || surrogateGrids.get(template) == null)
+			throw new IllegalArgumentException("Invalid meal template or insulin types: " + previewTemplate);
+		
+		double[] parameters = new double[SurrogateGrid.PARAMETERS];
+		parameters[SurrogateGrid.WEIGHT] = weight;
+		parameters[SurrogateGrid.RTG] = RTG;
+		parameters[SurrogateGrid.CCR] = CCR;
+		parameters[SurrogateGrid.SH] = sh;
+		parameters[SurrogateGrid.SP] = sp;
+		parameters[SurrogateGrid.DOSE_SCALE] = previewDoseScale;
+		parameters[SurrogateGrid.CARB_SCALE] = previewCarbScale;
+		double maxError = SurrogateBuildTask.DEFAULT_MAX_ERROR;
+		try {
+			maxError = Double.parseDouble(Context.getAdministrationService().getGlobalProperty(
+			    SurrogateBuildTask.MAX_ERROR_PROPERTY, String.valueOf(maxError)).trim());
+		}
+		catch (NumberFormatException e) {
+			log.warn("Invalid global property " + SurrogateBuildTask.MAX_ERROR_PROPERTY + ", using " + maxError, e);
+		}
+		double[] profile = new double[SurrogateGrid.PROFILE_SIZE];
+		double error = surrogateGrids.get(template).predict(SurrogateModel.load(SurrogateBuildTask.getFile(template)),
+		    parameters, maxError, profile);
+		
+		// Convert mmol/l results to mg/dl, if necessary
+		double factor = isMgdl() ? TimeSeries.MGDL_PER_MMOL : 1.0;
+		for (int k = 0; k < profile.length; k++)
+			profile[k] *= factor;
+		previewGlucose = profile;
+		previewError = Double.isNaN(error) ? null : error * factor;
+	}
+	
+	/**
+	 * Converts the meals and insulin injections of the form to the model's format (Map<Date,
+	 * Double>), at today's date.
+	 * 
+	 * @param meals Map receiving the meals.
+	 * @param insulinInjections1 Map receiving the injections of the first insulin type.
+	 * @param insulinInjections2 Map receiving the injections of the second insulin type.
+	 * @throws ParseException In case of parsing errors.
+	 */
+	private void parseEvents(Map<Date, Double> meals, Map<Date, Double> insulinInjections1,
+	                         Map<Date, Double> insulinInjections2) throws ParseException {
+		Calendar now = Calendar.getInstance();
+		Calendar cal = Calendar.getInstance();
+		
+		// Convert meals to the model's format (Map<Date, Double>)
+		if (mealTime1 != null && mealTime1.length() > 0 && mealCarbs1 != null && mealCarbs1.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime1));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			meals.put(cal.getTime(), Double.valueOf(mealCarbs1));
+		}
+		if (mealTime2 != null && mealTime2.length() > 0 && mealCarbs2 != null && mealCarbs2.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime2));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			meals.put(cal.getTime(), Double.valueOf(mealCarbs2));
+		}
+		if (mealTime3 != null && mealTime3.length() > 0 && mealCarbs3 != null && mealCarbs3.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime3));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			meals.put(cal.getTime(), Double.valueOf(mealCarbs3));
+		}
+		if (mealTime4 != null && mealTime4.length() > 0 && mealCarbs4 != null && mealCarbs4.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime4));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			meals.put(cal.getTime(), Double.valueOf(mealCarbs4));
+		}
+		if (mealTime5 != null && mealTime5.length() > 0 && mealCarbs5 != null && mealCarbs5.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime5));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			meals.put(cal.getTime(), Double.valueOf(mealCarbs5));
+		}
+		if (mealTime6 != null && mealTime6.length() > 0 && mealCarbs6 != null && mealCarbs6.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(mealTime6));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			meals.put(cal.getTime(), Double.valueOf(mealCarbs6));
+		}
+		
+		// Convert insulin injections to the model's format (Map<Date, Double>)
+		if (insulinTime1 != null && insulinTime1.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime1));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			if (insulin1Dose1 != null && insulin1Dose1.length() > 0)
+				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose1));
+			if (insulin2Dose1 != null && insulin2Dose1.length() > 0)
+				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose1));
+		}
+		if (insulinTime2 != null && insulinTime2.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime2));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			if (insulin1Dose2 != null && insulin1Dose2.length() > 0)
+				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose2));
+			if (insulin2Dose2 != null && insulin2Dose2.length() > 0)
+				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose2));
+		}
+		if (insulinTime3 != null && insulinTime3.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime3));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			if (insulin1Dose3 != null && insulin1Dose3.length() > 0)
+				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose3));
+			if (insulin2Dose3 != null && insulin2Dose3.length() > 0)
+				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose3));
+		
+		}
+		if (insulinTime4 != null && insulinTime4.length() > 0) {
+			cal.setTime((new SimpleDateFormat("HHmm")).parse(insulinTime4));
+			cal.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+			if (insulin1Dose4 != null && insulin1Dose4.length() > 0)
+				insulinInjections1.put(cal.getTime(), Double.valueOf(insulin1Dose4));
+			if (insulin2Dose4 != null && insulin2Dose4.length() > 0)
+				insulinInjections2.put(cal.getTime(), Double.valueOf(insulin2Dose4));
+		}
+	}
+}
@@ -0,0 +1,718 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.GI;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.GX;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.Ibasal;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.Km;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.NHGB_COLUMNS;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.NHGB_MAX_ROW;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.NHGBtable;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.Vg;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.Vi;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.Vmaxge;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.c;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.h;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.iterations;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.k1;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.k2;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.ke;
+import static org.openmrs.module.diabetesmanagement.SimulationKernelAIDA.kgabs;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Simulates a batch of independent patients with the AIDA model in lockstep. Parameters, state and
+ * results are stored as one primitive array per variable (structure of arrays), and each Euler step
+ * is applied to all members of the batch in one loop before the next step is taken. The arithmetic
+ * per member is exactly that of the Euler method of {@link SimulationKernelAIDA}, so a member's
+ * results are identical to a single run with the same inputs. The number of simulated days is
+ * fixed; there is no steady state mode. An instance can be reused, but is not thread-safe.
+ */
+public class SimulationBatchAIDA {
+	
+	/** Number of members processed together, so that the state of a block fits into the CPU cache. */
+	public static final int BLOCK_SIZE = 256;
+	
+	/** Number of members (patients) of the batch. */
+	private final int size;
+	
+	// Parameters, one value per member
+	
+	private final double[] weight, RTG, CCR, sh, sp;
+	
+	private final double[] insulin1ParamS, insulin1ParamA, insulin1ParamB;
+	
+	private final double[] insulin2ParamS, insulin2ParamA, insulin2ParamB;
+	
+	/** Initial plasma glucose and insulin levels, and arterial glucose levels. */
+	private final double[] G0, I0, AG;
+	
+	/** Daily meals and injections of each member. */
+	private final EventSchedule[] schedules;
+	
+	/** Number of simulated days; only the results of the last day are kept. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	/** Number of integration steps between two result values. */
+	private int resultInterval = SimulationKernelAIDA.RESULT_INTERVAL;
+	
+	/** Cache of sampled insulin absorption curves, or null. */
+	private AbsorptionCurveCache absorptionCache = AbsorptionCurveCache.getShared();
+	
+	// State, one value per member
+	
+	private final double[] G, I, Ia, Ggut;
+	
+	private final int[] Ie, NHGBcolumn;
+	
+	private final double[] D1, D2, T50_1, T50_2;
+	
+	/** Steps of the last injections and meal; the elapsed times are derived from them. */
+	private final int[] injection1Step, injection2Step, mealStep;
+	
+	private final double[] Ch, Tmaxge, Tascge, Tdesge;
+	
+	private final double[][] curve1, curve2;
+	
+	/** Absorption rates of the current step. */
+	private final double[] Iabs;
+	
+	/** Index of the next event of each member's schedule. */
+	private final int[] cursor;
+	
+	/** Start of the members with events at each minute in 'eventMembers'. */
+	private final int[] eventStart = new int[iterations + 2];
+	
+	/** Next free position in 'eventMembers' for each minute, used while grouping. */
+	private final int[] eventPosition = new int[iterations + 1];
+	
+	/** Members of the current block with events, grouped by minute. */
+	private int[] eventMembers = new int[16];
+	
+	// Results
+	
+	/** Plasma glucose level results of the last day; the values of member m start at m * count. */
+	private double[] resultGlucose;
+	
+	/** Plasma insulin level results of the last day; the values of member m start at m * count. */
+	private double[] resultInsulin;
+	
+	// Constructors
+	
+	/**
+	 * Creates a batch. All members start with an empty schedule and zero parameters.
+	 * 
+	 * @param size Number of members.
+	 */
+	public SimulationBatchAIDA(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("Batch size must be positive: " + size);
+		this.size = size;
+		weight = new double[size];
+		RTG = new double[size];
+		CCR = new double[size];
+		sh = new double[size];
+		sp = new double[size];
+		insulin1ParamS = new double[size];
+		insulin1ParamA = new double[size];
+		insulin1ParamB = new double[size];
+		insulin2ParamS = new double[size];
+		insulin2ParamA = new double[size];
+		insulin2ParamB = new double[size];
+		G0 = new double[size];
+		I0 = new double[size];
+		AG = new double[size];
+		schedules = new EventSchedule[size];
+		Arrays.fill(schedules, new EventSchedule());
+		
+		G = new double[size];
+		I = new double[size];
+		Ia = new double[size];
+		Ggut = new double[size];
+		Ie = new int[size];
+		NHGBcolumn = new int[size];
+		D1 = new double[size];
+		D2 = new double[size];
+		T50_1 = new double[size];
+		T50_2 = new double[size];
+		injection1Step = new int[size];
+		injection2Step = new int[size];
+		mealStep = new int[size];
+		Ch = new double[size];
+		Tmaxge = new double[size];
+		Tascge = new double[size];
+		Tdesge = new double[size];
+		curve1 = new double[size][];
+		curve2 = new double[size][];
+		Iabs = new double[size];
+		cursor = new int[size];
+	}
+	
+	// Setup
+	
+	/**
+	 * Sets the patient parameters of all members. The arrays are copied.
+	 * 
+	 * @param weight Body weights. (kg)
+	 * @param RTG Renal thresholds of glucose. (mmol/l)
+	 * @param CCR Creatinine clearance rates. (ml/min)
+	 * @param sh Hepatic insulin sensitivities.
+	 * @param sp Peripheral insulin sensitivities.
+	 */
+	public void setPatients(double[] weight, double[] RTG, double[] CCR, double[] sh, double[] sp) {
+		copy(weight, this.weight);
+		copy(RTG, this.RTG);
+		copy(CCR, this.CCR);
+		copy(sh, this.sh);
+		copy(sp, this.sp);
+	}
+	
+	/**
+	 * Sets the parameters of the first insulin type of all members. The arrays are copied.
+	 * 
+	 * @param s Insulin parameters S.
+	 * @param a Insulin parameters A.
+	 * @param b Insulin parameters B.
+	 */
+	public void setInsulin1(double[] s, double[] a, double[] b) {
+		copy(s, insulin1ParamS);
+		copy(a, insulin1ParamA);
+		copy(b, insulin1ParamB);
+	}
+	
+	/**
+	 * Sets the parameters of the second insulin type of all members. The arrays are copied.
+	 * 
+	 * @param s Insulin parameters S.
+	 * @param a Insulin parameters A.
+	 * @param b Insulin parameters B.
+	 */
+	public void setInsulin2(double[] s, double[] a, double[] b) {
+		copy(s, insulin2ParamS);
+		copy(a, insulin2ParamA);
+		copy(b, insulin2ParamB);
+	}
+	
+	/**
+	 * Sets the initial state of all members. The arrays are copied.
+	 * 
+	 * @param G Initial plasma glucose levels.
+	 * @param I Initial plasma insulin concentrations.
+	 * @param AG Arterial glucose levels.
+	 */
+	public void setInitialState(double[] G, double[] I, double[] AG) {
+		copy(G, G0);
+		copy(I, I0);
+		copy(AG, this.AG);
+	}
+	
+	/**
+	 * Sets the schedules of all members.
+	 * 
+	 * @param schedules One schedule per member.
+	 */
+	public void setSchedules(EventSchedule[] schedules) {
+		if (schedules.length != size)
+			throw new IllegalArgumentException("Expected " + size + " schedules: " + schedules.length);
+		for (int m = 0; m < size; m++)
+			if (schedules[m] == null)
+				throw new NullPointerException("Schedule of member " + m + " is null!");
+		System.arraycopy(schedules, 0, this.schedules, 0, size);
+	}
+	
+	/**
+	 * Sets the same schedule for all members.
+	 * 
+	 * @param schedule The schedule.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		if (schedule == null)
+			throw new NullPointerException("Schedule is null!");
+		Arrays.fill(schedules, schedule);
+	}
+	
+	/**
+	 * Gets the parameters of an insulin type in the order expected by
+	 * {@link #setMember(int, double, double, double, double, double, double[], double[], double, double, double)}.
+	 * 
+	 * @param type The insulin type.
+	 * @return Parameters S, A and B.
+	 */
+	public static double[] insulinParameters(InsulinType type) {
+		return new double[] { type.getParameterS(), type.getParameterA(), type.getParameterB() };
+	}
+	
+	/**
+	 * Sets all parameters and the initial state of one member.
+	 * 
+	 * @param member Index of the member.
+	 * @param weight Body weight. (kg)
+	 * @param RTG Renal threshold of glucose. (mmol/l)
+	 * @param CCR Creatinine clearance rate. (ml/min)
+	 * @param sh Hepatic insulin sensitivity.
+	 * @param sp Peripheral insulin sensitivity.
+	 * @param insulin1 Parameters S, A and B of the first insulin type.
+	 * @param insulin2 Parameters S, A and B of the second insulin type.
+	 * @param G Initial plasma glucose level.
+	 * @param I Initial plasma insulin concentration.
+	 * @param AG Arterial glucose level.
+	 */
+	public void setMember(int member, double weight, double RTG, double CCR, double sh, double sp, double[] insulin1,
+	    double[] insulin2, double G, double I, double AG) {
+		this.weight[member] = weight;
+		this.RTG[member] = RTG;
+		this.CCR[member] = CCR;
+		this.sh[member] = sh;
+		this.sp[member] = sp;
+		insulin1ParamS[member] = insulin1[0];
+		insulin1ParamA[member] = insulin1[1];
+		insulin1ParamB[member] = insulin1[2];
+		insulin2ParamS[member] = insulin2[0];
+		insulin2ParamA[member] = insulin2[1];
+		insulin2ParamB[member] = insulin2[2];
+		G0[member] = G;
+		I0[member] = I;
+		this.AG[member] = AG;
+	}
+	
+	/**
+	 * Sets the number of simulated days.
+	 * 
+	 * @param days Number of days; {@link SimulationKernelAIDA#DAYS} by default.
+	 */
+	public void setDays(int days) {
+		if (days < 1)
+			throw new IllegalArgumentException("Number of days must be positive: " + days);
+		this.days = days;
+	}
+	
+	/**
+	 * Sets the number of integration steps between two result values.
+	 * 
+	 * @param resultInterval Number of steps; must divide {@link SimulationKernelAIDA#iterations}.
+	 */
+	public void setResultInterval(int resultInterval) {
+		if (resultInterval <= 0 || iterations % resultInterval != 0)
+			throw new IllegalArgumentException("Result interval must divide " + iterations + ": " + resultInterval);
+		this.resultInterval = resultInterval;
+	}
+	
+	/**
+	 * Sets the cache of insulin absorption curves. By default, the cache shared by all kernels is
+	 * used.
+	 * 
+	 * @param absorptionCache The cache, or null to calculate the absorption rate at every step.
+	 */
+	public void setAbsorptionCache(AbsorptionCurveCache absorptionCache) {
+		this.absorptionCache = absorptionCache;
+	}
+	
+	// Results
+	
+	/**
+	 * Number of members of the batch.
+	 * 
+	 * @return this.size
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Number of result values per member of the last run.
+	 * 
+	 * @return The number of values.
+	 */
+	public int getResultCount() {
+		return iterations / resultInterval + 1;
+	}
+	
+	/**
+	 * Plasma glucose level results of the last day of all members; the values of member m start at
+	 * index m * {@link #getResultCount()}. The array is owned by the batch and overwritten by the
+	 * next run with the same result interval.
+	 * 
+	 * @return The results.
+	 */
+	public double[] getResultGlucose() {
+		return resultGlucose;
+	}
+	
+	/**
+	 * Plasma insulin level results of the last day of all members; see
+	 * {@link #getResultGlucose()}.
+	 * 
+	 * @return The results.
+	 */
+	public double[] getResultInsulin() {
+		return resultInsulin;
+	}
+	
+	/**
+	 * Plasma glucose level results of one member as a series sharing the batch's result array.
+	 * 
+	 * @param member Index of the member.
+	 * @param start Time of the first value, i.e. midnight of the simulated day.
+	 * @return The series.
+	 */
+	public TimeSeries getGlucose(int member, Date start) {
+		int count = getResultCount();
+		return new TimeSeries(start, resultInterval * (int) Math.round(60.0 * h), resultGlucose, member * count, count);
+	}
+	
+	/**
+	 * Plasma insulin level results of one member as a series sharing the batch's result array.
+	 * 
+	 * @param member Index of the member.
+	 * @param start Time of the first value, i.e. midnight of the simulated day.
+	 * @return The series.
+	 */
+	public TimeSeries getInsulin(int member, Date start) {
+		int count = getResultCount();
+		return new TimeSeries(start, resultInterval * (int) Math.round(60.0 * h), resultInsulin, member * count, count);
+	}
+	
+	/**
+	 * Plasma glucose level of one member at the end of the last run.
+	 * 
+	 * @param member Index of the member.
+	 * @return The glucose level.
+	 */
+	public double getG(int member) {
+		return G[member];
+	}
+	
+	/**
+	 * Plasma insulin concentration of one member at the end of the last run.
+	 * 
+	 * @param member Index of the member.
+	 * @return The insulin concentration.
+	 */
+	public double getI(int member) {
+		return I[member];
+	}
+	
+	// Simulation
+	
+	/**
+	 * Runs the simulation for all members. The members are processed in blocks of
+	 * {@link #BLOCK_SIZE}, so the state of a block stays in the CPU cache for the whole run. Every
+	 * Euler step is applied to all members of a block before the next one, in separate loops for
+	 * the events, the insulin absorption and the model equations.
+	 */
+	public void run() {
+		int count = getResultCount();
+		if (resultGlucose == null || resultGlucose.length != size * count) {
+			resultGlucose = new double[size * count];
+			resultInsulin = new double[size * count];
+		}
+		for (int from = 0; from < size; from += BLOCK_SIZE)
+			run(from, Math.min(size, from + BLOCK_SIZE), count);
+	}
+	
+	/**
+	 * Runs the simulation for one block of members.
+	 * 
+	 * @param from Index of the first member.
+	 * @param to Index after the last member.
+	 * @param count Number of result values per member.
+	 */
+	private void run(int from, int to, int count) {
+		for (int m = from; m < to; m++) {
+			G[m] = G0[m];
+			I[m] = I0[m];
+			Ia[m] = 0.0;
+			Ggut[m] = 0.0;
+			Ie[m] = effectiveInsulin(sh[m], I[m]);
+			NHGBcolumn[m] = AG[m] <= 1.1 ? 0 : AG[m] >= 4.4 ? 2 : 1;
+			D1[m] = 0.0;
+			D2[m] = 0.0;
+			T50_1[m] = 0.0;
+			T50_2[m] = 0.0;
+			injection1Step[m] = 0;
+			injection2Step[m] = 0;
+			mealStep[m] = 0;
+			Ch[m] = 0.0;
+			Tmaxge[m] = 0.0;
+			Tascge[m] = 0.5;
+			Tdesge[m] = 0.5;
+			curve1[m] = null;
+			curve2[m] = null;
+		}
+		
+		indexEvents(from, to);
+		
+		int n = 0; // number of the step since the start of the run
+		for (int i = 0; i < days; ++i) {
+			for (int m = from; m < to; m++)
+				cursor[m] = 0;
+			boolean last = i == days - 1;
+			for (int j = 0; j <= iterations; ++j, ++n) {
+				// Events of the members that have any at this minute
+				for (int k = eventStart[j]; k < eventStart[j + 1]; k++)
+					applyEvents(eventMembers[k], j, n);
+				
+				// (3) Iabs(t) = (s * t^s * T50^s * D) / (t * [T50^s + t^s]^2), where t only
+				// advances after an injection of a positive dose
+				for (int m = from; m < to; m++)
+					Iabs[m] = absorption(D1[m] > 0.0 ? n - injection1Step[m] : 0, curve1[m], insulin1ParamS[m], T50_1[m],
+					    D1[m])
+					        + absorption(D2[m] > 0.0 ? n - injection2Step[m] : 0, curve2[m], insulin2ParamS[m], T50_2[m],
+					            D2[m]);
+				
+				stepScalar(from, to, n);
+				
+				// Results of the last day
+				if (last && j % resultInterval == 0) {
+					int result = j / resultInterval;
+					for (int m = from; m < to; m++) {
+						resultGlucose[m * count + result] = G[m];
+						resultInsulin[m * count + result] = I[m];
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Applies the glucose and insulin equations to a block of members, with one loop iteration per
+	 * member that follows {@link SimulationKernelAIDA#run()} statement by statement.
+	 * 
+	 * @param from Index of the first member.
+	 * @param to Index after the last member.
+	 * @param n Number of the step since the start of the run.
+	 */
+	private void stepScalar(int from, int to, int n) {
+		for (int m = from; m < to; m++) {
+			double w = weight[m];
+			double g = G[m];
+			
+			// (6) Ieq(t) = k2 * Ia,ss(t) / k1, with Ia,ss(t) always being zero
+			double Ieq = k2 * 0.0 / k1;
+			double NHGB = NHGBtable[Ie[m] * NHGB_COLUMNS + NHGBcolumn[m]];
+			
+			// (8) Gout(G,I#eq) = (G * (c * Sp * I#eq + GI) * (Km + GX)) / (GX * (Km + G))
+			double Gout = (g * ((c * w) * sp[m] * Ieq + (GI * w)) * (Km + GX)) / (GX * (Km + g));
+			
+			// (13) Gastric emptying (Gempt)
+			// The time since the last meal only advances after a meal of positive size
+			double Gempt = gastricEmptying((Ch[m] > 0.0 ? n - mealStep[m] : 0) * h, Tascge[m], Tmaxge[m], Tdesge[m]);
+			
+			// (9) d(Ggut)/dt = Gempt - kgabs * Ggut, (14) Gin = kgabs * Ggut
+			double gut = Ggut[m];
+			gut += h * (Gempt - kgabs * gut);
+			if (gut < 0.0)
+				gut = 0.0;
+			Ggut[m] = gut;
+			double Gin = kgabs * gut;
+			
+			// (15) Gren = CCR * (G - RTG) (if G > RTG)
+			double Gren;
+			if (g > RTG[m])
+				Gren = (CCR[m] * 60.0 / 1000.0) * (g - RTG[m]);
+			else
+				Gren = 0.0;
+			
+			// (7) dG/dt = (Gin(t) + NHGB(t) - Gout(t) - Gren(t)) / Vg
+			g += h * ((Gin + NHGB - Gout - Gren) / (Vg * w));
+			if (g < 0.0)
+				g = 0.0;
+			G[m] = g;
+			
+			// (1) dI/dt = Iabs / Vi - ke * I, (2) dIa/dt = (k1 * I) - (k2 * Ia)
+			double ins = I[m];
+			ins += h * ((Iabs[m] * (Vi * w)) - ke * ins);
+			if (ins < 0.0)
+				ins = 0.0;
+			I[m] = ins;
+			Ia[m] += h * (k1 * ins - k2 * Ia[m]);
+			
+			Ie[m] = effectiveInsulin(sh[m], ins);
+		}
+	}
+	
+	/**
+	 * Calculates the gastric emptying rate, see equation (13).
+	 * 
+	 * @param t Time since the last meal. (hr)
+	 * @param Tascge Duration of the ascending branch. (hr)
+	 * @param Tmaxge Duration of the maximum emptying rate. (hr)
+	 * @param Tdesge Duration of the descending branch. (hr)
+	 * @return The gastric emptying rate.
+	 */
+	static double gastricEmptying(double t, double Tascge, double Tmaxge, double Tdesge) {
+		if (t < Tascge)
+			return (Vmaxge / Tascge) * t;
+		else if (Tascge <= t && t <= Tascge + Tmaxge)
+			return Vmaxge;
+		else if (Tascge + Tmaxge <= t && t < Tascge + Tmaxge + Tdesge)
+			return Vmaxge - (Vmaxge / Tdesge) * (t - Tascge - Tmaxge);
+		else
+			return 0.0;
+	}
+	
+	/**
+	 * Applies the meals and injections of one member at the given minute, see
+	 * {@link SimulationKernelAIDA#run()} for the equations.
+	 * 
+	 * @param m Index of the member.
+	 * @param j Minute of the day.
+	 * @param n Number of the step since the start of the run.
+	 */
+	private void applyEvents(int m, int j, int n) {
+		// Collect the events at the given time
+		boolean meal = false, injection1 = false, injection2 = false;
+		double carbs = 0.0, dose1 = 0.0, dose2 = 0.0;
+		EventSchedule schedule = schedules[m];
+		int k = cursor[m];
+		while (k < schedule.size() && schedule.getMinute(k) == j) {
+			switch (schedule.getType(k)) {
+				case EventSchedule.MEAL:
+					meal = true;
+					carbs = schedule.getAmount(k);
+					break;
+				case EventSchedule.INSULIN_1:
+					injection1 = true;
+					dose1 = schedule.getAmount(k);
+					break;
+				default:
+					injection2 = true;
+					dose2 = schedule.getAmount(k);
+			}
+			k++;
+		}
+		cursor[m] = k;
+		
+		// (4) T50^s = a * D + b
+		if (injection1) {
+			injection1Step[m] = n;
+			if (absorptionCache != null && (curve1[m] == null || dose1 != D1[m]))
+				curve1[m] = absorptionCache.getCurve(insulin1ParamS[m], insulin1ParamA[m], insulin1ParamB[m], dose1, h);
+			D1[m] = dose1;
+			T50_1[m] = insulin1ParamA[m] * D1[m] + insulin1ParamB[m];
+		}
+		if (injection2) {
+			injection2Step[m] = n;
+			if (absorptionCache != null && (curve2[m] == null || dose2 != D2[m]))
+				curve2[m] = absorptionCache.getCurve(insulin2ParamS[m], insulin2ParamA[m], insulin2ParamB[m], dose2, h);
+			D2[m] = dose2;
+			T50_2[m] = insulin2ParamA[m] * D2[m] + insulin2ParamB[m];
+		}
+		
+		// (10) to (12) Gastric emptying parameters
+		if (meal) {
+			Ch[m] = carbs / 180.0 * 1000.0;
+			mealStep[m] = n;
+			double Chcrit = ((Tascge[m] + Tdesge[m]) * Vmaxge) / 2.0;
+			if (Ch[m] <= Chcrit) {
+				Tascge[m] = Ch[m] / Vmaxge;
+				Tdesge[m] = Tascge[m];
+			} else {
+				Tascge[m] = 0.5;
+				Tdesge[m] = 0.5;
+			}
+			if (Ch[m] > Chcrit)
+				Tmaxge[m] = (Ch[m] - (0.5 * Vmaxge) * (2.0 * (Tascge[m] + Tdesge[m]))) / Vmaxge;
+			else
+				Tmaxge[m] = 0.0;
+		}
+	}
+	
+	/**
+	 * Groups the members of a block with events by the minutes of their events, so each step only
+	 * visits the members that have an event at that minute.
+	 * 
+	 * @param from Index of the first member.
+	 * @param to Index after the last member.
+	 */
+	private void indexEvents(int from, int to) {
+		Arrays.fill(eventStart, 0);
+		int total = 0;
+		for (int m = from; m < to; m++) {
+			EventSchedule schedule = schedules[m];
+			for (int k = 0; k < schedule.size(); k++) {
+				int minute = schedule.getMinute(k);
+				if (minute <= iterations && (k == 0 || schedule.getMinute(k - 1) != minute)) {
+					eventStart[minute + 1]++;
+					total++;
+				}
+			}
+		}
+		for (int j = 0; j <= iterations; j++)
+			eventStart[j + 1] += eventStart[j];
+		if (eventMembers.length < total)
+			eventMembers = new int[total];
+		
+		// Fill the range of each minute
+		int[] position = eventPosition;
+		System.arraycopy(eventStart, 0, position, 0, iterations + 1);
+		for (int m = from; m < to; m++) {
+			EventSchedule schedule = schedules[m];
+			for (int k = 0; k < schedule.size(); k++) {
+				int minute = schedule.getMinute(k);
+				if (minute <= iterations && (k == 0 || schedule.getMinute(k - 1) != minute))
+					eventMembers[position[minute]++] = m;
+			}
+		}
+	}
+	
+	/**
+	 * Insulin absorption rate of one injection, taken from the sampled curve if possible.
+	 * 
+	 * @param t Steps since the injection.
+	 * @param curve Sampled absorption curve, or null.
+	 * @param s Insulin parameter S.
+	 * @param T50 Time at which 50% of the dose has been absorbed.
+	 * @param D Insulin dose.
+	 * @return The absorption rate.
+	 */
+	private static double absorption(int t, double[] curve, double s, double T50, double D) {
+		if (t <= 0)
+			return 0.0;
+		if (curve != null && t < curve.length)
+			return curve[t];
+		return AbsorptionCurveCache.absorptionRate(s, T50, D, t * h);
+	}
+	
+	/**
+	 * Calculates the effective insulin level (row of the NHGB table).
+	 * 
+	 * @param sh Hepatic insulin sensitivity.
+	 * @param I Plasma insulin level.
+	 * @return The effective insulin level.
+	 */
+	private static int effectiveInsulin(double sh, double I) {
+		int Ie = (int) (sh * I / Ibasal);
+		if (Ie > NHGB_MAX_ROW)
+			Ie = NHGB_MAX_ROW;
+		else if (Ie < 0)
+			throw new IllegalArgumentException("Hepatic insulin sensivity and insulin levels must not be negative!");
+		return Ie;
+	}
+	
+	/**
+	 * Copies a parameter array after checking its length.
+	 * 
+	 * @param from Source array.
+	 * @param to Destination array with one value per member.
+	 */
+	private void copy(double[] from, double[] to) {
+		if (from.length != size)
+			throw new IllegalArgumentException("Expected " + size + " values: " + from.length);
+		System.arraycopy(from, 0, to, 0, size);
+	}
+}
@@ -0,0 +1,1724 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+
+/**
+ * Numerical core of the glucose-insulin metabolism simulation model described by Lehmann, Deutsch
+ * (1992). All parameters and state variables are primitives and all work arrays are allocated once
+ * per instance, so a run does not allocate any objects per integration step. An instance can be
+ * reused for any number of runs, but is not thread-safe.
+ */
+public class SimulationKernelAIDA {
+	
+	// Constants
+	
+	/** Slope of peripheral glucose utilisation vs insulin line. (mmol/hr/kg/mU^-1 * l) */
+	static final double c = 0.015;
+	
+	/** Insulin-independent glucose utilisation per kg body weight. (mmol/hr/kg) */
+	static final double GI = 0.54;
+	
+	/** Reference value for glucose utilisation. (mmol/l) */
+	static final double GX = 5.3;
+	
+	/** Reference basal level of insulin. (mU/l^-1) */
+	static final double Ibasal = 10.0;
+	
+	/** Insulin elimination rate constant. (l/hr^-1) */
+	static final double ke = 5.4;
+	
+	/** Parameter for insulin pharmacodynamics. (/hr^-1) */
+	static final double k1 = 0.025;
+	
+	/** Parameter for insulin pharmacodynamics. (/hr^-1) */
+	static final double k2 = 1.25;
+	
+	/** Rate constant for glucose absorption from the gut. (/hr^-1) */
+	static final double kgabs = 1.0;
+	
+	/** Michaelis constant for enzyme mediated glucose uptake. (mmol/l) */
+	static final double Km = 10.0;
+	
+	/** Volume of distribution for insulin per kg body weight. (l/kg^-1) */
+	static final double Vi = 0.142;
+	
+	/** Volume of distribution for glucose per kg body weight. (l/kg^-1) */
+	static final double Vg = 0.22;
+	
+	/** Maximal rate of gastric emptying. (mmol/hr) */
+	static final double Vmaxge = 120.0;
+	
+	/** Number of columns (arterial glucose ranges) per row of the NHGB table. */
+	static final int NHGB_COLUMNS = 3;
+	
+	/** Highest effective insulin level (row index) of the NHGB table. */
+	static final int NHGB_MAX_ROW = 10;
+	
+	/**
+	 * Net hepatic glucose balance (mmol/hr) as a function of the arterial blood glucose level and
+	 * plasma insulin level. Calculated from Guyton et al. Stored row by row, with one row of
+	 * {@link #NHGB_COLUMNS} values per effective insulin level.
+	 */
+	static final double[] NHGBtable = { 291.6, 160.0, 78.3, 194.6, 114.6, 53.3, 129.3, 66.0, -1.7, 95.7, 46.3,
+	        -54.3, 85.0, 22.6, -76.0, 76.3, 4.3, -85.0, 69.0, -10.0, -92.0, 62.0, -25.3, -97.3, 52.0, -43.3, -101.0,
+	        48.0, -47.3, -104.0, 41.7, -49.3, -106.7 };
+	
+	/** Step size for numerical solution of differential equations. (hr/step) */
+	public static final double h = 1.0 / 60.0;
+	
+	/** Number of iterations per day, depending on 'h'. */
+	public static final int iterations = (int) (24.0 / h);
+	
+	/** Number of simulated days; only the results of the last day are kept. */
+	public static final int DAYS = 3;
+	
+	/** Default step size of the RK4 integrator. (min) */
+	public static final int RK4_STEP = 5;
+	
+	/** Default relative and absolute tolerance of the Dormand-Prince integrator. */
+	public static final double DORMAND_PRINCE_TOLERANCE = 1e-6;
+	
+	// Coefficients of the Dormand-Prince 5(4) method
+	
+	private static final double c2 = 1.0 / 5.0, c3 = 3.0 / 10.0, c4 = 4.0 / 5.0, c5 = 8.0 / 9.0;
+	
+	private static final double a21 = 1.0 / 5.0;
+	
+	private static final double a31 = 3.0 / 40.0, a32 = 9.0 / 40.0;
+	
+	private static final double a41 = 44.0 / 45.0, a42 = -56.0 / 15.0, a43 = 32.0 / 9.0;
+	
+	private static final double a51 = 19372.0 / 6561.0, a52 = -25360.0 / 2187.0, a53 = 64448.0 / 6561.0,
+	        a54 = -212.0 / 729.0;
+	
+	private static final double a61 = 9017.0 / 3168.0, a62 = -355.0 / 33.0, a63 = 46732.0 / 5247.0, a64 = 49.0 / 176.0,
+	        a65 = -5103.0 / 18656.0;
+	
+	private static final double a71 = 35.0 / 384.0, a73 = 500.0 / 1113.0, a74 = 125.0 / 192.0, a75 = -2187.0 / 6784.0,
+	        a76 = 11.0 / 84.0;
+	
+	private static final double e1 = 71.0 / 57600.0, e3 = -71.0 / 16695.0, e4 = 71.0 / 1920.0, e5 = -17253.0 / 339200.0,
+	        e6 = 22.0 / 525.0, e7 = -1.0 / 40.0;
+	
+	// Coefficients of the dense output of the Dormand-Prince method
+	
+	private static final double d1 = -12715105075.0 / 11282082432.0, d3 = 87487479700.0 / 32700410799.0,
+	        d4 = -10690763975.0 / 1880347072.0, d5 = 701980252875.0 / 199316789632.0, d6 = -1453857185.0 / 822651844.0,
+	        d7 = 69997945.0 / 29380423.0;
+	
+	/** Default maximum number of simulated days in steady state mode. */
+	public static final int MAX_DAYS = 10;
+	
+	/** Default number of integration steps between two result values (15 minutes). */
+	public static final int RESULT_INTERVAL = 15;
+	
+	/** Default number of minutes between two state checkpoints of the first day. */
+	public static final int CHECKPOINT_INTERVAL = 15;
+	
+	/**
+	 * Number of values of the complete state at a given minute: G, I, Ia, Ggut, the doses and T50
+	 * of the last injections, the glucose equivalent and gastric emptying durations of the last
+	 * meal, and the minutes elapsed since the last meal and injections.
+	 */
+	public static final int STATE_SIZE = 15;
+	
+	/** Number of values of a state checkpoint. */
+	private static final int CHECKPOINT_SIZE = STATE_SIZE;
+	
+	/** Number of result values per day at the default interval, including both midnights. */
+	public static final int RESULT_COUNT = iterations / RESULT_INTERVAL + 1;
+	
+	/**
+	 * Numerical methods for solving the model's differential equations.
+	 */
+	public enum Integrator {
+		/** Explicit Euler method with a fixed step of one minute (the original method). */
+		EULER,
+		/** Classic fourth-order Runge-Kutta method with a fixed step. */
+		RK4,
+		/** Dormand-Prince 5(4) method with adaptive step size control. */
+		DORMAND_PRINCE
+	}
+	
+	// Parameters
+	
+	/** Patient's body weight. (kg) */
+	private double weight;
+	
+	/** Patient's renal threshold of glucose. (mmol/l) */
+	private double RTG;
+	
+	/** Patient's creatinine clearance rate (glomerular filtration). (ml/min) */
+	private double CCR;
+	
+	/** Patient's hepatic insulin sensivity. */
+	private double sh;
+	
+	/** Patient's peripheral insulin sensivity. */
+	private double sp;
+	
+	/** Insulin preparation-specific parameters (S, A, B) of the first insulin type. */
+	private double insulin1ParamS, insulin1ParamA, insulin1ParamB;
+	
+	/** Insulin preparation-specific parameters (S, A, B) of the second insulin type. */
+	private double insulin2ParamS, insulin2ParamA, insulin2ParamB;
+	
+	/** Arterial glucose level. (mmol/l) */
+	private double AG;
+	
+	/** Meals and insulin injections, one step per minute. */
+	private EventSchedule schedule = new EventSchedule();
+	
+	// State
+	
+	/** Plasma glucose level. (mmol/l) */
+	private double G;
+	
+	/** Plasma insulin concentration. (mU/l) */
+	private double I;
+	
+	/** Number of integration steps between two result values. */
+	private int resultInterval = RESULT_INTERVAL;
+	
+	/** Steady state tolerance; the run stops early if the day-to-day difference is smaller. */
+	private double tolerance = 0.0;
+	
+	/** Maximum number of simulated days. */
+	private int maxDays = DAYS;
+	
+	/** Cache of sampled insulin absorption curves used by the Euler method, or null. */
+	private AbsorptionCurveCache absorptionCache = AbsorptionCurveCache.getShared();
+	
+	/** Cache of insulin trajectories used by the Euler method, or null. */
+	private InsulinTrajectoryCache insulinCache = InsulinTrajectoryCache.getShared();
+	
+	/** Numerical method used by {@link #run()}. */
+	private Integrator integrator = Integrator.EULER;
+	
+	/** Step size of the RK4 integrator. (min) */
+	private int stepMinutes = RK4_STEP;
+	
+	/** Relative tolerance of the Dormand-Prince integrator. */
+	private double relativeTolerance = DORMAND_PRINCE_TOLERANCE;
+	
+	/** Absolute tolerance of the Dormand-Prince integrator. */
+	private double absoluteTolerance = DORMAND_PRINCE_TOLERANCE;
+	
+	/** Number of days simulated in the last run. */
+	private int daysSimulated;
+	
+	/** Number of accepted integration steps in the last run. */
+	private long steps;
+	
+	/** Largest difference of G, I, Ia and Ggut between the last two midnights of the last run. */
+	private double residual;
+	
+	/** Complete state at the first midnight of the next run, or null to start from G and I only. */
+	private double[] warmState;
+	
+	/** Complete state at the end of the last run with the Euler method. */
+	private final double[] finalState = new double[STATE_SIZE];
+	
+	/** Indicates that 'finalState' holds the state of the last run. */
+	private boolean finalStateValid;
+	
+	// Work variables of the continuous-time integrators
+	
+	/** State variables G, I, Ia and Ggut. */
+	private final double[] y = new double[4];
+	
+	/** State variables at an intermediate stage. */
+	private final double[] yStage = new double[4];
+	
+	/** State variables at the end of a Dormand-Prince step. */
+	private final double[] yNew = new double[4];
+	
+	/** Derivatives at the stages of a step. */
+	private final double[][] stages = new double[7][4];
+	
+	/** Column of the NHGB table. */
+	private int NHGBcolumn;
+	
+	/** Time (hr) of the last meal, and its glucose equivalent and gastric emptying durations. */
+	private double mealTime, Ch, Tascge, Tmaxge, Tdesge;
+	
+	/** Time (hr), dose and T50 of the last injection of the first insulin type. */
+	private double injection1Time, D1, T50_1;
+	
+	/** Time (hr), dose and T50 of the last injection of the second insulin type. */
+	private double injection2Time, D2, T50_2;
+	
+	// Checkpoints of the Euler method
+	
+	/** Minutes between two state checkpoints of the first day, or 0 to record none. */
+	private int checkpointInterval = 0;
+	
+	/** States at the checkpoints of the last run, {@link #CHECKPOINT_SIZE} values per checkpoint. */
+	private double[] checkpoints;
+	
+	/** Absorption curves of the last injections at the checkpoints, two per checkpoint. */
+	private double[][] checkpointCurves;
+	
+	/** Number of valid checkpoints. */
+	private int checkpointCount;
+	
+	/** Parameters and initial state of the run that recorded the checkpoints. */
+	private double[] checkpointInputs;
+	
+	/** Caches used by the run that recorded the checkpoints. */
+	private Object checkpointAbsorptionCache, checkpointInsulinCache;
+	
+	/** Schedule of the run that recorded the checkpoints. */
+	private int[] checkpointMinutes, checkpointTypes;
+	
+	/** Schedule of the run that recorded the checkpoints. */
+	private double[] checkpointAmounts;
+	
+	/** Minute of the first day from which the last run was resumed; 0 if it started from the beginning. */
+	private int resumedMinute;
+	
+	/** Results of one day of a multi-day run, reused for all days. */
+	private ResultChunk chunk;
+	
+	/** Plasma glucose level results of the last day, every 'resultInterval' steps. */
+	private final double[] resultGlucose = new double[iterations + 1];
+	
+	/** Plasma insulin level results of the last day, every 'resultInterval' steps. */
+	private final double[] resultInsulin = new double[iterations + 1];
+	
+	// Setup
+	
+	/**
+	 * Sets the patient-specific parameters.
+	 * 
+	 * @param weight Body weight in kg.
+	 * @param RTG Renal threshold of glucose.
+	 * @param CCR Creatinine clearance ratio.
+	 * @param sh Hepatic insulin sensivity.
+	 * @param sp Peripheral insulin sensivity.
+	 */
+	public void setPatient(double weight, double RTG, double CCR, double sh, double sp) {
+		this.weight = weight;
+		this.RTG = RTG;
+		this.CCR = CCR;
+		this.sh = sh;
+		this.sp = sp;
+	}
+	
+	/**
+	 * Sets the parameters of the first insulin type.
+	 * 
+	 * @param s Insulin parameter S.
+	 * @param a Insulin parameter A.
+	 * @param b Insulin parameter B.
+	 */
+	public void setInsulin1(double s, double a, double b) {
+		insulin1ParamS = s;
+		insulin1ParamA = a;
+		insulin1ParamB = b;
+	}
+	
+	/**
+	 * Sets the parameters of the second insulin type.
+	 * 
+	 * @param s Insulin parameter S.
+	 * @param a Insulin parameter A.
+	 * @param b Insulin parameter B.
+	 */
+	public void setInsulin2(double s, double a, double b) {
+		insulin2ParamS = s;
+		insulin2ParamA = a;
+		insulin2ParamB = b;
+	}
+	
+	/**
+	 * Sets the initial state of the next run.
+	 * 
+	 * @param G Initial plasma glucose level.
+	 * @param I Initial plasma insulin concentration.
+	 * @param AG Arterial glucose level.
+	 */
+	public void setInitialState(double G, double I, double AG) {
+		this.G = G;
+		this.I = I;
+		this.AG = AG;
+	}
+	
+	/**
+	 * Sets the complete state at the first midnight of the next run, e.g. the final state of a
+	 * previous run with similar inputs, instead of starting with an empty gut and no insulin on
+	 * board. It replaces G and I of {@link #setInitialState(double, double, double)}. In steady
+	 * state mode, the first day is then already compared with the given state, so a run from a
+	 * state close to the steady state ends after one or two days. Only used by the Euler method; an
+	 * insulin trajectory is continued from the first midnight at which it has exactly the insulin
+	 * state of the warm state, otherwise the insulin equations are integrated.
+	 * 
+	 * @param warmState {@link #STATE_SIZE} values as returned by {@link #getFinalState()}, or null
+	 *            to start from G and I only.
+	 */
+	public void setWarmState(double[] warmState) {
+		if (warmState != null && warmState.length != STATE_SIZE)
+			throw new IllegalArgumentException("Warm state must have " + STATE_SIZE + " values: " + warmState.length);
+		this.warmState = warmState == null ? null : Arrays.copyOf(warmState, STATE_SIZE);
+	}
+	
+	/**
+	 * Sets the meals and insulin injections. The schedule's minute offsets are used as step
+	 * indices, and events after the end of the day are never reached.
+	 * 
+	 * @param schedule The event schedule.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * Sets the number of integration steps (minutes) between two result values.
+	 * 
+	 * @param resultInterval The interval; must divide the number of steps per day, e.g. 1, 5 or 15.
+	 */
+	public void setResultInterval(int resultInterval) {
+		if (resultInterval <= 0 || iterations % resultInterval != 0)
+			throw new IllegalArgumentException("Result interval must divide " + iterations + ": " + resultInterval);
+		this.resultInterval = resultInterval;
+	}
+	
+	/**
+	 * Enables the steady state mode: instead of always simulating {@link #DAYS} days, the run stops
+	 * as soon as the state vector (G, I, Ia, Ggut) at midnight differs by less than the tolerance
+	 * from the day before, or after the maximum number of days.
+	 * 
+	 * @param tolerance Largest accepted day-to-day difference; 0 to always simulate maxDays days.
+	 * @param maxDays Maximum number of simulated days.
+	 */
+	public void setSteadyState(double tolerance, int maxDays) {
+		if (maxDays < 1)
+			throw new IllegalArgumentException("At least one day must be simulated: " + maxDays);
+		this.tolerance = tolerance;
+		this.maxDays = maxDays;
+	}
+	
+	/**
+	 * Sets the cache of insulin absorption curves used by the Euler method. By default, the cache
+	 * shared by all kernels is used.
+	 * 
+	 * @param absorptionCache The cache, or null to calculate the absorption rate at every step.
+	 */
+	public void setAbsorptionCache(AbsorptionCurveCache absorptionCache) {
+		this.absorptionCache = absorptionCache;
+	}
+	
+	/**
+	 * Sets the cache of insulin trajectories used by the Euler method. With a cache, the insulin
+	 * equations are solved once per combination of insulin types, injections, weight and initial
+	 * insulin level, and only the glucose equations are integrated in each run. By default, the
+	 * cache shared by all kernels is used.
+	 * 
+	 * @param insulinCache The cache, or null to integrate the insulin equations in every run.
+	 */
+	public void setInsulinTrajectoryCache(InsulinTrajectoryCache insulinCache) {
+		this.insulinCache = insulinCache;
+	}
+	
+	/**
+	 * Enables state checkpoints: during the first day of a run with the Euler method, the complete
+	 * state is recorded every given number of minutes. If the kernel is run again with the same
+	 * parameters and initial state, and the schedule only differs from some minute on, the run
+	 * resumes from the last checkpoint before that minute. As the schedule repeats every day, later
+	 * days always depend on all events.
+	 * 
+	 * @param checkpointInterval Minutes between two checkpoints, or 0 to record none.
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		if (checkpointInterval < 0)
+			throw new IllegalArgumentException("Checkpoint interval must not be negative: " + checkpointInterval);
+		if (checkpointInterval != this.checkpointInterval)
+			checkpointCount = 0;
+		this.checkpointInterval = checkpointInterval;
+	}
+	
+	/**
+	 * Selects the numerical method.
+	 * 
+	 * @param integrator The integrator; {@link Integrator#EULER} by default.
+	 */
+	public void setIntegrator(Integrator integrator) {
+		this.integrator = integrator;
+	}
+	
+	/**
+	 * Sets the step size of the RK4 integrator.
+	 * 
+	 * @param stepMinutes Step size in minutes; steps are shortened to end at events and midnight,
+	 *            while result marks in between are interpolated.
+	 */
+	public void setStepMinutes(int stepMinutes) {
+		if (stepMinutes < 1)
+			throw new IllegalArgumentException("Step size must be at least one minute: " + stepMinutes);
+		this.stepMinutes = stepMinutes;
+	}
+	
+	/**
+	 * Sets the error tolerances of the Dormand-Prince integrator.
+	 * 
+	 * @param relativeTolerance Relative tolerance per step.
+	 * @param absoluteTolerance Absolute tolerance per step.
+	 */
+	public void setTolerances(double relativeTolerance, double absoluteTolerance) {
+		this.relativeTolerance = relativeTolerance;
+		this.absoluteTolerance = absoluteTolerance;
+	}
+	
+	// Results
+	
+	/**
+	 * Number of accepted integration steps in the last run.
+	 * 
+	 * @return this.steps
+	 */
+	public long getStepCount() {
+		return steps;
+	}
+	
+	/**
+	 * Minute of the first day from which the last run was resumed.
+	 * 
+	 * @return this.resumedMinute, or 0 if the last run started from the initial state.
+	 */
+	public int getResumedMinute() {
+		return resumedMinute;
+	}
+	
+	/**
+	 * Number of days simulated in the last run.
+	 * 
+	 * @return this.daysSimulated
+	 */
+	public int getDaysSimulated() {
+		return daysSimulated;
+	}
+	
+	/**
+	 * Largest difference of the state variables G, I, Ia and Ggut between the last two midnights of
+	 * the last run, or NaN if only one day was simulated without a warm state.
+	 * 
+	 * @return this.residual
+	 */
+	public double getResidual() {
+		return residual;
+	}
+	
+	/**
+	 * Checks whether the last run reached a steady state within the tolerance.
+	 * 
+	 * @return true if the residual is below the tolerance; false otherwise.
+	 */
+	public boolean isConverged() {
+		return residual < tolerance;
+	}
+	
+	/**
+	 * Number of result values of the last run.
+	 * 
+	 * @return Number of valid elements in the result arrays.
+	 */
+	public int getResultCount() {
+		return iterations / resultInterval + 1;
+	}
+	
+	/**
+	 * Plasma glucose results of the last run; only the first {@link #getResultCount()} elements are
+	 * valid. The array is owned by the kernel and overwritten by the next run.
+	 * 
+	 * @return this.resultGlucose
+	 */
+	public double[] getResultGlucose() {
+		return resultGlucose;
+	}
+	
+	/**
+	 * Plasma insulin results of the last run; only the first {@link #getResultCount()} elements are
+	 * valid. The array is owned by the kernel and overwritten by the next run.
+	 * 
+	 * @return this.resultInsulin
+	 */
+	public double[] getResultInsulin() {
+		return resultInsulin;
+	}
+	
+	/**
+	 * Complete state at the end of the last run, for warm starting the next run.
+	 * 
+	 * @return A copy of {@link #STATE_SIZE} values, or null if the last run did not use the Euler
+	 *         method.
+	 */
+	public double[] getFinalState() {
+		return finalStateValid ? Arrays.copyOf(finalState, STATE_SIZE) : null;
+	}
+	
+	/**
+	 * Plasma glucose level at the end of the last run.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Plasma insulin concentration at the end of the last run.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	// Simulation
+	
+	/**
+	 * Runs a 72-hour simulation in steps of size 'h' * hour (using the Euler method of solving
+	 * differential equations numerically). Writes results of the third day run into the result
+	 * arrays (every 'resultInterval' minutes). In steady state mode, the run ends with the first day
+	 * whose final state is within the tolerance of the day before. The RK4 and Dormand-Prince
+	 * integrators solve the same equations in continuous time instead.
+	 */
+	public void run() {
+		resumedMinute = 0;
+		finalStateValid = false;
+		if (integrator == Integrator.EULER)
+			runEuler();
+		else {
+			checkpointCount = 0;
+			runContinuous();
+		}
+	}
+	
+	/**
+	 * Runs the simulation with the Euler method in steps of one minute.
+	 */
+	private void runEuler() {
+		int Ie = effectiveInsulin(I); // effective insulin level
+		double Ia = 0.0; // active insulin pool
+		double Gin; // glucose input via the gut wall
+		double Gout; // overall rate of peripheral and insulin-independent glucose utilisation
+		double Ggut = 0.0; // amount of glucose in the gut
+		double Gempt; // gastric emptying rate
+		double Gren; // renal glucose excretion
+		double Iass; // steady state active insulin profile
+		double Iabs, Iabs1, Iabs2; // insulin absorbtion rate
+		double Ieq; // insulin level in equilibrium with Ia,ss(t)
+		double NHGB; // net hepatic insulin balance
+		double D1 = 0.0, D2 = 0.0; // insulin doses
+		double T50_1 = 0.0, T50_2 = 0.0; // time at which 50% of the insulin dose D1/D2 has been absorbed
+		double Ch = 0.0; // (mmol) glucose equivalent carbohydrate
+		double Tmaxge = 0.0, Tascge = 0.5, Tdesge = 0.5; // durations of gastric emptying curve branches
+		double t_meal_double; // double conversion of t_meal
+		double[] curve1 = null, curve2 = null; // sampled absorption curves of the last injections
+		int t_meal = 0, t_insulin1 = 0, t_insulin2 = 0; // times elapsed from the last meal/injection
+		
+		int NHGBcolumn = nhgbColumn(); // column of the NHGB table
+		
+		// Precomputed insulin levels after each step, if available
+		double[] trajectoryI = null, trajectoryIa = null;
+		if (insulinCache != null) {
+			InsulinTrajectory trajectory = insulinCache.getTrajectory(insulin1ParamS, insulin1ParamA, insulin1ParamB,
+			    insulin2ParamS, insulin2ParamA, insulin2ParamB, weight, I, schedule, maxDays, absorptionCache);
+			trajectoryI = trajectory.getInsulin();
+			trajectoryIa = trajectory.getActiveInsulin();
+		}
+		int n = 0; // index of the step in the trajectory
+		
+		// Start from the complete state of a previous run, if given. The trajectory can only be used
+		// from a midnight at which it has exactly the same insulin state.
+		boolean warm = warmState != null;
+		if (warm) {
+			G = warmState[0];
+			I = warmState[1];
+			Ia = warmState[2];
+			Ggut = warmState[3];
+			D1 = warmState[4];
+			D2 = warmState[5];
+			T50_1 = warmState[6];
+			T50_2 = warmState[7];
+			Ch = warmState[8];
+			Tmaxge = warmState[9];
+			Tascge = warmState[10];
+			Tdesge = warmState[11];
+			t_meal = (int) warmState[12];
+			t_insulin1 = (int) warmState[13];
+			t_insulin2 = (int) warmState[14];
+			Ie = effectiveInsulin(I);
+			n = trajectoryI != null ? trajectoryDay(trajectoryI, trajectoryIa) * (iterations + 1) : 0;
+			if (n == 0) {
+				trajectoryI = null;
+				trajectoryIa = null;
+			}
+		}
+		
+		int events = schedule.size();
+		double G0 = G, I0 = I, Ia0 = Ia, Ggut0 = Ggut; // state at the previous midnight
+		daysSimulated = 0;
+		residual = Double.NaN;
+		steps = 0;
+		
+		// Resume from the last checkpoint before the first changed event, if possible
+		int start = 0; // first step of the first day
+		int checkpoint = prepareCheckpoints(); // index of the next checkpoint to record
+		if (checkpoint > 0) {
+			int k = (checkpoint - 1) * CHECKPOINT_SIZE;
+			G = checkpoints[k];
+			I = checkpoints[k + 1];
+			Ia = checkpoints[k + 2];
+			Ggut = checkpoints[k + 3];
+			D1 = checkpoints[k + 4];
+			D2 = checkpoints[k + 5];
+			T50_1 = checkpoints[k + 6];
+			T50_2 = checkpoints[k + 7];
+			Ch = checkpoints[k + 8];
+			Tmaxge = checkpoints[k + 9];
+			Tascge = checkpoints[k + 10];
+			Tdesge = checkpoints[k + 11];
+			t_meal = (int) checkpoints[k + 12];
+			t_insulin1 = (int) checkpoints[k + 13];
+			t_insulin2 = (int) checkpoints[k + 14];
+			curve1 = checkpointCurves[2 * (checkpoint - 1)];
+			curve2 = checkpointCurves[2 * (checkpoint - 1) + 1];
+			Ie = effectiveInsulin(I);
+			checkpoint--;
+			start = checkpoint * checkpointInterval;
+			n += start;
+			resumedMinute = start;
+		}
+		
+		// Outer loop: Run a 3 day simulation (or until steady state is reached), saving the results
+		// from the last run
+		for (int i = 0; i < maxDays; ++i) {
+			int cursor = 0; // next event of the schedule
+			while (cursor < events && schedule.getMinute(cursor) < start)
+				cursor++;
+			
+			// A warm started run continues without the trajectory once it has been used up
+			if (trajectoryI != null && n >= trajectoryI.length) {
+				trajectoryI = null;
+				trajectoryIa = null;
+				curve1 = null;
+				curve2 = null;
+			}
+			
+			// Inner loop: 24 hours in 24/h+1 steps
+			for (int j = start; j <= iterations; ++j) {
+				// Record the state at checkpoints of the first day
+				if (checkpoint >= 0 && i == 0 && j == checkpoint * checkpointInterval) {
+					int k = checkpoint * CHECKPOINT_SIZE;
+					checkpoints[k] = G;
+					checkpoints[k + 1] = I;
+					checkpoints[k + 2] = Ia;
+					checkpoints[k + 3] = Ggut;
+					checkpoints[k + 4] = D1;
+					checkpoints[k + 5] = D2;
+					checkpoints[k + 6] = T50_1;
+					checkpoints[k + 7] = T50_2;
+					checkpoints[k + 8] = Ch;
+					checkpoints[k + 9] = Tmaxge;
+					checkpoints[k + 10] = Tascge;
+					checkpoints[k + 11] = Tdesge;
+					checkpoints[k + 12] = t_meal;
+					checkpoints[k + 13] = t_insulin1;
+					checkpoints[k + 14] = t_insulin2;
+					checkpointCurves[2 * checkpoint] = curve1;
+					checkpointCurves[2 * checkpoint + 1] = curve2;
+					checkpointCount = ++checkpoint;
+					if (checkpoint * checkpointInterval > iterations)
+						checkpoint = -1;
+				}
+				
+				// Collect the events at the given time
+				boolean meal = false, injection1 = false, injection2 = false;
+				double carbs = 0.0, dose1 = 0.0, dose2 = 0.0;
+				while (cursor < events && schedule.getMinute(cursor) == j) {
+					switch (schedule.getType(cursor)) {
+						case EventSchedule.MEAL:
+							meal = true;
+							carbs = schedule.getAmount(cursor);
+							break;
+						case EventSchedule.INSULIN_1:
+							injection1 = true;
+							dose1 = schedule.getAmount(cursor);
+							break;
+						default:
+							injection2 = true;
+							dose2 = schedule.getAmount(cursor);
+					}
+					cursor++;
+				}
+				
+				// Look for an insulin injection at the given time
+				// (4) T50^s = a * D + b
+				// The absorption curve is only looked up again if the dose has changed, and not at
+				// all while the insulin levels are taken from a trajectory
+				if (injection1) {
+					t_insulin1 = 0;
+					if (trajectoryI == null && absorptionCache != null && (curve1 == null || dose1 != D1))
+						curve1 = absorptionCache.getCurve(insulin1ParamS, insulin1ParamA, insulin1ParamB, dose1, h);
+					D1 = dose1;
+					T50_1 = insulin1ParamA * D1 + insulin1ParamB;
+				} else if (D1 > 0.0)
+					t_insulin1++;
+				if (injection2) {
+					t_insulin2 = 0;
+					if (trajectoryI == null && absorptionCache != null && (curve2 == null || dose2 != D2))
+						curve2 = absorptionCache.getCurve(insulin2ParamS, insulin2ParamA, insulin2ParamB, dose2, h);
+					D2 = dose2;
+					T50_2 = insulin2ParamA * D2 + insulin2ParamB;
+				} else if (D2 > 0.0)
+					t_insulin2++;
+				
+				// Without a trajectory, calculate the absorption rate
+				Iabs = 0.0;
+				if (trajectoryI == null) {
+					// (3) Iabs(t) = (s * t^s * T50^s * D) / (t * [T50^s + t^s]^2), taken from the
+					// sampled curves if possible
+					Iabs1 = 0.0;
+					Iabs2 = 0.0;
+					if (t_insulin1 > 0) {
+						if (curve1 != null && t_insulin1 < curve1.length)
+							Iabs1 = curve1[t_insulin1];
+						else
+							Iabs1 = AbsorptionCurveCache.absorptionRate(insulin1ParamS, T50_1, D1, t_insulin1 * h);
+					}
+					if (t_insulin2 > 0) {
+						if (curve2 != null && t_insulin2 < curve2.length)
+							Iabs2 = curve2[t_insulin2];
+						else
+							Iabs2 = AbsorptionCurveCache.absorptionRate(insulin2ParamS, T50_2, D2, t_insulin2 * h);
+					}
+					Iabs = Iabs1 + Iabs2;
+				}
+				
+				// (5b) Ia,ss(t) = Ia(t) + Ia(t + 24) + Ia(t + 48)
+				// The original implementation's switch statement falls through to its default branch
+				// on every day, so the steady state active insulin profile is always zero. This is
+				// kept as is in order not to change the model's results.
+				Iass = 0.0;
+				
+				// (6) Ieq(t) = k2 * Ia,ss(t) / k1
+				Ieq = k2 * Iass / k1;
+				
+				// Setting NHGB from NHGBtable, based on the effective insulin (Ie) and arterial
+				// glucose (AG) levels
+				NHGB = NHGBtable[Ie * NHGB_COLUMNS + NHGBcolumn];
+				
+				// Glucose utilization (Gout) by the central nervous system (insulin-independent)
+				// (8) Gout(G,I#eq) = (G * (c * Sp * I#eq + GI) * (Km + GX)) / (GX * (Km + G))
+				Gout = (G * ((c * weight) * sp * Ieq + (GI * weight)) * (Km + GX)) / (GX * (Km + G));
+				
+				// Look for a meal at the given time
+				if (meal) {
+					// Convert the carbs from g to mmol (mmol = g / 180 * 10^3, assuming the molar
+					// weight of glucose is 180)
+					Ch = carbs / 180.0 * 1000.0;
+					t_meal = 0;
+					
+					// (11) Tascge = Tdesge = Ch / Vmaxge (when Ch <= Chcrit (~10g))*
+					// * Original equation (11) (Tascge = Tdesge = 2 * Ch / Vmaxge) by Lehmann,
+					// Deutsch has been corrected by Fernandez, Villasana
+					// (12) Chcrit = ((Tascge + Tdesge) * Vmaxge) / 2
+					double Chcrit = ((Tascge + Tdesge) * Vmaxge) / 2.0;
+					if (Ch <= Chcrit) {
+						Tascge = Ch / Vmaxge;
+						Tdesge = Tascge;
+					} else {
+						Tascge = 0.5;
+						Tdesge = 0.5;
+					}
+					
+					// Duration of Vmaxge (Tmaxge)
+					// (10) Tmaxge = (Ch - 1/2 * Vmaxge * 2(Tascge + Tdesge) / Vmaxge
+					if (Ch > Chcrit)
+						Tmaxge = (Ch - (0.5 * Vmaxge) * (2.0 * (Tascge + Tdesge))) / Vmaxge;
+					else
+						Tmaxge = 0.0;
+				} else if (Ch > 0.0)
+					t_meal++;
+				
+				// (13) Gastric emptying (Gempt)
+				t_meal_double = t_meal * h;
+				if (t_meal_double < Tascge)
+					Gempt = (Vmaxge / Tascge) * t_meal_double;
+				else if (Tascge <= t_meal_double && t_meal_double <= Tascge + Tmaxge)
+					Gempt = Vmaxge;
+				else if (Tascge + Tmaxge <= t_meal_double && t_meal_double < Tascge + Tmaxge + Tdesge)
+					Gempt = Vmaxge - (Vmaxge / Tdesge) * (t_meal_double - Tascge - Tmaxge);
+				else
+					Gempt = 0.0;
+				
+				// (9) d(Ggut)/dt = Gempt - kgabs * Ggut
+				Ggut += h * (Gempt - kgabs * Ggut);
+				if (Ggut < 0.0)
+					Ggut = 0.0;
+				
+				// Glucose input (Gin) via the gut wall
+				// (14) Gin = kgabs * Ggut
+				Gin = kgabs * Ggut;
+				
+				// Renal glucose excretion (if above RTG)
+				// (15a) Gren = CCR * (G - RTG)(if G > RTG)
+				// (15b) Gren = 0 (else)
+				// CCR: (ml/min) ==> CCR * 60 / 1000 ==> (l/h)
+				if (G > RTG)
+					Gren = (CCR * 60.0 / 1000.0) * (G - RTG);
+				else
+					Gren = 0.0;
+				
+				// Change in plasma glucose concentration for this time period
+				// (7) dG/dt = (Gin(t) + NHGB(t) - Gout(t) - Gren(t)) / Vg
+				G += h * ((Gin + NHGB - Gout - Gren) / (Vg * weight));
+				if (G < 0.0)
+					G = 0.0;
+				
+				// Change in plasma insulin concentration and build-up and deactivation of the
+				// 'active' insulin pool for this time period, unless taken from the trajectory
+				// (1) dI/dt = Iabs / Vi - ke * I
+				// (2) dIa/dt = (k1 * I) - (k2 * Ia)
+				if (trajectoryI == null) {
+					I += h * ((Iabs * (Vi * weight)) - ke * I);
+					if (I < 0.0)
+						I = 0.0;
+					Ia += h * (k1 * I - k2 * Ia);
+				} else {
+					I = trajectoryI[n];
+					Ia = trajectoryIa[n];
+				}
+				n++;
+				
+				// Effective insulin
+				Ie = effectiveInsulin(I);
+				
+				// When reached a result mark (every 15 min by default), add current G,I to result sets
+				if (j % resultInterval == 0) {
+					resultGlucose[j / resultInterval] = G;
+					resultInsulin[j / resultInterval] = I;
+				}
+			}
+			
+			// Compare the state with the previous midnight
+			daysSimulated++;
+			steps += iterations + 1 - start;
+			start = 0;
+			if (i > 0 || warm)
+				residual = Math.max(Math.max(Math.abs(G - G0), Math.abs(I - I0)), Math.max(Math.abs(Ia - Ia0), Math
+				        .abs(Ggut - Ggut0)));
+			if (residual < tolerance)
+				break;
+			G0 = G;
+			I0 = I;
+			Ia0 = Ia;
+			Ggut0 = Ggut;
+		}
+		
+		finalState[0] = G;
+		finalState[1] = I;
+		finalState[2] = Ia;
+		finalState[3] = Ggut;
+		finalState[4] = D1;
+		finalState[5] = D2;
+		finalState[6] = T50_1;
+		finalState[7] = T50_2;
+		finalState[8] = Ch;
+		finalState[9] = Tmaxge;
+		finalState[10] = Tascge;
+		finalState[11] = Tdesge;
+		finalState[12] = t_meal;
+		finalState[13] = t_insulin1;
+		finalState[14] = t_insulin2;
+		finalStateValid = true;
+	}
+	
+	/**
+	 * Runs a multi-day simulation of the given events with the Euler method and passes the results
+	 * of each day to the sink as soon as the day has been simulated. Unlike {@link #run()}, the
+	 * events are not repeated every day and the results of all days are passed on, but the memory
+	 * used does not depend on the number of days, as one chunk of results is reused for all of
+	 * them. Every day is integrated in exactly 24/h steps and the state is carried across midnight,
+	 * so unlike a day of {@link #run()}, which steps the minute of midnight twice, no step is
+	 * repeated; a stream that repeats a daily schedule therefore closely follows, but is not
+	 * identical to, the periodic simulation. The run starts from the initial state, or the warm
+	 * state if set; insulin trajectories, checkpoints and the steady state mode are not used.
+	 * 
+	 * @param events Meals and injections in ascending order; events after the last day are not read.
+	 * @param days Number of simulated days.
+	 * @param sink Receiver of the results of each day.
+	 */
+	public void runStream(EventStream events, int days, ResultSink sink) {
+		if (days < 1)
+			throw new IllegalArgumentException("At least one day must be simulated: " + days);
+		if (chunk == null || chunk.getStepMinutes() != resultInterval)
+			chunk = new ResultChunk(resultInterval);
+		double[] chunkGlucose = chunk.getGlucose(), chunkInsulin = chunk.getInsulin();
+		resumedMinute = 0;
+		finalStateValid = false;
+		
+		int Ie = effectiveInsulin(I); // effective insulin level
+		double Ia = 0.0; // active insulin pool
+		double Gout; // overall rate of peripheral and insulin-independent glucose utilisation
+		double Ggut = 0.0; // amount of glucose in the gut
+		double Gempt; // gastric emptying rate
+		double Gren; // renal glucose excretion
+		double Iabs, Iabs1, Iabs2; // insulin absorbtion rate
+		double NHGB; // net hepatic insulin balance
+		double D1 = 0.0, D2 = 0.0; // insulin doses
+		double T50_1 = 0.0, T50_2 = 0.0; // time at which 50% of the insulin dose D1/D2 has been absorbed
+		double Ch = 0.0; // (mmol) glucose equivalent carbohydrate
+		double Tmaxge = 0.0, Tascge = 0.5, Tdesge = 0.5; // durations of gastric emptying curve branches
+		double t_meal_double; // double conversion of t_meal
+		double[] curve1 = null, curve2 = null; // sampled absorption curves of the last injections
+		int t_meal = 0, t_insulin1 = 0, t_insulin2 = 0; // times elapsed from the last meal/injection
+		int NHGBcolumn = nhgbColumn(); // column of the NHGB table
+		
+		// Start from the complete state of a previous run, if given
+		if (warmState != null) {
+			G = warmState[0];
+			I = warmState[1];
+			Ia = warmState[2];
+			Ggut = warmState[3];
+			D1 = warmState[4];
+			D2 = warmState[5];
+			T50_1 = warmState[6];
+			T50_2 = warmState[7];
+			Ch = warmState[8];
+			Tmaxge = warmState[9];
+			Tascge = warmState[10];
+			Tdesge = warmState[11];
+			t_meal = (int) warmState[12];
+			t_insulin1 = (int) warmState[13];
+			t_insulin2 = (int) warmState[14];
+			Ie = effectiveInsulin(I);
+		}
+		
+		double G0 = G, I0 = I, Ia0 = Ia, Ggut0 = Ggut; // state at the previous midnight
+		boolean pending = events.next(); // the stream's current event has not been applied yet
+		daysSimulated = 0;
+		residual = Double.NaN;
+		steps = 0;
+		
+		for (int i = 0; i < days; ++i) {
+			long midnight = (long) i * iterations;
+			
+			// 24 hours in 24/h steps; the last step ends at midnight, where the next day continues
+			for (int j = 0; j < iterations; ++j) {
+				// Collect the events at the given time
+				boolean meal = false, injection1 = false, injection2 = false;
+				double carbs = 0.0, dose1 = 0.0, dose2 = 0.0;
+				while (pending && events.getMinute() <= midnight + j) {
+					if (events.getMinute() < midnight + j)
+						throw new IllegalArgumentException("Events must be in ascending order: " + events.getMinute());
+					switch (events.getType()) {
+						case EventSchedule.MEAL:
+							meal = true;
+							carbs = events.getAmount();
+							break;
+						case EventSchedule.INSULIN_1:
+							injection1 = true;
+							dose1 = events.getAmount();
+							break;
+						case EventSchedule.INSULIN_2:
+							injection2 = true;
+							dose2 = events.getAmount();
+							break;
+						default:
+							throw new IllegalArgumentException("Unknown event type: " + events.getType());
+					}
+					pending = events.next();
+				}
+				
+				// (4) T50^s = a * D + b, see runEuler()
+				if (injection1) {
+					t_insulin1 = 0;
+					if (absorptionCache != null && (curve1 == null || dose1 != D1))
+						curve1 = absorptionCache.getCurve(insulin1ParamS, insulin1ParamA, insulin1ParamB, dose1, h);
+					D1 = dose1;
+					T50_1 = insulin1ParamA * D1 + insulin1ParamB;
+				} else if (D1 > 0.0)
+					t_insulin1++;
+				if (injection2) {
+					t_insulin2 = 0;
+					if (absorptionCache != null && (curve2 == null || dose2 != D2))
+						curve2 = absorptionCache.getCurve(insulin2ParamS, insulin2ParamA, insulin2ParamB, dose2, h);
+					D2 = dose2;
+					T50_2 = insulin2ParamA * D2 + insulin2ParamB;
+				} else if (D2 > 0.0)
+					t_insulin2++;
+				
+				// (3) Iabs(t)
+				Iabs1 = 0.0;
+				Iabs2 = 0.0;
+				if (t_insulin1 > 0) {
+					if (curve1 != null && t_insulin1 < curve1.length)
+						Iabs1 = curve1[t_insulin1];
+					else
+						Iabs1 = AbsorptionCurveCache.absorptionRate(insulin1ParamS, T50_1, D1, t_insulin1 * h);
+				}
+				if (t_insulin2 > 0) {
+					if (curve2 != null && t_insulin2 < curve2.length)
+						Iabs2 = curve2[t_insulin2];
+					else
+						Iabs2 = AbsorptionCurveCache.absorptionRate(insulin2ParamS, T50_2, D2, t_insulin2 * h);
+				}
+				Iabs = Iabs1 + Iabs2;
+				
+				// NHGB and (8) Gout, with Ia,ss(t) and thus Ieq always being zero as in runEuler()
+				NHGB = NHGBtable[Ie * NHGB_COLUMNS + NHGBcolumn];
+				Gout = (G * ((c * weight) * sp * 0.0 + (GI * weight)) * (Km + GX)) / (GX * (Km + G));
+				
+				// (10) to (12) Gastric emptying parameters of a meal
+				if (meal) {
+					Ch = carbs / 180.0 * 1000.0;
+					t_meal = 0;
+					double Chcrit = ((Tascge + Tdesge) * Vmaxge) / 2.0;
+					if (Ch <= Chcrit) {
+						Tascge = Ch / Vmaxge;
+						Tdesge = Tascge;
+					} else {
+						Tascge = 0.5;
+						Tdesge = 0.5;
+					}
+					if (Ch > Chcrit)
+						Tmaxge = (Ch - (0.5 * Vmaxge) * (2.0 * (Tascge + Tdesge))) / Vmaxge;
+					else
+						Tmaxge = 0.0;
+				} else if (Ch > 0.0)
+					t_meal++;
+				
+				// (13) Gempt
+				t_meal_double = t_meal * h;
+				if (t_meal_double < Tascge)
+					Gempt = (Vmaxge / Tascge) * t_meal_double;
+				else if (Tascge <= t_meal_double && t_meal_double <= Tascge + Tmaxge)
+					Gempt = Vmaxge;
+				else if (Tascge + Tmaxge <= t_meal_double && t_meal_double < Tascge + Tmaxge + Tdesge)
+					Gempt = Vmaxge - (Vmaxge / Tdesge) * (t_meal_double - Tascge - Tmaxge);
+				else
+					Gempt = 0.0;
+				
+				// (9) Ggut, (15) Gren and (7) G
+				Ggut += h * (Gempt - kgabs * Ggut);
+				if (Ggut < 0.0)
+					Ggut = 0.0;
+				if (G > RTG)
+					Gren = (CCR * 60.0 / 1000.0) * (G - RTG);
+				else
+					Gren = 0.0;
+				G += h * ((kgabs * Ggut + NHGB - Gout - Gren) / (Vg * weight));
+				if (G < 0.0)
+					G = 0.0;
+				
+				// (1) I and (2) Ia
+				I += h * ((Iabs * (Vi * weight)) - ke * I);
+				if (I < 0.0)
+					I = 0.0;
+				Ia += h * (k1 * I - k2 * Ia);
+				Ie = effectiveInsulin(I);
+				
+				if (j % resultInterval == 0) {
+					chunkGlucose[j / resultInterval] = G;
+					chunkInsulin[j / resultInterval] = I;
+				}
+			}
+			
+			daysSimulated++;
+			steps += iterations;
+			chunk.setDay(i);
+			sink.write(chunk);
+			if (i > 0 || warmState != null)
+				residual = Math.max(Math.max(Math.abs(G - G0), Math.abs(I - I0)), Math.max(Math.abs(Ia - Ia0), Math
+				        .abs(Ggut - Ggut0)));
+			G0 = G;
+			I0 = I;
+			Ia0 = Ia;
+			Ggut0 = Ggut;
+		}
+		
+		finalState[0] = G;
+		finalState[1] = I;
+		finalState[2] = Ia;
+		finalState[3] = Ggut;
+		finalState[4] = D1;
+		finalState[5] = D2;
+		finalState[6] = T50_1;
+		finalState[7] = T50_2;
+		finalState[8] = Ch;
+		finalState[9] = Tmaxge;
+		finalState[10] = Tascge;
+		finalState[11] = Tdesge;
+		finalState[12] = t_meal;
+		finalState[13] = t_insulin1;
+		finalState[14] = t_insulin2;
+		finalStateValid = true;
+	}
+	
+	/**
+	 * Finds the first midnight after the first day at which the insulin trajectory has exactly the
+	 * insulin state of the warm state, i.e. the same plasma and active insulin levels and the same
+	 * last injections of both insulin types.
+	 * 
+	 * @param trajectoryI Plasma insulin levels of the trajectory.
+	 * @param trajectoryIa Active insulin levels of the trajectory.
+	 * @return The day of the trajectory to continue with, or 0 if there is none.
+	 */
+	private int trajectoryDay(double[] trajectoryI, double[] trajectoryIa) {
+		// Last injections of a day, which the trajectory has at every midnight after the first day
+		double dose1 = 0.0, dose2 = 0.0;
+		int t1 = 0, t2 = 0;
+		for (int k = 0; k < schedule.size(); k++) {
+			if (schedule.getMinute(k) > iterations)
+				continue;
+			if (schedule.getType(k) == EventSchedule.INSULIN_1) {
+				dose1 = schedule.getAmount(k);
+				t1 = iterations - schedule.getMinute(k);
+			} else if (schedule.getType(k) == EventSchedule.INSULIN_2) {
+				dose2 = schedule.getAmount(k);
+				t2 = iterations - schedule.getMinute(k);
+			}
+		}
+		if (warmState[4] != dose1 || warmState[5] != dose2 || (int) warmState[13] != t1 || (int) warmState[14] != t2
+		        || (dose1 > 0.0 && warmState[6] != insulin1ParamA * dose1 + insulin1ParamB)
+		        || (dose2 > 0.0 && warmState[7] != insulin2ParamA * dose2 + insulin2ParamB))
+			return 0;
+		
+		int stepsPerDay = iterations + 1;
+		for (int day = 1; day * stepsPerDay < trajectoryI.length; day++) {
+			int k = day * stepsPerDay - 1;
+			if (Double.doubleToLongBits(trajectoryI[k]) == Double.doubleToLongBits(warmState[1])
+			        && Double.doubleToLongBits(trajectoryIa[k]) == Double.doubleToLongBits(warmState[2]))
+				return day;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Checks whether the checkpoints of the last run can be used for this run, and prepares
+	 * recording the checkpoints of this run.
+	 * 
+	 * @return Number of valid checkpoints, i.e. one more than the index of the checkpoint to resume
+	 *         from, 0 to start from the beginning, or -1 if no checkpoints are recorded.
+	 */
+	private int prepareCheckpoints() {
+		if (checkpointInterval == 0) {
+			checkpointCount = 0;
+			return -1;
+		}
+		int capacity = iterations / checkpointInterval + 1;
+		if (checkpoints == null || checkpointCurves.length != 2 * capacity) {
+			checkpoints = new double[capacity * CHECKPOINT_SIZE];
+			checkpointCurves = new double[2 * capacity][];
+			checkpointCount = 0;
+		}
+		
+		// All parameters and the initial state must be the same as in the recording run
+		double[] inputs = { weight, RTG, CCR, sh, sp, insulin1ParamS, insulin1ParamA, insulin1ParamB, insulin2ParamS,
+		        insulin2ParamA, insulin2ParamB, G, I, AG, resultInterval, tolerance, maxDays };
+		if (warmState != null) {
+			inputs = Arrays.copyOf(inputs, inputs.length + STATE_SIZE);
+			System.arraycopy(warmState, 0, inputs, inputs.length - STATE_SIZE, STATE_SIZE);
+		}
+		int valid = checkpointCount;
+		if (!Arrays.equals(inputs, checkpointInputs) || absorptionCache != checkpointAbsorptionCache
+		        || insulinCache != checkpointInsulinCache)
+			valid = 0;
+		
+		// Only checkpoints up to the first changed event remain valid
+		int first = firstChangedMinute();
+		valid = Math.min(valid, first / checkpointInterval + 1);
+		
+		checkpointInputs = inputs;
+		checkpointAbsorptionCache = absorptionCache;
+		checkpointInsulinCache = insulinCache;
+		int events = schedule.size();
+		checkpointMinutes = new int[events];
+		checkpointTypes = new int[events];
+		checkpointAmounts = new double[events];
+		for (int k = 0; k < events; k++) {
+			checkpointMinutes[k] = schedule.getMinute(k);
+			checkpointTypes[k] = schedule.getType(k);
+			checkpointAmounts[k] = schedule.getAmount(k);
+		}
+		checkpointCount = valid;
+		return valid;
+	}
+	
+	/**
+	 * Finds the first minute at which the schedule differs from the schedule of the run that
+	 * recorded the checkpoints.
+	 * 
+	 * @return The minute, or the number of steps per day if the schedules are the same.
+	 */
+	private int firstChangedMinute() {
+		if (checkpointMinutes == null)
+			return 0;
+		int events = schedule.size();
+		for (int k = 0; k < Math.max(events, checkpointMinutes.length); k++) {
+			if (k >= events)
+				return checkpointMinutes[k];
+			if (k >= checkpointMinutes.length)
+				return schedule.getMinute(k);
+			if (schedule.getMinute(k) != checkpointMinutes[k] || schedule.getType(k) != checkpointTypes[k]
+			        || Double.doubleToLongBits(schedule.getAmount(k)) != Double.doubleToLongBits(checkpointAmounts[k]))
+				return Math.min(schedule.getMinute(k), checkpointMinutes[k]);
+		}
+		return iterations;
+	}
+	
+	/**
+	 * Runs the simulation with one of the continuous-time integrators (RK4 or Dormand-Prince). The
+	 * integration stops exactly at every meal and injection, so the discontinuities caused by events
+	 * always fall on step boundaries, and at midnight. Result marks in between do not limit the step
+	 * size: they are filled by the integrator's dense output (cubic Hermite interpolation for RK4,
+	 * the method's own fourth-order interpolant for Dormand-Prince).
+	 */
+	private void runContinuous() {
+		NHGBcolumn = nhgbColumn();
+		Ch = 0.0;
+		Tmaxge = 0.0;
+		Tascge = 0.5;
+		Tdesge = 0.5;
+		mealTime = Double.NaN;
+		injection1Time = Double.NaN;
+		injection2Time = Double.NaN;
+		y[0] = G;
+		y[1] = I;
+		y[2] = 0.0;
+		y[3] = 0.0;
+		effectiveInsulin(y[1]);
+		
+		int events = schedule.size();
+		double G0 = G, I0 = I, Ia0 = 0.0, Ggut0 = 0.0; // state at the previous midnight
+		double stepHours = 1.0 / 60.0; // step size proposed by the error control
+		daysSimulated = 0;
+		residual = Double.NaN;
+		steps = 0;
+		
+		for (int i = 0; i < maxDays; ++i) {
+			int cursor = 0; // next event of the schedule
+			int minute = 0;
+			while (true) {
+				// Record the state at a result mark
+				if (minute % resultInterval == 0)
+					record(minute, y[0], y[1]);
+				if (minute == iterations)
+					break;
+				
+				// Apply the events at this minute
+				double t = (i * iterations + minute) * h;
+				while (cursor < events && schedule.getMinute(cursor) == minute) {
+					applyEvent(schedule.getType(cursor), schedule.getAmount(cursor), t);
+					cursor++;
+				}
+				
+				// Integrate up to the next event or midnight, filling the result marks in between
+				int next = iterations;
+				while (cursor < events && schedule.getMinute(cursor) < minute)
+					cursor++;
+				if (cursor < events && schedule.getMinute(cursor) < next)
+					next = schedule.getMinute(cursor);
+				if (integrator == Integrator.RK4)
+					integrateRK4(t, minute, next);
+				else
+					stepHours = integrateDormandPrince(t, minute, next, stepHours);
+				minute = next;
+			}
+			
+			// Compare the state with the previous midnight
+			daysSimulated++;
+			if (i > 0)
+				residual = Math.max(Math.max(Math.abs(y[0] - G0), Math.abs(y[1] - I0)), Math.max(Math.abs(y[2] - Ia0),
+				    Math.abs(y[3] - Ggut0)));
+			if (residual < tolerance)
+				break;
+			G0 = y[0];
+			I0 = y[1];
+			Ia0 = y[2];
+			Ggut0 = y[3];
+		}
+		
+		G = y[0];
+		I = y[1];
+	}
+	
+	/**
+	 * Updates the inputs of the continuous-time integrators for a meal or injection.
+	 * 
+	 * @param type Event type.
+	 * @param amount Amount of carbohydrate (g) or insulin (U).
+	 * @param t Time of the event. (hr)
+	 */
+	private void applyEvent(int type, double amount, double t) {
+		switch (type) {
+			case EventSchedule.MEAL:
+				// Same gastric emptying parameters as in the Euler method, see (10) to (12)
+				mealTime = t;
+				Ch = amount / 180.0 * 1000.0;
+				double Chcrit = ((Tascge + Tdesge) * Vmaxge) / 2.0;
+				if (Ch <= Chcrit) {
+					Tascge = Ch / Vmaxge;
+					Tdesge = Tascge;
+				} else {
+					Tascge = 0.5;
+					Tdesge = 0.5;
+				}
+				if (Ch > Chcrit)
+					Tmaxge = (Ch - (0.5 * Vmaxge) * (2.0 * (Tascge + Tdesge))) / Vmaxge;
+				else
+					Tmaxge = 0.0;
+				break;
+			case EventSchedule.INSULIN_1:
+				// (4) T50^s = a * D + b
+				injection1Time = t;
+				D1 = amount;
+				T50_1 = insulin1ParamA * D1 + insulin1ParamB;
+				break;
+			default:
+				injection2Time = t;
+				D2 = amount;
+				T50_2 = insulin2ParamA * D2 + insulin2ParamB;
+		}
+	}
+	
+	/**
+	 * Integrates 'y' over the given interval with classic fourth-order Runge-Kutta steps of at most
+	 * 'stepMinutes' minutes, and records the result marks inside the interval. Marks that fall
+	 * inside a step are interpolated with the cubic Hermite polynomial through the states and
+	 * derivatives at both ends of the step; the derivatives at the end are those of the next step.
+	 * 
+	 * @param t Time at the start of the interval. (hr)
+	 * @param from Minute of the day at the start of the interval.
+	 * @param to Minute of the day at the end of the interval.
+	 */
+	private void integrateRK4(double t, int from, int to) {
+		int n = (to - from + stepMinutes - 1) / stepMinutes;
+		double step = (to - from) * h / n;
+		boolean fsal = false; // stages[0] already holds the derivatives at the current point
+		for (int k = 0; k < n; k++) {
+			double start = from + (double) k * (to - from) / n, end = from + (double) (k + 1) * (to - from) / n;
+			int mark = ((int) start / resultInterval + 1) * resultInterval; // first result mark after the start
+			double G0 = y[0], I0 = y[1];
+			stepRK4(t + k * step, step, fsal);
+			fsal = false;
+			if (mark < end) {
+				double[] f0 = stages[0], f1 = stages[4];
+				derivatives(t + (k + 1) * step, y, f1);
+				for (; mark < end; mark += resultInterval) {
+					double theta = (mark - start) / (end - start);
+					record(mark, hermite(theta, step, G0, y[0], f0[0], f1[0]), hermite(theta, step, I0, y[1], f0[1],
+					    f1[1]));
+				}
+				stages[0] = f1;
+				stages[4] = f0;
+				fsal = true;
+			}
+			if (mark == end && mark < to)
+				record(mark, y[0], y[1]);
+		}
+	}
+	
+	/**
+	 * Performs one classic fourth-order Runge-Kutta step on 'y'.
+	 * 
+	 * @param t Time at the start of the step. (hr)
+	 * @param step Step size. (hr)
+	 * @param fsal Whether stages[0] already holds the derivatives at the start of the step.
+	 */
+	private void stepRK4(double t, double step, boolean fsal) {
+		double[] k1 = stages[0], k2 = stages[1], k3 = stages[2], k4 = stages[3];
+		if (!fsal)
+			derivatives(t, y, k1);
+		for (int n = 0; n < 4; n++)
+			yStage[n] = y[n] + 0.5 * step * k1[n];
+		derivatives(t + 0.5 * step, yStage, k2);
+		for (int n = 0; n < 4; n++)
+			yStage[n] = y[n] + 0.5 * step * k2[n];
+		derivatives(t + 0.5 * step, yStage, k3);
+		for (int n = 0; n < 4; n++)
+			yStage[n] = y[n] + step * k3[n];
+		derivatives(t + step, yStage, k4);
+		for (int n = 0; n < 4; n++)
+			y[n] += step / 6.0 * (k1[n] + 2.0 * k2[n] + 2.0 * k3[n] + k4[n]);
+		clampState();
+		steps++;
+	}
+	
+	/**
+	 * Integrates 'y' over the given interval with the Dormand-Prince 5(4) method, adapting the step
+	 * size to the tolerances, and records the result marks inside the interval with the method's
+	 * dense output. The last step ends exactly at the end of the interval.
+	 * 
+	 * @param t Time at the start of the interval. (hr)
+	 * @param from Minute of the day at the start of the interval.
+	 * @param to Minute of the day at the end of the interval.
+	 * @param stepHours Proposed size of the first step. (hr)
+	 * @return Proposed size of the next step after the interval. (hr)
+	 */
+	private double integrateDormandPrince(double t, int from, int to, double stepHours) {
+		double length = (to - from) * h;
+		int mark = (from / resultInterval + 1) * resultInterval; // next result mark inside the interval
+		double[] k1 = stages[0], k2 = stages[1], k3 = stages[2], k4 = stages[3], k5 = stages[4], k6 = stages[5], k7 = stages[6];
+		double done = 0.0;
+		double proposed = stepHours;
+		boolean fsal = false; // k1 already holds the derivatives at the current point
+		
+		while (done < length) {
+			double step = Math.min(proposed, length - done);
+			boolean last = step >= length - done;
+			double s = t + done;
+			if (!fsal)
+				derivatives(s, y, k1);
+			
+			for (int n = 0; n < 4; n++)
+				yStage[n] = y[n] + step * (a21 * k1[n]);
+			derivatives(s + c2 * step, yStage, k2);
+			for (int n = 0; n < 4; n++)
+				yStage[n] = y[n] + step * (a31 * k1[n] + a32 * k2[n]);
+			derivatives(s + c3 * step, yStage, k3);
+			for (int n = 0; n < 4; n++)
+				yStage[n] = y[n] + step * (a41 * k1[n] + a42 * k2[n] + a43 * k3[n]);
+			derivatives(s + c4 * step, yStage, k4);
+			for (int n = 0; n < 4; n++)
+				yStage[n] = y[n] + step * (a51 * k1[n] + a52 * k2[n] + a53 * k3[n] + a54 * k4[n]);
+			derivatives(s + c5 * step, yStage, k5);
+			for (int n = 0; n < 4; n++)
+				yStage[n] = y[n] + step * (a61 * k1[n] + a62 * k2[n] + a63 * k3[n] + a64 * k4[n] + a65 * k5[n]);
+			derivatives(s + step, yStage, k6);
+			for (int n = 0; n < 4; n++)
+				yNew[n] = y[n] + step * (a71 * k1[n] + a73 * k3[n] + a74 * k4[n] + a75 * k5[n] + a76 * k6[n]);
+			derivatives(s + step, yNew, k7);
+			
+			// Error estimate: difference between the fifth and fourth order solutions
+			double error = 0.0;
+			for (int n = 0; n < 4; n++) {
+				double e = step * (e1 * k1[n] + e3 * k3[n] + e4 * k4[n] + e5 * k5[n] + e6 * k6[n] + e7 * k7[n]);
+				double scale = absoluteTolerance + relativeTolerance * Math.max(Math.abs(y[n]), Math.abs(yNew[n]));
+				error += (e / scale) * (e / scale);
+			}
+			error = Math.sqrt(error / 4.0);
+			
+			double factor = error == 0.0 ? 5.0 : Math.min(5.0, Math.max(0.2, 0.9 * Math.pow(error, -0.2)));
+			if (error <= 1.0) {
+				double end = last ? length : done + step;
+				for (; mark < to && (mark - from) * h <= end; mark += resultInterval) {
+					double theta = ((mark - from) * h - done) / step;
+					record(mark, denseOutput(theta, step, y[0], yNew[0], k1[0], k3[0], k4[0], k5[0], k6[0], k7[0]),
+					    denseOutput(theta, step, y[1], yNew[1], k1[1], k3[1], k4[1], k5[1], k6[1], k7[1]));
+				}
+				for (int n = 0; n < 4; n++)
+					y[n] = yNew[n];
+				fsal = !clampState();
+				if (fsal) {
+					double[] swap = k1;
+					k1 = k7;
+					k7 = swap;
+				}
+				done = end;
+				steps++;
+				// Do not let a short step at the end of the interval shrink the next proposal
+				if (!last || step >= proposed)
+					proposed = step * factor;
+			} else {
+				proposed = step * factor;
+				fsal = false;
+			}
+		}
+		stages[0] = k1;
+		stages[6] = k7;
+		return proposed;
+	}
+	
+	/**
+	 * Calculates the derivatives of the state variables (G, I, Ia, Ggut) at the given time.
+	 * 
+	 * @param t Time. (hr)
+	 * @param y State variables.
+	 * @param dy Array for the derivatives.
+	 */
+	private void derivatives(double t, double[] y, double[] dy) {
+		double G = y[0], I = y[1], Ia = y[2], Ggut = y[3];
+		
+		// (3) Iabs(t) = (s * t^s * T50^s * D) / (t * [T50^s + t^s]^2)
+		double Iabs = absorption(t - injection1Time, insulin1ParamS, T50_1, D1)
+		        + absorption(t - injection2Time, insulin2ParamS, T50_2, D2);
+		
+		// NHGB from NHGBtable, based on the effective insulin and arterial glucose levels; the stages
+		// of a step may undershoot zero, and are evaluated like the clamped state, while a negative
+		// level of the state itself is rejected by clampState() as by the Euler method
+		int Ie = (int) (sh * I / Ibasal);
+		if (Ie > NHGB_MAX_ROW)
+			Ie = NHGB_MAX_ROW;
+		else if (Ie < 0)
+			Ie = 0;
+		double NHGB = NHGBtable[Ie * NHGB_COLUMNS + NHGBcolumn];
+		
+		// (8) Gout(G,I#eq), with Ia,ss(t) and thus Ieq always being zero as in the Euler method
+		double Gout = (G * ((c * weight) * sp * 0.0 + (GI * weight)) * (Km + GX)) / (GX * (Km + G));
+		
+		// (15) Gren
+		double Gren = G > RTG ? (CCR * 60.0 / 1000.0) * (G - RTG) : 0.0;
+		
+		// (13) Gempt
+		double Gempt = 0.0;
+		double t_meal = t - mealTime;
+		if (t_meal >= 0.0) {
+			if (t_meal < Tascge)
+				Gempt = (Vmaxge / Tascge) * t_meal;
+			else if (t_meal <= Tascge + Tmaxge)
+				Gempt = Vmaxge;
+			else if (t_meal < Tascge + Tmaxge + Tdesge)
+				Gempt = Vmaxge - (Vmaxge / Tdesge) * (t_meal - Tascge - Tmaxge);
+		}
+		
+		// (7), (1), (2) and (9)
+		dy[0] = (kgabs * Ggut + NHGB - Gout - Gren) / (Vg * weight);
+		dy[1] = Iabs * (Vi * weight) - ke * I;
+		dy[2] = k1 * I - k2 * Ia;
+		dy[3] = Gempt - kgabs * Ggut;
+	}
+	
+	/**
+	 * Insulin absorption rate of one injection, see equation (3).
+	 * 
+	 * @param t Time since the injection (hr); NaN if there was no injection.
+	 * @param s Insulin parameter S.
+	 * @param T50 Time at which 50% of the dose has been absorbed.
+	 * @param D Insulin dose.
+	 * @return The absorption rate.
+	 */
+	private static double absorption(double t, double s, double T50, double D) {
+		if (!(t > 0.0) || D <= 0.0)
+			return 0.0;
+		double ts = Math.pow(t, s);
+		return (s * ts * T50 * D) / (t * (T50 + ts) * (T50 + ts));
+	}
+	
+	/**
+	 * Cubic Hermite interpolation of one state variable within a step.
+	 * 
+	 * @param theta Position within the step, from 0 to 1.
+	 * @param step Step size. (hr)
+	 * @param y0 Value at the start of the step.
+	 * @param y1 Value at the end of the step.
+	 * @param f0 Derivative at the start of the step.
+	 * @param f1 Derivative at the end of the step.
+	 * @return The interpolated value.
+	 */
+	private static double hermite(double theta, double step, double y0, double y1, double f0, double f1) {
+		double theta1 = theta - 1.0;
+		return (1.0 - theta) * y0 + theta * y1 + theta * theta1
+		        * ((1.0 - 2.0 * theta) * (y1 - y0) + theta1 * step * f0 + theta * step * f1);
+	}
+	
+	/**
+	 * Dense output of the Dormand-Prince 5(4) method for one state variable within an accepted step,
+	 * a fourth-order interpolant built from the stages of the step (Hairer, Norsett and Wanner).
+	 * 
+	 * @param theta Position within the step, from 0 to 1.
+	 * @param step Step size. (hr)
+	 * @param y0 Value at the start of the step.
+	 * @param y1 Value at the end of the step.
+	 * @param k1 First stage.
+	 * @param k3 Third stage.
+	 * @param k4 Fourth stage.
+	 * @param k5 Fifth stage.
+	 * @param k6 Sixth stage.
+	 * @param k7 Derivative at the end of the step.
+	 * @return The interpolated value.
+	 */
+	private static double denseOutput(double theta, double step, double y0, double y1, double k1, double k3, double k4,
+	                                  double k5, double k6, double k7) {
+		double theta1 = 1.0 - theta;
+		double r2 = y1 - y0;
+		double r3 = step * k1 - r2;
+		double r4 = r2 - step * k7 - r3;
+		double r5 = step * (d1 * k1 + d3 * k3 + d4 * k4 + d5 * k5 + d6 * k6 + d7 * k7);
+		return y0 + theta * (r2 + theta1 * (r3 + theta * (r4 + theta1 * r5)));
+	}
+	
+	/**
+	 * Records the glucose and insulin levels at a result mark of the continuous-time integrators.
+	 * Interpolated levels are limited to zero like the state.
+	 * 
+	 * @param minute Minute of the day; a multiple of the result interval.
+	 * @param G Plasma glucose level.
+	 * @param I Plasma insulin concentration.
+	 */
+	private void record(int minute, double G, double I) {
+		resultGlucose[minute / resultInterval] = Math.max(G, 0.0);
+		resultInsulin[minute / resultInterval] = Math.max(I, 0.0);
+	}
+	
+	/**
+	 * Sets negative glucose and insulin levels to zero, like the Euler method does, and rejects a
+	 * negative effective insulin level (i.e. a negative hepatic insulin sensitivity) like
+	 * {@link #effectiveInsulin(double)}.
+	 * 
+	 * @return true if a value was changed; false otherwise.
+	 * @throws IllegalArgumentException If the effective insulin level is negative.
+	 */
+	private boolean clampState() {
+		boolean changed = false;
+		if (y[0] < 0.0) {
+			y[0] = 0.0;
+			changed = true;
+		}
+		if (y[1] < 0.0) {
+			y[1] = 0.0;
+			changed = true;
+		}
+		if (y[3] < 0.0) {
+			y[3] = 0.0;
+			changed = true;
+		}
+		effectiveInsulin(y[1]);
+		return changed;
+	}
+	
+	/**
+	 * Column of the NHGB table, based on the arterial glucose (AG) level, which is constant.
+	 * 
+	 * @return The column index.
+	 */
+	private int nhgbColumn() {
+		if (AG <= 1.1)
+			return 0;
+		else if (AG >= 4.4)
+			return 2;
+		else
+			return 1;
+	}
+	
+	/**
+	 * Calculates the effective insulin level, i.e. the row of the NHGB table, for the given plasma
+	 * insulin concentration.
+	 * 
+	 * @param I Plasma insulin concentration.
+	 * @return The effective insulin level.
+	 */
+	private int effectiveInsulin(double I) {
+		int Ie = (int) (sh * I / Ibasal);
+		if (Ie > NHGB_MAX_ROW)
+			Ie = NHGB_MAX_ROW;
+		else if (Ie < 0)
+			throw new IllegalArgumentException("Hepatic insulin sensivity and insulin levels must not be negative!");
+		return Ie;
+	}
+}
@@ -0,0 +1,639 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Cache of complete simulation runs, keyed by a canonical fingerprint of all model inputs: the
+ * model version, the patient and insulin parameters, the event schedule as minute offsets, the
+ * initial state including a warm state, and the integrator settings. Results are kept in mmol/l,
+ * since the conversion to mg/dl is a view, so both units share one entry.
+ * <p>
+ * Entries live in two tiers, each bounded by its size in bytes and evicting the least recently used
+ * entry: results in the heap tier are used directly; results evicted from it are moved to the
+ * off-heap tier, a direct buffer per entry, and promoted back to the heap on their next use.
+ * Concurrent requests for the same inputs are computed only once; the later callers wait for the
+ * first one. All methods are thread-safe.
+ */
+public class SimulationResultCache {
+	
+	/** Version of the model equations; part of every fingerprint, increase it when results change. */
+	public static final int MODEL_VERSION = 1;
+	
+	/** Default size of the heap tier in bytes. */
+	public static final long DEFAULT_HEAP_CAPACITY = 4L << 20;
+	
+	/** Default size of the off-heap tier in bytes. */
+	public static final long DEFAULT_OFF_HEAP_CAPACITY = 16L << 20;
+	
+	/** Cache shared by all simulations. */
+	private static final SimulationResultCache shared = new SimulationResultCache(DEFAULT_HEAP_CAPACITY,
+	        DEFAULT_OFF_HEAP_CAPACITY);
+	
+	/** Results in the heap tier, in access order. */
+	private final LinkedHashMap<Key, Result> heap = new LinkedHashMap<Key, Result>(16, 0.75f, true);
+	
+	/** Encoded results in the off-heap tier, in access order. */
+	private final LinkedHashMap<Key, ByteBuffer> offHeap = new LinkedHashMap<Key, ByteBuffer>(16, 0.75f, true);
+	
+	/** Computations in progress. */
+	private final Map<Key, Flight> flights = new HashMap<Key, Flight>();
+	
+	/** Maximum size of the heap tier in bytes. */
+	private long heapCapacity;
+	
+	/** Maximum size of the off-heap tier in bytes; 0 disables the tier. */
+	private long offHeapCapacity;
+	
+	/** Current size of the heap tier in bytes. */
+	private long heapSize;
+	
+	/** Current size of the off-heap tier in bytes. */
+	private long offHeapSize;
+	
+	/** Number of results found in the heap tier. */
+	private long hits;
+	
+	/** Number of results found in the off-heap tier. */
+	private long offHeapHits;
+	
+	/** Number of results that had to be computed. */
+	private long misses;
+	
+	/** Number of requests that waited for a concurrent computation of the same result. */
+	private long joins;
+	
+	/** Number of results evicted from the cache altogether. */
+	private long evictions;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty cache.
+	 * 
+	 * @param heapCapacity Maximum size of the heap tier in bytes.
+	 * @param offHeapCapacity Maximum size of the off-heap tier in bytes; 0 disables the tier.
+	 */
+	public SimulationResultCache(long heapCapacity, long offHeapCapacity) {
+		setCapacity(heapCapacity, offHeapCapacity);
+	}
+	
+	/**
+	 * Returns the cache shared by all simulations.
+	 * 
+	 * @return The shared cache.
+	 */
+	public static SimulationResultCache getShared() {
+		return shared;
+	}
+	
+	// Access
+	
+	/**
+	 * Returns the result of a model run, running the model if it is not cached.
+	 * 
+	 * @param model The model with all parameters set.
+	 * @param schedule The model's meals and injections.
+	 * @return The result.
+	 */
+	public Result getResult(SimulationModelAIDA model, EventSchedule schedule) {
+		Key key = new Key(model, schedule);
+		Flight flight;
+		boolean leader = false;
+		synchronized (this) {
+			Result result = heap.get(key);
+			if (result != null) {
+				hits++;
+				return result;
+			}
+			ByteBuffer buffer = offHeap.remove(key);
+			if (buffer != null) {
+				offHeapSize -= buffer.capacity();
+				result = Result.decode(buffer);
+				offHeapHits++;
+				putHeap(key, result);
+				return result;
+			}
+			flight = flights.get(key);
+			if (flight == null) {
+				flight = new Flight();
+				flights.put(key, flight);
+				leader = true;
+				misses++;
+			} else
+				joins++;
+		}
+		
+		if (!leader)
+			return flight.await();
+		try {
+			flight.result = model.simulate(schedule);
+			synchronized (this) {
+				putHeap(key, flight.result);
+			}
+			return flight.result;
+		}
+		catch (RuntimeException e) {
+			flight.failure = e;
+			throw e;
+		}
+		catch (Error e) {
+			flight.failure = e;
+			throw e;
+		}
+		finally {
+			synchronized (this) {
+				flights.remove(key);
+			}
+			flight.done.countDown();
+		}
+	}
+	
+	/**
+	 * Removes all results and resets the statistics.
+	 */
+	public synchronized void clear() {
+		heap.clear();
+		offHeap.clear();
+		heapSize = 0;
+		offHeapSize = 0;
+		hits = 0;
+		offHeapHits = 0;
+		misses = 0;
+		joins = 0;
+		evictions = 0;
+	}
+	
+	/**
+	 * Sets the maximum sizes of both tiers, evicting results if they shrink.
+	 * 
+	 * @param heapCapacity Maximum size of the heap tier in bytes.
+	 * @param offHeapCapacity Maximum size of the off-heap tier in bytes; 0 disables the tier.
+	 */
+	public synchronized void setCapacity(long heapCapacity, long offHeapCapacity) {
+		if (heapCapacity < 0 || offHeapCapacity < 0)
+			throw new IllegalArgumentException("Capacity must not be negative: " + heapCapacity + ", " + offHeapCapacity);
+		this.heapCapacity = heapCapacity;
+		this.offHeapCapacity = offHeapCapacity;
+		evict();
+	}
+	
+	/**
+	 * Adds a result to the heap tier and evicts the least recently used results of both tiers.
+	 * 
+	 * @param key The key.
+	 * @param result The result.
+	 */
+	private void putHeap(Key key, Result result) {
+		Result old = heap.put(key, result);
+		if (old != null)
+			heapSize -= old.size() + key.size();
+		heapSize += result.size() + key.size();
+		evict();
+	}
+	
+	/**
+	 * Moves results from the heap tier to the off-heap tier and drops results from the off-heap tier
+	 * until both fit their capacity.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<Key, Result>> i = heap.entrySet().iterator();
+		while (heapSize > heapCapacity && i.hasNext()) {
+			Map.Entry<Key, Result> e = i.next();
+			i.remove();
+			heapSize -= e.getValue().size() + e.getKey().size();
+			int bytes = e.getValue().encodedSize();
+			if (bytes <= offHeapCapacity) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+				e.getValue().encode(buffer);
+				offHeap.put(e.getKey(), buffer);
+				offHeapSize += bytes;
+			} else
+				evictions++;
+		}
+		Iterator<ByteBuffer> j = offHeap.values().iterator();
+		while (offHeapSize > offHeapCapacity && j.hasNext()) {
+			offHeapSize -= j.next().capacity();
+			j.remove();
+			evictions++;
+		}
+	}
+	
+	// Statistics
+	
+	/**
+	 * Number of results in the heap tier.
+	 * 
+	 * @return The size of the heap tier.
+	 */
+	public synchronized int size() {
+		return heap.size();
+	}
+	
+	/**
+	 * Number of results in the off-heap tier.
+	 * 
+	 * @return The size of the off-heap tier.
+	 */
+	public synchronized int offHeapSize() {
+		return offHeap.size();
+	}
+	
+	/**
+	 * Fraction of requests answered from the cache.
+	 * 
+	 * @return The hit ratio, or 0 if there were no requests.
+	 */
+	public synchronized double getHitRatio() {
+		long requests = hits + offHeapHits + joins + misses;
+		return requests == 0 ? 0.0 : (double) (hits + offHeapHits + joins) / requests;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.heapCapacity
+	 */
+	public synchronized long getHeapCapacity() {
+		return heapCapacity;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.offHeapCapacity
+	 */
+	public synchronized long getOffHeapCapacity() {
+		return offHeapCapacity;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.hits
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.offHeapHits
+	 */
+	public synchronized long getOffHeapHits() {
+		return offHeapHits;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.misses
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.joins
+	 */
+	public synchronized long getJoins() {
+		return joins;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.evictions
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+	
+	/**
+	 * Result of a model run in mmol/l and mU/l. Immutable; the arrays are shared with the time series
+	 * of all models that use the result and must not be modified.
+	 */
+	public static final class Result {
+		
+		private final double[] glucose;
+		
+		private final double[] insulin;
+		
+		private final double G, I, residual;
+		
+		private final double[] state;
+		
+		private final int daysSimulated;
+		
+		private final boolean converged;
+		
+		/**
+		 * Creates a result.
+		 * 
+		 * @param glucose Plasma glucose results.
+		 * @param insulin Plasma insulin results.
+		 * @param G Final plasma glucose level.
+		 * @param I Final plasma insulin level.
+		 * @param daysSimulated Number of simulated days.
+		 * @param residual Day-to-day difference at the end of the run.
+		 * @param converged Whether a steady state was reached.
+		 * @param state Complete final state, or null.
+		 */
+		Result(double[] glucose, double[] insulin, double G, double I, int daysSimulated, double residual,
+		    boolean converged, double[] state) {
+			this.glucose = glucose;
+			this.insulin = insulin;
+			this.G = G;
+			this.I = I;
+			this.daysSimulated = daysSimulated;
+			this.residual = residual;
+			this.converged = converged;
+			this.state = state;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.glucose
+		 */
+		double[] getGlucose() {
+			return glucose;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.insulin
+		 */
+		double[] getInsulin() {
+			return insulin;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.G
+		 */
+		double getG() {
+			return G;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.I
+		 */
+		double getI() {
+			return I;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.daysSimulated
+		 */
+		int getDaysSimulated() {
+			return daysSimulated;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.residual
+		 */
+		double getResidual() {
+			return residual;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.converged
+		 */
+		boolean isConverged() {
+			return converged;
+		}
+		
+		/**
+		 * Getters/setters.
+		 * 
+		 * @return this.state
+		 */
+		double[] getState() {
+			return state;
+		}
+		
+		/**
+		 * Approximate size on the heap in bytes.
+		 * 
+		 * @return The size.
+		 */
+		long size() {
+			return 112L + 16L * glucose.length + (state != null ? 8L * state.length : 0L);
+		}
+		
+		/**
+		 * Size of the encoded result in bytes.
+		 * 
+		 * @return The size.
+		 */
+		int encodedSize() {
+			return 13 + 8 * (3 + 2 * glucose.length + (state != null ? state.length : 0));
+		}
+		
+		/**
+		 * Writes the result to a buffer of at least {@link #encodedSize()} bytes.
+		 * 
+		 * @param buffer The buffer.
+		 */
+		void encode(ByteBuffer buffer) {
+			buffer.putInt(glucose.length).putInt(daysSimulated).put((byte) (converged ? 1 : 0));
+			buffer.putInt(state != null ? state.length : -1);
+			buffer.putDouble(G).putDouble(I).putDouble(residual);
+			buffer.asDoubleBuffer().put(glucose).put(insulin).put(state != null ? state : new double[0]);
+			buffer.clear();
+		}
+		
+		/**
+		 * Reads a result written by {@link #encode(ByteBuffer)}, leaving the buffer unchanged.
+		 * 
+		 * @param buffer The buffer.
+		 * @return The result.
+		 */
+		static Result decode(ByteBuffer buffer) {
+			ByteBuffer b = buffer.duplicate();
+			int count = b.getInt();
+			int days = b.getInt();
+			boolean converged = b.get() != 0;
+			int stateSize = b.getInt();
+			double G = b.getDouble(), I = b.getDouble(), residual = b.getDouble();
+			double[] glucose = new double[count], insulin = new double[count];
+			double[] state = stateSize >= 0 ? new double[stateSize] : null;
+			b.asDoubleBuffer().get(glucose).get(insulin).get(state != null ? state : new double[0]);
+			return new Result(glucose, insulin, G, I, days, residual, converged, state);
+		}
+	}
+	
+	/**
+	 * Canonical fingerprint of the inputs of a model run. Numbers are stored as their bit patterns,
+	 * with negative zero mapped to zero; settings that have no effect on the run, e.g. the step size
+	 * of another integrator, are left out.
+	 */
+	private static final class Key {
+		
+		private final long[] words;
+		
+		private final int hash;
+		
+		public Key(SimulationModelAIDA model, EventSchedule schedule) {
+			SimulationKernelAIDA.Integrator integrator = model.getIntegrator() != null ? model.getIntegrator()
+			        : SimulationKernelAIDA.Integrator.EULER;
+			double tolerance = model.getSteadyStateTolerance() != null && model.getSteadyStateTolerance() > 0.0 ? model
+			        .getSteadyStateTolerance() : 0.0;
+			double[] warmState = integrator == SimulationKernelAIDA.Integrator.EULER ? model.getWarmState() : null;
+			int warmSize = warmState != null ? warmState.length : 0;
+			long[] w = new long[23 + warmSize + 3 * schedule.size()];
+			int n = 0;
+			w[n++] = MODEL_VERSION;
+			w[n++] = bits(model.getWeight());
+			w[n++] = bits(model.getRTG());
+			w[n++] = bits(model.getCCR());
+			w[n++] = bits(model.getSh());
+			w[n++] = bits(model.getSp());
+			w[n++] = bits(model.getInsulin1ParamS());
+			w[n++] = bits(model.getInsulin1ParamA());
+			w[n++] = bits(model.getInsulin1ParamB());
+			w[n++] = bits(model.getInsulin2ParamS());
+			w[n++] = bits(model.getInsulin2ParamA());
+			w[n++] = bits(model.getInsulin2ParamB());
+			w[n++] = bits(model.getG());
+			w[n++] = bits(model.getI());
+			w[n++] = bits(model.getAG());
+			w[n++] = model.getResultInterval();
+			w[n++] = integrator.ordinal();
+			w[n++] = integrator == SimulationKernelAIDA.Integrator.RK4 && model.getIntegratorStep() != null ? model
+			        .getIntegratorStep() : 0;
+			w[n++] = integrator == SimulationKernelAIDA.Integrator.DORMAND_PRINCE ? bits(model.getIntegratorTolerance())
+			        : 0;
+			w[n++] = bits(tolerance);
+			w[n++] = tolerance > 0.0 ? model.getMaxDays() : 0;
+			w[n++] = warmState != null ? warmSize : -1;
+			for (int k = 0; k < warmSize; k++)
+				w[n++] = bits(warmState[k]);
+			w[n++] = schedule.size();
+			
+			// Events sorted by minute, type and amount, so the order of simultaneous events is irrelevant
+			long[][] events = new long[schedule.size()][];
+			for (int k = 0; k < events.length; k++)
+				events[k] = new long[] { schedule.getMinute(k), schedule.getType(k), bits(schedule.getAmount(k)) };
+			Arrays.sort(events, new Comparator<long[]>() {
+				
+				public int compare(long[] a, long[] b) {
+					for (int j = 0; j < 3; j++)
+						if (a[j] != b[j])
+							return a[j] < b[j] ? -1 : 1;
+					return 0;
+				}
+			});
+			for (long[] e : events) {
+				w[n++] = e[0];
+				w[n++] = e[1];
+				w[n++] = e[2];
+			}
+			words = w;
+			hash = Arrays.hashCode(w);
+		}
+		
+		/**
+		 * Bit pattern of a number, with negative zero mapped to zero and null to NaN.
+		 * 
+		 * @param value The number.
+		 * @return The bit pattern.
+		 */
+		private static long bits(Double value) {
+			if (value == null)
+				return Double.doubleToLongBits(Double.NaN);
+			return Double.doubleToLongBits(value + 0.0);
+		}
+		
+		/**
+		 * Approximate size on the heap in bytes.
+		 * 
+		 * @return The size.
+		 */
+		long size() {
+			return 48L + 8L * words.length;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && hash == ((Key) obj).hash && Arrays.equals(words, ((Key) obj).words);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+	
+	/**
+	 * Computation of a result in progress, shared with concurrent requests for the same inputs.
+	 */
+	private static final class Flight {
+		
+		private final CountDownLatch done = new CountDownLatch(1);
+		
+		private volatile Result result;
+		
+		private volatile Throwable failure;
+		
+		/**
+		 * Waits for the computation.
+		 * 
+		 * @return The result.
+		 */
+		public Result await() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					done.await();
+					break;
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			if (failure instanceof RuntimeException)
+				throw (RuntimeException) failure;
+			if (failure instanceof Error)
+				throw (Error) failure;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Sobol low-discrepancy sequence in up to {@link #MAX_DIMENSIONS} dimensions, with the direction
+ * numbers of Joe and Kuo (2008). Points are generated in natural order by the index of the point,
+ * so any point can be computed on its own, e.g. by parallel tasks; the first 2^m points are the
+ * same set as in Gray code order. Point 0 is the origin and is usually skipped.
+ */
+public class SobolSequence {
+	
+	/** Number of bits of each coordinate. */
+	private static final int BITS = 31;
+	
+	/**
+	 * Degree s, coefficients a and initial direction numbers m_1..m_s of the primitive polynomials
+	 * of dimensions 2 and above.
+	 */
+	private static final int[][] POLYNOMIALS = { { 1, 0, 1 }, { 2, 1, 1, 3 }, { 3, 1, 1, 3, 1 }, { 3, 2, 1, 1, 1 },
+	        { 4, 1, 1, 1, 3, 3 }, { 4, 4, 1, 3, 5, 13 }, { 5, 2, 1, 1, 5, 5, 17 }, { 5, 4, 1, 1, 5, 5, 5 },
+	        { 5, 7, 1, 1, 7, 11, 19 }, { 5, 11, 1, 1, 5, 1, 1 }, { 5, 13, 1, 1, 1, 3, 11 }, { 5, 14, 1, 3, 5, 5, 31 },
+	        { 6, 1, 1, 3, 3, 9, 7, 49 }, { 6, 13, 1, 1, 1, 15, 21, 21 }, { 6, 16, 1, 3, 1, 13, 27, 49 },
+	        { 6, 19, 1, 1, 1, 15, 7, 5 }, { 6, 22, 1, 3, 1, 15, 13, 25 }, { 6, 25, 1, 1, 5, 5, 19, 61 },
+	        { 7, 1, 1, 3, 7, 11, 23, 15, 103 }, { 7, 4, 1, 3, 7, 13, 13, 15, 69 } };
+	
+	/** Largest number of dimensions. */
+	public static final int MAX_DIMENSIONS = POLYNOMIALS.length + 1;
+	
+	/** Direction numbers v[dimension][bit], scaled by 2^BITS. */
+	private final int[][] directions;
+	
+	// Constructors
+	
+	/**
+	 * Creates a sequence.
+	 * 
+	 * @param dimensions Number of dimensions.
+	 */
+	public SobolSequence(int dimensions) {
+		if (dimensions < 1 || dimensions > MAX_DIMENSIONS)
+			throw new IllegalArgumentException("Number of dimensions must be between 1 and " + MAX_DIMENSIONS + ": "
+			        + dimensions);
+		directions = new int[dimensions][BITS];
+		
+		// First dimension: van der Corput sequence in base 2
+		for (int i = 0; i < BITS; i++)
+			directions[0][i] = 1 << (BITS - 1 - i);
+		
+		for (int d = 1; d < dimensions; d++) {
+			int[] p = POLYNOMIALS[d - 1];
+			int s = p[0], a = p[1];
+			int[] v = directions[d];
+			for (int i = 0; i < Math.min(s, BITS); i++)
+				v[i] = p[2 + i] << (BITS - 1 - i);
+			for (int i = s; i < BITS; i++) {
+				v[i] = v[i - s] ^ (v[i - s] >>> s);
+				for (int k = 1; k < s; k++)
+					if (((a >>> (s - 1 - k)) & 1) != 0)
+						v[i] ^= v[i - k];
+			}
+		}
+	}
+	
+	// Access
+	
+	/**
+	 * Number of dimensions.
+	 * 
+	 * @return The number of dimensions.
+	 */
+	public int getDimensions() {
+		return directions.length;
+	}
+	
+	/**
+	 * Coordinate of a point.
+	 * 
+	 * @param index Index of the point.
+	 * @param dimension Dimension of the coordinate, starting at 0.
+	 * @return The coordinate in [0, 1).
+	 */
+	public double get(long index, int dimension) {
+		if (index < 0 || index >= 1L << BITS)
+			throw new IllegalArgumentException("Index must be between 0 and 2^" + BITS + " - 1: " + index);
+		int[] v = directions[dimension];
+		int x = 0;
+		for (int i = 0; index != 0; i++, index >>>= 1)
+			if ((index & 1) != 0)
+				x ^= v[i];
+		return x / (double) (1L << BITS);
+	}
+	
+	/**
+	 * All coordinates of a point.
+	 * 
+	 * @param index Index of the point.
+	 * @param point Array receiving the coordinates, with at least one value per dimension.
+	 */
+	public void get(long index, double[] point) {
+		for (int d = 0; d < directions.length; d++)
+			point[d] = get(index, d);
+	}
+}
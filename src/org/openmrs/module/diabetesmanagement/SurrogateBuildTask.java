@@ -0,0 +1,154 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.service.InsulinTypeService;
+import org.openmrs.module.diabetesmanagement.service.SimulationSweepService;
+import org.openmrs.scheduler.tasks.AbstractTask;
+import org.openmrs.util.OpenmrsUtil;
+
+/**
+ * Scheduled task that builds the surrogate models behind the live preview of the simulation form.
+ * Every meal template of the global properties is simulated on a {@link SurrogateGrid} of patient
+ * parameters and dose and carbohydrate scalings, with the insulin types assumed by the parameter
+ * fitting task, and its {@link SurrogateModel} is saved to a file that the form maps into memory.
+ * Templates whose model was built from the same inputs are skipped. Meant to run nightly.
+ */
+public class SurrogateBuildTask extends AbstractTask {
+	
+	/** Global property holding the meal templates, separated by "|". */
+	public static final String TEMPLATES_PROPERTY = "diabetesmanagement.surrogate.templates";
+	
+	/** Global property holding the largest error estimate accepted from a surrogate model. */
+	public static final String MAX_ERROR_PROPERTY = "diabetesmanagement.surrogate.maxError";
+	
+	/** Default of {@link #MAX_ERROR_PROPERTY}. (mmol/l) */
+	public static final double DEFAULT_MAX_ERROR = 0.5;
+	
+	/** Logger for this class. */
+	private final Log log = LogFactory.getLog(this.getClass());
+	
+	/**
+	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
+	 */
+	@Override
+	public void execute() {
+		Context.openSession();
+		try {
+			if (!Context.isAuthenticated())
+				authenticate();
+			buildAll();
+		}
+		catch (Exception e) {
+			log.error("Error while building surrogate models", e);
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	/**
+	 * Builds and saves the models of all valid templates whose saved model is missing or outdated.
+	 */
+	private void buildAll() {
+		List<SurrogateGrid> grids = createGrids();
+		if (grids.isEmpty()) {
+			log.warn("Invalid insulin types in " + ParameterFitTask.INSULIN_TYPES_PROPERTY
+			        + ", skipping surrogate models");
+			return;
+		}
+		SimulationSweepService sss = (SimulationSweepService) Context.getService(SimulationSweepService.class);
+		for (int k = 0; k < grids.size(); k++) {
+			SurrogateGrid grid = grids.get(k);
+			if (grid == null) {
+				log.warn("Invalid meal template " + (k + 1) + " in " + TEMPLATES_PROPERTY + ", skipping its surrogate model");
+				continue;
+			}
+			File file = getFile(k);
+			SurrogateModel model = SurrogateModel.load(file);
+			if (model != null && model.getFingerprint().equals(grid.getFingerprint()))
+				continue;
+			
+			long start = System.currentTimeMillis();
+			model = sss.buildSurrogate(grid);
+			model.save(file);
+			SurrogateModel.unload(file);
+			log.info("Built surrogate model of meal template " + (k + 1) + " from " + model.getNodeCount() + " nodes in "
+			        + (System.currentTimeMillis() - start) / 1000L + " s, error estimates at " + model.getCellCount()
+			        + " cell centres: max " + model.getMaxError() + " mmol/l, mean " + model.getMeanError() + " mmol/l");
+		}
+	}
+	
+	/**
+	 * Gets the meal templates of the global properties, each a daily regimen as described in
+	 * {@link ParameterFitTask#parseRegimen(String)}.
+	 * 
+	 * @return The templates.
+	 */
+	public static String[] getTemplates() {
+		String[] templates = Context.getAdministrationService().getGlobalProperty(TEMPLATES_PROPERTY, "").split("\\|");
+		for (int k = 0; k < templates.length; k++)
+			templates[k] = templates[k].trim();
+		return templates;
+	}
+	
+	/**
+	 * Creates the grids of all meal templates with the default nodes.
+	 * 
+	 * @return One grid per template, null where a template is invalid, or an empty list if the
+	 *         insulin types are invalid.
+	 */
+	public static List<SurrogateGrid> createGrids() {
+		AdministrationService as = Context.getAdministrationService();
+		String[] names = as.getGlobalProperty(ParameterFitTask.INSULIN_TYPES_PROPERTY, "").split(",");
+		InsulinTypeService its = (InsulinTypeService) Context.getService(InsulinTypeService.class);
+		InsulinType insulin1 = names.length == 2 ? its.getInsulinTypeByName(names[0].trim()) : null;
+		InsulinType insulin2 = names.length == 2 ? its.getInsulinTypeByName(names[1].trim()) : null;
+		List<SurrogateGrid> grids = new ArrayList<SurrogateGrid>();
+		if (insulin1 == null || insulin2 == null)
+			return grids;
+		
+		for (String template : getTemplates()) {
+			EventSchedule schedule = ParameterFitTask.parseRegimen(template);
+			SurrogateGrid grid = null;
+			if (schedule != null) {
+				grid = new SurrogateGrid();
+				grid.setInsulinType1(insulin1);
+				grid.setInsulinType2(insulin2);
+				grid.setSchedule(schedule);
+			}
+			grids.add(grid);
+		}
+		return grids;
+	}
+	
+	/**
+	 * Gets the file of a template's model.
+	 * 
+	 * @param template Index of the template.
+	 * @return The file.
+	 */
+	public static File getFile(int template) {
+		File dir = OpenmrsUtil.getDirectoryInApplicationDataDirectory("diabetesmanagement/surrogate");
+		return new File(dir, "template" + template + ".bin");
+	}
+}
@@ -0,0 +1,421 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.Arrays;
+
+/**
+ * Grid of patient parameters and dose and carbohydrate scalings of one meal template, whose nodes
+ * are simulated offline to build a {@link SurrogateModel}. Each node holds the glucose profile of
+ * the last simulated day at {@link #PROFILE_MINUTES} minute intervals. Nodes are numbered in
+ * row-major order of the parameters {@link #WEIGHT} to {@link #CARB_SCALE}, with the carbohydrate
+ * scaling varying fastest; cells lie between two adjacent nodes of every parameter and are
+ * numbered in the same way.
+ */
+public class SurrogateGrid {
+	
+	/** Index of the body weight. (kg) */
+	public static final int WEIGHT = VirtualPopulation.WEIGHT;
+	
+	/** Index of the renal threshold of glucose. (mmol/l) */
+	public static final int RTG = VirtualPopulation.RTG;
+	
+	/** Index of the creatinine clearance rate. (ml/min) */
+	public static final int CCR = VirtualPopulation.CCR;
+	
+	/** Index of the hepatic insulin sensitivity. */
+	public static final int SH = VirtualPopulation.SH;
+	
+	/** Index of the peripheral insulin sensitivity. */
+	public static final int SP = VirtualPopulation.SP;
+	
+	/** Index of the factor applied to all insulin doses of the template. */
+	public static final int DOSE_SCALE = 5;
+	
+	/** Index of the factor applied to all meal carbohydrates of the template. */
+	public static final int CARB_SCALE = 6;
+	
+	/** Number of parameters. */
+	public static final int PARAMETERS = 7;
+	
+	/** Minutes between two values of a profile. */
+	public static final int PROFILE_MINUTES = 15;
+	
+	/** Number of integration steps between two values of a profile. */
+	private static final int RESULT_INTERVAL = (int) Math.round(PROFILE_MINUTES / (60.0 * SimulationKernelAIDA.h));
+	
+	/** Number of values of a profile, from midnight to midnight. */
+	public static final int PROFILE_SIZE = SimulationKernelAIDA.iterations / RESULT_INTERVAL + 1;
+	
+	/** Largest number of nodes, so the values of a model fit into a single mapped buffer. */
+	public static final int MAX_NODES = 1 << 20;
+	
+	/** Nodes of each parameter, in ascending order. */
+	private final double[][] nodes = { { 40.0, 60.0, 80.0, 100.0, 120.0 }, { 7.0, 9.0, 11.0 },
+	        { 40.0, 70.0, 100.0, 130.0 }, { 0.2, 0.35, 0.5, 0.65, 0.8 }, { 0.2, 0.35, 0.5, 0.65, 0.8 },
+	        { 0.5, 0.75, 1.0, 1.25, 1.5 }, { 0.5, 0.75, 1.0, 1.25, 1.5 } };
+	
+	/** First insulin type. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Unscaled daily meals and injections of the template. */
+	private EventSchedule schedule;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	/** Fingerprint of the inputs, or null until it is first needed. */
+	private String fingerprint;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public SurrogateGrid() {
+	}
+	
+	// Grid
+	
+	/**
+	 * Number of nodes.
+	 * 
+	 * @return The product of the numbers of nodes of all parameters.
+	 */
+	public long getNodeCount() {
+		long count = 1;
+		for (double[] n : nodes)
+			count *= n.length;
+		return count;
+	}
+	
+	/**
+	 * Number of cells.
+	 * 
+	 * @return The product of the numbers of intervals of all parameters.
+	 */
+	public long getCellCount() {
+		long count = 1;
+		for (double[] n : nodes)
+			count *= n.length - 1;
+		return count;
+	}
+	
+	/**
+	 * Parameters of a node.
+	 * 
+	 * @param index Number of the node.
+	 * @param parameters Receives the parameters, indexed as {@link #WEIGHT} to {@link #CARB_SCALE}.
+	 */
+	public void getNode(int index, double[] parameters) {
+		for (int p = PARAMETERS - 1; p >= 0; p--) {
+			parameters[p] = nodes[p][index % nodes[p].length];
+			index /= nodes[p].length;
+		}
+	}
+	
+	/**
+	 * Parameters at the centre of a cell, where the interpolation error of a cell is usually
+	 * largest.
+	 * 
+	 * @param index Number of the cell.
+	 * @param parameters Receives the parameters, indexed as {@link #WEIGHT} to {@link #CARB_SCALE}.
+	 */
+	public void getCellCenter(int index, double[] parameters) {
+		for (int p = PARAMETERS - 1; p >= 0; p--) {
+			int i = index % (nodes[p].length - 1);
+			parameters[p] = (nodes[p][i] + nodes[p][i + 1]) / 2.0;
+			index /= nodes[p].length - 1;
+		}
+	}
+	
+	/**
+	 * Creates the schedule of the given scalings. Events scaled to zero are left out, as the model
+	 * would treat them as replacing the previous event of the same type.
+	 * 
+	 * @param doseScale Factor applied to all insulin doses.
+	 * @param carbScale Factor applied to all meal carbohydrates.
+	 * @return The schedule with scaled doses and carbohydrates.
+	 */
+	public EventSchedule createSchedule(double doseScale, double carbScale) {
+		EventSchedule scaled = new EventSchedule();
+		for (int k = 0; k < schedule.size(); k++) {
+			int type = schedule.getType(k);
+			double amount = schedule.getAmount(k) * (type == EventSchedule.MEAL ? carbScale : doseScale);
+			if (amount > 0.0)
+				scaled.add(schedule.getMinute(k), type, amount);
+		}
+		return scaled;
+	}
+	
+	/**
+	 * Simulates the glucose profiles of the given parameters with the full model, as one batch.
+	 * 
+	 * @param points Parameters of each profile, indexed as {@link #WEIGHT} to {@link #CARB_SCALE}.
+	 * @param profiles Receives the profiles; profile k starts at index k * {@link #PROFILE_SIZE}.
+	 */
+	public void simulate(double[][] points, double[] profiles) {
+		double[] insulin1 = SimulationBatchAIDA.insulinParameters(insulinType1);
+		double[] insulin2 = SimulationBatchAIDA.insulinParameters(insulinType2);
+		SimulationBatchAIDA batch = new SimulationBatchAIDA(points.length);
+		EventSchedule[] schedules = new EventSchedule[points.length];
+		for (int k = 0; k < points.length; k++) {
+			double[] p = points[k];
+			schedules[k] = createSchedule(p[DOSE_SCALE], p[CARB_SCALE]);
+			batch.setMember(k, p[WEIGHT], p[RTG], p[CCR], p[SH], p[SP], insulin1, insulin2, G, I, AG);
+		}
+		batch.setSchedules(schedules);
+		batch.setDays(days);
+		batch.setResultInterval(RESULT_INTERVAL);
+		batch.run();
+		System.arraycopy(batch.getResultGlucose(), 0, profiles, 0, points.length * PROFILE_SIZE);
+	}
+	
+	/**
+	 * Predicts a glucose profile with the surrogate model, or with the full model if the model is
+	 * missing, was built from other inputs, does not cover the parameters or its error estimate of
+	 * the cell exceeds the given limit.
+	 * 
+	 * @param model The surrogate model, or null.
+	 * @param parameters The parameters, indexed as {@link #WEIGHT} to {@link #CARB_SCALE}.
+	 * @param maxError Largest error estimate accepted from the surrogate model. (mmol/l)
+	 * @param profile Receives the profile of {@link #PROFILE_SIZE} values.
+	 * @return The error estimate of the surrogate model, or NaN if the full model was simulated.
+	 */
+	public double predict(SurrogateModel model, double[] parameters, double maxError, double[] profile) {
+		if (model != null && model.getFingerprint().equals(getFingerprint())) {
+			double error = model.interpolate(parameters, profile);
+			if (error <= maxError)
+				return error;
+		}
+		simulate(new double[][] { parameters }, profile);
+		return Double.NaN;
+	}
+	
+	/**
+	 * Describes all inputs, so a model built from other inputs can be recognized. The fingerprint is
+	 * computed once and reset by the setters; the schedule and insulin types must not be changed
+	 * in place after it has been computed.
+	 * 
+	 * @return The fingerprint.
+	 */
+	public String getFingerprint() {
+		if (fingerprint != null)
+			return fingerprint;
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append(Arrays.toString(new double[] { insulinType1.getParameterS(), insulinType1.getParameterA(),
+		        insulinType1.getParameterB(), insulinType2.getParameterS(), insulinType2.getParameterA(),
+		        insulinType2.getParameterB(), G, I, AG }));
+		fingerprint.append(days).append(',').append(PROFILE_MINUTES);
+		for (double[] n : nodes)
+			fingerprint.append(Arrays.toString(n));
+		for (int k = 0; k < schedule.size(); k++)
+			fingerprint.append(';').append(schedule.getMinute(k)).append(',').append(schedule.getType(k)).append(',')
+			        .append(schedule.getAmount(k));
+		this.fingerprint = fingerprint.toString();
+		return this.fingerprint;
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (schedule == null)
+			throw new NullPointerException("Schedule must be set!");
+		for (int p = 0; p < PARAMETERS; p++) {
+			if (nodes[p].length < 2)
+				throw new IllegalArgumentException("Parameter " + p + " must have at least two nodes: "
+				        + nodes[p].length);
+			for (int i = 1; i < nodes[p].length; i++)
+				if (!(nodes[p][i] > nodes[p][i - 1]))
+					throw new IllegalArgumentException("Nodes of parameter " + p + " must be ascending: "
+					        + Arrays.toString(nodes[p]));
+		}
+		if (nodes[DOSE_SCALE][0] < 0.0 || nodes[CARB_SCALE][0] < 0.0)
+			throw new IllegalArgumentException("Scalings must not be negative!");
+		if (getNodeCount() > MAX_NODES)
+			throw new IllegalArgumentException("Grid has more than " + MAX_NODES + " nodes: " + getNodeCount());
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Nodes of a parameter.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @return The nodes, in ascending order.
+	 */
+	public double[] getNodes(int parameter) {
+		return nodes[parameter];
+	}
+	
+	/**
+	 * Sets the nodes of a parameter.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @param nodes The nodes, in ascending order.
+	 */
+	public void setNodes(int parameter, double... nodes) {
+		this.nodes[parameter] = nodes;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 The insulinType1 to set.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 The insulinType2 to set.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule The schedule to set.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+		fingerprint = null;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+		fingerprint = null;
+	}
+}
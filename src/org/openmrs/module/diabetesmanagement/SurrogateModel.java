@@ -0,0 +1,356 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.APIException;
+
+/**
+ * Surrogate of the model for one {@link SurrogateGrid}: the glucose profiles of all nodes, stored
+ * as floats in one buffer, from which the profile of any parameters inside the grid is
+ * interpolated multilinearly from the 2^7 nodes around them. Built models are saved to a file and
+ * mapped into memory when loaded, so lookups read the values directly from the page cache. For
+ * every cell, the largest deviation of the interpolated profile from the full model at the cell's
+ * centre is stored as its error estimate; this is a heuristic, not a bound, since the deviation
+ * inside a cell can exceed the one at its centre. Lookups are thread-safe.
+ */
+public class SurrogateModel {
+	
+	/** Marks a file as a surrogate model, and its format version. */
+	private static final int MAGIC = 0x53524731;
+	
+	/** Logger shared by all models, since loading is static. */
+	private static final Log log = LogFactory.getLog(SurrogateModel.class);
+	
+	/** Models loaded from files, or null for files without a model, by path. */
+	private static final Map<String, SurrogateModel> loaded = new HashMap<String, SurrogateModel>();
+	
+	/** Header, values and error estimates; positions are never changed. */
+	private final ByteBuffer buffer;
+	
+	/** Nodes of each parameter. */
+	private final double[][] nodes;
+	
+	/** Distance between two adjacent nodes of each parameter, in nodes. */
+	private final int[] strides;
+	
+	/** Distance between two adjacent cells of each parameter, in cells. */
+	private final int[] cellStrides;
+	
+	/** Fingerprint of the grid the model was built from. */
+	private final String fingerprint;
+	
+	/** Largest error estimate of all cells. (mmol/l) */
+	private final double maxError;
+	
+	/** Mean error estimate of all cells. (mmol/l) */
+	private final double meanError;
+	
+	/** Profiles of all nodes. */
+	private final FloatBuffer values;
+	
+	/** Error estimates of all cells. */
+	private final FloatBuffer errors;
+	
+	// Constructors
+	
+	/**
+	 * Reads the header of a model.
+	 * 
+	 * @param buffer The buffer, positioned at the start of the model.
+	 * @throws IllegalArgumentException If the buffer does not hold a model.
+	 */
+	private SurrogateModel(ByteBuffer buffer) {
+		this.buffer = buffer;
+		ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (b.remaining() < 12 || b.getInt() != MAGIC || b.getInt() != SurrogateGrid.PARAMETERS
+		        || b.getInt() != SurrogateGrid.PROFILE_SIZE)
+			throw new IllegalArgumentException("Not a surrogate model of this version!");
+		nodes = new double[SurrogateGrid.PARAMETERS][];
+		for (int p = 0; p < nodes.length; p++) {
+			nodes[p] = new double[b.getInt()];
+			for (int i = 0; i < nodes[p].length; i++)
+				nodes[p][i] = b.getDouble();
+		}
+		byte[] bytes = new byte[b.getInt()];
+		b.get(bytes);
+		try {
+			fingerprint = new String(bytes, "UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		maxError = b.getDouble();
+		meanError = b.getDouble();
+		
+		strides = new int[nodes.length];
+		cellStrides = new int[nodes.length];
+		int nodeCount = 1, cellCount = 1;
+		for (int p = nodes.length - 1; p >= 0; p--) {
+			strides[p] = nodeCount;
+			cellStrides[p] = cellCount;
+			nodeCount *= nodes[p].length;
+			cellCount *= nodes[p].length - 1;
+		}
+		int end = b.position() + 4 * nodeCount * SurrogateGrid.PROFILE_SIZE;
+		if (end > b.limit())
+			throw new IllegalArgumentException("Surrogate model is truncated!");
+		ByteBuffer v = b.duplicate();
+		v.limit(end);
+		values = v.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		b.position(end);
+		errors = b.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		if (errors.capacity() != cellCount)
+			throw new IllegalArgumentException("Surrogate model is truncated!");
+	}
+	
+	/**
+	 * Creates a model in memory.
+	 * 
+	 * @param grid The grid.
+	 * @param values Profiles of all nodes; the profile of node k starts at index k *
+	 *            {@link SurrogateGrid#PROFILE_SIZE}.
+	 * @param cellErrors Error estimates of all cells. (mmol/l)
+	 * @return The model.
+	 */
+	public static SurrogateModel create(SurrogateGrid grid, float[] values, float[] cellErrors) {
+		byte[] fingerprint;
+		try {
+			fingerprint = grid.getFingerprint().getBytes("UTF-8");
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		int size = 16 + fingerprint.length + 16 + 4 * (values.length + cellErrors.length);
+		for (int p = 0; p < SurrogateGrid.PARAMETERS; p++)
+			size += 4 + 8 * grid.getNodes(p).length;
+		double max = 0.0, sum = 0.0;
+		for (float error : cellErrors) {
+			max = Math.max(max, error);
+			sum += error;
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(SurrogateGrid.PARAMETERS).putInt(SurrogateGrid.PROFILE_SIZE);
+		for (int p = 0; p < SurrogateGrid.PARAMETERS; p++) {
+			buffer.putInt(grid.getNodes(p).length);
+			for (double node : grid.getNodes(p))
+				buffer.putDouble(node);
+		}
+		buffer.putInt(fingerprint.length).put(fingerprint);
+		buffer.putDouble(max).putDouble(cellErrors.length > 0 ? sum / cellErrors.length : 0.0);
+		buffer.asFloatBuffer().put(values).put(cellErrors);
+		buffer.clear();
+		return new SurrogateModel(buffer);
+	}
+	
+	/**
+	 * Loads a model from a file, mapping it into memory. Each file is read once; the loaded model,
+	 * or the absence of one, is reused until the file is unloaded after it has been rebuilt.
+	 * 
+	 * @param file The file.
+	 * @return The model, or null if the file does not exist or does not hold a model.
+	 */
+	public static SurrogateModel load(File file) {
+		synchronized (loaded) {
+			if (loaded.containsKey(file.getPath()))
+				return loaded.get(file.getPath());
+			SurrogateModel model = null;
+			if (file.exists())
+				try {
+					RandomAccessFile in = new RandomAccessFile(file, "r");
+					try {
+						// The mapping stays valid after the file is closed
+						model = new SurrogateModel(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()));
+					}
+					finally {
+						in.close();
+					}
+				}
+				catch (Exception e) {
+					log.warn("Could not load surrogate model " + file + ", using the full model instead", e);
+				}
+			loaded.put(file.getPath(), model);
+			return model;
+		}
+	}
+	
+	/**
+	 * Forgets the model loaded from a file, so the next {@link #load(File)} reads the file again,
+	 * e.g. after the model has been rebuilt. Previous mappings stay valid until they are collected.
+	 * 
+	 * @param file The file.
+	 */
+	public static void unload(File file) {
+		synchronized (loaded) {
+			loaded.remove(file.getPath());
+		}
+	}
+	
+	/**
+	 * Saves the model. It is written to a temporary file first, so a crash while saving leaves the
+	 * previous model intact, and models loaded before keep their mapping of the previous file.
+	 * 
+	 * @param file The file.
+	 */
+	public void save(File file) {
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			FileOutputStream out = new FileOutputStream(tmp);
+			try {
+				ByteBuffer b = buffer.duplicate();
+				while (b.hasRemaining())
+					out.getChannel().write(b);
+			}
+			finally {
+				out.close();
+			}
+			if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+				throw new IOException("Could not rename " + tmp + " to " + file);
+		}
+		catch (IOException e) {
+			throw new APIException("Could not save surrogate model " + file, e);
+		}
+	}
+	
+	// Access
+	
+	/**
+	 * Interpolates the glucose profile of the given parameters multilinearly between the nodes of
+	 * the cell containing them.
+	 * 
+	 * @param parameters The parameters, indexed as {@link SurrogateGrid#WEIGHT} to
+	 *            {@link SurrogateGrid#CARB_SCALE}.
+	 * @param profile Receives the profile of {@link SurrogateGrid#PROFILE_SIZE} values, unless the
+	 *            parameters are outside of the grid.
+	 * @return The error estimate of the cell (mmol/l), or NaN if the parameters are outside of the
+	 *         grid.
+	 */
+	public double interpolate(double[] parameters, double[] profile) {
+		int dimensions = nodes.length, size = SurrogateGrid.PROFILE_SIZE;
+		double[] t = new double[dimensions];
+		int base = 0, cell = 0;
+		for (int p = 0; p < dimensions; p++) {
+			double[] n = nodes[p];
+			double x = parameters[p];
+			if (!(x >= n[0] && x <= n[n.length - 1]))
+				return Double.NaN;
+			int i = 0;
+			while (i < n.length - 2 && x >= n[i + 1])
+				i++;
+			t[p] = (x - n[i]) / (n[i + 1] - n[i]);
+			base += i * strides[p];
+			cell += i * cellStrides[p];
+		}
+		
+		Arrays.fill(profile, 0, size, 0.0);
+		for (int corner = 0; corner < 1 << dimensions; corner++) {
+			double weight = 1.0;
+			int node = base;
+			for (int p = 0; p < dimensions; p++) {
+				if ((corner >> p & 1) != 0) {
+					weight *= t[p];
+					node += strides[p];
+				} else
+					weight *= 1.0 - t[p];
+			}
+			if (weight == 0.0)
+				continue;
+			int offset = node * size;
+			for (int k = 0; k < size; k++)
+				profile[k] += weight * values.get(offset + k);
+		}
+		return errors.get(cell);
+	}
+	
+	/**
+	 * Error estimate of a cell: the largest deviation of the interpolated profile from the full
+	 * model at the cell's centre.
+	 * 
+	 * @param cell Number of the cell.
+	 * @return The error estimate. (mmol/l)
+	 */
+	public double getCellError(int cell) {
+		return errors.get(cell);
+	}
+	
+	/**
+	 * Number of nodes.
+	 * 
+	 * @return The number of nodes.
+	 */
+	public int getNodeCount() {
+		return values.capacity() / SurrogateGrid.PROFILE_SIZE;
+	}
+	
+	/**
+	 * Number of cells.
+	 * 
+	 * @return The number of cells.
+	 */
+	public int getCellCount() {
+		return errors.capacity();
+	}
+	
+	/**
+	 * Nodes of a parameter.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link SurrogateGrid#SH}.
+	 * @return The nodes, in ascending order.
+	 */
+	public double[] getNodes(int parameter) {
+		return nodes[parameter].clone();
+	}
+	
+	/**
+	 * Fingerprint of the grid the model was built from.
+	 * 
+	 * @return this.fingerprint
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * Largest error estimate of all cells.
+	 * 
+	 * @return this.maxError
+	 */
+	public double getMaxError() {
+		return maxError;
+	}
+	
+	/**
+	 * Mean error estimate of all cells.
+	 * 
+	 * @return this.meanError
+	 */
+	public double getMeanError() {
+		return meanError;
+	}
+}
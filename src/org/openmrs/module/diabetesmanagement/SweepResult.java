@@ -0,0 +1,128 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Outcome metrics of a {@link ParameterSweep}, with one value per parameter combination in the
+ * order of {@link ParameterSweep#getParameters(int)}.
+ */
+public class SweepResult {
+	
+	/** The simulated grid. */
+	private final ParameterSweep sweep;
+	
+	/** Mean glucose level of the last simulated day. (mmol/l) */
+	private final double[] meanGlucose;
+	
+	/** Time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} on the last simulated day. (min) */
+	private final int[] minutesBelow;
+	
+	/** Peak glucose level of the last simulated day. (mmol/l) */
+	private final double[] peakGlucose;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty result.
+	 * 
+	 * @param sweep The simulated grid.
+	 */
+	public SweepResult(ParameterSweep sweep) {
+		this.sweep = sweep;
+		int size = sweep.size();
+		meanGlucose = new double[size];
+		minutesBelow = new int[size];
+		peakGlucose = new double[size];
+	}
+	
+	/**
+	 * Stores the metrics of one parameter combination.
+	 * 
+	 * @param index Number of the combination.
+	 * @param mean Mean glucose level.
+	 * @param below Time below the hypoglycemia threshold.
+	 * @param peak Peak glucose level.
+	 */
+	public void set(int index, double mean, int below, double peak) {
+		meanGlucose[index] = mean;
+		minutesBelow[index] = below;
+		peakGlucose[index] = peak;
+	}
+	
+	// Access
+	
+	/**
+	 * Number of the parameter combination with the given indexes into the value arrays of the
+	 * sweep.
+	 * 
+	 * @param weight Index of the weight.
+	 * @param RTG Index of the RTG.
+	 * @param CCR Index of the CCR.
+	 * @param sh Index of the sh.
+	 * @param sp Index of the sp.
+	 * @return Number of the combination.
+	 */
+	public int getIndex(int weight, int RTG, int CCR, int sh, int sp) {
+		return (((weight * sweep.getRTGs().length + RTG) * sweep.getCCRs().length + CCR) * sweep.getShs().length + sh)
+		        * sweep.getSps().length + sp;
+	}
+	
+	/**
+	 * Number of parameter combinations.
+	 * 
+	 * @return The size of the result.
+	 */
+	public int size() {
+		return meanGlucose.length;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sweep
+	 */
+	public ParameterSweep getSweep() {
+		return sweep;
+	}
+	
+	/**
+	 * Mean glucose level of the last simulated day.
+	 * 
+	 * @param index Number of the combination.
+	 * @return The mean glucose level. (mmol/l)
+	 */
+	public double getMeanGlucose(int index) {
+		return meanGlucose[index];
+	}
+	
+	/**
+	 * Time below {@link GlucoseMetrics#HYPOGLYCEMIA_THRESHOLD} on the last simulated day.
+	 * 
+	 * @param index Number of the combination.
+	 * @return The time below the threshold. (min)
+	 */
+	public int getMinutesBelow(int index) {
+		return minutesBelow[index];
+	}
+	
+	/**
+	 * Peak glucose level of the last simulated day.
+	 * 
+	 * @param index Number of the combination.
+	 * @return The peak glucose level. (mmol/l)
+	 */
+	public double getPeakGlucose(int index) {
+		return peakGlucose[index];
+	}
+}
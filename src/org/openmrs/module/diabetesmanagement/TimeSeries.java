@@ -0,0 +1,237 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense series of simulation results at a fixed interval, defined by a start time, a step size and
+ * an array of values. Views with a coarser resolution or other units share the values of the series
+ * they were created from instead of copying them. Times are counted in wall-clock minutes of the
+ * default time zone, like the events of an {@link EventSchedule}, so the values of a day that has a
+ * daylight saving time change keep their time of day.
+ */
+public class TimeSeries implements Serializable {
+	
+	private static final long serialVersionUID = 4521436788214362510L;
+	
+	/** Conversion factor from glucose in mmol/l to mg/dl. */
+	public static final double MGDL_PER_MMOL = 18.0;
+	
+	/** Time of the first value in milliseconds. */
+	private final long start;
+	
+	/** Minutes between two values of this series. */
+	private final int stepMinutes;
+	
+	/** Values, possibly shared with other views. */
+	private final double[] values;
+	
+	/** Index of the first value in 'values'. */
+	private final int offset;
+	
+	/** Distance between two values of this series in 'values'. */
+	private final int stride;
+	
+	/** Number of values in this series. */
+	private final int size;
+	
+	/** Factor applied to all values, e.g. for unit conversion. */
+	private final double factor;
+	
+	// Constructors
+	
+	/**
+	 * Creates a series of all given values. The array is not copied.
+	 * 
+	 * @param start Time of the first value.
+	 * @param stepMinutes Minutes between two values.
+	 * @param values The values.
+	 */
+	public TimeSeries(Date start, int stepMinutes, double[] values) {
+		this(start.getTime(), stepMinutes, values, 0, 1, values.length, 1.0);
+	}
+	
+	/**
+	 * Creates a series of a contiguous range of the given values, e.g. one member's results of a
+	 * batch run. The array is not copied.
+	 * 
+	 * @param start Time of the first value.
+	 * @param stepMinutes Minutes between two values.
+	 * @param values The values.
+	 * @param offset Index of the first value.
+	 * @param size Number of values.
+	 */
+	public TimeSeries(Date start, int stepMinutes, double[] values, int offset, int size) {
+		this(start.getTime(), stepMinutes, values, offset, 1, size, 1.0);
+		if (offset < 0 || size < 0 || offset + size > values.length)
+			throw new IndexOutOfBoundsException("Range " + offset + " + " + size + " exceeds " + values.length + " values");
+	}
+	
+	/**
+	 * Creates a view.
+	 * 
+	 * @param start Time of the first value in milliseconds.
+	 * @param stepMinutes Minutes between two values.
+	 * @param values The backing values.
+	 * @param offset Index of the first value.
+	 * @param stride Distance between two values.
+	 * @param size Number of values.
+	 * @param factor Factor applied to all values.
+	 */
+	private TimeSeries(long start, int stepMinutes, double[] values, int offset, int stride, int size, double factor) {
+		if (stepMinutes <= 0)
+			throw new IllegalArgumentException("Step size must be positive: " + stepMinutes);
+		this.start = start;
+		this.stepMinutes = stepMinutes;
+		this.values = values;
+		this.offset = offset;
+		this.stride = stride;
+		this.size = size;
+		this.factor = factor;
+	}
+	
+	// Access
+	
+	/**
+	 * Time of the first value.
+	 * 
+	 * @return this.start
+	 */
+	public Date getStart() {
+		return new Date(start);
+	}
+	
+	/**
+	 * Minutes between two values.
+	 * 
+	 * @return this.stepMinutes
+	 */
+	public int getStepMinutes() {
+		return stepMinutes;
+	}
+	
+	/**
+	 * Number of values.
+	 * 
+	 * @return this.size
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Value at the given index.
+	 * 
+	 * @param index Index of the value.
+	 * @return The value.
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+		return values[offset + index * stride] * factor;
+	}
+	
+	/**
+	 * Time of the value at the given index, in wall-clock minutes after the start. In the hour
+	 * skipped when daylight saving time starts, the time is that of the following hour.
+	 * 
+	 * @param index Index of the value.
+	 * @return The time.
+	 */
+	public Date getTime(int index) {
+		return getTime(Calendar.getInstance(), index);
+	}
+	
+	/**
+	 * Copies the values into a new array.
+	 * 
+	 * @return The values.
+	 */
+	public double[] toArray() {
+		double[] result = new double[size];
+		for (int i = 0; i < size; i++)
+			result[i] = values[offset + i * stride] * factor;
+		return result;
+	}
+	
+	/**
+	 * Creates a time-stamped map of the values, e.g. for the graph servlet.
+	 * 
+	 * @return Map of the values.
+	 */
+	public Map<Date, Double> toMap() {
+		Map<Date, Double> result = new HashMap<Date, Double>();
+		Calendar cal = Calendar.getInstance();
+		for (int i = 0; i < size; i++)
+			result.put(getTime(cal, i), values[offset + i * stride] * factor);
+		return result;
+	}
+	
+	/**
+	 * Time of the value at the given index, see {@link #getTime(int)}.
+	 * 
+	 * @param cal Calendar used for the conversion.
+	 * @param index Index of the value.
+	 * @return The time.
+	 */
+	private Date getTime(Calendar cal, int index) {
+		cal.setTimeInMillis(start);
+		int minutes = cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE) + index * stepMinutes;
+		cal.add(Calendar.DATE, minutes / 1440);
+		cal.set(Calendar.HOUR_OF_DAY, minutes % 1440 / 60);
+		cal.set(Calendar.MINUTE, minutes % 60);
+		return cal.getTime();
+	}
+	
+	// Views
+	
+	/**
+	 * Returns a view with a coarser resolution, e.g. 15 minutes for a series of 1-minute values.
+	 * 
+	 * @param minutes Minutes between two values of the view; must be a multiple of the step size.
+	 * @return The view.
+	 */
+	public TimeSeries atResolution(int minutes) {
+		if (minutes <= 0 || minutes % stepMinutes != 0)
+			throw new IllegalArgumentException("Resolution must be a multiple of " + stepMinutes + " minutes: " + minutes);
+		int k = minutes / stepMinutes;
+		if (k == 1)
+			return this;
+		return new TimeSeries(start, minutes, values, offset, stride * k, size == 0 ? 0 : (size - 1) / k + 1, factor);
+	}
+	
+	/**
+	 * Returns a view with all values multiplied by the given factor.
+	 * 
+	 * @param factor The factor.
+	 * @return The view.
+	 */
+	public TimeSeries scaled(double factor) {
+		return new TimeSeries(start, stepMinutes, values, offset, stride, size, this.factor * factor);
+	}
+	
+	/**
+	 * Returns a view of glucose values converted from mmol/l to mg/dl.
+	 * 
+	 * @return The view.
+	 */
+	public TimeSeries inMgdl() {
+		return scaled(MGDL_PER_MMOL);
+	}
+}
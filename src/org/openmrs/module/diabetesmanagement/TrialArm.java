@@ -0,0 +1,88 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Arm of an {@link InSilicoTrial}: a regimen of two insulin types with the daily meals and
+ * injections every member of the population follows in this arm.
+ */
+public class TrialArm {
+	
+	/** Name of the arm, e.g. the insulin pair. */
+	private final String name;
+	
+	/** First insulin type. */
+	private final InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private final InsulinType insulinType2;
+	
+	/** Daily meals and injections. */
+	private final EventSchedule schedule;
+	
+	// Constructors
+	
+	/**
+	 * Creates an arm.
+	 * 
+	 * @param name Name of the arm.
+	 * @param insulinType1 First insulin type.
+	 * @param insulinType2 Second insulin type.
+	 * @param schedule Daily meals and injections.
+	 */
+	public TrialArm(String name, InsulinType insulinType1, InsulinType insulinType2, EventSchedule schedule) {
+		this.name = name;
+		this.insulinType1 = insulinType1;
+		this.insulinType2 = insulinType2;
+		this.schedule = schedule;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+}
@@ -0,0 +1,223 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Streaming summary of an {@link InSilicoTrial}. Each member's outcomes under all arms are added
+ * at once and folded into running means and variances (Welford) of every outcome per arm, and of
+ * the paired differences between every arm and the reference arm, so the memory used does not
+ * depend on the size of the population. Partial results of parallel tasks can be merged.
+ */
+public class TrialResult {
+	
+	/** Outcome: mean glucose level. (mmol/l) */
+	public static final int MEAN_GLUCOSE = 0;
+	
+	/** Outcome: fraction of the day within the target range. */
+	public static final int TIME_IN_RANGE = 1;
+	
+	/** Outcome: time below the hypoglycemia threshold. (min) */
+	public static final int MINUTES_BELOW = 2;
+	
+	/** Outcome: peak glucose level. (mmol/l) */
+	public static final int PEAK_GLUCOSE = 3;
+	
+	/** Number of outcomes per member and arm. */
+	public static final int OUTCOMES = 4;
+	
+	/** Quantile of the standard normal distribution for 95% confidence intervals. */
+	private static final double Z_95 = 1.959963984540054;
+	
+	/** Names of the arms. */
+	private final String[] armNames;
+	
+	/** Number of members. */
+	private long members;
+	
+	/** Running means and sums of squared differences of the outcomes, per arm and outcome. */
+	private final double[] mean, m2;
+	
+	/** Running means and sums of squared differences of the paired differences to the reference. */
+	private final double[] differenceMean, differenceM2;
+	
+	/** Number of members with time below the hypoglycemia threshold, per arm. */
+	private final long[] hypoglycemic;
+	
+	// Constructors
+	
+	/**
+	 * Creates an empty result.
+	 * 
+	 * @param armNames Names of the arms; the first is the reference.
+	 */
+	public TrialResult(String[] armNames) {
+		this.armNames = armNames;
+		int n = armNames.length * OUTCOMES;
+		mean = new double[n];
+		m2 = new double[n];
+		differenceMean = new double[n];
+		differenceM2 = new double[n];
+		hypoglycemic = new long[armNames.length];
+	}
+	
+	// Accumulation
+	
+	/**
+	 * Adds the outcomes of one member.
+	 * 
+	 * @param outcomes Outcomes of the member, {@link #OUTCOMES} per arm in the order of the arms.
+	 */
+	public void add(double[] outcomes) {
+		members++;
+		for (int k = 0; k < mean.length; k++) {
+			double delta = outcomes[k] - mean[k];
+			mean[k] += delta / members;
+			m2[k] += delta * (outcomes[k] - mean[k]);
+			
+			double difference = outcomes[k] - outcomes[k % OUTCOMES];
+			delta = difference - differenceMean[k];
+			differenceMean[k] += delta / members;
+			differenceM2[k] += delta * (difference - differenceMean[k]);
+		}
+		for (int arm = 0; arm < armNames.length; arm++)
+			if (outcomes[arm * OUTCOMES + MINUTES_BELOW] > 0.0)
+				hypoglycemic[arm]++;
+	}
+	
+	/**
+	 * Adds the members of another result of the same trial.
+	 * 
+	 * @param other The other result.
+	 */
+	public void merge(TrialResult other) {
+		if (other.armNames.length != armNames.length)
+			throw new IllegalArgumentException("Numbers of arms differ: " + other.armNames.length);
+		if (other.members == 0)
+			return;
+		long total = members + other.members;
+		double weight = (double) members * other.members / total;
+		for (int k = 0; k < mean.length; k++) {
+			double delta = other.mean[k] - mean[k];
+			m2[k] += other.m2[k] + delta * delta * weight;
+			mean[k] += delta * other.members / total;
+			
+			delta = other.differenceMean[k] - differenceMean[k];
+			differenceM2[k] += other.differenceM2[k] + delta * delta * weight;
+			differenceMean[k] += delta * other.members / total;
+		}
+		for (int arm = 0; arm < armNames.length; arm++)
+			hypoglycemic[arm] += other.hypoglycemic[arm];
+		members = total;
+	}
+	
+	// Results
+	
+	/**
+	 * Number of arms.
+	 * 
+	 * @return The number of arms.
+	 */
+	public int getArms() {
+		return armNames.length;
+	}
+	
+	/**
+	 * Name of an arm.
+	 * 
+	 * @param arm Index of the arm.
+	 * @return The name.
+	 */
+	public String getArmName(int arm) {
+		return armNames[arm];
+	}
+	
+	/**
+	 * Number of members.
+	 * 
+	 * @return this.members
+	 */
+	public long getMembers() {
+		return members;
+	}
+	
+	/**
+	 * Mean of an outcome in an arm.
+	 * 
+	 * @param arm Index of the arm.
+	 * @param outcome The outcome, e.g. {@link #TIME_IN_RANGE}.
+	 * @return The mean.
+	 */
+	public double getMean(int arm, int outcome) {
+		return mean[arm * OUTCOMES + outcome];
+	}
+	
+	/**
+	 * Sample standard deviation of an outcome in an arm.
+	 * 
+	 * @param arm Index of the arm.
+	 * @param outcome The outcome, e.g. {@link #TIME_IN_RANGE}.
+	 * @return The standard deviation, or NaN for fewer than two members.
+	 */
+	public double getStandardDeviation(int arm, int outcome) {
+		return members < 2 ? Double.NaN : Math.sqrt(m2[arm * OUTCOMES + outcome] / (members - 1));
+	}
+	
+	/**
+	 * Mean paired difference of an outcome between an arm and the reference arm.
+	 * 
+	 * @param arm Index of the arm.
+	 * @param outcome The outcome, e.g. {@link #TIME_IN_RANGE}.
+	 * @return The mean difference (arm minus reference).
+	 */
+	public double getMeanDifference(int arm, int outcome) {
+		return differenceMean[arm * OUTCOMES + outcome];
+	}
+	
+	/**
+	 * Standard error of the mean paired difference of an outcome.
+	 * 
+	 * @param arm Index of the arm.
+	 * @param outcome The outcome, e.g. {@link #TIME_IN_RANGE}.
+	 * @return The standard error, or NaN for fewer than two members.
+	 */
+	public double getDifferenceStandardError(int arm, int outcome) {
+		if (members < 2)
+			return Double.NaN;
+		return Math.sqrt(differenceM2[arm * OUTCOMES + outcome] / (members - 1) / members);
+	}
+	
+	/**
+	 * Bounds of the 95% confidence interval of the mean paired difference of an outcome (normal
+	 * approximation).
+	 * 
+	 * @param arm Index of the arm.
+	 * @param outcome The outcome, e.g. {@link #TIME_IN_RANGE}.
+	 * @return Lower and upper bound.
+	 */
+	public double[] getDifferenceConfidenceInterval(int arm, int outcome) {
+		double difference = getMeanDifference(arm, outcome);
+		double margin = Z_95 * getDifferenceStandardError(arm, outcome);
+		return new double[] { difference - margin, difference + margin };
+	}
+	
+	/**
+	 * Fraction of the members with time below the hypoglycemia threshold in an arm.
+	 * 
+	 * @param arm Index of the arm.
+	 * @return The fraction, or NaN without members.
+	 */
+	public double getHypoglycemicFraction(int arm) {
+		return members == 0 ? Double.NaN : (double) hypoglycemic[arm] / members;
+	}
+}
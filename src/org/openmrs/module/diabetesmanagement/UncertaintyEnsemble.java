@@ -0,0 +1,539 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.SplittableRandom;
+
+/**
+ * Monte Carlo ensemble around one patient's simulation. Each member perturbs the patient
+ * parameters and the carbohydrate amounts of the meals with log-normal noise, so the spread of the
+ * results reflects the uncertainty of observed parameters and estimated meals. Members draw from
+ * their own random stream, split from the seed in member order, so an ensemble is reproducible
+ * regardless of how many threads simulate it.
+ */
+public class UncertaintyEnsemble {
+	
+	/** Default number of members. */
+	public static final int DEFAULT_MEMBERS = 1000;
+	
+	/** Number of members. */
+	private int members = DEFAULT_MEMBERS;
+	
+	/** Seed of the random streams. */
+	private long seed;
+	
+	/** Body weight. (kg) */
+	private double weight;
+	
+	/** Renal threshold of glucose. (mmol/l) */
+	private double RTG;
+	
+	/** Creatinine clearance rate. (ml/min) */
+	private double CCR;
+	
+	/** Hepatic insulin sensitivity. */
+	private double sh;
+	
+	/** Peripheral insulin sensitivity. */
+	private double sp;
+	
+	/** Relative standard deviation of the RTG. */
+	private double RTGSpread = 0.1;
+	
+	/** Relative standard deviation of the CCR. */
+	private double CCRSpread = 0.1;
+	
+	/** Relative standard deviation of the hepatic insulin sensitivity. */
+	private double shSpread = 0.2;
+	
+	/** Relative standard deviation of the peripheral insulin sensitivity. */
+	private double spSpread = 0.2;
+	
+	/** Relative standard deviation of the carbohydrate amount of each meal. */
+	private double carbSpread = 0.2;
+	
+	/** First insulin type. */
+	private InsulinType insulinType1;
+	
+	/** Second insulin type. */
+	private InsulinType insulinType2;
+	
+	/** Daily meals and injections, with the estimated carbohydrate amounts. */
+	private EventSchedule schedule;
+	
+	/** Initial plasma glucose level. */
+	private double G = 0.0;
+	
+	/** Initial plasma insulin concentration. */
+	private double I = 0.0;
+	
+	/** Arterial glucose level. */
+	private double AG = 4.4;
+	
+	/** Number of simulated days. */
+	private int days = SimulationKernelAIDA.DAYS;
+	
+	/** Minutes between two points of the percentile bands. */
+	private int bandInterval = 15;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public UncertaintyEnsemble() {
+	}
+	
+	// Sampling
+	
+	/**
+	 * Creates the random streams of all members, in member order.
+	 * 
+	 * @return One stream per member.
+	 */
+	public SplittableRandom[] createStreams() {
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] streams = new SplittableRandom[members];
+		for (int m = 0; m < members; m++)
+			streams[m] = root.split();
+		return streams;
+	}
+	
+	/**
+	 * Draws the perturbed parameters and meals of one member. Insulin injections are not perturbed.
+	 * 
+	 * @param random The member's random stream.
+	 * @param parameters Receives weight, RTG, CCR, sh and sp of the member.
+	 * @return The member's schedule.
+	 */
+	public EventSchedule sample(SplittableRandom random, double[] parameters) {
+		parameters[0] = weight;
+		parameters[1] = perturb(random, RTG, RTGSpread);
+		parameters[2] = perturb(random, CCR, CCRSpread);
+		parameters[3] = perturb(random, sh, shSpread);
+		parameters[4] = perturb(random, sp, spSpread);
+		
+		EventSchedule result = new EventSchedule();
+		for (int k = 0; k < schedule.size(); k++) {
+			double amount = schedule.getAmount(k);
+			if (schedule.getType(k) == EventSchedule.MEAL)
+				amount = perturb(random, amount, carbSpread);
+			result.add(schedule.getMinute(k), schedule.getType(k), amount);
+		}
+		return result;
+	}
+	
+	/**
+	 * Checks that all parameters have been set.
+	 * 
+	 * @throws NullPointerException If a parameter is missing.
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (insulinType1 == null || insulinType2 == null)
+			throw new NullPointerException("Both insulin types must be set!");
+		if (schedule == null)
+			throw new NullPointerException("Schedule must be set!");
+		if (members < 1)
+			throw new IllegalArgumentException("Number of members must be positive: " + members);
+		if (bandInterval < 1 || 1440 % bandInterval != 0)
+			throw new IllegalArgumentException("Band interval must divide a day: " + bandInterval);
+	}
+	
+	/**
+	 * Multiplies a value with log-normal noise of median 1.
+	 * 
+	 * @param random The random stream.
+	 * @param value The value.
+	 * @param spread Standard deviation of the logarithm of the noise.
+	 * @return The perturbed value.
+	 */
+	static double perturb(SplittableRandom random, double value, double spread) {
+		// Always draw, so the streams stay aligned when a spread is zero
+		double z = gaussian(random);
+		return spread > 0.0 ? value * Math.exp(spread * z) : value;
+	}
+	
+	/**
+	 * Draws a standard normal number with the Box-Muller transform.
+	 * 
+	 * @param random The random stream.
+	 * @return The number.
+	 */
+	static double gaussian(SplittableRandom random) {
+		double u = 1.0 - random.nextDouble();
+		double v = random.nextDouble();
+		return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2.0 * Math.PI * v);
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.members
+	 */
+	public int getMembers() {
+		return members;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param members The members to set.
+	 */
+	public void setMembers(int members) {
+		this.members = members;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param seed The seed to set.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param weight The weight to set.
+	 */
+	public void setWeight(double weight) {
+		this.weight = weight;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTG
+	 */
+	public double getRTG() {
+		return RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTG The RTG to set.
+	 */
+	public void setRTG(double RTG) {
+		this.RTG = RTG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCR
+	 */
+	public double getCCR() {
+		return CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCR The CCR to set.
+	 */
+	public void setCCR(double CCR) {
+		this.CCR = CCR;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sh
+	 */
+	public double getSh() {
+		return sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sh The sh to set.
+	 */
+	public void setSh(double sh) {
+		this.sh = sh;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.sp
+	 */
+	public double getSp() {
+		return sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param sp The sp to set.
+	 */
+	public void setSp(double sp) {
+		this.sp = sp;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.RTGSpread
+	 */
+	public double getRTGSpread() {
+		return RTGSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param RTGSpread The RTGSpread to set.
+	 */
+	public void setRTGSpread(double RTGSpread) {
+		this.RTGSpread = RTGSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.CCRSpread
+	 */
+	public double getCCRSpread() {
+		return CCRSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param CCRSpread The CCRSpread to set.
+	 */
+	public void setCCRSpread(double CCRSpread) {
+		this.CCRSpread = CCRSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.shSpread
+	 */
+	public double getShSpread() {
+		return shSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param shSpread The shSpread to set.
+	 */
+	public void setShSpread(double shSpread) {
+		this.shSpread = shSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.spSpread
+	 */
+	public double getSpSpread() {
+		return spSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param spSpread The spSpread to set.
+	 */
+	public void setSpSpread(double spSpread) {
+		this.spSpread = spSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.carbSpread
+	 */
+	public double getCarbSpread() {
+		return carbSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param carbSpread The carbSpread to set.
+	 */
+	public void setCarbSpread(double carbSpread) {
+		this.carbSpread = carbSpread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType1
+	 */
+	public InsulinType getInsulinType1() {
+		return insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType1 The insulinType1 to set.
+	 */
+	public void setInsulinType1(InsulinType insulinType1) {
+		this.insulinType1 = insulinType1;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.insulinType2
+	 */
+	public InsulinType getInsulinType2() {
+		return insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param insulinType2 The insulinType2 to set.
+	 */
+	public void setInsulinType2(InsulinType insulinType2) {
+		this.insulinType2 = insulinType2;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.schedule
+	 */
+	public EventSchedule getSchedule() {
+		return schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param schedule The schedule to set.
+	 */
+	public void setSchedule(EventSchedule schedule) {
+		this.schedule = schedule;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.G
+	 */
+	public double getG() {
+		return G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param G The G to set.
+	 */
+	public void setG(double G) {
+		this.G = G;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.I
+	 */
+	public double getI() {
+		return I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param I The I to set.
+	 */
+	public void setI(double I) {
+		this.I = I;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.AG
+	 */
+	public double getAG() {
+		return AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param AG The AG to set.
+	 */
+	public void setAG(double AG) {
+		this.AG = AG;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.days
+	 */
+	public int getDays() {
+		return days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param days The days to set.
+	 */
+	public void setDays(int days) {
+		this.days = days;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.bandInterval
+	 */
+	public int getBandInterval() {
+		return bandInterval;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param bandInterval The bandInterval to set.
+	 */
+	public void setBandInterval(int bandInterval) {
+		this.bandInterval = bandInterval;
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Date;
+
+import org.openmrs.api.APIException;
+
+/**
+ * Progress of a retrospective model validation: the validated period, the last validated patient
+ * (patients are validated in ascending order of their IDs), the length of the per-patient report
+ * written so far and the merged errors of the cohort. Saved after every page of patients, so an
+ * interrupted validation resumes where it stopped.
+ */
+public class ValidationCheckpoint implements Serializable {
+	
+	private static final long serialVersionUID = 2785190347712630945L;
+	
+	/** Start of the validated period. */
+	private final Date from;
+	
+	/** End of the validated period. */
+	private final Date to;
+	
+	/** ID of the last validated patient, or null before the first page. */
+	private Integer lastPatientId;
+	
+	/** Number of validated patients. */
+	private int patients;
+	
+	/** Number of patients without recorded glucose levels in the period. */
+	private int skipped;
+	
+	/** Length of the report in bytes. */
+	private long reportLength;
+	
+	/** Whether all patients were validated. */
+	private boolean complete;
+	
+	/** Errors of all validated patients. */
+	private final PredictionError cohort = new PredictionError();
+	
+	// Constructors
+	
+	/**
+	 * Creates the checkpoint of a new validation.
+	 * 
+	 * @param from Start of the validated period.
+	 * @param to End of the validated period.
+	 */
+	public ValidationCheckpoint(Date from, Date to) {
+		this.from = from;
+		this.to = to;
+	}
+	
+	// Persistence
+	
+	/**
+	 * Loads a checkpoint.
+	 * 
+	 * @param file The file.
+	 * @return The checkpoint, or null if the file does not exist or cannot be read.
+	 */
+	public static ValidationCheckpoint load(File file) {
+		if (!file.exists())
+			return null;
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new FileInputStream(file));
+			return (ValidationCheckpoint) in.readObject();
+		}
+		catch (Exception e) {
+			return null;
+		}
+		finally {
+			try {
+				if (in != null)
+					in.close();
+			}
+			catch (IOException e) {}
+		}
+	}
+	
+	/**
+	 * Saves the checkpoint. It is written to a temporary file first, so a crash while saving leaves
+	 * the previous checkpoint intact.
+	 * 
+	 * @param file The file.
+	 */
+	public void save(File file) {
+		File tmp = new File(file.getPath() + ".tmp");
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp));
+			try {
+				out.writeObject(this);
+			}
+			finally {
+				out.close();
+			}
+			if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+				throw new IOException("Could not rename " + tmp + " to " + file);
+		}
+		catch (IOException e) {
+			throw new APIException("Could not save validation checkpoint " + file, e);
+		}
+	}
+	
+	// Progress
+	
+	/**
+	 * Records a validated page of patients.
+	 * 
+	 * @param lastPatientId ID of the last patient of the page.
+	 * @param validated Number of validated patients of the page.
+	 * @param skipped Number of skipped patients of the page.
+	 * @param reportLength Length of the report after the page.
+	 */
+	public void update(Integer lastPatientId, int validated, int skipped, long reportLength) {
+		this.lastPatientId = lastPatientId;
+		this.patients += validated;
+		this.skipped += skipped;
+		this.reportLength = reportLength;
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.from
+	 */
+	public Date getFrom() {
+		return from;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.to
+	 */
+	public Date getTo() {
+		return to;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.lastPatientId
+	 */
+	public Integer getLastPatientId() {
+		return lastPatientId;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.patients
+	 */
+	public int getPatients() {
+		return patients;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.skipped
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.reportLength
+	 */
+	public long getReportLength() {
+		return reportLength;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param reportLength The reportLength to set.
+	 */
+	public void setReportLength(long reportLength) {
+		this.reportLength = reportLength;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.complete
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param complete The complete to set.
+	 */
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.cohort
+	 */
+	public PredictionError getCohort() {
+		return cohort;
+	}
+}
@@ -0,0 +1,257 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.openmrs.Concept;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.service.SimulationReplayService;
+
+/**
+ * Virtual population of patients for in-silico trials. Each member's parameters (weight, RTG, CCR,
+ * sh and sp) are drawn either from log-normal distributions around configurable medians, or by
+ * resampling the parameters of real patients with replacement (bootstrap), optionally jittered with
+ * the same log-normal noise. Members draw from their own random stream, split from the seed in
+ * member order, so a population is reproducible regardless of how many threads simulate it.
+ */
+public class VirtualPopulation {
+	
+	/** Index of the body weight in a parameter vector. */
+	public static final int WEIGHT = 0;
+	
+	/** Index of the RTG in a parameter vector. */
+	public static final int RTG = 1;
+	
+	/** Index of the CCR in a parameter vector. */
+	public static final int CCR = 2;
+	
+	/** Index of the hepatic insulin sensitivity in a parameter vector. */
+	public static final int SH = 3;
+	
+	/** Index of the peripheral insulin sensitivity in a parameter vector. */
+	public static final int SP = 4;
+	
+	/** Number of parameters of a member. */
+	public static final int PARAMETERS = 5;
+	
+	/** Default number of members. */
+	public static final int DEFAULT_SIZE = 1000;
+	
+	/** Number of members. */
+	private int size = DEFAULT_SIZE;
+	
+	/** Seed of the random streams. */
+	private long seed;
+	
+	/** Medians of the parameter distributions. */
+	private final double[] medians = { 75.0, 9.0, 100.0, 0.5, 0.5 };
+	
+	/** Standard deviations of the logarithms of the parameters, or of the jitter when bootstrapping. */
+	private final double[] spreads = { 0.15, 0.1, 0.2, 0.3, 0.3 };
+	
+	/** Parameter vectors of real patients to resample, or null to draw from the distributions. */
+	private double[][] observed;
+	
+	// Constructors
+	
+	/** Default constructor. */
+	public VirtualPopulation() {
+	}
+	
+	// Sampling
+	
+	/**
+	 * Creates the random streams of all members, in member order.
+	 * 
+	 * @return One stream per member.
+	 */
+	public SplittableRandom[] createStreams() {
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] streams = new SplittableRandom[size];
+		for (int m = 0; m < size; m++)
+			streams[m] = root.split();
+		return streams;
+	}
+	
+	/**
+	 * Draws the parameters of one member.
+	 * 
+	 * @param random The member's random stream.
+	 * @param parameters Receives weight, RTG, CCR, sh and sp of the member.
+	 */
+	public void sample(SplittableRandom random, double[] parameters) {
+		double[] center = observed != null ? observed[random.nextInt(observed.length)] : medians;
+		for (int p = 0; p < PARAMETERS; p++)
+			parameters[p] = UncertaintyEnsemble.perturb(random, center[p], spreads[p]);
+	}
+	
+	/**
+	 * Loads the parameters of patients with an open diabetes mellitus problem for resampling, from
+	 * the last obs of each parameter (see {@link DiabetesManagementConfig#getPatientParameters}).
+	 * 
+	 * @param maxPatients Largest number of patients loaded.
+	 * @return The number of patients loaded.
+	 */
+	public int loadPatients(int maxPatients) {
+		DiabetesManagementConfig config = new DiabetesManagementConfig();
+		List<Concept> problems = new ArrayList<Concept>();
+		if (config.getRelevantConcepts().get("t1dm") != null)
+			problems.add(config.getRelevantConcepts().get("t1dm"));
+		if (config.getRelevantConcepts().get("t2dm") != null)
+			problems.add(config.getRelevantConcepts().get("t2dm"));
+		if (problems.isEmpty())
+			throw new IllegalArgumentException("No diabetes mellitus concepts configured!");
+		
+		SimulationReplayService srs = (SimulationReplayService) Context.getService(SimulationReplayService.class);
+		List<double[]> rows = new ArrayList<double[]>();
+		List<Integer> ids;
+		Integer last = null;
+		while (rows.size() < maxPatients
+		        && !(ids = srs.getPatientIdsWithOpenProblems(problems, last, SimulationReplayService.PAGE_SIZE)).isEmpty()) {
+			for (Integer id : ids) {
+				if (rows.size() == maxPatients)
+					break;
+				rows.add(config.getPatientParameters(Context.getPersonService().getPerson(id)));
+			}
+			last = ids.get(ids.size() - 1);
+			Context.clearSession();
+		}
+		observed = rows.isEmpty() ? null : rows.toArray(new double[rows.size()][]);
+		return rows.size();
+	}
+	
+	/**
+	 * Checks that all parameters are in range.
+	 * 
+	 * @throws IllegalArgumentException If a parameter is out of range.
+	 */
+	public void validate() {
+		if (size < 1)
+			throw new IllegalArgumentException("Number of members must be positive: " + size);
+		for (int p = 0; p < PARAMETERS; p++) {
+			if (!(medians[p] > 0.0))
+				throw new IllegalArgumentException("Median of parameter " + p + " must be positive: " + medians[p]);
+			if (!(spreads[p] >= 0.0))
+				throw new IllegalArgumentException("Spread of parameter " + p + " must not be negative: " + spreads[p]);
+		}
+		if (observed != null) {
+			if (observed.length == 0)
+				throw new IllegalArgumentException("At least one observed patient is required for resampling!");
+			for (double[] row : observed)
+				if (row.length != PARAMETERS)
+					throw new IllegalArgumentException("Observed parameter vectors must have " + PARAMETERS + " values!");
+		}
+	}
+	
+	// Getters/setters
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.size
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param size The size to set.
+	 */
+	public void setSize(int size) {
+		this.size = size;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param seed The seed to set.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Median of a parameter's distribution.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @return The median.
+	 */
+	public double getMedian(int parameter) {
+		return medians[parameter];
+	}
+	
+	/**
+	 * Sets the median of a parameter's distribution.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @param median The median.
+	 */
+	public void setMedian(int parameter, double median) {
+		medians[parameter] = median;
+	}
+	
+	/**
+	 * Standard deviation of the logarithm of a parameter.
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @return The spread.
+	 */
+	public double getSpread(int parameter) {
+		return spreads[parameter];
+	}
+	
+	/**
+	 * Sets the standard deviation of the logarithm of a parameter; when resampling, the spread of
+	 * the jitter (0 for a plain bootstrap).
+	 * 
+	 * @param parameter Index of the parameter, e.g. {@link #SH}.
+	 * @param spread The spread.
+	 */
+	public void setSpread(int parameter, double spread) {
+		spreads[parameter] = spread;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @return this.observed
+	 */
+	public double[][] getObserved() {
+		return observed;
+	}
+	
+	/**
+	 * Getters/setters.
+	 * 
+	 * @param observed Parameter vectors of real patients to resample, or null to draw from the
+	 *            distributions.
+	 */
+	public void setObserved(double[][] observed) {
+		this.observed = observed;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.db;
+
+import java.util.Date;
+import java.util.List;
+
+import org.openmrs.Concept;
+import org.openmrs.Person;
+
+/**
+ * Database functions for replaying recorded observations.
+ */
+public interface ObservationReplayDAO {
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationReplayService#getObservationPage(org.openmrs.Person,
+	 *      java.util.List, java.util.Date, java.util.Date, java.util.Date, java.lang.Integer, int)
+	 * @param person The Person.
+	 * @param concepts The Concepts of the observations.
+	 * @param from Start of the period (inclusive).
+	 * @param to End of the period (exclusive).
+	 * @param afterDatetime Date/time of the last observation of the previous page, or null.
+	 * @param afterObsId ID of the last observation of the previous page, or null.
+	 * @param maxResults Maximum number of observations.
+	 * @return Rows of observation ID, date/time, concept ID and numeric value.
+	 */
+	public List<Object[]> getObservationPage(Person person, List<Concept> concepts, Date from, Date to,
+	                                         Date afterDatetime, Integer afterObsId, int maxResults);
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationReplayService#getPatientIdsWithOpenProblems(java.util.List,
+	 *      java.lang.Integer, int)
+	 * @param concepts The Concepts of the problems.
+	 * @param afterPatientId Last patient ID of the previous page, or null.
+	 * @param maxResults Maximum number of patient IDs.
+	 * @return The patient IDs in ascending order.
+	 */
+	public List<Integer> getPatientIdsWithOpenProblems(List<Concept> concepts, Integer afterPatientId, int maxResults);
+}
@@ -0,0 +1,46 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.db;
+
+import java.util.List;
+
+import org.openmrs.Person;
+import org.openmrs.module.diabetesmanagement.PosteriorSummary;
+
+/**
+ * PosteriorSummary-related database functions.
+ */
+public interface PosteriorSummaryDAO {
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#savePosteriorSummaries(org.openmrs.Person,
+	 *      java.util.List)
+	 * @param posteriorSummary The PosteriorSummary to save.
+	 * @return The saved PosteriorSummary.
+	 */
+	public PosteriorSummary savePosteriorSummary(PosteriorSummary posteriorSummary);
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#getPosteriorSummaries(org.openmrs.Person)
+	 * @param person The Person.
+	 * @return All PosteriorSummaries of the given Person.
+	 */
+	public List<PosteriorSummary> getPosteriorSummaries(Person person);
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#purgePosteriorSummary(org.openmrs.module.diabetesmanagement.PosteriorSummary)
+	 * @param posteriorSummary The PosteriorSummary to purge.
+	 */
+	public void purgePosteriorSummary(PosteriorSummary posteriorSummary);
+}
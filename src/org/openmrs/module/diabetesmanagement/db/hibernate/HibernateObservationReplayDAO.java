@@ -0,0 +1,109 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.db.hibernate;
+
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.Criteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Expression;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.openmrs.Concept;
+import org.openmrs.Obs;
+import org.openmrs.Person;
+import org.openmrs.module.medicalproblem.Problem;
+import org.openmrs.module.diabetesmanagement.db.ObservationReplayDAO;
+import org.openmrs.module.diabetesmanagement.service.SimulationReplayService;
+
+/**
+ * Hibernate-specific DAO for the {@link SimulationReplayService}. All calls should be made on the
+ * Context.getService(SimulationReplayService.class) object.
+ * 
+ * @see ObservationReplayDAO
+ * @see SimulationReplayService
+ */
+public class HibernateObservationReplayDAO implements ObservationReplayDAO {
+	
+	/** Hibernate session factory. */
+	private SessionFactory sessionFactory;
+	
+	/** Default constructor. */
+	public HibernateObservationReplayDAO() {
+	}
+	
+	/**
+	 * Sets session factory.
+	 * 
+	 * @param sessionFactory The sessionFactory to set.
+	 */
+	public void setSessionFactory(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+	
+	/**
+	 * Selects only the four needed columns instead of Obs objects, and continues after the last row
+	 * of the previous page (keyset paging), so every page is a short indexed range scan and nothing
+	 * is kept in the session.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.db.ObservationReplayDAO#getObservationPage(org.openmrs.Person,
+	 *      java.util.List, java.util.Date, java.util.Date, java.util.Date, java.lang.Integer, int)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Object[]> getObservationPage(Person person, List<Concept> concepts, Date from, Date to,
+	                                         Date afterDatetime, Integer afterObsId, int maxResults) {
+		Criteria crit = sessionFactory.getCurrentSession().createCriteria(Obs.class);
+		crit.createAlias("concept", "c");
+		crit.add(Expression.eq("person", person));
+		crit.add(Expression.in("concept", concepts));
+		crit.add(Expression.eq("voided", false));
+		crit.add(Expression.ge("obsDatetime", from));
+		crit.add(Expression.lt("obsDatetime", to));
+		if (afterDatetime != null)
+			crit.add(Expression.or(Expression.gt("obsDatetime", afterDatetime), Expression.and(Expression.eq(
+			    "obsDatetime", afterDatetime), Expression.gt("obsId", afterObsId))));
+		crit.setProjection(Projections.projectionList().add(Projections.property("obsId")).add(
+		    Projections.property("obsDatetime")).add(Projections.property("c.conceptId")).add(
+		    Projections.property("valueNumeric")));
+		crit.addOrder(Order.asc("obsDatetime"));
+		crit.addOrder(Order.asc("obsId"));
+		crit.setMaxResults(maxResults);
+		
+		return crit.list();
+	}
+	
+	/**
+	 * Same conditions as the open problems of a patient in the medical problem module (not voided,
+	 * not closed), for all patients at once.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.db.ObservationReplayDAO#getPatientIdsWithOpenProblems(java.util.List,
+	 *      java.lang.Integer, int)
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Integer> getPatientIdsWithOpenProblems(List<Concept> concepts, Integer afterPatientId, int maxResults) {
+		Criteria crit = sessionFactory.getCurrentSession().createCriteria(Problem.class);
+		crit.createAlias("patient", "p");
+		crit.add(Expression.in("concept", concepts));
+		crit.add(Expression.eq("voided", false));
+		crit.add(Expression.isNull("dateClosed"));
+		if (afterPatientId != null)
+			crit.add(Expression.gt("p.patientId", afterPatientId));
+		crit.setProjection(Projections.distinct(Projections.property("p.patientId")));
+		crit.addOrder(Order.asc("p.patientId"));
+		crit.setMaxResults(maxResults);
+		
+		return crit.list();
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.db.hibernate;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.Criteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Expression;
+import org.hibernate.criterion.Order;
+import org.openmrs.Person;
+import org.openmrs.module.diabetesmanagement.PosteriorSummary;
+import org.openmrs.module.diabetesmanagement.db.PosteriorSummaryDAO;
+import org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService;
+
+/**
+ * Hibernate-specific DAO for the {@link PosteriorSummaryService}. All calls should be made on the
+ * Context.getService(PosteriorSummaryService.class) object.
+ * 
+ * @see PosteriorSummaryDAO
+ * @see PosteriorSummaryService
+ */
+public class HibernatePosteriorSummaryDAO implements PosteriorSummaryDAO {
+	
+	/** Log for this class and subclasses. */
+	private final Log log = LogFactory.getLog(getClass());
+	
+	/** Hibernate session factory. */
+	private SessionFactory sessionFactory;
+	
+	/** Default constructor. */
+	public HibernatePosteriorSummaryDAO() {
+	}
+	
+	/**
+	 * Sets session factory.
+	 * 
+	 * @param sessionFactory The sessionFactory to set.
+	 */
+	public void setSessionFactory(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.db.PosteriorSummaryDAO#savePosteriorSummary(org.openmrs.module.diabetesmanagement.PosteriorSummary)
+	 * @param posteriorSummary The PosteriorSummary to save.
+	 * @return The saved PosteriorSummary.
+	 */
+	public PosteriorSummary savePosteriorSummary(PosteriorSummary posteriorSummary) {
+		log.debug("Saving PosteriorSummary: " + posteriorSummary.getPosteriorSummaryId());
+		sessionFactory.getCurrentSession().saveOrUpdate(posteriorSummary);
+		
+		return posteriorSummary;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.db.PosteriorSummaryDAO#getPosteriorSummaries(org.openmrs.Person)
+	 * @param person The Person.
+	 * @return All PosteriorSummaries of the given Person.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<PosteriorSummary> getPosteriorSummaries(Person person) {
+		Criteria crit = sessionFactory.getCurrentSession().createCriteria(PosteriorSummary.class);
+		crit.add(Expression.eq("person", person));
+		crit.add(Expression.eq("voided", false));
+		crit.addOrder(Order.asc("posteriorSummaryId"));
+		
+		return crit.list();
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.db.PosteriorSummaryDAO#purgePosteriorSummary(org.openmrs.module.diabetesmanagement.PosteriorSummary)
+	 * @param posteriorSummary The PosteriorSummary to purge.
+	 */
+	public void purgePosteriorSummary(PosteriorSummary posteriorSummary) {
+		log.debug("Purging PosteriorSummary: " + posteriorSummary.getPosteriorSummaryId());
+		sessionFactory.getCurrentSession().delete(posteriorSummary);
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.impl;
+
+import java.util.Date;
+import java.util.List;
+
+import org.openmrs.Person;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.PosteriorSummary;
+import org.openmrs.module.diabetesmanagement.db.PosteriorSummaryDAO;
+import org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * PosteriorSummary-related services (implementation).
+ */
+@Transactional
+public class PosteriorSummaryServiceImpl implements PosteriorSummaryService {
+	
+	/** DAO object for this class. */
+	private PosteriorSummaryDAO dao;
+	
+	/** Default constructor. */
+	public PosteriorSummaryServiceImpl() {
+	}
+	
+	/**
+	 * Sets the PosteriorSummaryDAO.
+	 * 
+	 * @param dao the PosteriorSummaryDAO to set.
+	 */
+	public void setPosteriorSummaryDAO(PosteriorSummaryDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#savePosteriorSummaries(org.openmrs.Person,
+	 *      java.util.List)
+	 * @param person The Person.
+	 * @param posteriorSummaries The PosteriorSummaries to save.
+	 * @return The saved PosteriorSummaries.
+	 */
+	public List<PosteriorSummary> savePosteriorSummaries(Person person, List<PosteriorSummary> posteriorSummaries) {
+		Date now = new Date();
+		User me = Context.getAuthenticatedUser();
+		
+		for (PosteriorSummary old : dao.getPosteriorSummaries(person))
+			dao.purgePosteriorSummary(old);
+		for (PosteriorSummary summary : posteriorSummaries) {
+			summary.setPerson(person);
+			if (summary.getCreator() == null)
+				summary.setCreator(me);
+			if (summary.getDateCreated() == null)
+				summary.setDateCreated(now);
+			dao.savePosteriorSummary(summary);
+		}
+		return posteriorSummaries;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#getPosteriorSummaries(org.openmrs.Person)
+	 * @param person The Person.
+	 * @return All PosteriorSummaries of the given Person.
+	 */
+	public List<PosteriorSummary> getPosteriorSummaries(Person person) {
+		return dao.getPosteriorSummaries(person);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#getPosteriorSummary(org.openmrs.Person,
+	 *      java.lang.String)
+	 * @param person The Person.
+	 * @param parameter The parameter name.
+	 * @return The PosteriorSummary, or null if there is none.
+	 */
+	public PosteriorSummary getPosteriorSummary(Person person, String parameter) {
+		for (PosteriorSummary summary : dao.getPosteriorSummaries(person))
+			if (summary.getParameter().equals(parameter))
+				return summary;
+		return null;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.PosteriorSummaryService#purgePosteriorSummary(org.openmrs.module.diabetesmanagement.PosteriorSummary)
+	 * @param posteriorSummary The PosteriorSummary to purge.
+	 */
+	public void purgePosteriorSummary(PosteriorSummary posteriorSummary) {
+		dao.purgePosteriorSummary(posteriorSummary);
+	}
+}
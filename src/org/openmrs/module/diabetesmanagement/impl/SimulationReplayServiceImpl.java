@@ -0,0 +1,159 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.openmrs.Concept;
+import org.openmrs.ConceptNumeric;
+import org.openmrs.Person;
+import org.openmrs.api.APIException;
+import org.openmrs.module.diabetesmanagement.DiabetesManagementConfig;
+import org.openmrs.module.diabetesmanagement.GlucoseOverlay;
+import org.openmrs.module.diabetesmanagement.InsulinType;
+import org.openmrs.module.diabetesmanagement.ObservationCursor;
+import org.openmrs.module.diabetesmanagement.ObservationEventStream;
+import org.openmrs.module.diabetesmanagement.ResultSink;
+import org.openmrs.module.diabetesmanagement.SimulationKernelAIDA;
+import org.openmrs.module.diabetesmanagement.SimulationModelAIDA;
+import org.openmrs.module.diabetesmanagement.TimeSeries;
+import org.openmrs.module.diabetesmanagement.db.ObservationReplayDAO;
+import org.openmrs.module.diabetesmanagement.service.SimulationReplayService;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Services for replaying recorded meals and insulin injections (implementation). The events and
+ * the glucose observations are read by two independent cursors while the model integrates day by
+ * day, so neither the observations nor the results of the whole period are held in memory.
+ */
+@Transactional
+public class SimulationReplayServiceImpl implements SimulationReplayService {
+	
+	/** Milliseconds per day. */
+	private static final long MILLIS_PER_DAY = SimulationKernelAIDA.iterations * 60000L;
+	
+	/** DAO object for this class. */
+	private ObservationReplayDAO dao;
+	
+	/** Default constructor. */
+	public SimulationReplayServiceImpl() {
+	}
+	
+	/**
+	 * Sets the ObservationReplayDAO.
+	 * 
+	 * @param dao the ObservationReplayDAO to set.
+	 */
+	public void setObservationReplayDAO(ObservationReplayDAO dao) {
+		this.dao = dao;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationReplayService#getObservationPage(org.openmrs.Person,
+	 *      java.util.List, java.util.Date, java.util.Date, java.util.Date, java.lang.Integer, int)
+	 * @param person The Person.
+	 * @param concepts The Concepts of the observations.
+	 * @param from Start of the period (inclusive).
+	 * @param to End of the period (exclusive).
+	 * @param afterDatetime Date/time of the last observation of the previous page, or null.
+	 * @param afterObsId ID of the last observation of the previous page, or null.
+	 * @param maxResults Maximum number of observations.
+	 * @return Rows of observation ID, date/time, concept ID and numeric value.
+	 */
+	public List<Object[]> getObservationPage(Person person, List<Concept> concepts, Date from, Date to,
+	                                         Date afterDatetime, Integer afterObsId, int maxResults) {
+		return dao.getObservationPage(person, concepts, from, to, afterDatetime, afterObsId, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationReplayService#getPatientIdsWithOpenProblems(java.util.List,
+	 *      java.lang.Integer, int)
+	 * @param concepts The Concepts of the problems.
+	 * @param afterPatientId Last patient ID of the previous page, or null.
+	 * @param maxResults Maximum number of patient IDs.
+	 * @return The patient IDs.
+	 */
+	public List<Integer> getPatientIdsWithOpenProblems(List<Concept> concepts, Integer afterPatientId, int maxResults) {
+		return dao.getPatientIdsWithOpenProblems(concepts, afterPatientId, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationReplayService#replay(org.openmrs.Person,
+	 *      org.openmrs.module.diabetesmanagement.SimulationModelAIDA,
+	 *      org.openmrs.module.diabetesmanagement.InsulinType,
+	 *      org.openmrs.module.diabetesmanagement.InsulinType, java.util.Date, java.util.Date,
+	 *      org.openmrs.module.diabetesmanagement.ResultSink)
+	 * @param person The patient.
+	 * @param model Model with the patient's parameters and initial state.
+	 * @param insulin1 First insulin type.
+	 * @param insulin2 Second insulin type.
+	 * @param from Start of the period.
+	 * @param to End of the period.
+	 * @param sink Receiver of the simulated results of each day, or null.
+	 * @return The comparison with the recorded blood glucose observations.
+	 */
+	public GlucoseOverlay replay(Person person, SimulationModelAIDA model, InsulinType insulin1, InsulinType insulin2,
+	                             Date from, Date to, ResultSink sink) {
+		Map<String, Concept> concepts = new DiabetesManagementConfig().getRelevantConcepts();
+		Concept glucose = concepts.get("glu");
+		Concept carbs = concepts.get("carbs");
+		if (glucose == null || carbs == null)
+			throw new APIException("The concepts of blood glucose and carbohydrate intake must be configured!");
+		if (insulin1.getConcept() == null || insulin2.getConcept() == null)
+			throw new APIException("Both insulin types must have a concept for their doses!");
+		if (!to.after(from))
+			throw new IllegalArgumentException("End of the period must be after its start: " + to);
+		
+		// Whole days from midnight before the start
+		Calendar cal = Calendar.getInstance();
+		cal.setTime(from);
+		cal.set(Calendar.HOUR_OF_DAY, 0);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		Date midnight = cal.getTime();
+		long start = midnight.getTime();
+		int days = (int) ((to.getTime() - start + MILLIS_PER_DAY - 1) / MILLIS_PER_DAY);
+		
+		model.setInsulin1ParamS(insulin1.getParameterS());
+		model.getInsulin1ParamA(insulin1.getParameterA());
+		model.setInsulin1ParamB(insulin1.getParameterB());
+		model.setInsulin2ParamS(insulin2.getParameterS());
+		model.setInsulin2ParamA(insulin2.getParameterA());
+		model.setInsulin2ParamB(insulin2.getParameterB());
+		
+		List<Concept> eventConcepts = new ArrayList<Concept>();
+		eventConcepts.add(carbs);
+		eventConcepts.add(insulin1.getConcept());
+		eventConcepts.add(insulin2.getConcept());
+		ObservationCursor events = new ObservationCursor(this, person, eventConcepts, midnight, to, PAGE_SIZE);
+		ObservationCursor glucoseObs = new ObservationCursor(this, person, Arrays.asList(glucose), midnight, to,
+		        PAGE_SIZE);
+		
+		double factor = 1.0;
+		if (glucose instanceof ConceptNumeric && ((ConceptNumeric) glucose).getUnits() != null
+		        && ((ConceptNumeric) glucose).getUnits().toLowerCase().equals("mg/dl"))
+			factor = 1.0 / TimeSeries.MGDL_PER_MMOL;
+		GlucoseOverlay overlay = new GlucoseOverlay(glucoseObs, start, factor, sink);
+		
+		model.runStream(new ObservationEventStream(events, start, carbs.getConceptId(), insulin1.getConcept()
+		        .getConceptId(), insulin2.getConcept().getConceptId()), days, overlay);
+		return overlay;
+	}
+}
@@ -0,0 +1,1087 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.diabetesmanagement.AbsorptionCurveCache;
+import org.openmrs.module.diabetesmanagement.DoseOptimization;
+import org.openmrs.module.diabetesmanagement.DoseRegimen;
+import org.openmrs.module.diabetesmanagement.EnsembleResult;
+import org.openmrs.module.diabetesmanagement.EventSchedule;
+import org.openmrs.module.diabetesmanagement.GlucoseFit;
+import org.openmrs.module.diabetesmanagement.GlucoseMetrics;
+import org.openmrs.module.diabetesmanagement.GlucoseSummary;
+import org.openmrs.module.diabetesmanagement.InSilicoTrial;
+import org.openmrs.module.diabetesmanagement.InsulinComparison;
+import org.openmrs.module.diabetesmanagement.InsulinPairResult;
+import org.openmrs.module.diabetesmanagement.InsulinType;
+import org.openmrs.module.diabetesmanagement.ParameterEstimate;
+import org.openmrs.module.diabetesmanagement.ParameterSweep;
+import org.openmrs.module.diabetesmanagement.PosteriorSampler;
+import org.openmrs.module.diabetesmanagement.PosteriorSummary;
+import org.openmrs.module.diabetesmanagement.RiskGrid;
+import org.openmrs.module.diabetesmanagement.RiskGridCache;
+import org.openmrs.module.diabetesmanagement.RiskGridResult;
+import org.openmrs.module.diabetesmanagement.SensitivityAnalysis;
+import org.openmrs.module.diabetesmanagement.SensitivityResult;
+import org.openmrs.module.diabetesmanagement.SimulationBatchAIDA;
+import org.openmrs.module.diabetesmanagement.SimulationKernelAIDA;
+import org.openmrs.module.diabetesmanagement.SobolSequence;
+import org.openmrs.module.diabetesmanagement.SurrogateGrid;
+import org.openmrs.module.diabetesmanagement.SurrogateModel;
+import org.openmrs.module.diabetesmanagement.SweepResult;
+import org.openmrs.module.diabetesmanagement.TrialArm;
+import org.openmrs.module.diabetesmanagement.TrialResult;
+import org.openmrs.module.diabetesmanagement.UncertaintyEnsemble;
+import org.openmrs.module.diabetesmanagement.VirtualPopulation;
+import org.openmrs.module.diabetesmanagement.service.SimulationSweepService;
+
+/**
+ * Services for simulating many parameter combinations in parallel (implementation). The
+ * combinations are split recursively on a fork/join pool; each leaf task simulates a contiguous
+ * range of combinations as one {@link SimulationBatchAIDA}.
+ */
+public class SimulationSweepServiceImpl implements SimulationSweepService {
+	
+	/** Global property holding the maximum number of threads used for sweeps. */
+	public static final String PARALLELISM_PROPERTY = "diabetesmanagement.simulation.sweepParallelism";
+	
+	/** Smallest number of combinations that is split into two tasks. */
+	private static final int MIN_SPLIT = 32;
+	
+	/** Minutes between two glucose results of the batches, which keep every step. */
+	private static final int STEP_MINUTES = (int) Math.round(60.0 * SimulationKernelAIDA.h);
+	
+	/** Logger for this class. */
+	private final Log log = LogFactory.getLog(this.getClass());
+	
+	/** Maximum number of threads, or 0 if not configured yet. */
+	private int parallelism;
+	
+	/** Pool executing the sweeps. */
+	private ForkJoinPool pool;
+	
+	/** Default constructor. */
+	public SimulationSweepServiceImpl() {
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#runSweep(org.openmrs.module.diabetesmanagement.ParameterSweep)
+	 * @param sweep The grid of parameters.
+	 * @return The metrics of all combinations.
+	 */
+	public SweepResult runSweep(ParameterSweep sweep) {
+		sweep.validate();
+		long start = System.nanoTime();
+		SweepResult result = new SweepResult(sweep);
+		ForkJoinPool pool = getPool();
+		int size = sweep.size();
+		pool.invoke(new SweepTask(sweep, result, 0, size, getLeafSize(size, pool)));
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + size + " combinations in " + (System.nanoTime() - start) / 1000000L + " ms");
+		return result;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#runEnsemble(org.openmrs.module.diabetesmanagement.UncertaintyEnsemble)
+	 * @param ensemble The ensemble.
+	 * @return The summary of all members.
+	 */
+	public EnsembleResult runEnsemble(UncertaintyEnsemble ensemble) {
+		ensemble.validate();
+		long start = System.nanoTime();
+		EnsembleResult result = new EnsembleResult(ensemble.getBandInterval());
+		ForkJoinPool pool = getPool();
+		int size = ensemble.getMembers();
+		pool.invoke(new EnsembleTask(ensemble, ensemble.createStreams(), result, 0, size, getLeafSize(size, pool)));
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + size + " ensemble members in " + (System.nanoTime() - start) / 1000000L + " ms");
+		return result;
+	}
+	
+	/**
+	 * The population is split into blocks of {@link SimulationBatchAIDA#BLOCK_SIZE} members, fixed
+	 * regardless of the parallelism, and the partial results of the blocks are merged in member
+	 * order, so the floating-point sums are the same for any number of threads.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#runTrial(org.openmrs.module.diabetesmanagement.InSilicoTrial)
+	 * @param trial The trial.
+	 * @return The summary of all members and arms.
+	 */
+	public TrialResult runTrial(InSilicoTrial trial) {
+		trial.validate();
+		long start = System.nanoTime();
+		int size = trial.getPopulation().getSize();
+		int blocks = (size + SimulationBatchAIDA.BLOCK_SIZE - 1) / SimulationBatchAIDA.BLOCK_SIZE;
+		TrialResult[] partials = new TrialResult[blocks];
+		getPool().invoke(new TrialTask(trial, trial.getPopulation().createStreams(), partials, 0, partials.length));
+		TrialResult result = new TrialResult(trial.getArmNames());
+		for (TrialResult partial : partials)
+			result.merge(partial);
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + size + " virtual patients in " + trial.getArms().size() + " arms in "
+			        + (System.nanoTime() - start) / 1000000L + " ms");
+		return result;
+	}
+	
+	/**
+	 * The runs are simulated in leaves of at most one batch block, which write their outcomes into
+	 * one shared array at the index of the run, so the indices only depend on the analysis. When
+	 * the first insulin type's parameters are varied, no two runs share an absorption curve, and
+	 * the runs bypass the shared {@link AbsorptionCurveCache} instead of flooding it.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#analyzeSensitivity(org.openmrs.module.diabetesmanagement.SensitivityAnalysis)
+	 * @param analysis The parameter ranges, regimen and sample size.
+	 * @return The first-order and total indices of all parameters and outcomes.
+	 */
+	public SensitivityResult analyzeSensitivity(SensitivityAnalysis analysis) {
+		analysis.validate();
+		long start = System.nanoTime();
+		int runs = analysis.getRuns();
+		double[] outcomes = new double[runs * TrialResult.OUTCOMES];
+		ForkJoinPool pool = getPool();
+		pool.invoke(new SensitivityTask(analysis, analysis.createSequence(), analysis.getVariedParameters(), outcomes,
+		        0, runs, getLeafSize(runs, pool)));
+		SensitivityResult result = new SensitivityResult(analysis, outcomes);
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + runs + " sensitivity runs in " + (System.nanoTime() - start) / 1000000L + " ms");
+		return result;
+	}
+	
+	/**
+	 * The absorption curves of every insulin type at every dose of the schedule are put into the
+	 * shared {@link AbsorptionCurveCache} before the pairs are simulated, so each curve is computed
+	 * once and shared by all pairs using the type.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#compareInsulinTypes(org.openmrs.module.diabetesmanagement.InsulinComparison)
+	 * @param comparison The patient, schedule and insulin types.
+	 * @return The outcomes of all pairs, best first.
+	 */
+	public List<InsulinPairResult> compareInsulinTypes(InsulinComparison comparison) {
+		comparison.validate();
+		long start = System.nanoTime();
+		EventSchedule schedule = comparison.getSchedule();
+		AbsorptionCurveCache cache = AbsorptionCurveCache.getShared();
+		for (InsulinType type : comparison.getInsulinTypes())
+			for (int k = 0; k < schedule.size(); k++)
+				if (schedule.getType(k) != EventSchedule.MEAL)
+					cache.getCurve(type.getParameterS(), type.getParameterA(), type.getParameterB(), schedule
+					        .getAmount(k), SimulationKernelAIDA.h);
+		
+		ForkJoinPool pool = getPool();
+		int size = comparison.size();
+		InsulinPairResult[] results = new InsulinPairResult[size];
+		int leaf = Math.max(1, (size + pool.getParallelism() - 1) / pool.getParallelism());
+		pool.invoke(new PairTask(comparison, results, 0, size, Math.min(SimulationBatchAIDA.BLOCK_SIZE, leaf)));
+		List<InsulinPairResult> ranking = new ArrayList<InsulinPairResult>(Arrays.asList(results));
+		Collections.sort(ranking);
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + size + " insulin pairs in " + (System.nanoTime() - start) / 1000000L + " ms");
+		return ranking;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#computeRiskGrid(org.openmrs.module.diabetesmanagement.RiskGrid)
+	 * @param grid The patient, regimen and scalings.
+	 * @return The lowest glucose level and time below the threshold of all cells.
+	 */
+	public RiskGridResult computeRiskGrid(RiskGrid grid) {
+		grid.validate();
+		long start = System.nanoTime();
+		String fingerprint = grid.getFingerprint();
+		RiskGridResult result = new RiskGridResult(grid);
+		RiskGridCache cache = RiskGridCache.getShared();
+		int[] missing = cache.get(grid, fingerprint, result);
+		if (missing.length > 0) {
+			ForkJoinPool pool = getPool();
+			pool.invoke(new RiskTask(grid, missing, result, 0, missing.length, getLeafSize(missing.length, pool)));
+			cache.put(grid, fingerprint, result, missing);
+		}
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + missing.length + " of " + result.size() + " risk grid cells in "
+			        + (System.nanoTime() - start) / 1000000L + " ms");
+		return result;
+	}
+	
+	/**
+	 * The nodes are simulated first, then the centres of all cells, whose profiles are compared
+	 * with those interpolated from the nodes. Both are simulated in leaves of at most one batch
+	 * block, which write into shared arrays at the index of the node or cell.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#buildSurrogate(org.openmrs.module.diabetesmanagement.SurrogateGrid)
+	 * @param grid The meal template, insulin types and nodes.
+	 * @return The model.
+	 */
+	public SurrogateModel buildSurrogate(SurrogateGrid grid) {
+		grid.validate();
+		long start = System.nanoTime();
+		int nodes = (int) grid.getNodeCount(), cells = (int) grid.getCellCount();
+		ForkJoinPool pool = getPool();
+		float[] values = new float[nodes * SurrogateGrid.PROFILE_SIZE];
+		pool.invoke(new SurrogateTask(grid, null, values, 0, nodes, getLeafSize(nodes, pool)));
+		float[] errors = new float[cells];
+		pool.invoke(new SurrogateTask(grid, SurrogateModel.create(grid, values, errors), errors, 0, cells, getLeafSize(
+		    cells, pool)));
+		SurrogateModel model = SurrogateModel.create(grid, values, errors);
+		
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + nodes + " surrogate nodes and " + cells + " cell centres in "
+			        + (System.nanoTime() - start) / 1000000L + " ms, largest error " + model.getMaxError() + " mmol/l");
+		return model;
+	}
+	
+	/**
+	 * Searches by coordinate descent on the dose grid: each step simulates all regimens that differ
+	 * from the current one by the step size in one dose, moves to the best, and halves the step
+	 * size when none is better. Doses on the grid let candidates share cached absorption curves and
+	 * insulin trajectories, and regimens visited before are not simulated again.
+	 * 
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#optimizeDoses(org.openmrs.module.diabetesmanagement.DoseOptimization)
+	 * @param optimization The meal plan, insulin pair and constraints.
+	 * @return The best regimen found.
+	 */
+	public DoseRegimen optimizeDoses(DoseOptimization optimization) {
+		optimization.validate();
+		long start = System.nanoTime();
+		ForkJoinPool pool = getPool();
+		int slots = optimization.getInjectionMinutes().length;
+		double increment = optimization.getDoseIncrement();
+		int maxUnits = (int) Math.floor(optimization.getMaxDose() / increment);
+		
+		// Regimens as dose units: the first insulin type's doses, then the second's
+		int[] current = new int[2 * slots];
+		for (int k = 0; k < slots; k++) {
+			current[k] = toUnits(optimization.getDoses1(), k, increment, maxUnits);
+			current[slots + k] = toUnits(optimization.getDoses2(), k, increment, maxUnits);
+		}
+		Map<String, double[]> outcomes = new HashMap<String, double[]>();
+		evaluate(optimization, pool, Arrays.asList(current), outcomes);
+		int step = Math.max(1, (int) Math.round(optimization.getInitialStep() / increment));
+		
+		for (int iteration = 0; iteration < optimization.getMaxIterations(); iteration++) {
+			List<int[]> candidates = new ArrayList<int[]>();
+			for (int k = 0; k < current.length; k++) {
+				for (int sign = -1; sign <= 1; sign += 2) {
+					int units = Math.min(maxUnits, Math.max(0, current[k] + sign * step));
+					if (units != current[k]) {
+						int[] candidate = current.clone();
+						candidate[k] = units;
+						candidates.add(candidate);
+					}
+				}
+			}
+			evaluate(optimization, pool, candidates, outcomes);
+			
+			int[] best = current;
+			for (int[] candidate : candidates)
+				if (isBetter(candidate, best, outcomes, optimization.getMaxMinutesBelow()))
+					best = candidate;
+			if (best != current)
+				current = best;
+			else if (step > 1)
+				step /= 2;
+			else
+				break;
+		}
+		
+		double[] outcome = outcomes.get(Arrays.toString(current));
+		double[] doses1 = new double[slots], doses2 = new double[slots];
+		for (int k = 0; k < slots; k++) {
+			doses1[k] = current[k] * increment;
+			doses2[k] = current[slots + k] * increment;
+		}
+		if (log.isDebugEnabled())
+			log.debug("Simulated " + outcomes.size() + " dose regimens in " + (System.nanoTime() - start) / 1000000L
+			        + " ms");
+		return new DoseRegimen(optimization.getInjectionMinutes().clone(), doses1, doses2, (int) outcome[0],
+		        (int) outcome[1], outcome[1] <= optimization.getMaxMinutesBelow(), outcomes.size());
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#fitParameters(java.util.List)
+	 * @param fits The fits, e.g. one per patient.
+	 * @return The estimates, in the order of the fits.
+	 */
+	public List<ParameterEstimate> fitParameters(List<GlucoseFit> fits) {
+		long start = System.nanoTime();
+		ParameterEstimate[] estimates = new ParameterEstimate[fits.size()];
+		if (!fits.isEmpty())
+			getPool().invoke(new FitTask(fits, estimates, 0, fits.size()));
+		
+		if (log.isDebugEnabled())
+			log.debug("Fitted " + fits.size() + " patients in " + (System.nanoTime() - start) / 1000000L + " ms");
+		return Arrays.asList(estimates);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#samplePosterior(org.openmrs.module.diabetesmanagement.PosteriorSampler)
+	 * @param sampler The sampler.
+	 * @return The posterior summaries of the sampled parameters.
+	 */
+	public List<PosteriorSummary> samplePosterior(PosteriorSampler sampler) {
+		long start = System.nanoTime();
+		PosteriorSampler.Chain[] chains = sampler.createChains();
+		do
+			getPool().invoke(new ChainTask(chains, 0, chains.length, sampler.getRoundLength()));
+		while (!sampler.isConverged(chains) && !sampler.isExhausted(chains));
+		
+		if (log.isDebugEnabled())
+			log.debug("Sampled " + chains.length + " chains of " + chains[0].size() + " iterations in "
+			        + (System.nanoTime() - start) / 1000000L + " ms");
+		return sampler.summarize(chains);
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#getParallelism()
+	 * @return The parallelism.
+	 */
+	public synchronized int getParallelism() {
+		if (parallelism == 0) {
+			// Half of the processors by default, leaving the rest to web requests
+			parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+			try {
+				String value = Context.getAdministrationService().getGlobalProperty(PARALLELISM_PROPERTY, "");
+				if (value.trim().length() > 0)
+					parallelism = Integer.parseInt(value.trim());
+			}
+			catch (Exception e) {
+				log.warn("Invalid or unavailable global property " + PARALLELISM_PROPERTY + ", using " + parallelism
+				        + " threads", e);
+			}
+			if (parallelism < 1) {
+				log.warn("Global property " + PARALLELISM_PROPERTY + " must be positive, using 1 thread");
+				parallelism = 1;
+			}
+		}
+		return parallelism;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#setParallelism(int)
+	 * @param parallelism The parallelism.
+	 */
+	public synchronized void setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		if (pool != null && pool.getParallelism() != parallelism) {
+			pool.shutdown();
+			pool = null;
+		}
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * @see org.openmrs.module.diabetesmanagement.service.SimulationSweepService#shutdown()
+	 */
+	public synchronized void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+	
+	/**
+	 * Converts an initial dose to units of the dose grid.
+	 * 
+	 * @param doses Initial doses, or null.
+	 * @param index Index of the dose.
+	 * @param increment Dose of one unit.
+	 * @param maxUnits Largest number of units.
+	 * @return The number of units.
+	 */
+	private static int toUnits(double[] doses, int index, double increment, int maxUnits) {
+		if (doses == null)
+			return 0;
+		return Math.min(maxUnits, Math.max(0, (int) Math.round(doses[index] / increment)));
+	}
+	
+	/**
+	 * Simulates the regimens without a known outcome in parallel, and stores their outcomes.
+	 * 
+	 * @param optimization The meal plan, insulin pair and constraints.
+	 * @param pool The pool running the simulations.
+	 * @param regimens The regimens in dose units.
+	 * @param outcomes Time outside the target range, time in hypoglycemia and area outside the target
+	 *            range of known regimens.
+	 */
+	private static void evaluate(DoseOptimization optimization, ForkJoinPool pool, List<int[]> regimens,
+	                             Map<String, double[]> outcomes) {
+		List<int[]> pending = new ArrayList<int[]>();
+		for (int[] regimen : regimens)
+			if (!outcomes.containsKey(Arrays.toString(regimen)))
+				pending.add(regimen);
+		if (pending.isEmpty())
+			return;
+		
+		double[][] results = new double[pending.size()][];
+		int leaf = Math.max(1, (pending.size() + pool.getParallelism() - 1) / pool.getParallelism());
+		pool.invoke(new RegimenTask(optimization, pending, results, 0, pending.size(), leaf));
+		for (int k = 0; k < results.length; k++)
+			outcomes.put(Arrays.toString(pending.get(k)), results[k]);
+	}
+	
+	/**
+	 * Compares two simulated regimens: the smaller violation of the hypoglycemia constraint wins,
+	 * then the shorter time outside the target range, then the smaller area outside the range, then
+	 * the smaller total dose.
+	 * 
+	 * @param a A regimen in dose units.
+	 * @param b Another regimen in dose units.
+	 * @param outcomes Outcomes of simulated regimens.
+	 * @param maxMinutesBelow Largest acceptable time in hypoglycemia.
+	 * @return True if 'a' is better than 'b'.
+	 */
+	private static boolean isBetter(int[] a, int[] b, Map<String, double[]> outcomes, int maxMinutesBelow) {
+		double[] outcomeA = outcomes.get(Arrays.toString(a)), outcomeB = outcomes.get(Arrays.toString(b));
+		double violationA = Math.max(0, outcomeA[1] - maxMinutesBelow);
+		double violationB = Math.max(0, outcomeB[1] - maxMinutesBelow);
+		if (violationA != violationB)
+			return violationA < violationB;
+		if (outcomeA[0] != outcomeB[0])
+			return outcomeA[0] < outcomeB[0];
+		if (outcomeA[2] != outcomeB[2])
+			return outcomeA[2] < outcomeB[2];
+		int sumA = 0, sumB = 0;
+		for (int k = 0; k < a.length; k++) {
+			sumA += a[k];
+			sumB += b[k];
+		}
+		return sumA < sumB;
+	}
+	
+	/**
+	 * Calculates the outcomes of {@link TrialResult} from one member's glucose results.
+	 * 
+	 * @param glucose Glucose results of the batch.
+	 * @param offset Index of the member's first value.
+	 * @param count Number of values of the member.
+	 * @param outcomes Receives the {@link TrialResult#OUTCOMES} outcomes.
+	 * @param index Index of the first outcome in 'outcomes'.
+	 */
+	private static void computeOutcomes(double[] glucose, int offset, int count, double[] outcomes, int index) {
+		int below = GlucoseMetrics
+		        .minutesBelow(glucose, offset, count, STEP_MINUTES, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD);
+		int above = GlucoseMetrics.minutesAbove(glucose, offset, count, STEP_MINUTES, GlucoseSummary.TARGET_HIGH);
+		outcomes[index + TrialResult.MEAN_GLUCOSE] = GlucoseMetrics.mean(glucose, offset, count);
+		outcomes[index + TrialResult.TIME_IN_RANGE] = 1.0 - (double) (below + above) / ((count - 1) * STEP_MINUTES);
+		outcomes[index + TrialResult.MINUTES_BELOW] = below;
+		outcomes[index + TrialResult.PEAK_GLUCOSE] = GlucoseMetrics.peak(glucose, offset, count);
+	}
+	
+	/**
+	 * Runs a batch whose members and schedules are set, keeping the glucose results of every step
+	 * of the last day.
+	 * 
+	 * @param batch The batch.
+	 * @param days Number of days to simulate.
+	 * @return The glucose results; those of member m start at m *
+	 *         {@link SimulationBatchAIDA#getResultCount()}.
+	 */
+	private static double[] runBatch(SimulationBatchAIDA batch, int days) {
+		batch.setDays(days);
+		batch.setResultInterval(1);
+		batch.run();
+		return batch.getResultGlucose();
+	}
+	
+	/**
+	 * Size of the leaf tasks: at most one batch block, with a few leaves per thread for load
+	 * balancing.
+	 * 
+	 * @param size Number of simulations.
+	 * @param pool The pool running them.
+	 * @return The number of simulations per leaf.
+	 */
+	private static int getLeafSize(int size, ForkJoinPool pool) {
+		return Math.max(MIN_SPLIT / 2, Math.min(SimulationBatchAIDA.BLOCK_SIZE, size / (4 * pool.getParallelism())));
+	}
+	
+	/**
+	 * Gets the pool, creating it on first use.
+	 * 
+	 * @return The pool.
+	 */
+	private synchronized ForkJoinPool getPool() {
+		if (pool == null)
+			pool = new ForkJoinPool(getParallelism());
+		return pool;
+	}
+	
+	/**
+	 * Simulates a range of parameter combinations, splitting it in halves while it is larger than
+	 * a leaf.
+	 */
+	private static class SweepTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 2874263104151716397L;
+		
+		private final ParameterSweep sweep;
+		
+		private final SweepResult result;
+		
+		private final int from, to, leaf;
+		
+		public SweepTask(ParameterSweep sweep, SweepResult result, int from, int to, int leaf) {
+			this.sweep = sweep;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SweepTask(sweep, result, from, middle, leaf), new SweepTask(sweep, result, middle, to, leaf));
+				return;
+			}
+			
+			InsulinType type1 = sweep.getInsulinType1(), type2 = sweep.getInsulinType2();
+			double[] insulin1 = SimulationBatchAIDA.insulinParameters(type1);
+			double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(to - from);
+			for (int k = from; k < to; k++) {
+				double[] p = sweep.getParameters(k);
+				batch.setMember(k - from, p[0], p[1], p[2], p[3], p[4], insulin1, insulin2, sweep.getG(), sweep.getI(),
+				    sweep.getAG());
+			}
+			batch.setSchedule(sweep.getSchedule());
+			double[] glucose = runBatch(batch, sweep.getDays());
+			int count = batch.getResultCount();
+			for (int k = from; k < to; k++) {
+				int offset = (k - from) * count;
+				result.set(k, GlucoseMetrics.mean(glucose, offset, count), GlucoseMetrics.minutesBelow(glucose, offset,
+				    count, STEP_MINUTES, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD), GlucoseMetrics.peak(glucose, offset,
+				    count));
+			}
+		}
+	}
+	
+	/**
+	 * Simulates a range of ensemble members, splitting it in halves while it is larger than a leaf.
+	 * Each leaf summarizes its members and merges the summary into the shared result.
+	 */
+	private static class EnsembleTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = -6095132377428473540L;
+		
+		private final UncertaintyEnsemble ensemble;
+		
+		private final SplittableRandom[] streams;
+		
+		private final EnsembleResult result;
+		
+		private final int from, to, leaf;
+		
+		public EnsembleTask(UncertaintyEnsemble ensemble, SplittableRandom[] streams, EnsembleResult result, int from,
+		    int to, int leaf) {
+			this.ensemble = ensemble;
+			this.streams = streams;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new EnsembleTask(ensemble, streams, result, from, middle, leaf), new EnsembleTask(ensemble,
+				        streams, result, middle, to, leaf));
+				return;
+			}
+			
+			InsulinType type1 = ensemble.getInsulinType1(), type2 = ensemble.getInsulinType2();
+			double[] insulin1 = SimulationBatchAIDA.insulinParameters(type1);
+			double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(to - from);
+			EventSchedule[] schedules = new EventSchedule[to - from];
+			double[] p = new double[5];
+			for (int m = from; m < to; m++) {
+				schedules[m - from] = ensemble.sample(streams[m], p);
+				batch.setMember(m - from, p[0], p[1], p[2], p[3], p[4], insulin1, insulin2, ensemble.getG(), ensemble
+				        .getI(), ensemble.getAG());
+			}
+			batch.setSchedules(schedules);
+			double[] glucose = runBatch(batch, ensemble.getDays());
+			
+			EnsembleResult partial = new EnsembleResult(result.getInterval());
+			int count = batch.getResultCount();
+			for (int m = 0; m < to - from; m++)
+				partial.add(glucose, m * count, count, STEP_MINUTES);
+			synchronized (result) {
+				result.merge(partial);
+			}
+		}
+	}
+	
+	/**
+	 * Simulates a range of blocks of an {@link InSilicoTrial}'s population under all arms,
+	 * splitting it in halves while it holds more than one block.
+	 */
+	private static class TrialTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 3390451265127784012L;
+		
+		private final InSilicoTrial trial;
+		
+		private final SplittableRandom[] streams;
+		
+		private final TrialResult[] partials;
+		
+		private final int from, to;
+		
+		public TrialTask(InSilicoTrial trial, SplittableRandom[] streams, TrialResult[] partials, int from, int to) {
+			this.trial = trial;
+			this.streams = streams;
+			this.partials = partials;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new TrialTask(trial, streams, partials, from, middle), new TrialTask(trial, streams, partials,
+				        middle, to));
+				return;
+			}
+			
+			// Same parameters in all arms
+			int first = from * SimulationBatchAIDA.BLOCK_SIZE;
+			int size = Math.min(streams.length, first + SimulationBatchAIDA.BLOCK_SIZE) - first;
+			double[][] parameters = new double[size][VirtualPopulation.PARAMETERS];
+			for (int m = 0; m < size; m++)
+				trial.getPopulation().sample(streams[first + m], parameters[m]);
+			
+			List<TrialArm> arms = trial.getArms();
+			double[][] outcomes = new double[size][arms.size() * TrialResult.OUTCOMES];
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(size);
+			for (int a = 0; a < arms.size(); a++) {
+				TrialArm arm = arms.get(a);
+				InsulinType type1 = arm.getInsulinType1(), type2 = arm.getInsulinType2();
+				double[] insulin1 = SimulationBatchAIDA.insulinParameters(type1);
+				double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+				for (int m = 0; m < size; m++) {
+					double[] p = parameters[m];
+					batch.setMember(m, p[0], p[1], p[2], p[3], p[4], insulin1, insulin2, trial.getG(), trial.getI(),
+					    trial.getAG());
+				}
+				batch.setSchedule(arm.getSchedule());
+				double[] glucose = runBatch(batch, trial.getDays());
+				int count = batch.getResultCount();
+				for (int m = 0; m < size; m++)
+					computeOutcomes(glucose, m * count, count, outcomes[m], a * TrialResult.OUTCOMES);
+			}
+			
+			TrialResult partial = new TrialResult(trial.getArmNames());
+			for (int m = 0; m < size; m++)
+				partial.add(outcomes[m]);
+			partials[from] = partial;
+		}
+	}
+	
+	/**
+	 * Simulates a range of runs of a {@link SensitivityAnalysis}, splitting it in halves while it
+	 * is larger than a leaf.
+	 */
+	private static class SensitivityTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 8814260357715938264L;
+		
+		private final SensitivityAnalysis analysis;
+		
+		private final SobolSequence sequence;
+		
+		private final int[] varied;
+		
+		private final double[] outcomes;
+		
+		private final int from, to, leaf;
+		
+		public SensitivityTask(SensitivityAnalysis analysis, SobolSequence sequence, int[] varied, double[] outcomes,
+		    int from, int to, int leaf) {
+			this.analysis = analysis;
+			this.sequence = sequence;
+			this.varied = varied;
+			this.outcomes = outcomes;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SensitivityTask(analysis, sequence, varied, outcomes, from, middle, leaf),
+				    new SensitivityTask(analysis, sequence, varied, outcomes, middle, to, leaf));
+				return;
+			}
+			
+			SensitivityAnalysis a = analysis;
+			InsulinType type2 = a.getInsulinType2();
+			double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+			double[] point = new double[sequence.getDimensions()];
+			double[] p = new double[SensitivityAnalysis.PARAMETERS];
+			boolean insulinVaried = false;
+			for (int k : varied)
+				insulinVaried |= k >= SensitivityAnalysis.INSULIN_S;
+			
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(to - from);
+			for (int r = from; r < to; r++) {
+				a.getParameters(sequence, varied, r, point, p);
+				double[] insulin1 = { p[SensitivityAnalysis.INSULIN_S], p[SensitivityAnalysis.INSULIN_A],
+				        p[SensitivityAnalysis.INSULIN_B] };
+				batch.setMember(r - from, p[SensitivityAnalysis.WEIGHT], p[SensitivityAnalysis.RTG],
+				    p[SensitivityAnalysis.CCR], p[SensitivityAnalysis.SH], p[SensitivityAnalysis.SP], insulin1, insulin2, a
+				            .getG(), a.getI(), a.getAG());
+			}
+			if (insulinVaried)
+				batch.setAbsorptionCache(null);
+			batch.setSchedule(a.getSchedule());
+			double[] glucose = runBatch(batch, a.getDays());
+			int count = batch.getResultCount();
+			for (int r = from; r < to; r++)
+				computeOutcomes(glucose, (r - from) * count, count, outcomes, r * TrialResult.OUTCOMES);
+		}
+	}
+	
+	/**
+	 * Simulates a range of cells of a {@link RiskGrid}, splitting it in halves while it is larger
+	 * than a leaf.
+	 */
+	private static class RiskTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = -4419820655937071530L;
+		
+		private final RiskGrid grid;
+		
+		private final int[] cells;
+		
+		private final RiskGridResult result;
+		
+		private final int from, to, leaf;
+		
+		public RiskTask(RiskGrid grid, int[] cells, RiskGridResult result, int from, int to, int leaf) {
+			this.grid = grid;
+			this.cells = cells;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RiskTask(grid, cells, result, from, middle, leaf), new RiskTask(grid, cells, result,
+				        middle, to, leaf));
+				return;
+			}
+			
+			InsulinType type1 = grid.getInsulinType1(), type2 = grid.getInsulinType2();
+			double[] insulin1 = SimulationBatchAIDA.insulinParameters(type1);
+			double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(to - from);
+			EventSchedule[] schedules = new EventSchedule[to - from];
+			for (int k = from; k < to; k++) {
+				schedules[k - from] = grid.createSchedule(cells[k]);
+				batch.setMember(k - from, grid.getWeight(), grid.getRTG(), grid.getCCR(), grid.getSh(), grid.getSp(),
+				    insulin1, insulin2, grid.getG(), grid.getI(), grid.getAG());
+			}
+			batch.setSchedules(schedules);
+			double[] glucose = runBatch(batch, grid.getDays());
+			int count = batch.getResultCount();
+			for (int k = from; k < to; k++) {
+				int offset = (k - from) * count;
+				result.set(cells[k], GlucoseMetrics.nadir(glucose, offset, count), GlucoseMetrics.minutesBelow(glucose,
+				    offset, count, STEP_MINUTES, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD));
+			}
+		}
+	}
+	
+	/**
+	 * Simulates a range of nodes of a {@link SurrogateGrid}, or of cell centres whose profiles are
+	 * compared with those interpolated by a model of the nodes, splitting it in halves while it is
+	 * larger than a leaf.
+	 */
+	private static class SurrogateTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = -6025932285130398711L;
+		
+		private final SurrogateGrid grid;
+		
+		private final SurrogateModel model;
+		
+		private final float[] results;
+		
+		private final int from, to, leaf;
+		
+		public SurrogateTask(SurrogateGrid grid, SurrogateModel model, float[] results, int from, int to, int leaf) {
+			this.grid = grid;
+			this.model = model;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SurrogateTask(grid, model, results, from, middle, leaf), new SurrogateTask(grid, model,
+				        results, middle, to, leaf));
+				return;
+			}
+			
+			int size = SurrogateGrid.PROFILE_SIZE;
+			double[][] points = new double[to - from][SurrogateGrid.PARAMETERS];
+			for (int k = from; k < to; k++) {
+				if (model == null)
+					grid.getNode(k, points[k - from]);
+				else
+					grid.getCellCenter(k, points[k - from]);
+			}
+			double[] profiles = new double[points.length * size];
+			grid.simulate(points, profiles);
+			
+			if (model == null) {
+				for (int i = 0; i < profiles.length; i++)
+					results[from * size + i] = (float) profiles[i];
+				return;
+			}
+			double[] interpolated = new double[size];
+			for (int k = from; k < to; k++) {
+				model.interpolate(points[k - from], interpolated);
+				double error = 0.0;
+				for (int i = 0; i < size; i++)
+					error = Math.max(error, Math.abs(interpolated[i] - profiles[(k - from) * size + i]));
+				results[k] = (float) error;
+			}
+		}
+	}
+	
+	/**
+	 * Simulates a range of insulin pairs of an {@link InsulinComparison}, splitting it in halves
+	 * while it is larger than a leaf. Pair k combines the types at indexes k / n and k % n.
+	 */
+	private static class PairTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 7126093548812207361L;
+		
+		private final InsulinComparison comparison;
+		
+		private final InsulinPairResult[] results;
+		
+		private final int from, to, leaf;
+		
+		public PairTask(InsulinComparison comparison, InsulinPairResult[] results, int from, int to, int leaf) {
+			this.comparison = comparison;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new PairTask(comparison, results, from, middle, leaf), new PairTask(comparison, results,
+				        middle, to, leaf));
+				return;
+			}
+			
+			InsulinComparison c = comparison;
+			List<InsulinType> types = c.getInsulinTypes();
+			int n = types.size();
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(to - from);
+			for (int k = from; k < to; k++) {
+				InsulinType type1 = types.get(k / n), type2 = types.get(k % n);
+				double[] insulin1 = SimulationBatchAIDA.insulinParameters(type1);
+				double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+				batch.setMember(k - from, c.getWeight(), c.getRTG(), c.getCCR(), c.getSh(), c.getSp(), insulin1,
+				    insulin2, c.getG(), c.getI(), c.getAG());
+			}
+			batch.setSchedule(c.getSchedule());
+			double[] glucose = runBatch(batch, c.getDays());
+			int count = batch.getResultCount();
+			for (int k = from; k < to; k++) {
+				int offset = (k - from) * count;
+				int below = GlucoseMetrics.minutesBelow(glucose, offset, count, STEP_MINUTES,
+				    GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD);
+				int outside = GlucoseMetrics.minutesBelow(glucose, offset, count, STEP_MINUTES, c.getTargetLow())
+				        + GlucoseMetrics.minutesAbove(glucose, offset, count, STEP_MINUTES, c.getTargetHigh());
+				double area = GlucoseMetrics.areaOutside(glucose, offset, count, STEP_MINUTES, c.getTargetLow(), c
+				        .getTargetHigh());
+				results[k] = new InsulinPairResult(types.get(k / n), types.get(k % n), GlucoseMetrics.mean(glucose,
+				    offset, count), GlucoseMetrics.peak(glucose, offset, count), below, outside, area, 1.0
+				        - (double) outside / ((count - 1) * STEP_MINUTES));
+			}
+		}
+	}
+	
+	/**
+	 * Simulates a range of dose regimens of a {@link DoseOptimization}, splitting it in halves
+	 * while it is larger than a leaf.
+	 */
+	private static class RegimenTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 5308163720915324870L;
+		
+		private final DoseOptimization optimization;
+		
+		private final List<int[]> regimens;
+		
+		private final double[][] results;
+		
+		private final int from, to, leaf;
+		
+		public RegimenTask(DoseOptimization optimization, List<int[]> regimens, double[][] results, int from, int to,
+		    int leaf) {
+			this.optimization = optimization;
+			this.regimens = regimens;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.leaf = leaf;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > leaf) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RegimenTask(optimization, regimens, results, from, middle, leaf), new RegimenTask(
+				        optimization, regimens, results, middle, to, leaf));
+				return;
+			}
+			
+			DoseOptimization o = optimization;
+			InsulinType type1 = o.getInsulinType1(), type2 = o.getInsulinType2();
+			double[] insulin1 = SimulationBatchAIDA.insulinParameters(type1);
+			double[] insulin2 = SimulationBatchAIDA.insulinParameters(type2);
+			int slots = o.getInjectionMinutes().length;
+			SimulationBatchAIDA batch = new SimulationBatchAIDA(to - from);
+			EventSchedule[] schedules = new EventSchedule[to - from];
+			for (int k = from; k < to; k++) {
+				int[] regimen = regimens.get(k);
+				double[] doses1 = new double[slots], doses2 = new double[slots];
+				for (int j = 0; j < slots; j++) {
+					doses1[j] = regimen[j] * o.getDoseIncrement();
+					doses2[j] = regimen[slots + j] * o.getDoseIncrement();
+				}
+				schedules[k - from] = o.createSchedule(doses1, doses2);
+				batch.setMember(k - from, o.getWeight(), o.getRTG(), o.getCCR(), o.getSh(), o.getSp(), insulin1,
+				    insulin2, o.getG(), o.getI(), o.getAG());
+			}
+			batch.setSchedules(schedules);
+			double[] glucose = runBatch(batch, o.getDays());
+			int count = batch.getResultCount();
+			for (int k = from; k < to; k++) {
+				int offset = (k - from) * count;
+				int outside = GlucoseMetrics.minutesBelow(glucose, offset, count, STEP_MINUTES, o.getTargetLow())
+				        + GlucoseMetrics.minutesAbove(glucose, offset, count, STEP_MINUTES, o.getTargetHigh());
+				int below = GlucoseMetrics.minutesBelow(glucose, offset, count, STEP_MINUTES,
+				    GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD);
+				double area = GlucoseMetrics.areaOutside(glucose, offset, count, STEP_MINUTES, o.getTargetLow(), o
+				        .getTargetHigh());
+				results[k] = new double[] { outside, below, area };
+			}
+		}
+	}
+	
+	/**
+	 * Advances a range of chains by one round, splitting it in halves down to single chains.
+	 */
+	private static class ChainTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 6170427731942135863L;
+		
+		private final PosteriorSampler.Chain[] chains;
+		
+		private final int from, to, iterations;
+		
+		public ChainTask(PosteriorSampler.Chain[] chains, int from, int to, int iterations) {
+			this.chains = chains;
+			this.from = from;
+			this.to = to;
+			this.iterations = iterations;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChainTask(chains, from, middle, iterations), new ChainTask(chains, middle, to, iterations));
+				return;
+			}
+			chains[from].advance(iterations);
+		}
+	}
+	
+	/**
+	 * Runs a range of fits, splitting it in halves down to single fits.
+	 */
+	private static class FitTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = -3392046213905521584L;
+		
+		private final List<GlucoseFit> fits;
+		
+		private final ParameterEstimate[] estimates;
+		
+		private final int from, to;
+		
+		public FitTask(List<GlucoseFit> fits, ParameterEstimate[] estimates, int from, int to) {
+			this.fits = fits;
+			this.estimates = estimates;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new FitTask(fits, estimates, from, middle), new FitTask(fits, estimates, middle, to));
+				return;
+			}
+			estimates[from] = fits.get(from).fit();
+		}
+	}
+}
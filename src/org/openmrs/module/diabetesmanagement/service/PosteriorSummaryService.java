@@ -0,0 +1,66 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.service;
+
+import java.util.List;
+
+import org.openmrs.Person;
+import org.openmrs.annotation.Authorized;
+import org.openmrs.module.diabetesmanagement.PosteriorSummary;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * PosteriorSummary-related services.
+ */
+@Transactional
+public interface PosteriorSummaryService {
+	
+	/**
+	 * Saves the PosteriorSummaries of a Person, replacing the ones saved before.
+	 * 
+	 * @param person The Person.
+	 * @param posteriorSummaries The PosteriorSummaries to save.
+	 * @return The saved PosteriorSummaries.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public List<PosteriorSummary> savePosteriorSummaries(Person person, List<PosteriorSummary> posteriorSummaries);
+	
+	/**
+	 * Gets the PosteriorSummaries of a Person.
+	 * 
+	 * @param person The Person.
+	 * @return All PosteriorSummaries of the given Person.
+	 */
+	@Transactional(readOnly = true)
+	public List<PosteriorSummary> getPosteriorSummaries(Person person);
+	
+	/**
+	 * Gets the PosteriorSummary of a parameter of a Person.
+	 * 
+	 * @param person The Person.
+	 * @param parameter The parameter name.
+	 * @return The PosteriorSummary, or null if there is none.
+	 */
+	@Transactional(readOnly = true)
+	public PosteriorSummary getPosteriorSummary(Person person, String parameter);
+	
+	/**
+	 * Purges PosteriorSummary.
+	 * 
+	 * @param posteriorSummary The PosteriorSummary to purge.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public void purgePosteriorSummary(PosteriorSummary posteriorSummary);
+
+}
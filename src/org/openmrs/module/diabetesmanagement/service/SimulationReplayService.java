@@ -0,0 +1,93 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.service;
+
+import java.util.Date;
+import java.util.List;
+
+import org.openmrs.Concept;
+import org.openmrs.Person;
+import org.openmrs.annotation.Authorized;
+import org.openmrs.module.diabetesmanagement.GlucoseOverlay;
+import org.openmrs.module.diabetesmanagement.InsulinType;
+import org.openmrs.module.diabetesmanagement.ResultSink;
+import org.openmrs.module.diabetesmanagement.SimulationModelAIDA;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Services for replaying a patient's recorded meals and insulin injections with the simulation
+ * model.
+ */
+@Transactional
+public interface SimulationReplayService {
+	
+	/** Number of observations read per page. */
+	public static final int PAGE_SIZE = 1000;
+	
+	/**
+	 * Gets a page of a Person's numeric observations of the given Concepts in ascending order of
+	 * their date/time and ID, continuing after the last observation of the previous page.
+	 * 
+	 * @param person The Person.
+	 * @param concepts The Concepts of the observations.
+	 * @param from Start of the period (inclusive).
+	 * @param to End of the period (exclusive).
+	 * @param afterDatetime Date/time of the last observation of the previous page, or null for the
+	 *            first page.
+	 * @param afterObsId ID of the last observation of the previous page, or null for the first page.
+	 * @param maxResults Maximum number of observations.
+	 * @return Rows of observation ID (Integer), date/time (Date), concept ID (Integer) and numeric
+	 *         value (Double, possibly null).
+	 */
+	@Transactional(readOnly = true)
+	@Authorized( { "View Observations" })
+	public List<Object[]> getObservationPage(Person person, List<Concept> concepts, Date from, Date to,
+	                                         Date afterDatetime, Integer afterObsId, int maxResults);
+	
+	/**
+	 * Simulates a period of a patient's life: the model is driven by the recorded carbohydrate
+	 * intake and the doses of the two insulin types (observations of their concepts), integrating
+	 * continuously across day boundaries, and the simulated glucose levels are compared with the
+	 * recorded blood glucose observations. Observations are read page by page, and the results are
+	 * passed on day by day, so the memory used does not depend on the length of the period.
+	 * 
+	 * @param person The patient.
+	 * @param model Model with the patient's parameters and initial state; its insulin parameters are
+	 *            taken from the insulin types.
+	 * @param insulin1 First insulin type.
+	 * @param insulin2 Second insulin type.
+	 * @param from Start of the period; the simulation starts at midnight before.
+	 * @param to End of the period; the simulation ends at the following midnight.
+	 * @param sink Receiver of the simulated results of each day, or null.
+	 * @return The comparison with the recorded blood glucose observations.
+	 */
+	@Transactional(readOnly = true)
+	@Authorized( { "Run Diabetes Simulations" })
+	public GlucoseOverlay replay(Person person, SimulationModelAIDA model, InsulinType insulin1, InsulinType insulin2,
+	                             Date from, Date to, ResultSink sink);
+	
+	/**
+	 * Gets a page of the IDs of patients with an open (not closed and not voided) problem of one of
+	 * the given Concepts, e.g. diabetes mellitus type 1 and 2, in ascending order, continuing after
+	 * the last ID of the previous page.
+	 * 
+	 * @param concepts The Concepts of the problems.
+	 * @param afterPatientId Last patient ID of the previous page, or null for the first page.
+	 * @param maxResults Maximum number of patient IDs.
+	 * @return The patient IDs.
+	 */
+	@Transactional(readOnly = true)
+	@Authorized( { "View Problems" })
+	public List<Integer> getPatientIdsWithOpenProblems(List<Concept> concepts, Integer afterPatientId, int maxResults);
+}
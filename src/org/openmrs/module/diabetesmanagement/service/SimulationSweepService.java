@@ -0,0 +1,172 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement.service;
+
+import java.util.List;
+
+import org.openmrs.annotation.Authorized;
+import org.openmrs.module.diabetesmanagement.DoseOptimization;
+import org.openmrs.module.diabetesmanagement.DoseRegimen;
+import org.openmrs.module.diabetesmanagement.EnsembleResult;
+import org.openmrs.module.diabetesmanagement.GlucoseFit;
+import org.openmrs.module.diabetesmanagement.InSilicoTrial;
+import org.openmrs.module.diabetesmanagement.InsulinComparison;
+import org.openmrs.module.diabetesmanagement.InsulinPairResult;
+import org.openmrs.module.diabetesmanagement.ParameterEstimate;
+import org.openmrs.module.diabetesmanagement.ParameterSweep;
+import org.openmrs.module.diabetesmanagement.PosteriorSampler;
+import org.openmrs.module.diabetesmanagement.PosteriorSummary;
+import org.openmrs.module.diabetesmanagement.RiskGrid;
+import org.openmrs.module.diabetesmanagement.RiskGridResult;
+import org.openmrs.module.diabetesmanagement.SensitivityAnalysis;
+import org.openmrs.module.diabetesmanagement.SensitivityResult;
+import org.openmrs.module.diabetesmanagement.SurrogateGrid;
+import org.openmrs.module.diabetesmanagement.SurrogateModel;
+import org.openmrs.module.diabetesmanagement.SweepResult;
+import org.openmrs.module.diabetesmanagement.TrialResult;
+import org.openmrs.module.diabetesmanagement.UncertaintyEnsemble;
+
+/**
+ * Services for simulating many parameter combinations in parallel.
+ */
+public interface SimulationSweepService {
+	
+	/**
+	 * Simulates all parameter combinations of a sweep in parallel, and calculates the outcome
+	 * metrics of each combination.
+	 * 
+	 * @param sweep The grid of parameters.
+	 * @return The metrics of all combinations.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public SweepResult runSweep(ParameterSweep sweep);
+	
+	/**
+	 * Simulates all members of a Monte Carlo ensemble in parallel, and summarizes their glucose
+	 * results of the last day in percentile bands and hypoglycemia probabilities. The result only
+	 * depends on the ensemble, not on the parallelism.
+	 * 
+	 * @param ensemble The ensemble.
+	 * @return The summary of all members.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public EnsembleResult runEnsemble(UncertaintyEnsemble ensemble);
+	
+	/**
+	 * Simulates every member of a virtual population under every arm of an in-silico trial in
+	 * parallel, and summarizes the outcomes of the last day per arm and as paired differences to
+	 * the reference arm. Members are simulated in blocks whose results are discarded once their
+	 * outcomes are added, so the memory used does not depend on the size of the population; the
+	 * result only depends on the trial, not on the parallelism.
+	 * 
+	 * @param trial The trial.
+	 * @return The summary of all members and arms.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public TrialResult runTrial(InSilicoTrial trial);
+	
+	/**
+	 * Estimates how much of the variance of each outcome is caused by each parameter (Sobol
+	 * indices), simulating the runs of the quasi-random sample in parallel batches. The result only
+	 * depends on the analysis, not on the parallelism.
+	 * 
+	 * @param analysis The parameter ranges, regimen and sample size.
+	 * @return The first-order and total indices of all parameters and outcomes.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public SensitivityResult analyzeSensitivity(SensitivityAnalysis analysis);
+	
+	/**
+	 * Simulates every ordered pair of insulin types of a comparison in parallel, giving the same
+	 * doses at the same times, and ranks the pairs by their outcome on the last day.
+	 * 
+	 * @param comparison The patient, schedule and insulin types.
+	 * @return The outcomes of all pairs, best first.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public List<InsulinPairResult> compareInsulinTypes(InsulinComparison comparison);
+	
+	/**
+	 * Calculates the hypoglycemia risk of every cell of a grid of dose and carbohydrate scalings.
+	 * Cells of earlier grids with the same inputs and scalings are taken from a cache; the others
+	 * are simulated in parallel.
+	 * 
+	 * @param grid The patient, regimen and scalings.
+	 * @return The lowest glucose level and time below the threshold of all cells.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public RiskGridResult computeRiskGrid(RiskGrid grid);
+	
+	/**
+	 * Builds the surrogate model of a meal template by simulating all nodes of the grid and the
+	 * centres of all cells in parallel batches. The model only depends on the grid, not on the
+	 * parallelism.
+	 * 
+	 * @param grid The meal template, insulin types and nodes.
+	 * @return The model, with the error estimates of all cells.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public SurrogateModel buildSurrogate(SurrogateGrid grid);
+	
+	/**
+	 * Searches the insulin doses that minimize the time outside the target range, keeping the time
+	 * in hypoglycemia acceptable. The candidate regimens of each search step are simulated in
+	 * parallel.
+	 * 
+	 * @param optimization The meal plan, insulin pair and constraints.
+	 * @return The best regimen found.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public DoseRegimen optimizeDoses(DoseOptimization optimization);
+	
+	/**
+	 * Fits patient parameters to observed glucose levels, running the fits in parallel.
+	 * 
+	 * @param fits The fits, e.g. one per patient.
+	 * @return The estimates, in the order of the fits.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public List<ParameterEstimate> fitParameters(List<GlucoseFit> fits);
+	
+	/**
+	 * Samples the posterior of patient parameters, running the chains in parallel until they have
+	 * converged or reached the largest number of iterations.
+	 * 
+	 * @param sampler The sampler.
+	 * @return The posterior summaries of the sampled parameters.
+	 */
+	@Authorized( { "Run Diabetes Simulations" })
+	public List<PosteriorSummary> samplePosterior(PosteriorSampler sampler);
+	
+	/**
+	 * Gets the maximum number of threads used for sweeps.
+	 * 
+	 * @return The parallelism.
+	 */
+	public int getParallelism();
+	
+	/**
+	 * Sets the maximum number of threads used for sweeps, so sweeps do not starve other requests.
+	 * 
+	 * @param parallelism The parallelism.
+	 */
+	public void setParallelism(int parallelism);
+	
+	/**
+	 * Shuts the threads used for sweeps down, e.g. when the module is stopped. A later sweep starts
+	 * new threads.
+	 */
+	public void shutdown();
+
+}
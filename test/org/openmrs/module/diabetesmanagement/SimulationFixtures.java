@@ -0,0 +1,54 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+/**
+ * Fixtures shared by the tests of this package.
+ */
+final class SimulationFixtures {
+	
+	/** Utility class, not instantiated. */
+	private SimulationFixtures() {
+	}
+	
+	/**
+	 * Creates an insulin type with the given parameters.
+	 * 
+	 * @param s Parameter s.
+	 * @param a Parameter a.
+	 * @param b Parameter b.
+	 * @return The insulin type.
+	 */
+	static InsulinType createInsulinType(double s, double a, double b) {
+		return createInsulinType(null, s, a, b);
+	}
+	
+	/**
+	 * Creates a named insulin type with the given parameters.
+	 * 
+	 * @param name Name of the type.
+	 * @param s Parameter s.
+	 * @param a Parameter a.
+	 * @param b Parameter b.
+	 * @return The insulin type.
+	 */
+	static InsulinType createInsulinType(String name, double s, double a, double b) {
+		InsulinType type = new InsulinType();
+		type.setName(name);
+		type.setParameterS(s);
+		type.setParameterA(a);
+		type.setParameterB(b);
+		return type;
+	}
+}
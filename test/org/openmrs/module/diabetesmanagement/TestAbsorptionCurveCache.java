@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.AbsorptionCurveCache} class.
+ */
+public class TestAbsorptionCurveCache {
+	
+	/**
+	 * Should sample exactly the absorption rates of equation (3).
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldSampleAbsorptionRates() throws Exception {
+		AbsorptionCurveCache cache = new AbsorptionCurveCache(4);
+		double[] curve = cache.getCurve(2.0, 0.05, 1.7, 6.0, SimulationKernelAIDA.h);
+		
+		assertEquals(AbsorptionCurveCache.CURVE_LENGTH, curve.length);
+		assertEquals(0.0, curve[0], 0.0);
+		for (int k = 1; k < curve.length; k += 97)
+			assertEquals(AbsorptionCurveCache.absorptionRate(2.0, 0.05 * 6.0 + 1.7, 6.0, k * SimulationKernelAIDA.h),
+			    curve[k], 0.0);
+	}
+	
+	/**
+	 * Should reuse cached curves and evict the least recently used one.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldEvictLeastRecentlyUsedCurve() throws Exception {
+		AbsorptionCurveCache cache = new AbsorptionCurveCache(2);
+		double[] curve4 = cache.getCurve(2.0, 0.05, 1.7, 4.0, SimulationKernelAIDA.h);
+		double[] curve6 = cache.getCurve(2.0, 0.05, 1.7, 6.0, SimulationKernelAIDA.h);
+		assertSame(curve4, cache.getCurve(2.0, 0.05, 1.7, 4.0, SimulationKernelAIDA.h));
+		cache.getCurve(2.0, 0.05, 1.7, 8.0, SimulationKernelAIDA.h);
+		
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertSame(curve4, cache.getCurve(2.0, 0.05, 1.7, 4.0, SimulationKernelAIDA.h));
+		assertEquals(false, curve6 == cache.getCurve(2.0, 0.05, 1.7, 6.0, SimulationKernelAIDA.h));
+	}
+	
+	/**
+	 * Should produce the same kernel results with and without the cache.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldNotChangeKernelResults() throws Exception {
+		double[][] results = new double[2][];
+		for (int k = 0; k < 2; k++) {
+			SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+			kernel.setPatient(80.0, 9.0, 100.0, 0.5, 0.5);
+			kernel.setInsulin1(2.0, 0.05, 1.7);
+			kernel.setInsulin2(2.0, 0.05, 12.0);
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			EventSchedule schedule = new EventSchedule();
+			schedule.addMeal(8 * 60, 80.0);
+			schedule.addInsulinInjection1(8 * 60, 6.0);
+			schedule.addInsulinInjection1(18 * 60, 4.0);
+			schedule.addInsulinInjection2(22 * 60, 12.0);
+			kernel.setSchedule(schedule);
+			kernel.setAbsorptionCache(k == 0 ? null : new AbsorptionCurveCache(4));
+			kernel.run();
+			results[k] = Arrays.copyOf(kernel.getResultInsulin(), kernel.getResultCount());
+		}
+		assertArrayEquals(results[0], results[1], 0.0);
+	}
+}
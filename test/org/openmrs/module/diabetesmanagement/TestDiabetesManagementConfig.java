@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+import org.openmrs.Obs;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.DiabetesManagementConfig} class.
+ */
+public class TestDiabetesManagementConfig {
+	
+	/**
+	 * Should return the obs with the latest date, whether the list is sorted newest first, as the
+	 * ObsService returns it, or oldest first.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldReturnLastObsInAnyOrder() throws Exception {
+		Obs older = new Obs();
+		older.setObsDatetime(new Date(1000000L));
+		older.setValueNumeric(0.4);
+		Obs newer = new Obs();
+		newer.setObsDatetime(new Date(2000000L));
+		newer.setValueNumeric(0.6);
+		
+		assertSame(newer, DiabetesManagementConfig.getLastObs(Arrays.asList(newer, older)));
+		assertSame(newer, DiabetesManagementConfig.getLastObs(Arrays.asList(older, newer)));
+		assertNull(DiabetesManagementConfig.getLastObs(new ArrayList<Obs>()));
+		assertNull(DiabetesManagementConfig.getLastObs(null));
+	}
+}
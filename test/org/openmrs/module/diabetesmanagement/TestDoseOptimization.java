@@ -0,0 +1,94 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.DoseOptimization} class.
+ */
+public class TestDoseOptimization {
+	
+	/**
+	 * Simulates a regimen with a single kernel.
+	 * 
+	 * @param optimization The optimization.
+	 * @param doses1 Doses of the first insulin type.
+	 * @param doses2 Doses of the second insulin type.
+	 * @return Time outside the target range and time in hypoglycemia.
+	 */
+	private int[] simulate(DoseOptimization optimization, double[] doses1, double[] doses2) {
+		SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+		kernel.setPatient(80.0, 9.0, 100.0, 2.0, 0.5);
+		kernel.setInsulin1(2.0, 0.05, 1.7);
+		kernel.setInsulin2(2.0, 0.05, 12.0);
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setSchedule(optimization.createSchedule(doses1, doses2));
+		kernel.setResultInterval(1);
+		kernel.run();
+		double[] glucose = kernel.getResultGlucose();
+		int count = kernel.getResultCount();
+		return new int[] {
+		        GlucoseMetrics.minutesBelow(glucose, 0, count, 1, optimization.getTargetLow())
+		                + GlucoseMetrics.minutesAbove(glucose, 0, count, 1, optimization.getTargetHigh()),
+		        GlucoseMetrics.minutesBelow(glucose, 0, count, 1, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD) };
+	}
+	
+	/**
+	 * Should find a feasible regimen on the dose grid that is at least as good as the initial one,
+	 * with the outcome of a single simulation of that regimen.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldImproveInitialRegimen() throws Exception {
+		EventSchedule meals = new EventSchedule();
+		meals.addMeal(8 * 60, 80.0);
+		meals.addMeal(12 * 60, 70.0);
+		meals.addMeal(19 * 60, 60.0);
+		
+		DoseOptimization optimization = new DoseOptimization();
+		optimization.setWeight(80.0);
+		optimization.setRTG(9.0);
+		optimization.setCCR(100.0);
+		optimization.setSh(2.0);
+		optimization.setSp(0.5);
+		optimization.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		optimization.setInsulinType2(createInsulinType(2.0, 0.05, 12.0));
+		optimization.setMeals(meals);
+		optimization.setInjectionMinutes(8 * 60, 12 * 60, 19 * 60, 22 * 60);
+		optimization.setDoses1(6.0, 0.0, 0.0, 0.0);
+		optimization.setDoses2(0.0, 0.0, 0.0, 12.0);
+		
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		DoseRegimen regimen = service.optimizeDoses(optimization);
+		
+		int[] initial = simulate(optimization, optimization.getDoses1(), optimization.getDoses2());
+		int[] optimized = simulate(optimization, regimen.getDoses1(), regimen.getDoses2());
+		assertTrue(regimen.isFeasible());
+		assertEquals(optimized[0], regimen.getMinutesOutside());
+		assertEquals(optimized[1], regimen.getMinutesBelow());
+		assertTrue(optimized[0] < initial[0]);
+		for (int k = 0; k < 4; k++) {
+			assertEquals(0.0, regimen.getDoses1()[k] % optimization.getDoseIncrement(), 0.0);
+			assertTrue(regimen.getDoses2()[k] <= optimization.getMaxDose());
+		}
+	}
+}
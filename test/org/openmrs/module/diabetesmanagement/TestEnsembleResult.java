@@ -0,0 +1,72 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.EnsembleResult} class.
+ */
+public class TestEnsembleResult {
+	
+	/**
+	 * Should estimate percentiles within one bin width of the exact values, and give the same counts
+	 * when partial results are merged.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldEstimatePercentiles() throws Exception {
+		Random random = new Random(42L);
+		int members = 500;
+		double[] glucose = new double[members * 1441];
+		for (int k = 0; k < glucose.length; k++)
+			glucose[k] = 7.0 + 2.5 * random.nextGaussian();
+		
+		EnsembleResult whole = new EnsembleResult(60);
+		EnsembleResult first = new EnsembleResult(60);
+		EnsembleResult second = new EnsembleResult(60);
+		for (int m = 0; m < members; m++) {
+			whole.add(glucose, m * 1441, 1441, 1);
+			(m < members / 3 ? first : second).add(glucose, m * 1441, 1441, 1);
+		}
+		second.merge(first);
+		
+		assertEquals(members, second.getMembers());
+		assertEquals(25, whole.getPointCount());
+		for (int point = 0; point < whole.getPointCount(); point++) {
+			double[] values = new double[members];
+			int below = 0;
+			for (int m = 0; m < members; m++) {
+				values[m] = glucose[m * 1441 + point * 60];
+				if (values[m] < GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD)
+					below++;
+			}
+			Arrays.sort(values);
+			for (double p : EnsembleResult.PERCENTILES) {
+				double exact = values[(int) Math.ceil(p / 100.0 * members) - 1];
+				assertEquals(exact, whole.getPercentile(p, point), EnsembleResult.BIN_WIDTH);
+				assertEquals(whole.getPercentile(p, point), second.getPercentile(p, point), 0.0);
+			}
+			assertEquals((double) below / members, whole.getHypoglycemiaProbability(point), 0.0);
+		}
+		assertEquals(whole.getHypoglycemiaProbability(), second.getHypoglycemiaProbability(), 0.0);
+		assertEquals(whole.getMeanMinutesBelow(), second.getMeanMinutesBelow(), 1e-9);
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.EventSchedule} class.
+ */
+public class TestEventSchedule {
+	
+	/**
+	 * Should keep events sorted by minute and in insertion order within the same minute.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldKeepEventsSorted() throws Exception {
+		EventSchedule schedule = new EventSchedule();
+		for (int k = 0; k < 20; k++)
+			schedule.addMeal(1200 - k * 60, k);
+		schedule.addInsulinInjection1(480, 4.0);
+		schedule.addInsulinInjection2(480, 12.0);
+		
+		assertEquals(22, schedule.size());
+		for (int k = 1; k < schedule.size(); k++)
+			assertEquals(true, schedule.getMinute(k - 1) <= schedule.getMinute(k));
+		int index = 0;
+		while (schedule.getMinute(index) != 480)
+			index++;
+		assertEquals(EventSchedule.MEAL, schedule.getType(index));
+		assertEquals(EventSchedule.INSULIN_1, schedule.getType(index + 1));
+		assertEquals(EventSchedule.INSULIN_2, schedule.getType(index + 2));
+		assertEquals(12.0, schedule.getAmount(index + 2), 0.0);
+	}
+	
+	/**
+	 * Should convert date-keyed events of the given day into minute offsets.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldConvertMapsOfTheGivenDay() throws Exception {
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.HOUR_OF_DAY, 8);
+		cal.set(Calendar.MINUTE, 30);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		Date today = cal.getTime();
+		cal.add(Calendar.DAY_OF_MONTH, 1);
+		Date tomorrow = cal.getTime();
+		
+		Map<Date, Double> meals = new HashMap<Date, Double>();
+		meals.put(today, 60.0);
+		meals.put(tomorrow, 80.0);
+		EventSchedule schedule = EventSchedule.fromMaps(meals, null, null, today);
+		
+		assertEquals(1, schedule.size());
+		assertEquals(8 * 60 + 30, schedule.getMinute(0));
+		assertEquals(60.0, schedule.getAmount(0), 0.0);
+	}
+	
+	/**
+	 * Should stream daily schedules in turn with minute offsets from the first midnight.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldStreamDailySchedulesInTurn() throws Exception {
+		EventSchedule weekday = new EventSchedule();
+		weekday.addMeal(7 * 60, 60.0);
+		weekday.addInsulinInjection1(7 * 60, 4.0);
+		weekday.addMeal(24 * 60, 10.0);
+		EventStream stream = new DailyEventStream(3, weekday, null);
+		
+		assertEquals(true, stream.next());
+		assertEquals(7 * 60, stream.getMinute());
+		assertEquals(true, stream.next());
+		assertEquals(EventSchedule.INSULIN_1, stream.getType());
+		assertEquals(true, stream.next());
+		assertEquals(2 * 24 * 60 + 7 * 60, stream.getMinute());
+		assertEquals(60.0, stream.getAmount(), 0.0);
+		assertEquals(true, stream.next());
+		assertEquals(false, stream.next());
+		assertEquals(false, stream.next());
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.GlucoseFit} class.
+ */
+public class TestGlucoseFit {
+	
+	/** Observation times: every two hours. */
+	private static final int[] MINUTES = { 0, 120, 240, 360, 480, 540, 600, 720, 780, 840, 960, 1080, 1140, 1200, 1320 };
+	
+	/**
+	 * Creates a fit for a patient with three meals and two injections.
+	 * 
+	 * @return The fit, without observations.
+	 */
+	private GlucoseFit createFit() {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 20.0);
+		schedule.addInsulinInjection1(19 * 60, 12.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		
+		GlucoseFit fit = new GlucoseFit();
+		fit.setWeight(80.0);
+		fit.setCCR(100.0);
+		fit.setRTG(9.0);
+		fit.setSh(1.0);
+		fit.setSp(0.5);
+		fit.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		fit.setInsulinType2(createInsulinType(2.0, 0.18, 4.9));
+		fit.setSchedule(schedule);
+		return fit;
+	}
+	
+	/**
+	 * Should compute the same derivatives as central finite differences.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchFiniteDifferences() throws Exception {
+		GlucoseFit fit = createFit();
+		fit.setObservations(MINUTES, new double[MINUTES.length]);
+		DualNumber[] g = fit.simulate(1.7, 0.5, 9.0);
+		double e = 1e-6;
+		DualNumber[] shUp = fit.simulate(1.7 + e, 0.5, 9.0), shDown = fit.simulate(1.7 - e, 0.5, 9.0);
+		DualNumber[] rtgUp = fit.simulate(1.7, 0.5, 9.0 + e), rtgDown = fit.simulate(1.7, 0.5, 9.0 - e);
+		boolean sensitive = false;
+		for (int k = 0; k < MINUTES.length; k++) {
+			double dsh = (shUp[k].getValue() - shDown[k].getValue()) / (2 * e);
+			double drtg = (rtgUp[k].getValue() - rtgDown[k].getValue()) / (2 * e);
+			assertEquals(dsh, g[k].getDerivative(GlucoseFit.SH), 1e-4 * (1.0 + Math.abs(dsh)));
+			assertEquals(drtg, g[k].getDerivative(GlucoseFit.RTG_INDEX), 1e-4 * (1.0 + Math.abs(drtg)));
+			assertEquals(0.0, g[k].getDerivative(GlucoseFit.SP), 0.0);
+			sensitive |= g[k].getDerivative(GlucoseFit.SH) != 0.0;
+		}
+		assertTrue(sensitive);
+	}
+	
+	/**
+	 * Should recover sh and RTG from observations simulated with known values, and leave sp alone as
+	 * it has no influence on the glucose level.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldRecoverParameters() throws Exception {
+		GlucoseFit fit = createFit();
+		fit.setObservations(MINUTES, new double[MINUTES.length]);
+		DualNumber[] truth = fit.simulate(1.6, 0.5, 8.0);
+		double[] observed = new double[MINUTES.length];
+		for (int k = 0; k < observed.length; k++)
+			observed[k] = truth[k].getValue();
+		fit.setObservations(MINUTES, observed);
+		fit.setFitRTG(true);
+		
+		ParameterEstimate estimate = fit.fit();
+		
+		assertTrue(estimate.isShFitted());
+		assertTrue(estimate.isRTGFitted());
+		assertFalse(estimate.isSpFitted());
+		assertEquals(1.6, estimate.getSh(), 1e-3);
+		assertEquals(8.0, estimate.getRTG(), 1e-2);
+		assertEquals(0.5, estimate.getSp(), 0.0);
+		assertTrue(estimate.getError() < 1e-3);
+		assertTrue(estimate.getInitialError() > estimate.getError());
+	}
+}
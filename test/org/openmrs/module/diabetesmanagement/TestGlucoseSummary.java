@@ -0,0 +1,51 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.GlucoseSummary} class.
+ */
+public class TestGlucoseSummary {
+	
+	/**
+	 * Should give the same statistics for merged summaries as for a single summary of all values.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMergeSummaries() throws Exception {
+		GlucoseSummary all = new GlucoseSummary();
+		GlucoseSummary first = new GlucoseSummary();
+		GlucoseSummary second = new GlucoseSummary();
+		for (int k = 0; k < 200; k++) {
+			double glucose = 6.0 + 5.0 * Math.sin(k / 10.0);
+			all.add(glucose, 15);
+			(k < 70 ? first : second).add(glucose, 15);
+		}
+		first.merge(second);
+		
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getMean(), first.getMean(), 1e-12);
+		assertEquals(all.getStandardDeviation(), first.getStandardDeviation(), 1e-12);
+		assertEquals(all.getMin(), first.getMin(), 0.0);
+		assertEquals(all.getMax(), first.getMax(), 0.0);
+		assertEquals(all.getMinutesBelow(), first.getMinutesBelow());
+		assertEquals(all.getTimeInRange(), first.getTimeInRange(), 0.0);
+		assertEquals(200 * 15 - all.getMinutesBelow() - all.getMinutesAbove(), Math.round(all.getTimeInRange() * 200 * 15));
+	}
+}
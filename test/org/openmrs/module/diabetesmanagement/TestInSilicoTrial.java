@@ -0,0 +1,143 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests running an {@link org.openmrs.module.diabetesmanagement.InSilicoTrial} with the
+ * {@link org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl} class.
+ */
+public class TestInSilicoTrial {
+	
+	/**
+	 * Creates a trial with a reference arm, an identical arm and an arm with a smaller lunch.
+	 * 
+	 * @param size Number of members.
+	 * @return The trial.
+	 */
+	private InSilicoTrial createTrial(int size) {
+		InsulinType regular = new InsulinType("Regular", null, 2.0, 0.05, 1.7);
+		InsulinType nph = new InsulinType("NPH", null, 2.0, 0.05, 12.0);
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		EventSchedule smallLunch = new EventSchedule();
+		smallLunch.addMeal(8 * 60, 80.0);
+		smallLunch.addMeal(12 * 60, 30.0);
+		smallLunch.addMeal(19 * 60, 60.0);
+		smallLunch.addInsulinInjection1(8 * 60, 6.0);
+		smallLunch.addInsulinInjection2(22 * 60, 12.0);
+		
+		InSilicoTrial trial = new InSilicoTrial();
+		trial.getPopulation().setSize(size);
+		trial.getPopulation().setSeed(11L);
+		trial.addArm(new TrialArm("reference", regular, nph, schedule));
+		trial.addArm(new TrialArm("same", regular, nph, schedule));
+		trial.addArm(new TrialArm("small lunch", regular, nph, smallLunch));
+		return trial;
+	}
+	
+	/**
+	 * Should produce exactly the same summary with any number of threads, and no differences
+	 * between identical arms.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldNotDependOnParallelism() throws Exception {
+		InSilicoTrial trial = createTrial(600);
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(1);
+		TrialResult single = service.runTrial(trial);
+		service.setParallelism(3);
+		TrialResult parallel = service.runTrial(trial);
+		
+		assertEquals(600, parallel.getMembers());
+		for (int arm = 0; arm < 3; arm++) {
+			for (int outcome = 0; outcome < TrialResult.OUTCOMES; outcome++) {
+				assertEquals(single.getMean(arm, outcome), parallel.getMean(arm, outcome), 0.0);
+				assertEquals(single.getStandardDeviation(arm, outcome), parallel.getStandardDeviation(arm, outcome), 0.0);
+				assertEquals(single.getMeanDifference(arm, outcome), parallel.getMeanDifference(arm, outcome), 0.0);
+			}
+		}
+		assertEquals(0.0, parallel.getMeanDifference(1, TrialResult.MEAN_GLUCOSE), 0.0);
+		assertEquals(0.0, parallel.getDifferenceStandardError(1, TrialResult.PEAK_GLUCOSE), 0.0);
+		double[] interval = parallel.getDifferenceConfidenceInterval(2, TrialResult.MEAN_GLUCOSE);
+		assertTrue(interval[1] < 0.0);
+		assertTrue(parallel.getMean(2, TrialResult.TIME_IN_RANGE) >= parallel.getMean(0, TrialResult.TIME_IN_RANGE));
+	}
+	
+	/**
+	 * Should summarize the same outcomes as single kernel runs of the sampled members, including
+	 * members resampled from observed patients.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchSingleRuns() throws Exception {
+		InSilicoTrial trial = createTrial(30);
+		double[][] observed = { { 70.0, 9.0, 100.0, 0.4, 0.6 }, { 90.0, 8.0, 80.0, 0.6, 0.3 } };
+		trial.getPopulation().setObserved(observed);
+		trial.getPopulation().setSpread(VirtualPopulation.WEIGHT, 0.0);
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		TrialResult result = service.runTrial(trial);
+		
+		TrialResult expected = new TrialResult(trial.getArmNames());
+		SplittableRandom[] streams = trial.getPopulation().createStreams();
+		double[] p = new double[VirtualPopulation.PARAMETERS];
+		for (int m = 0; m < 30; m++) {
+			trial.getPopulation().sample(streams[m], p);
+			assertTrue(p[VirtualPopulation.WEIGHT] == 70.0 || p[VirtualPopulation.WEIGHT] == 90.0);
+			double[] outcomes = new double[3 * TrialResult.OUTCOMES];
+			for (int arm = 0; arm < 3; arm++) {
+				SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+				kernel.setPatient(p[0], p[1], p[2], p[3], p[4]);
+				kernel.setInsulin1(2.0, 0.05, 1.7);
+				kernel.setInsulin2(2.0, 0.05, 12.0);
+				kernel.setInitialState(0.0, 0.0, 4.4);
+				kernel.setSchedule(trial.getArms().get(arm).getSchedule());
+				kernel.setResultInterval(1);
+				kernel.run();
+				double[] glucose = kernel.getResultGlucose();
+				int count = kernel.getResultCount();
+				int below = GlucoseMetrics.minutesBelow(glucose, 0, count, 1, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD);
+				int above = GlucoseMetrics.minutesAbove(glucose, 0, count, 1, GlucoseSummary.TARGET_HIGH);
+				outcomes[arm * TrialResult.OUTCOMES + TrialResult.MEAN_GLUCOSE] = GlucoseMetrics.mean(glucose, 0, count);
+				outcomes[arm * TrialResult.OUTCOMES + TrialResult.TIME_IN_RANGE] = 1.0 - (below + above) / 1440.0;
+				outcomes[arm * TrialResult.OUTCOMES + TrialResult.MINUTES_BELOW] = below;
+				outcomes[arm * TrialResult.OUTCOMES + TrialResult.PEAK_GLUCOSE] = GlucoseMetrics.peak(glucose, 0, count);
+			}
+			expected.add(outcomes);
+		}
+		
+		for (int arm = 0; arm < 3; arm++) {
+			for (int outcome = 0; outcome < TrialResult.OUTCOMES; outcome++) {
+				assertEquals(expected.getMean(arm, outcome), result.getMean(arm, outcome), 1e-12);
+				assertEquals(expected.getMeanDifference(arm, outcome), result.getMeanDifference(arm, outcome), 1e-12);
+			}
+			assertEquals(expected.getHypoglycemicFraction(arm), result.getHypoglycemicFraction(arm), 0.0);
+		}
+	}
+}
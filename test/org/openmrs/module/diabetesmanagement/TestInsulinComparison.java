@@ -0,0 +1,94 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.InsulinComparison} class.
+ */
+public class TestInsulinComparison {
+	
+	/**
+	 * Should simulate every ordered pair with the outcome of a single kernel run, ranked by time
+	 * below the hypoglycemia threshold, time outside the target range and area outside the range.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldRankAllOrderedPairs() throws Exception {
+		List<InsulinType> types = Arrays.asList(createInsulinType("Rapid", 2.0, 0.05, 1.7), createInsulinType(
+		    "Intermediate", 2.0, 0.05, 12.0), createInsulinType("Regular", 2.0, 0.05, 3.5));
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 8.0);
+		schedule.addInsulinInjection1(19 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 14.0);
+		
+		InsulinComparison comparison = new InsulinComparison();
+		comparison.setWeight(80.0);
+		comparison.setRTG(9.0);
+		comparison.setCCR(100.0);
+		comparison.setSh(2.0);
+		comparison.setSp(0.5);
+		comparison.setInsulinTypes(types);
+		comparison.setSchedule(schedule);
+		
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		List<InsulinPairResult> ranking = service.compareInsulinTypes(comparison);
+		
+		assertEquals(9, ranking.size());
+		List<String> pairs = new ArrayList<String>();
+		for (int k = 0; k < ranking.size(); k++) {
+			InsulinPairResult result = ranking.get(k);
+			if (k > 0)
+				assertTrue(ranking.get(k - 1).compareTo(result) <= 0);
+			pairs.add(result.getInsulinType1().getName() + "/" + result.getInsulinType2().getName());
+			
+			InsulinType type1 = result.getInsulinType1(), type2 = result.getInsulinType2();
+			SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+			kernel.setPatient(80.0, 9.0, 100.0, 2.0, 0.5);
+			kernel.setInsulin1(type1.getParameterS(), type1.getParameterA(), type1.getParameterB());
+			kernel.setInsulin2(type2.getParameterS(), type2.getParameterA(), type2.getParameterB());
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			kernel.setSchedule(schedule);
+			kernel.setResultInterval(1);
+			kernel.run();
+			double[] glucose = kernel.getResultGlucose();
+			int count = kernel.getResultCount();
+			assertEquals(GlucoseMetrics.mean(glucose, 0, count), result.getMeanGlucose(), 1e-9);
+			assertEquals(GlucoseMetrics.peak(glucose, 0, count), result.getPeakGlucose(), 1e-9);
+			assertEquals(GlucoseMetrics.minutesBelow(glucose, 0, count, 1, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD), result
+			        .getMinutesBelow());
+			assertEquals(GlucoseMetrics.minutesBelow(glucose, 0, count, 1, comparison.getTargetLow())
+			        + GlucoseMetrics.minutesAbove(glucose, 0, count, 1, comparison.getTargetHigh()), result
+			        .getMinutesOutside());
+		}
+		for (InsulinType type1 : types)
+			for (InsulinType type2 : types)
+				assertTrue(pairs.contains(type1.getName() + "/" + type2.getName()));
+	}
+}
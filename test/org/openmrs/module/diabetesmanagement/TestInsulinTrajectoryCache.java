@@ -0,0 +1,98 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.InsulinTrajectoryCache} class.
+ */
+public class TestInsulinTrajectoryCache {
+	
+	/**
+	 * Creates a kernel with typical parameters, three meals and three injections.
+	 * 
+	 * @param RTG Renal threshold of glucose.
+	 * @param cache Insulin trajectory cache, or null.
+	 * @return The prepared kernel.
+	 */
+	private SimulationKernelAIDA createKernel(double RTG, InsulinTrajectoryCache cache) {
+		SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+		kernel.setPatient(80.0, RTG, 100.0, 0.5, 0.5);
+		kernel.setInsulin1(2.0, 0.05, 1.7);
+		kernel.setInsulin2(2.0, 0.05, 12.0);
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection1(19 * 60, 4.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		kernel.setSchedule(schedule);
+		kernel.setInsulinTrajectoryCache(cache);
+		return kernel;
+	}
+	
+	/**
+	 * Should produce the same results with and without precomputed insulin trajectories.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldNotChangeKernelResults() throws Exception {
+		InsulinTrajectoryCache cache = new InsulinTrajectoryCache(4);
+		for (double RTG = 8.0; RTG <= 10.0; RTG += 1.0) {
+			SimulationKernelAIDA plain = createKernel(RTG, null);
+			plain.run();
+			SimulationKernelAIDA cached = createKernel(RTG, cache);
+			cached.run();
+			
+			assertArrayEquals(Arrays.copyOf(plain.getResultGlucose(), plain.getResultCount()), Arrays.copyOf(cached
+			        .getResultGlucose(), cached.getResultCount()), 0.0);
+			assertArrayEquals(Arrays.copyOf(plain.getResultInsulin(), plain.getResultCount()), Arrays.copyOf(cached
+			        .getResultInsulin(), cached.getResultCount()), 0.0);
+			assertEquals(plain.getI(), cached.getI(), 0.0);
+		}
+		assertEquals(1, cache.getMisses());
+		assertEquals(2, cache.getHits());
+	}
+	
+	/**
+	 * Should compute a new trajectory when the injections change.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldDistinguishInjections() throws Exception {
+		InsulinTrajectoryCache cache = new InsulinTrajectoryCache(4);
+		EventSchedule schedule = new EventSchedule();
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		InsulinTrajectory first = cache.getTrajectory(2.0, 0.05, 1.7, 2.0, 0.05, 12.0, 80.0, 0.0, schedule, 3, null);
+		schedule.addMeal(12 * 60, 70.0);
+		assertEquals(first, cache.getTrajectory(2.0, 0.05, 1.7, 2.0, 0.05, 12.0, 80.0, 0.0, schedule, 3, null));
+		
+		EventSchedule other = new EventSchedule();
+		other.addInsulinInjection2(8 * 60, 6.0);
+		InsulinTrajectory second = cache.getTrajectory(2.0, 0.05, 1.7, 2.0, 0.05, 12.0, 80.0, 0.0, other, 3, null);
+		assertEquals(false, first == second);
+		assertEquals(3 * (SimulationKernelAIDA.iterations + 1), second.getInsulin().length);
+		assertEquals(2, cache.size());
+	}
+}
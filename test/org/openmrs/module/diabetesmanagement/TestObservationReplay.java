@@ -0,0 +1,225 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.Person;
+import org.openmrs.module.diabetesmanagement.service.SimulationReplayService;
+
+/**
+ * Tests the {@link org.openmrs.module.diabetesmanagement.ObservationCursor},
+ * {@link org.openmrs.module.diabetesmanagement.ObservationEventStream} and
+ * {@link org.openmrs.module.diabetesmanagement.GlucoseOverlay} classes on observations held in
+ * memory.
+ */
+public class TestObservationReplay {
+	
+	/** Concept IDs of the test observations. */
+	private static final int CARBS = 1, INSULIN_1 = 2, INSULIN_2 = 3, GLUCOSE = 4;
+	
+	/**
+	 * Service returning pages of observations held in memory, in the same order and with the same
+	 * keyset condition as the database query.
+	 */
+	private static class MemoryReplayService implements SimulationReplayService {
+		
+		/** Rows of observation ID, date/time, concept ID and value, in ascending order of date/time. */
+		private final List<Object[]> rows = new ArrayList<Object[]>();
+		
+		/**
+		 * Adds an observation after all others.
+		 * 
+		 * @param datetime Date/time in milliseconds.
+		 * @param conceptId Concept ID.
+		 * @param value The value, or null.
+		 */
+		void add(long datetime, int conceptId, Double value) {
+			rows.add(new Object[] { rows.size() + 1, new Date(datetime), conceptId, value });
+		}
+		
+		public List<Object[]> getObservationPage(Person person, List<Concept> concepts, Date from, Date to,
+		                                         Date afterDatetime, Integer afterObsId, int maxResults) {
+			List<Object[]> page = new ArrayList<Object[]>();
+			for (Object[] row : rows) {
+				Date datetime = (Date) row[1];
+				boolean wanted = false;
+				for (Concept c : concepts)
+					wanted |= c.getConceptId().equals(row[2]);
+				if (!wanted || datetime.before(from) || !datetime.before(to))
+					continue;
+				if (afterDatetime != null
+				        && (datetime.before(afterDatetime) || datetime.equals(afterDatetime)
+				                && (Integer) row[0] <= afterObsId))
+					continue;
+				if (page.size() == maxResults)
+					break;
+				page.add(row);
+			}
+			return page;
+		}
+		
+		public GlucoseOverlay replay(Person person, SimulationModelAIDA model, InsulinType insulin1,
+		                             InsulinType insulin2, Date from, Date to, ResultSink sink) {
+			throw new UnsupportedOperationException();
+		}
+		
+		public List<Integer> getPatientIdsWithOpenProblems(List<Concept> concepts, Integer afterPatientId,
+		                                                   int maxResults) {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	/**
+	 * Should read all observations page by page, including those sharing a date/time across a page
+	 * boundary.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldPageThroughObservationsInOrder() throws Exception {
+		MemoryReplayService service = new MemoryReplayService();
+		long start = midnight();
+		for (int k = 0; k < 2500; k++)
+			service.add(start + (k / 3) * 60000L, k % 2 == 0 ? CARBS : GLUCOSE, (double) k);
+		
+		ObservationCursor cursor = new ObservationCursor(service, null, Arrays.asList(new Concept(CARBS), new Concept(
+		        GLUCOSE)), new Date(start), new Date(start + 86400000L), 1000);
+		int count = 0;
+		while (cursor.next()) {
+			assertEquals(count, cursor.getValue(), 0.0);
+			assertEquals(start + (count / 3) * 60000L, cursor.getDatetime());
+			count++;
+		}
+		assertEquals(2500, count);
+		assertEquals(3, cursor.getPages());
+		assertEquals(false, cursor.next());
+	}
+	
+	/**
+	 * Should simulate recorded events exactly like the same daily schedules, and compare recorded
+	 * glucose levels with the interpolated results, including levels recorded after the last result
+	 * of a day.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldReplayRecordedEventsLikeSchedules() throws Exception {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		EventSchedule skipped = new EventSchedule();
+		skipped.addMeal(8 * 60, 80.0);
+		skipped.addMeal(19 * 60, 60.0);
+		skipped.addInsulinInjection1(8 * 60, 6.0);
+		skipped.addInsulinInjection2(22 * 60, 12.0);
+		final int days = 3;
+		final double[][] expected = new double[days][];
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.runStream(new DailyEventStream(days, schedule, skipped, schedule), days, new ResultSink() {
+			
+			public void write(ResultChunk chunk) {
+				expected[chunk.getDay()] = Arrays.copyOf(chunk.getGlucose(), chunk.size());
+			}
+		});
+		
+		// Recorded events (in seconds past the minute), unrelated observations and glucose in mg/dl
+		MemoryReplayService service = new MemoryReplayService();
+		long start = midnight();
+		int recorded = 0;
+		for (int day = 0; day < days; day++) {
+			EventSchedule s = day == 1 ? skipped : schedule;
+			int index = 0;
+			for (int minute = 0; minute < 1440; minute++) {
+				long t = start + (day * 1440L + minute) * 60000L;
+				while (index < s.size() && s.getMinute(index) == minute) {
+					int conceptId = s.getType(index) == EventSchedule.MEAL ? CARBS
+					        : s.getType(index) == EventSchedule.INSULIN_1 ? INSULIN_1 : INSULIN_2;
+					service.add(t + 30000L, conceptId, s.getAmount(index));
+					index++;
+				}
+				if (minute % 60 == 0) {
+					service.add(t, GLUCOSE, expected[day][minute / 15] * TimeSeries.MGDL_PER_MMOL);
+					service.add(t, CARBS, null);
+					recorded++;
+				}
+			}
+			if (day < days - 1) {
+				double between = (expected[day][95] + expected[day + 1][0]) / 2;
+				service.add(start + (day + 1) * 1440L * 60000L - 450000L, GLUCOSE, between * TimeSeries.MGDL_PER_MMOL);
+				recorded++;
+			}
+		}
+		
+		Date from = new Date(start), to = new Date(start + days * 86400000L);
+		ObservationCursor events = new ObservationCursor(service, null, Arrays.asList(new Concept(CARBS), new Concept(
+		        INSULIN_1), new Concept(INSULIN_2)), from, to, 7);
+		ObservationCursor glucose = new ObservationCursor(service, null, Arrays.asList(new Concept(GLUCOSE)), from, to, 7);
+		final double[][] replayed = new double[days][];
+		GlucoseOverlay overlay = new GlucoseOverlay(glucose, start, 1.0 / TimeSeries.MGDL_PER_MMOL, new ResultSink() {
+			
+			public void write(ResultChunk chunk) {
+				replayed[chunk.getDay()] = Arrays.copyOf(chunk.getGlucose(), chunk.size());
+			}
+		});
+		kernel = createKernel();
+		kernel.runStream(new ObservationEventStream(events, start, CARBS, INSULIN_1, INSULIN_2), days, overlay);
+		
+		for (int day = 0; day < days; day++)
+			assertArrayEquals(expected[day], replayed[day], 0.0);
+		assertEquals(recorded, overlay.getCount());
+		assertEquals(0.0, overlay.getMeanAbsoluteError(), 1e-9);
+		assertEquals(0.0, overlay.getBias(), 1e-9);
+	}
+	
+	/**
+	 * Creates a kernel with typical parameters.
+	 * 
+	 * @return The prepared kernel.
+	 */
+	private SimulationKernelAIDA createKernel() {
+		SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+		kernel.setPatient(80.0, 9.0, 100.0, 0.5, 0.5);
+		kernel.setInsulin1(2.0, 0.05, 1.7);
+		kernel.setInsulin2(2.0, 0.05, 12.0);
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		return kernel;
+	}
+	
+	/**
+	 * Returns today's midnight.
+	 * 
+	 * @return Milliseconds since the epoch.
+	 */
+	private long midnight() {
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.HOUR_OF_DAY, 0);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		return cal.getTime().getTime();
+	}
+}
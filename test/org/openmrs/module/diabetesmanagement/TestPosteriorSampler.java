@@ -0,0 +1,162 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.PosteriorSampler} class.
+ */
+public class TestPosteriorSampler {
+	
+	/** Observation times. */
+	private static final int[] MINUTES = { 0, 120, 240, 360, 480, 540, 600, 720, 780, 840, 960, 1080, 1140, 1200, 1320 };
+	
+	/**
+	 * Creates a fit of sh to noisy observations simulated with sh = 1.6.
+	 * 
+	 * @return The fit.
+	 */
+	private GlucoseFit createFit() {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 20.0);
+		schedule.addInsulinInjection1(19 * 60, 12.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		
+		GlucoseFit fit = new GlucoseFit();
+		fit.setWeight(80.0);
+		fit.setCCR(100.0);
+		fit.setRTG(9.0);
+		fit.setSh(1.0);
+		fit.setSp(0.5);
+		fit.setFitSp(false);
+		fit.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		fit.setInsulinType2(createInsulinType(2.0, 0.18, 4.9));
+		fit.setSchedule(schedule);
+		fit.setObservations(MINUTES, new double[MINUTES.length]);
+		
+		DualNumber[] truth = fit.simulate(1.6, 0.5, 9.0);
+		SplittableRandom random = new SplittableRandom(3);
+		double[] observed = new double[MINUTES.length];
+		for (int k = 0; k < observed.length; k++)
+			observed[k] = truth[k].getValue() + 0.3 * (random.nextDouble() - 0.5);
+		fit.setObservations(MINUTES, observed);
+		return fit;
+	}
+	
+	/**
+	 * Creates a sampler of the fit's sh.
+	 * 
+	 * @return The sampler.
+	 */
+	private PosteriorSampler createSampler() {
+		PosteriorSampler sampler = new PosteriorSampler();
+		sampler.setFit(createFit());
+		sampler.setSeed(11L);
+		sampler.setNoise(0.2);
+		sampler.setTargetEss(200);
+		return sampler;
+	}
+	
+	/**
+	 * Should evaluate the same sum of squares as the simulation with derivatives.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchSimulatedResiduals() throws Exception {
+		GlucoseFit fit = createFit();
+		DualNumber[] g = fit.simulate(1.3, 0.5, 8.5);
+		double sse = 0.0;
+		for (int k = 0; k < MINUTES.length; k++)
+			sse += (g[k].getValue() - fit.getObservedGlucose()[k]) * (g[k].getValue() - fit.getObservedGlucose()[k]);
+		
+		assertEquals(sse, fit.sumOfSquares(1.3, 0.5, 8.5), 1e-9 * (1.0 + sse));
+	}
+	
+	/**
+	 * Should stop with converged chains whose posterior covers the true value of sh.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldConcentrateAroundTrueValue() throws Exception {
+		PosteriorSampler sampler = createSampler();
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		List<PosteriorSummary> summaries = service.samplePosterior(sampler);
+		
+		assertEquals(1, summaries.size());
+		PosteriorSummary sh = summaries.get(0);
+		assertEquals("sh", sh.getParameter());
+		assertTrue(sh.getLowerBound() < 1.6 && 1.6 < sh.getUpperBound());
+		assertTrue(sh.getUpperBound() - sh.getLowerBound() < 0.5);
+		assertTrue(sh.getLowerBound() <= sh.getMedian() && sh.getMedian() <= sh.getUpperBound());
+		assertTrue(sh.getRhat() <= sampler.getMaxRhat());
+		assertTrue(sh.getEffectiveSampleSize() >= sampler.getTargetEss());
+		assertEquals(MINUTES.length, sh.getObservations().intValue());
+	}
+	
+	/**
+	 * Should give the same summaries regardless of the number of threads.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldNotDependOnParallelism() throws Exception {
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(1);
+		PosteriorSummary serial = service.samplePosterior(createSampler()).get(0);
+		service.setParallelism(3);
+		PosteriorSummary parallel = service.samplePosterior(createSampler()).get(0);
+		
+		assertEquals(serial.getMean(), parallel.getMean(), 0.0);
+		assertEquals(serial.getStandardDeviation(), parallel.getStandardDeviation(), 0.0);
+		assertEquals(serial.getEffectiveSampleSize(), parallel.getEffectiveSampleSize(), 0.0);
+	}
+	
+	/**
+	 * Should report R-hat close to 1 and an effective sample size close to the number of draws for
+	 * independent draws, and a large R-hat for chains around different values.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldDiagnoseIndependentDraws() throws Exception {
+		SplittableRandom random = new SplittableRandom(5);
+		double[][] draws = new double[4][1000];
+		double[][] shifted = new double[4][1000];
+		for (int k = 0; k < 4; k++)
+			for (int i = 0; i < 1000; i++) {
+				draws[k][i] = random.nextDouble();
+				shifted[k][i] = draws[k][i] + k;
+			}
+		
+		assertEquals(1.0, PosteriorSampler.rhat(draws), 0.01);
+		assertEquals(4000.0, PosteriorSampler.ess(draws), 600.0);
+		assertTrue(PosteriorSampler.rhat(shifted) > 2.0);
+		assertTrue(PosteriorSampler.ess(shifted) < 100.0);
+	}
+}
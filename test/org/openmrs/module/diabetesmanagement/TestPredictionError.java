@@ -0,0 +1,68 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.PredictionError} class.
+ */
+public class TestPredictionError {
+	
+	/**
+	 * Should assign typical points to the zones of the Clarke error grid.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldAssignClarkeZones() throws Exception {
+		assertEquals(PredictionError.ZONE_A, PredictionError.clarkeZone(100.0, 115.0));
+		assertEquals(PredictionError.ZONE_A, PredictionError.clarkeZone(60.0, 40.0));
+		assertEquals(PredictionError.ZONE_B, PredictionError.clarkeZone(200.0, 260.0));
+		assertEquals(PredictionError.ZONE_C, PredictionError.clarkeZone(100.0, 220.0));
+		assertEquals(PredictionError.ZONE_D, PredictionError.clarkeZone(300.0, 150.0));
+		assertEquals(PredictionError.ZONE_D, PredictionError.clarkeZone(50.0, 100.0));
+		assertEquals(PredictionError.ZONE_E, PredictionError.clarkeZone(250.0, 60.0));
+		assertEquals(PredictionError.ZONE_E, PredictionError.clarkeZone(60.0, 200.0));
+	}
+	
+	/**
+	 * Should compute the same statistics from merged patients as from all values at once.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMergePatientsIntoCohort() throws Exception {
+		double[][] values = { { 5.0, 5.5 }, { 8.0, 6.0 }, { 12.0, 3.0 }, { 4.0, 4.2 }, { 3.0, 11.0 } };
+		PredictionError all = new PredictionError();
+		PredictionError first = new PredictionError(), second = new PredictionError();
+		for (int k = 0; k < values.length; k++) {
+			all.add(values[k][0], values[k][1]);
+			(k < 2 ? first : second).add(values[k][0], values[k][1]);
+		}
+		first.merge(second);
+		
+		assertEquals(5, first.getCount());
+		assertEquals((0.5 + 2.0 + 9.0 + 0.2 + 8.0) / 5, first.getMeanAbsoluteError(), 1e-12);
+		assertEquals((0.5 - 2.0 - 9.0 + 0.2 + 8.0) / 5, first.getBias(), 1e-12);
+		assertEquals((0.1 + 0.25 + 0.75 + 0.05 + 8.0 / 3.0) / 5, first.getMeanAbsoluteRelativeDifference(), 1e-12);
+		for (int zone = PredictionError.ZONE_A; zone <= PredictionError.ZONE_E; zone++)
+			assertEquals(all.getZoneCount(zone), first.getZoneCount(zone));
+		assertEquals(0.4, first.getZoneFraction(PredictionError.ZONE_A), 1e-12);
+		assertEquals(0.4, first.getZoneFraction(PredictionError.ZONE_E), 1e-12);
+		assertEquals(true, Double.isNaN(new PredictionError().getMeanAbsoluteError()));
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.RiskGrid} class.
+ */
+public class TestRiskGrid {
+	
+	/**
+	 * Creates a grid around a regimen of two insulin types and three meals.
+	 * 
+	 * @param doseScales Dose scalings.
+	 * @param carbScales Carbohydrate scalings.
+	 * @return The grid.
+	 */
+	private RiskGrid createGrid(double[] doseScales, double[] carbScales) {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 8.0);
+		schedule.addInsulinInjection1(19 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 14.0);
+		
+		RiskGrid grid = new RiskGrid();
+		grid.setWeight(80.0);
+		grid.setRTG(9.0);
+		grid.setCCR(100.0);
+		grid.setSh(2.0);
+		grid.setSp(0.5);
+		grid.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		grid.setInsulinType2(createInsulinType(2.0, 0.05, 12.0));
+		grid.setSchedule(schedule);
+		grid.setDoseScales(doseScales);
+		grid.setCarbScales(carbScales);
+		return grid;
+	}
+	
+	/**
+	 * Should scale injections and meals separately and leave out events scaled to zero.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldScaleDosesAndCarbohydrates() throws Exception {
+		RiskGrid grid = createGrid(new double[] { 0.0, 1.5 }, new double[] { 0.5, 1.0, 2.0 });
+		
+		EventSchedule scaled = grid.createSchedule(5);
+		assertEquals(6, scaled.size());
+		for (int k = 0; k < scaled.size(); k++)
+			assertEquals(grid.getSchedule().getAmount(k)
+			        * (scaled.getType(k) == EventSchedule.MEAL ? 2.0 : 1.5), scaled.getAmount(k), 0.0);
+		
+		EventSchedule withoutInsulin = grid.createSchedule(1);
+		assertEquals(3, withoutInsulin.size());
+		for (int k = 0; k < withoutInsulin.size(); k++)
+			assertEquals(EventSchedule.MEAL, withoutInsulin.getType(k));
+	}
+	
+	/**
+	 * Should calculate every cell as a single kernel run would, and take the cells shared with a
+	 * panned grid from the cache.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldReuseCellsOfPannedGrid() throws Exception {
+		RiskGridCache.getShared().clear();
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		RiskGrid grid = createGrid(ParameterSweep.range(0.5, 1.5, 5), ParameterSweep.range(0.5, 1.5, 5));
+		RiskGridResult result = service.computeRiskGrid(grid);
+		
+		assertEquals(25, result.size());
+		assertEquals(0, RiskGridCache.getShared().getHits());
+		for (int dose = 0; dose < 5; dose++) {
+			for (int carbs = 0; carbs < 5; carbs++) {
+				int index = result.getIndex(dose, carbs);
+				SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+				kernel.setPatient(80.0, 9.0, 100.0, 2.0, 0.5);
+				kernel.setInsulin1(2.0, 0.05, 1.7);
+				kernel.setInsulin2(2.0, 0.05, 12.0);
+				kernel.setInitialState(0.0, 0.0, 4.4);
+				kernel.setSchedule(grid.createSchedule(index));
+				kernel.setResultInterval(1);
+				kernel.run();
+				double[] glucose = kernel.getResultGlucose();
+				int count = kernel.getResultCount();
+				assertEquals(GlucoseMetrics.nadir(glucose, 0, count), result.getMinGlucose(index), 1e-9);
+				assertEquals(GlucoseMetrics.minutesBelow(glucose, 0, count, 1, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD),
+				    result.getMinutesBelow(index));
+				assertEquals(result.getMinGlucose(index), result.getMinGlucoseRows()[dose][carbs], 0.0);
+			}
+		}
+		
+		// Panned by one step of the dose scaling
+		RiskGrid panned = createGrid(ParameterSweep.range(0.75, 1.75, 5), ParameterSweep.range(0.5, 1.5, 5));
+		RiskGridResult pannedResult = service.computeRiskGrid(panned);
+		assertEquals(20, RiskGridCache.getShared().getHits());
+		assertEquals(30, RiskGridCache.getShared().getMisses());
+		for (int dose = 0; dose < 4; dose++)
+			for (int carbs = 0; carbs < 5; carbs++)
+				assertEquals(result.getMinGlucose(result.getIndex(dose + 1, carbs)), pannedResult
+				        .getMinGlucose(pannedResult.getIndex(dose, carbs)), 0.0);
+	}
+}
@@ -0,0 +1,149 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.SensitivityAnalysis} class.
+ */
+public class TestSensitivityAnalysis {
+	
+	/**
+	 * Creates an analysis that varies no parameter.
+	 * 
+	 * @return The analysis.
+	 */
+	private SensitivityAnalysis createAnalysis() {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 8.0);
+		schedule.addInsulinInjection2(22 * 60, 14.0);
+		
+		SensitivityAnalysis analysis = new SensitivityAnalysis();
+		analysis.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		analysis.setInsulinType2(createInsulinType(2.0, 0.05, 12.0));
+		analysis.setSchedule(schedule);
+		analysis.setRange(SensitivityAnalysis.WEIGHT, 80.0, 80.0);
+		analysis.setRange(SensitivityAnalysis.RTG, 9.0, 9.0);
+		analysis.setRange(SensitivityAnalysis.CCR, 100.0, 100.0);
+		analysis.setRange(SensitivityAnalysis.SH, 2.0, 2.0);
+		analysis.setRange(SensitivityAnalysis.SP, 0.5, 0.5);
+		return analysis;
+	}
+	
+	/**
+	 * Should generate the known first points, and place exactly one of the first 2^m points in
+	 * every interval of length 2^-m in each dimension.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldGenerateStratifiedSobolPoints() throws Exception {
+		SobolSequence sequence = new SobolSequence(SobolSequence.MAX_DIMENSIONS);
+		double[] point = new double[SobolSequence.MAX_DIMENSIONS];
+		sequence.get(3, point);
+		assertEquals(0.75, point[0], 0.0);
+		assertEquals(0.25, point[1], 0.0);
+		assertEquals(0.25, point[2], 0.0);
+		
+		int points = 256;
+		for (int d = 0; d < sequence.getDimensions(); d++) {
+			boolean[] hit = new boolean[points];
+			for (int i = 0; i < points; i++) {
+				int cell = (int) (sequence.get(i, d) * points);
+				assertTrue(!hit[cell]);
+				hit[cell] = true;
+			}
+		}
+	}
+	
+	/**
+	 * Should estimate the indices of an additive function of two parameters, with confidence
+	 * intervals around the estimates, and report NaN for outcomes without variance.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldEstimateIndicesOfAdditiveFunction() throws Exception {
+		SensitivityAnalysis analysis = createAnalysis();
+		analysis.setRange(SensitivityAnalysis.WEIGHT, 0.0, 1.0);
+		analysis.setRange(SensitivityAnalysis.RTG, 0.0, 1.0);
+		analysis.setSamples(1024);
+		assertEquals(4 * 1024, analysis.getRuns());
+		
+		// y = 2 weight + RTG: S(weight) = 4 / 5, S(RTG) = 1 / 5
+		SobolSequence sequence = analysis.createSequence();
+		int[] varied = analysis.getVariedParameters();
+		double[] point = new double[sequence.getDimensions()], p = new double[SensitivityAnalysis.PARAMETERS];
+		double[] outcomes = new double[analysis.getRuns() * TrialResult.OUTCOMES];
+		for (int r = 0; r < analysis.getRuns(); r++) {
+			analysis.getParameters(sequence, varied, r, point, p);
+			outcomes[r * TrialResult.OUTCOMES + TrialResult.MEAN_GLUCOSE] = 2.0 * p[SensitivityAnalysis.WEIGHT]
+			        + p[SensitivityAnalysis.RTG];
+		}
+		SensitivityResult result = new SensitivityResult(analysis, outcomes);
+		
+		int o = TrialResult.MEAN_GLUCOSE;
+		assertEquals(5.0 / 12.0, result.getVariance(o), 0.01);
+		assertEquals(0.8, result.getFirstOrder(o, SensitivityAnalysis.WEIGHT), 0.02);
+		assertEquals(0.2, result.getFirstOrder(o, SensitivityAnalysis.RTG), 0.02);
+		assertEquals(0.8, result.getTotal(o, SensitivityAnalysis.WEIGHT), 0.02);
+		assertEquals(0.2, result.getTotal(o, SensitivityAnalysis.RTG), 0.02);
+		assertEquals(0.0, result.getTotal(o, SensitivityAnalysis.SH), 0.0);
+		double[] interval = result.getFirstOrderInterval(o, SensitivityAnalysis.WEIGHT);
+		assertTrue(interval[0] <= result.getFirstOrder(o, SensitivityAnalysis.WEIGHT));
+		assertTrue(interval[1] >= result.getFirstOrder(o, SensitivityAnalysis.WEIGHT));
+		assertTrue(Double.isNaN(result.getFirstOrder(TrialResult.PEAK_GLUCOSE, SensitivityAnalysis.WEIGHT)));
+	}
+	
+	/**
+	 * Should give the same indices for any parallelism, and not add curves of varied insulin
+	 * parameters to the shared absorption curve cache.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldNotDependOnParallelism() throws Exception {
+		SensitivityAnalysis analysis = createAnalysis();
+		analysis.setRange(SensitivityAnalysis.SH, 1.0, 3.0);
+		analysis.setRange(SensitivityAnalysis.INSULIN_B, 1.5, 2.5);
+		analysis.setSamples(64);
+		analysis.setResamples(50);
+		
+		AbsorptionCurveCache.getShared().clear();
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(1);
+		SensitivityResult serial = service.analyzeSensitivity(analysis);
+		service.setParallelism(3);
+		SensitivityResult parallel = service.analyzeSensitivity(analysis);
+		
+		assertEquals(0, AbsorptionCurveCache.getShared().size());
+		for (int o = 0; o < TrialResult.OUTCOMES; o++) {
+			for (int p = 0; p < SensitivityAnalysis.PARAMETERS; p++) {
+				assertEquals(serial.getFirstOrder(o, p), parallel.getFirstOrder(o, p), 0.0);
+				assertEquals(serial.getTotal(o, p), parallel.getTotal(o, p), 0.0);
+				assertEquals(serial.getTotalInterval(o, p)[1], parallel.getTotalInterval(o, p)[1], 0.0);
+			}
+		}
+		assertTrue(serial.getVariance(TrialResult.MEAN_GLUCOSE) > 0.0);
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.SimulationBatchAIDA} class.
+ */
+public class TestSimulationBatchAIDA {
+	
+	/**
+	 * Should produce for every member exactly the results of a single kernel run.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchKernelResults() throws Exception {
+		int n = 7;
+		SimulationBatchAIDA batch = new SimulationBatchAIDA(n);
+		EventSchedule[] schedules = new EventSchedule[n];
+		for (int m = 0; m < n; m++) {
+			batch.setMember(m, 60.0 + 5.0 * m, 8.0 + 0.3 * m, 100.0, 0.3 + 0.1 * m, 0.7 - 0.05 * m, new double[] { 2.0,
+			        0.05, 1.7 }, new double[] { 2.0, 0.05, 12.0 }, 0.0, 0.0, 4.4);
+			schedules[m] = new EventSchedule();
+			schedules[m].addMeal(8 * 60 + m, 80.0 - m);
+			schedules[m].addMeal(12 * 60, 70.0);
+			schedules[m].addInsulinInjection1(8 * 60, 4.0 + m);
+			schedules[m].addInsulinInjection2(22 * 60 - 10 * m, 12.0);
+		}
+		batch.setSchedules(schedules);
+		batch.setResultInterval(5);
+		batch.run();
+		
+		int count = batch.getResultCount();
+		for (int m = 0; m < n; m++) {
+			SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+			kernel.setPatient(60.0 + 5.0 * m, 8.0 + 0.3 * m, 100.0, 0.3 + 0.1 * m, 0.7 - 0.05 * m);
+			kernel.setInsulin1(2.0, 0.05, 1.7);
+			kernel.setInsulin2(2.0, 0.05, 12.0);
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			kernel.setSchedule(schedules[m]);
+			kernel.setResultInterval(5);
+			kernel.run();
+			
+			assertEquals(kernel.getResultCount(), count);
+			assertArrayEquals(Arrays.copyOf(kernel.getResultGlucose(), count), Arrays.copyOfRange(batch
+			        .getResultGlucose(), m * count, (m + 1) * count), 0.0);
+			assertArrayEquals(Arrays.copyOf(kernel.getResultInsulin(), count), batch.getInsulin(m, new Date(0))
+			        .toArray(), 0.0);
+			assertEquals(kernel.getG(), batch.getG(m), 0.0);
+			assertEquals(kernel.getI(), batch.getI(m), 0.0);
+		}
+	}
+	
+	/**
+	 * Should produce exactly the results of single kernel runs for the members at the boundaries of
+	 * the blocks of a batch, with a wide range of parameters.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchKernelResultsAcrossBlocks() throws Exception {
+		int n = 2 * SimulationBatchAIDA.BLOCK_SIZE + 5;
+		SimulationBatchAIDA batch = new SimulationBatchAIDA(n);
+		EventSchedule[] schedules = new EventSchedule[n];
+		for (int m = 0; m < n; m++) {
+			batch.setMember(m, 40.0 + m, 6.0 + 0.05 * m, 50.0 + m, 0.1 + 0.01 * m, 0.9 - 0.005 * m, new double[] { 2.0,
+			        0.05, 1.7 }, new double[] { 2.0, 0.05, 12.0 }, 0.1 * m, 0.2 * m, 1.0 + 0.03 * m);
+			schedules[m] = new EventSchedule();
+			schedules[m].addMeal(7 * 60 + m, 2.0 * m);
+			schedules[m].addMeal(13 * 60, 70.0);
+			schedules[m].addInsulinInjection1(7 * 60, 0.1 * m);
+			schedules[m].addInsulinInjection2(21 * 60, 10.0 + m % 7);
+		}
+		batch.setSchedules(schedules);
+		batch.run();
+		
+		int count = batch.getResultCount();
+		for (int m : new int[] { 0, SimulationBatchAIDA.BLOCK_SIZE - 1, SimulationBatchAIDA.BLOCK_SIZE, n - 1 }) {
+			SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+			kernel.setPatient(40.0 + m, 6.0 + 0.05 * m, 50.0 + m, 0.1 + 0.01 * m, 0.9 - 0.005 * m);
+			kernel.setInsulin1(2.0, 0.05, 1.7);
+			kernel.setInsulin2(2.0, 0.05, 12.0);
+			kernel.setInitialState(0.1 * m, 0.2 * m, 1.0 + 0.03 * m);
+			kernel.setSchedule(schedules[m]);
+			kernel.run();
+			
+			assertArrayEquals(Arrays.copyOf(kernel.getResultGlucose(), count), Arrays.copyOfRange(batch
+			        .getResultGlucose(), m * count, (m + 1) * count), 0.0);
+		}
+	}
+	
+	/**
+	 * Should reject parameter arrays that do not match the batch size.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectWrongArrayLength() throws Exception {
+		SimulationBatchAIDA batch = new SimulationBatchAIDA(3);
+		batch.setInitialState(new double[3], new double[3], new double[2]);
+	}
+}
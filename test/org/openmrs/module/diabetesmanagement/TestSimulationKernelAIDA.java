@@ -0,0 +1,364 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.SimulationKernelAIDA} class.
+ */
+public class TestSimulationKernelAIDA {
+	
+	/**
+	 * Creates a kernel with typical parameters, three meals and two injections.
+	 * 
+	 * @return The prepared kernel.
+	 */
+	private SimulationKernelAIDA createKernel() {
+		SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+		kernel.setPatient(80.0, 9.0, 100.0, 0.5, 0.5);
+		kernel.setInsulin1(2.0, 0.05, 1.7);
+		kernel.setInsulin2(2.0, 0.05, 12.0);
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		kernel.setSchedule(schedule);
+		return kernel;
+	}
+	
+	/**
+	 * Should produce exactly the same results when a kernel instance is reused.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldProduceSameResultsWhenReused() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.run();
+		double[] glucose = Arrays.copyOf(kernel.getResultGlucose(), SimulationKernelAIDA.RESULT_COUNT);
+		double[] insulin = Arrays.copyOf(kernel.getResultInsulin(), SimulationKernelAIDA.RESULT_COUNT);
+		
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.run();
+		
+		assertEquals(SimulationKernelAIDA.RESULT_COUNT, kernel.getResultCount());
+		assertArrayEquals(glucose, Arrays.copyOf(kernel.getResultGlucose(), kernel.getResultCount()), 0.0);
+		assertArrayEquals(insulin, Arrays.copyOf(kernel.getResultInsulin(), kernel.getResultCount()), 0.0);
+	}
+	
+	/**
+	 * Should produce the same results as the model object for the same meals and injections.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchSimulationModelResults() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.run();
+		
+		Map<Date, Double> meals = new HashMap<Date, Double>();
+		meals.put(today(8, 0), 80.0);
+		meals.put(today(12, 0), 70.0);
+		meals.put(today(19, 0), 60.0);
+		Map<Date, Double> injections1 = new HashMap<Date, Double>();
+		injections1.put(today(8, 0), 6.0);
+		Map<Date, Double> injections2 = new HashMap<Date, Double>();
+		injections2.put(today(22, 0), 12.0);
+		SimulationModelAIDA model = new SimulationModelAIDA(80.0, 9.0, 100.0, 0.5, 0.5, 2.0, 0.05, 1.7, 2.0, 0.05, 12.0,
+		        meals, injections1, injections2, 4.4);
+		model.runSimulation();
+		
+		assertEquals(SimulationKernelAIDA.RESULT_COUNT, model.getResultGlucose().size());
+		assertTrue(model.getResultGlucose().containsValue(kernel.getResultGlucose()[12 * 4]));
+		assertTrue(model.getResultInsulin().containsValue(kernel.getResultInsulin()[12 * 4]));
+		assertEquals(kernel.getG(), model.getG(), 0.0);
+		assertEquals(kernel.getI(), model.getI(), 0.0);
+	}
+	
+	/**
+	 * Should give results of the higher-order integrators that agree with each other and stay close
+	 * to the Euler method, with far fewer steps.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldAgreeAcrossIntegrators() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.run();
+		double[] euler = Arrays.copyOf(kernel.getResultGlucose(), kernel.getResultCount());
+		long eulerSteps = kernel.getStepCount();
+		
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setIntegrator(SimulationKernelAIDA.Integrator.RK4);
+		kernel.run();
+		double[] rk4 = Arrays.copyOf(kernel.getResultGlucose(), kernel.getResultCount());
+		assertTrue(kernel.getStepCount() < eulerSteps / 4);
+		
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setIntegrator(SimulationKernelAIDA.Integrator.DORMAND_PRINCE);
+		kernel.run();
+		double[] dp = Arrays.copyOf(kernel.getResultGlucose(), kernel.getResultCount());
+		assertTrue(kernel.getStepCount() < eulerSteps / 4);
+		
+		assertArrayEquals(rk4, dp, 1e-3);
+		assertArrayEquals(euler, dp, 0.5);
+	}
+	
+	/**
+	 * Should fill fine result intervals by interpolation instead of shortening the steps of the
+	 * higher-order integrators, and reject a negative effective insulin level with every
+	 * integrator.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldInterpolateFineResultIntervals() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.setIntegrator(SimulationKernelAIDA.Integrator.RK4);
+		kernel.setStepMinutes(15);
+		kernel.run();
+		double[] coarse = Arrays.copyOf(kernel.getResultGlucose(), kernel.getResultCount());
+		long coarseSteps = kernel.getStepCount();
+		
+		for (SimulationKernelAIDA.Integrator integrator : new SimulationKernelAIDA.Integrator[] {
+		        SimulationKernelAIDA.Integrator.RK4, SimulationKernelAIDA.Integrator.DORMAND_PRINCE }) {
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			kernel.setIntegrator(integrator);
+			kernel.setResultInterval(1);
+			kernel.run();
+			if (integrator == SimulationKernelAIDA.Integrator.RK4)
+				assertEquals(coarseSteps, kernel.getStepCount());
+			else
+				assertTrue(kernel.getStepCount() < kernel.getDaysSimulated() * 1440L / 4);
+			double[] fine = kernel.getResultGlucose();
+			for (int k = 0; k < coarse.length; k++)
+				assertEquals(coarse[k], fine[15 * k], 1e-2);
+			for (int k = 1; k < kernel.getResultCount(); k++)
+				assertEquals(fine[k - 1], fine[k], 0.2);
+			kernel.setResultInterval(SimulationKernelAIDA.RESULT_INTERVAL);
+		}
+		
+		kernel.setPatient(80.0, 9.0, 100.0, -5.0, 0.5);
+		for (SimulationKernelAIDA.Integrator integrator : SimulationKernelAIDA.Integrator.values()) {
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			kernel.setIntegrator(integrator);
+			try {
+				kernel.run();
+				fail("Negative hepatic insulin sensitivity accepted by " + integrator);
+			}
+			catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+	
+	/**
+	 * Should resume from the last checkpoint before a changed meal and produce exactly the results of
+	 * a complete run, and start from the beginning when a parameter has changed.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldResumeFromCheckpoints() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.setCheckpointInterval(15);
+		kernel.run();
+		long fullSteps = kernel.getStepCount();
+		
+		EventSchedule changed = new EventSchedule();
+		changed.addMeal(8 * 60, 80.0);
+		changed.addMeal(12 * 60, 70.0);
+		changed.addMeal(19 * 60 + 10, 50.0);
+		changed.addInsulinInjection1(8 * 60, 6.0);
+		changed.addInsulinInjection2(22 * 60, 12.0);
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setSchedule(changed);
+		kernel.run();
+		
+		SimulationKernelAIDA fresh = createKernel();
+		fresh.setSchedule(changed);
+		fresh.run();
+		assertEquals(19 * 60, kernel.getResumedMinute());
+		assertEquals(fullSteps - 19 * 60, kernel.getStepCount());
+		assertArrayEquals(Arrays.copyOf(fresh.getResultGlucose(), fresh.getResultCount()), Arrays.copyOf(kernel
+		        .getResultGlucose(), kernel.getResultCount()), 0.0);
+		assertArrayEquals(Arrays.copyOf(fresh.getResultInsulin(), fresh.getResultCount()), Arrays.copyOf(kernel
+		        .getResultInsulin(), kernel.getResultCount()), 0.0);
+		assertEquals(fresh.getG(), kernel.getG(), 0.0);
+		assertEquals(fresh.getResidual(), kernel.getResidual(), 0.0);
+		
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setPatient(80.0, 9.0, 100.0, 0.6, 0.5);
+		kernel.run();
+		assertEquals(0, kernel.getResumedMinute());
+	}
+	
+	/**
+	 * Should keep the results before the resumed minute of a one-day run.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldResumeSingleDayRuns() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.setSteadyState(0.0, 1);
+		kernel.setResultInterval(1);
+		kernel.setCheckpointInterval(60);
+		kernel.run();
+		
+		EventSchedule changed = new EventSchedule();
+		changed.addMeal(8 * 60, 80.0);
+		changed.addMeal(12 * 60, 70.0);
+		changed.addMeal(19 * 60, 60.0);
+		changed.addInsulinInjection1(8 * 60, 6.0);
+		changed.addInsulinInjection2(21 * 60 + 30, 14.0);
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setSchedule(changed);
+		kernel.run();
+		
+		SimulationKernelAIDA fresh = createKernel();
+		fresh.setSteadyState(0.0, 1);
+		fresh.setResultInterval(1);
+		fresh.setSchedule(changed);
+		fresh.run();
+		assertEquals(21 * 60, kernel.getResumedMinute());
+		assertArrayEquals(Arrays.copyOf(fresh.getResultGlucose(), fresh.getResultCount()), Arrays.copyOf(kernel
+		        .getResultGlucose(), kernel.getResultCount()), 0.0);
+		assertArrayEquals(Arrays.copyOf(fresh.getResultInsulin(), fresh.getResultCount()), Arrays.copyOf(kernel
+		        .getResultInsulin(), kernel.getResultCount()), 0.0);
+	}
+	
+	/**
+	 * Should converge in fewer days when started from the final state of a run with a slightly
+	 * different schedule, and reach the same steady state within the tolerance.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldConvergeFasterWhenWarmStarted() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.setSteadyState(1e-4, SimulationKernelAIDA.MAX_DAYS);
+		kernel.run();
+		double[] state = kernel.getFinalState();
+		assertEquals(SimulationKernelAIDA.STATE_SIZE, state.length);
+		assertEquals(kernel.getG(), state[0], 0.0);
+		
+		EventSchedule changed = new EventSchedule();
+		changed.addMeal(8 * 60, 80.0);
+		changed.addMeal(12 * 60, 75.0);
+		changed.addMeal(19 * 60, 60.0);
+		changed.addInsulinInjection1(8 * 60, 6.0);
+		changed.addInsulinInjection2(22 * 60, 12.0);
+		SimulationKernelAIDA cold = createKernel();
+		cold.setSteadyState(1e-4, SimulationKernelAIDA.MAX_DAYS);
+		cold.setSchedule(changed);
+		cold.run();
+		
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.setWarmState(state);
+		kernel.setSchedule(changed);
+		kernel.run();
+		assertTrue(kernel.isConverged());
+		assertTrue(kernel.getDaysSimulated() < cold.getDaysSimulated());
+		assertArrayEquals(Arrays.copyOf(cold.getResultGlucose(), cold.getResultCount()), Arrays.copyOf(kernel
+		        .getResultGlucose(), kernel.getResultCount()), 1e-3);
+		assertArrayEquals(Arrays.copyOf(cold.getResultInsulin(), cold.getResultCount()), Arrays.copyOf(kernel
+		        .getResultInsulin(), kernel.getResultCount()), 1e-3);
+		
+		// The insulin trajectory is continued from the same state as the integrated insulin levels
+		SimulationKernelAIDA direct = createKernel();
+		direct.setSteadyState(1e-4, SimulationKernelAIDA.MAX_DAYS);
+		direct.setInsulinTrajectoryCache(null);
+		direct.setWarmState(state);
+		direct.setSchedule(changed);
+		direct.run();
+		assertArrayEquals(direct.getFinalState(), kernel.getFinalState(), 0.0);
+		assertArrayEquals(Arrays.copyOf(direct.getResultGlucose(), direct.getResultCount()), Arrays.copyOf(kernel
+		        .getResultGlucose(), kernel.getResultCount()), 0.0);
+	}
+	
+	/**
+	 * Should pass the results of every day of a multi-day stream to the sink, close to the results
+	 * of the periodic simulation for a repeated schedule, and respond to a day with a skipped meal.
+	 * The stream does not repeat the step at midnight, so its results are not identical.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldStreamMultiDayResults() throws Exception {
+		SimulationKernelAIDA kernel = createKernel();
+		kernel.run();
+		double[] periodic = Arrays.copyOf(kernel.getResultGlucose(), kernel.getResultCount() - 1);
+		
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		EventSchedule skipped = new EventSchedule();
+		skipped.addMeal(8 * 60, 80.0);
+		skipped.addMeal(19 * 60, 60.0);
+		skipped.addInsulinInjection1(8 * 60, 6.0);
+		skipped.addInsulinInjection2(22 * 60, 12.0);
+		final double[][] days = new double[7][];
+		ResultSink sink = new ResultSink() {
+			
+			public void write(ResultChunk chunk) {
+				days[chunk.getDay()] = Arrays.copyOf(chunk.getGlucose(), chunk.size());
+			}
+		};
+		kernel.setInitialState(0.0, 0.0, 4.4);
+		kernel.runStream(new DailyEventStream(7, schedule, schedule, schedule, schedule, skipped, schedule, schedule),
+		    7, sink);
+		
+		assertEquals(7, kernel.getDaysSimulated());
+		assertEquals(7L * 1440L, kernel.getStepCount());
+		assertArrayEquals(periodic, days[2], 0.05);
+		assertArrayEquals(periodic, days[3], 0.05);
+		assertTrue(GlucoseMetrics.mean(days[4], 0, days[4].length) < GlucoseMetrics.mean(days[3], 0, days[3].length) - 1.0);
+		assertArrayEquals(periodic, days[6], 0.05);
+	}
+	
+	/**
+	 * Returns today's date at the given time.
+	 * 
+	 * @param hour Hour of the day.
+	 * @param minute Minute of the hour.
+	 * @return The Date.
+	 */
+	private Date today(int hour, int minute) {
+		Calendar cal = Calendar.getInstance();
+		cal.set(Calendar.HOUR_OF_DAY, hour);
+		cal.set(Calendar.MINUTE, minute);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		return cal.getTime();
+	}
+}
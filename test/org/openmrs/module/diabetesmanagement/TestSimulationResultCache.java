@@ -0,0 +1,144 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.SimulationResultCache} class.
+ */
+public class TestSimulationResultCache {
+	
+	/**
+	 * Creates a model with three meals and two injections.
+	 * 
+	 * @param sh Hepatic insulin sensitivity.
+	 * @param reversed Whether the simultaneous meal and injection are added in reverse order.
+	 * @return The model.
+	 */
+	private SimulationModelAIDA createModel(double sh, boolean reversed) {
+		EventSchedule schedule = new EventSchedule();
+		if (reversed)
+			schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addMeal(8 * 60, 80.0);
+		if (!reversed)
+			schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		SimulationModelAIDA model = new SimulationModelAIDA(80.0, 9.0, 100.0, sh, 0.5, 2.0, 0.05, 1.7, 2.0, 0.18, 4.9,
+		        null, null, null, 4.4);
+		model.setSchedule(schedule);
+		return model;
+	}
+	
+	/**
+	 * Should return the results of an uncached run, also for the same events added in another order,
+	 * and keep them in mmol/l when a model converts its results.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldReuseIdenticalRuns() throws Exception {
+		SimulationModelAIDA uncached = createModel(0.5, false);
+		uncached.runSimulation();
+		
+		SimulationResultCache cache = new SimulationResultCache(1L << 20, 0);
+		SimulationModelAIDA first = createModel(0.5, false);
+		first.setResultCache(cache);
+		first.runSimulation();
+		first.convertToMgdl();
+		SimulationModelAIDA second = createModel(0.5, true);
+		second.setResultCache(cache);
+		second.runSimulation();
+		
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertArrayEquals(uncached.getGlucose().toArray(), second.getGlucose().toArray(), 0.0);
+		assertArrayEquals(uncached.getInsulin().toArray(), second.getInsulin().toArray(), 0.0);
+		assertEquals(uncached.getG(), second.getG(), 0.0);
+		assertEquals(uncached.getGlucose().get(10) * TimeSeries.MGDL_PER_MMOL, first.getGlucose().get(10), 0.0);
+	}
+	
+	/**
+	 * Should move the least recently used result off the heap and promote it on its next use.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldEvictToOffHeapTier() throws Exception {
+		SimulationResultCache cache = new SimulationResultCache(3000, 1L << 20);
+		SimulationModelAIDA first = createModel(0.5, false);
+		first.setResultCache(cache);
+		first.runSimulation();
+		SimulationModelAIDA second = createModel(1.5, false);
+		second.setResultCache(cache);
+		second.runSimulation();
+		
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.offHeapSize());
+		
+		SimulationModelAIDA again = createModel(0.5, false);
+		again.setResultCache(cache);
+		again.runSimulation();
+		
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.getOffHeapHits());
+		assertArrayEquals(first.getGlucose().toArray(), again.getGlucose().toArray(), 0.0);
+		assertArrayEquals(first.getInsulin().toArray(), again.getInsulin().toArray(), 0.0);
+		assertEquals(first.getResidual(), again.getResidual(), 0.0);
+		assertEquals(first.getDaysSimulated(), again.getDaysSimulated());
+	}
+	
+	/**
+	 * Should run the model only once for concurrent requests with the same inputs.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldComputeConcurrentRequestsOnce() throws Exception {
+		final SimulationResultCache cache = new SimulationResultCache(1L << 20, 0);
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int k = 0; k < threads.length; k++) {
+			threads[k] = new Thread() {
+				
+				@Override
+				public void run() {
+					SimulationModelAIDA model = createModel(0.5, false);
+					model.setResultCache(cache);
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					model.runSimulation();
+				}
+			};
+			threads[k].start();
+		}
+		start.countDown();
+		for (Thread t : threads)
+			t.join();
+		
+		assertEquals(1, cache.getMisses());
+		assertEquals(threads.length - 1, cache.getHits() + cache.getJoins());
+	}
+}
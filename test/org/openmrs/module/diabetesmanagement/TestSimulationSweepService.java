@@ -0,0 +1,103 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl}
+ * class.
+ */
+public class TestSimulationSweepService {
+	
+	/**
+	 * Should enumerate the grid with the last parameter varying fastest.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldEnumerateGrid() throws Exception {
+		assertArrayEquals(new double[] { 0.2, 0.4, 0.6 }, ParameterSweep.range(0.2, 0.6, 3), 1e-12);
+		
+		ParameterSweep sweep = new ParameterSweep();
+		sweep.setWeights(70.0, 90.0);
+		sweep.setRTGs(9.0);
+		sweep.setCCRs(100.0);
+		sweep.setShs(0.3, 0.5, 0.7);
+		sweep.setSps(0.4, 0.6);
+		
+		assertEquals(12, sweep.size());
+		assertArrayEquals(new double[] { 70.0, 9.0, 100.0, 0.3, 0.6 }, sweep.getParameters(1), 0.0);
+		assertArrayEquals(new double[] { 90.0, 9.0, 100.0, 0.5, 0.4 }, sweep.getParameters(8), 0.0);
+		assertEquals(8, new SweepResult(sweep).getIndex(1, 0, 0, 1, 0));
+	}
+	
+	/**
+	 * Should calculate the same metrics as single kernel runs of each combination, also after the
+	 * service has been shut down.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchSingleRuns() throws Exception {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		
+		ParameterSweep sweep = new ParameterSweep();
+		sweep.setWeights(80.0);
+		sweep.setRTGs(8.0, 10.0);
+		sweep.setCCRs(100.0);
+		sweep.setShs(ParameterSweep.range(0.1, 1.0, 10));
+		sweep.setSps(ParameterSweep.range(0.1, 1.0, 10));
+		sweep.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		sweep.setInsulinType2(createInsulinType(2.0, 0.05, 12.0));
+		sweep.setSchedule(schedule);
+		
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		SweepResult result = service.runSweep(sweep);
+		
+		assertEquals(200, result.size());
+		for (int k = 0; k < result.size(); k += 7) {
+			double[] p = sweep.getParameters(k);
+			SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+			kernel.setPatient(p[0], p[1], p[2], p[3], p[4]);
+			kernel.setInsulin1(2.0, 0.05, 1.7);
+			kernel.setInsulin2(2.0, 0.05, 12.0);
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			kernel.setSchedule(schedule);
+			kernel.setResultInterval(1);
+			kernel.run();
+			double[] glucose = kernel.getResultGlucose();
+			int count = kernel.getResultCount();
+			
+			assertEquals(GlucoseMetrics.mean(glucose, 0, count), result.getMeanGlucose(k), 0.0);
+			assertEquals(GlucoseMetrics.minutesBelow(glucose, 0, count, 1, GlucoseMetrics.HYPOGLYCEMIA_THRESHOLD), result
+			        .getMinutesBelow(k));
+			assertEquals(GlucoseMetrics.peak(glucose, 0, count), result.getPeakGlucose(k), 0.0);
+		}
+		
+		service.shutdown();
+		assertEquals(result.getMeanGlucose(199), service.runSweep(sweep).getMeanGlucose(199), 0.0);
+	}
+}
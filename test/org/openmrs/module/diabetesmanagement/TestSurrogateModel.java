@@ -0,0 +1,183 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.SurrogateModel} class.
+ */
+public class TestSurrogateModel {
+	
+	/**
+	 * Creates a small grid of a meal template.
+	 * 
+	 * @return The grid.
+	 */
+	private SurrogateGrid createGrid() {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 8.0);
+		schedule.addInsulinInjection2(22 * 60, 14.0);
+		
+		SurrogateGrid grid = new SurrogateGrid();
+		grid.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		grid.setInsulinType2(createInsulinType(2.0, 0.05, 12.0));
+		grid.setSchedule(schedule);
+		grid.setNodes(SurrogateGrid.WEIGHT, 70.0, 80.0);
+		grid.setNodes(SurrogateGrid.RTG, 8.0, 10.0);
+		grid.setNodes(SurrogateGrid.CCR, 90.0, 110.0);
+		grid.setNodes(SurrogateGrid.SH, 0.4, 0.6);
+		grid.setNodes(SurrogateGrid.SP, 0.4, 0.6);
+		grid.setNodes(SurrogateGrid.DOSE_SCALE, 0.8, 1.0, 1.2);
+		grid.setNodes(SurrogateGrid.CARB_SCALE, 0.9, 1.1);
+		return grid;
+	}
+	
+	/**
+	 * Creates a model of the given grid.
+	 * 
+	 * @param grid The grid.
+	 * @return The model.
+	 */
+	private SurrogateModel build(SurrogateGrid grid) {
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		return service.buildSurrogate(grid);
+	}
+	
+	/**
+	 * Should reproduce the profiles of the nodes, and estimate the error of each cell at its
+	 * centre.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldReproduceNodesAndEstimateCellErrors() throws Exception {
+		SurrogateGrid grid = createGrid();
+		SurrogateModel model = build(grid);
+		assertEquals(192, model.getNodeCount());
+		assertEquals(2, model.getCellCount());
+		assertEquals(grid.getFingerprint(), model.getFingerprint());
+		
+		int size = SurrogateGrid.PROFILE_SIZE;
+		double[] point = new double[SurrogateGrid.PARAMETERS];
+		double[] interpolated = new double[size], simulated = new double[size];
+		for (int node = 0; node < model.getNodeCount(); node += 37) {
+			grid.getNode(node, point);
+			model.interpolate(point, interpolated);
+			grid.simulate(new double[][] { point }, simulated);
+			for (int k = 0; k < size; k++)
+				assertEquals(simulated[k], interpolated[k], 1e-4);
+		}
+		double max = 0.0;
+		for (int cell = 0; cell < model.getCellCount(); cell++) {
+			grid.getCellCenter(cell, point);
+			double estimate = model.interpolate(point, interpolated);
+			grid.simulate(new double[][] { point }, simulated);
+			double error = 0.0;
+			for (int k = 0; k < size; k++)
+				error = Math.max(error, Math.abs(interpolated[k] - simulated[k]));
+			assertEquals(error, estimate, 1e-4);
+			assertEquals(estimate, model.getCellError(cell), 0.0);
+			max = Math.max(max, estimate);
+		}
+		assertTrue(max > 0.0);
+		assertEquals(max, model.getMaxError(), 0.0);
+		
+		point[SurrogateGrid.SH] = 0.7;
+		assertTrue(Double.isNaN(model.interpolate(point, interpolated)));
+	}
+	
+	/**
+	 * Should map a saved model once and interpolate the same profiles, and ignore files that do
+	 * not hold a model once the loaded model has been unloaded.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldLoadSavedModel() throws Exception {
+		SurrogateGrid grid = createGrid();
+		SurrogateModel model = build(grid);
+		File file = File.createTempFile("surrogate", ".bin");
+		try {
+			model.save(file);
+			SurrogateModel loaded = SurrogateModel.load(file);
+			assertNotNull(loaded);
+			assertSame(loaded, SurrogateModel.load(file));
+			assertEquals(model.getFingerprint(), loaded.getFingerprint());
+			assertEquals(model.getMeanError(), loaded.getMeanError(), 0.0);
+			
+			double[] point = { 73.0, 9.1, 95.0, 0.45, 0.55, 1.07, 0.93 };
+			double[] expected = new double[SurrogateGrid.PROFILE_SIZE], actual = new double[SurrogateGrid.PROFILE_SIZE];
+			assertEquals(model.interpolate(point, expected), loaded.interpolate(point, actual), 0.0);
+			for (int k = 0; k < expected.length; k++)
+				assertEquals(expected[k], actual[k], 0.0);
+			
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[] { 1, 2, 3, 4 });
+			out.close();
+			assertSame(loaded, SurrogateModel.load(file));
+			SurrogateModel.unload(file);
+			assertNull(SurrogateModel.load(file));
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	/**
+	 * Should use the surrogate model within its error limit, and the full model outside of the
+	 * grid, above the limit, or for a model built from other inputs.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldFallBackToFullModel() throws Exception {
+		SurrogateGrid grid = createGrid();
+		SurrogateModel model = build(grid);
+		double[] point = { 73.0, 9.1, 95.0, 0.45, 0.55, 1.07, 0.93 };
+		double[] profile = new double[SurrogateGrid.PROFILE_SIZE], simulated = new double[SurrogateGrid.PROFILE_SIZE];
+		grid.simulate(new double[][] { point }, simulated);
+		
+		double error = grid.predict(model, point, 10.0, profile);
+		assertTrue(error >= 0.0 && error <= model.getMaxError());
+		for (int k = 0; k < profile.length; k++)
+			assertEquals(simulated[k], profile[k], 5.0 * model.getMaxError());
+		
+		assertTrue(Double.isNaN(grid.predict(model, point, -1.0, profile)));
+		for (int k = 0; k < profile.length; k++)
+			assertEquals(simulated[k], profile[k], 0.0);
+		assertTrue(Double.isNaN(grid.predict(null, point, 10.0, profile)));
+		
+		SurrogateGrid other = createGrid();
+		other.getSchedule().addMeal(15 * 60, 20.0);
+		assertTrue(Double.isNaN(other.predict(model, point, 10.0, profile)));
+		point[SurrogateGrid.WEIGHT] = 90.0;
+		assertTrue(Double.isNaN(grid.predict(model, point, 10.0, profile)));
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.TimeSeries} class.
+ */
+public class TestTimeSeries {
+	
+	/**
+	 * Should return views at coarser resolutions and in mg/dl without copying the values.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldCreateResolutionAndUnitViews() throws Exception {
+		double[] values = new double[1441];
+		for (int i = 0; i < values.length; i++)
+			values[i] = i / 100.0;
+		TimeSeries series = new TimeSeries(new Date(0L), 1, values);
+		
+		TimeSeries quarterHours = series.atResolution(15).inMgdl();
+		assertEquals(97, quarterHours.size());
+		assertEquals(15, quarterHours.getStepMinutes());
+		assertEquals(values[30] * 18.0, quarterHours.get(2), 0.0);
+		assertEquals(new Date(30 * 60000L), quarterHours.getTime(2));
+		
+		values[30] = 1.0;
+		assertEquals(18.0, quarterHours.get(2), 0.0);
+		assertEquals(97, quarterHours.toMap().size());
+	}
+	
+	/**
+	 * Should label the values of days with a daylight saving time change by their wall-clock time,
+	 * as the events of a schedule are; the values of the skipped hour share the times of the next.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldLabelValuesByWallClockTime() throws Exception {
+		TimeZone zone = TimeZone.getDefault();
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+		try {
+			// Daylight saving time starts at 02:00 on March 29 and ends at 03:00 on October 25, 2026
+			for (int day : new int[] { 29, 25 }) {
+				Calendar cal = Calendar.getInstance();
+				cal.clear();
+				cal.set(2026, day == 29 ? Calendar.MARCH : Calendar.OCTOBER, day);
+				TimeSeries series = new TimeSeries(cal.getTime(), 15, new double[96]);
+				
+				cal.set(Calendar.HOUR_OF_DAY, 8);
+				assertEquals(cal.getTime(), series.getTime(32));
+				cal.set(Calendar.HOUR_OF_DAY, 23);
+				cal.set(Calendar.MINUTE, 45);
+				assertEquals(cal.getTime(), series.getTime(95));
+				assertEquals(day == 29 ? 92 : 96, series.toMap().size());
+			}
+		}
+		finally {
+			TimeZone.setDefault(zone);
+		}
+	}
+	
+	/**
+	 * Should reject resolutions that are not a multiple of the step size.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void shouldRejectFinerResolution() throws Exception {
+		new TimeSeries(new Date(0L), 15, new double[97]).atResolution(5);
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * The contents of this file are subject to the OpenMRS Public License
+ * Version 1.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ * http://license.openmrs.org
+ *
+ * Software distributed under the License is distributed on an "AS IS"
+ * basis, WITHOUT WARRANTY OF ANY KIND, either express or implied. See the
+ * License for the specific language governing rights and limitations
+ * under the License.
+ *
+ * Copyright (C) OpenMRS, LLC.  All Rights Reserved.
+ */
+package org.openmrs.module.diabetesmanagement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.openmrs.module.diabetesmanagement.SimulationFixtures.createInsulinType;
+
+import java.util.Date;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+import org.openmrs.module.diabetesmanagement.impl.SimulationSweepServiceImpl;
+
+/**
+ * Tests methods on the {@link org.openmrs.module.diabetesmanagement.UncertaintyEnsemble} class.
+ */
+public class TestUncertaintyEnsemble {
+	
+	/**
+	 * Creates an ensemble around typical parameters, with three meals and two injections.
+	 * 
+	 * @param members Number of members.
+	 * @return The ensemble.
+	 */
+	private UncertaintyEnsemble createEnsemble(int members) {
+		EventSchedule schedule = new EventSchedule();
+		schedule.addMeal(8 * 60, 80.0);
+		schedule.addMeal(12 * 60, 70.0);
+		schedule.addMeal(19 * 60, 60.0);
+		schedule.addInsulinInjection1(8 * 60, 6.0);
+		schedule.addInsulinInjection2(22 * 60, 12.0);
+		
+		UncertaintyEnsemble ensemble = new UncertaintyEnsemble();
+		ensemble.setMembers(members);
+		ensemble.setSeed(20100601L);
+		ensemble.setWeight(80.0);
+		ensemble.setRTG(9.0);
+		ensemble.setCCR(100.0);
+		ensemble.setSh(0.5);
+		ensemble.setSp(0.5);
+		ensemble.setInsulinType1(createInsulinType(2.0, 0.05, 1.7));
+		ensemble.setInsulinType2(createInsulinType(2.0, 0.05, 12.0));
+		ensemble.setSchedule(schedule);
+		return ensemble;
+	}
+	
+	/**
+	 * Should give exactly the same bands regardless of the parallelism.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldBeReproducibleAcrossParallelism() throws Exception {
+		UncertaintyEnsemble ensemble = createEnsemble(150);
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(1);
+		EnsembleResult single = service.runEnsemble(ensemble);
+		service.setParallelism(3);
+		EnsembleResult parallel = service.runEnsemble(ensemble);
+		
+		assertEquals(150, parallel.getMembers());
+		for (int point = 0; point < single.getPointCount(); point++) {
+			double previous = Double.NEGATIVE_INFINITY;
+			for (double p : EnsembleResult.PERCENTILES) {
+				assertEquals(single.getPercentile(p, point), parallel.getPercentile(p, point), 0.0);
+				assertTrue(parallel.getPercentile(p, point) >= previous);
+				previous = parallel.getPercentile(p, point);
+			}
+		}
+		assertEquals(single.getHypoglycemiaProbability(), parallel.getHypoglycemiaProbability(), 0.0);
+	}
+	
+	/**
+	 * Should summarize the same results as single kernel runs of the sampled members.
+	 * 
+	 * @throws Exception In case of errors.
+	 */
+	@Test
+	public void shouldMatchSingleRuns() throws Exception {
+		UncertaintyEnsemble ensemble = createEnsemble(40);
+		SimulationSweepServiceImpl service = new SimulationSweepServiceImpl();
+		service.setParallelism(2);
+		EnsembleResult result = service.runEnsemble(ensemble);
+		
+		EnsembleResult expected = new EnsembleResult(ensemble.getBandInterval());
+		SplittableRandom[] streams = ensemble.createStreams();
+		double[] p = new double[5];
+		for (int m = 0; m < ensemble.getMembers(); m++) {
+			EventSchedule schedule = ensemble.sample(streams[m], p);
+			SimulationKernelAIDA kernel = new SimulationKernelAIDA();
+			kernel.setPatient(p[0], p[1], p[2], p[3], p[4]);
+			kernel.setInsulin1(2.0, 0.05, 1.7);
+			kernel.setInsulin2(2.0, 0.05, 12.0);
+			kernel.setInitialState(0.0, 0.0, 4.4);
+			kernel.setSchedule(schedule);
+			kernel.setResultInterval(1);
+			kernel.run();
+			expected.add(kernel.getResultGlucose(), 0, kernel.getResultCount(), 1);
+		}
+		
+		double[] bands = new double[expected.getPointCount()];
+		for (int point = 0; point < bands.length; point++)
+			bands[point] = expected.getPercentile(50.0, point);
+		assertArrayEquals(bands, result.getBand(50.0, new Date()).toArray(), 0.0);
+		assertEquals(expected.getHypoglycemiaProbability(), result.getHypoglycemiaProbability(), 0.0);
+		assertEquals(expected.getMeanMinutesBelow(), result.getMeanMinutesBelow(), 0.0);
+		assertEquals(80.0, p[0], 0.0);
+	}
+}
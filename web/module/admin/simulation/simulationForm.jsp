@@ -1,426 +1,602 @@
-<%@ include file="/WEB-INF/template/include.jsp"%>
-<openmrs:htmlInclude file="/scripts/easyAjax.js" />
-
-<openmrs:require privilege="Run Diabetes Simulations" otherwise="/login.htm" redirect="/module/diabetesmanagement/admin/simulation.form" />
-
-<%@ include file="/WEB-INF/template/header.jsp"%>
-
-<openmrs:globalProperty key="diabetesmanagement.concept.glu" defaultValue="" var="glu" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.rtgLow" defaultValue="" var="rtgLow" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.rtgNormal" defaultValue="" var="rtgNormal" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.rtgHigh" defaultValue="" var="rtgHigh" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.ccrReduced" defaultValue="" var="ccrReduced" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.ccrNormal" defaultValue="" var="ccrNormal" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityHepaticReduced" defaultValue="" var="insulinSensivityHepaticReduced" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityHepaticNormal" defaultValue="" var="insulinSensivityHepaticNormal" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityHepaticIncreased" defaultValue="" var="insulinSensivityHepaticIncreased" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityPeripheralReduced" defaultValue="" var="insulinSensivityPeripheralReduced" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityPeripheralNormal" defaultValue="" var="insulinSensivityPeripheralNormal" />
-<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityPeripheralIncreased" defaultValue="" var="insulinSensivityPeripheralIncreased" />
-
-<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.aboveTitle" type="html" />
-
-<h2><img src="${pageContext.request.contextPath}/moduleResources/diabetesmanagement/images/Blue_circle_for_diabetes.gif" width="32" height="32" border="0" /> <spring:message code="diabetesmanagement.simulation.simulation" /></h2>
-
-<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.belowTitle" type="html" />
-
-<spring:hasBindErrors name="sim">
-	<spring:message code="fix.error" />
-	<br />
-</spring:hasBindErrors>
-
-<br />
-
-<c:if test="${patient != null}">
-	<div id="patientSummary">
-		<table cellpadding="3" cellspacing="0">
-			<tr>
-				<th align="left"><spring:message code="medicalproblem.problem.patient" /></th>
-				<td align="left">${patient.personName}</td>
-			</tr>
-		</table>
-	</div>
-</c:if>
-<div id="resultBoxes">
-	<table width="100%">
-		<c:if test="${sim.resultsAvailableCurrent}">
-			<tr><td><spring:message code="diabetesmanagement.simulation.executionTime" />: ${sim.executionTime}s</td></tr>
-			<tr>
-				<td align="center" id="resultBoxPlasmaGlucose">
-					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?hideDate&amp;hideShapes&width=800&amp;fromDate=${today}&amp;toDate=${today}&amp;seriesTitle1=<spring:message code="diabetesmanagement.simulation.current" />&amp;conceptId=${glu}&amp;filename1=${filenamePlasmaGlucoseCurrent}<c:if test="${sim.resultsAvailablePrevious}">&amp;seriesTitle2=<spring:message code="diabetesmanagement.simulation.previous" />&amp;filename2=${filenamePlasmaGlucosePrevious}</c:if>" />
-				</td>
-			</tr>
-			<tr>
-				<td align="center" id="resultBoxMeals">
-					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?chartType=bar&amp;hideDate&amp;hideLines&amp;width=800&amp;height=150&amp;maxRange=50&amp;fromDate=${today}&amp;toDate=${today}&amp;seriesTitle1=<spring:message code="diabetesmanagement.simulation.current" />&amp;customTitle=<spring:message code="diabetesmanagement.simulation.meals" />&amp;customUnits=g&filename1=${filenameMealsCurrent}<c:if test="${sim.resultsAvailablePrevious}">&amp;seriesTitle2=<spring:message code="diabetesmanagement.simulation.previous" />&amp;filename2=${filenameMealsPrevious}</c:if>" />
-				</td>
-			</tr>
-			<tr>
-				<td align="center" id="resultBoxPlasmaInsulin">
-					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?hideDate&amp;hideShapes&amp;width=800&amp;fromDate=${today}&amp;toDate=${today}&amp;seriesTitle1=<spring:message code="diabetesmanagement.simulation.current" />&amp;customTitle=<spring:message code="diabetesmanagement.simulation.plasmaInsulin" />&amp;customUnits=mU/l&amp;maxRange=50&amp;filename1=${filenamePlasmaInsulinCurrent}<c:if test="${sim.resultsAvailablePrevious}">&amp;seriesTitle2=<spring:message code="diabetesmanagement.simulation.previous" />&amp;filename2=${filenamePlasmaInsulinPrevious}</c:if>" />
-				</td>
-			</tr>
-			<tr>
-				<td align="center" id="resultBoxInjections">
-					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?hideDate&amp;hideLines&amp;width=800&amp;height=150&amp;maxRange=10&amp;fromDate=${today}&amp;toDate=${today}&amp;customTitle=<spring:message code="diabetesmanagement.simulation.insulinInjections" />&amp;customUnits=U&amp;seriesTitle1=${sim.insulin1.name}&amp;filename1=${filenameInjections1}&amp;seriesTitle2=${sim.insulin2.name}&amp;filename2=${filenameInjections2}" />
-				</td>
-			</tr>
-		</c:if>
-	</table>
-</div>
-<br />
-
-<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.beforeDataEntry" type="html" />
-
-<form method="post">
-<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.meals" /></div>
-<div class="box">
-	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementMeals">
-		<tr>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.weight" /></th>
-			<td>
-				<spring:bind path="sim.weight">
-					<input type="text" name="weight" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-		</tr>
-		<tr>
-			<th />
-			<th align="left"><spring:message code="diabetesmanagement.simulation.mealBreakfast" /></th>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.mealSnack" /></th>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.mealLunch" /></th>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.mealSnack" /></th>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.mealDinner" /></th>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.mealSnack" /></th>
-		</tr>
-		<tr>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.time" /></th>
-			<td>
-				<spring:bind path="sim.mealTime1">
-					<input type="text" name="mealTime1" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealTime2">
-					<input type="text" name="mealTime2" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealTime3">
-					<input type="text" name="mealTime3" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealTime4">
-					<input type="text" name="mealTime4" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealTime5">
-					<input type="text" name="mealTime5" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealTime6">
-					<input type="text" name="mealTime6" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-		</tr>
-		<tr>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.carbs" /></th>
-			<td>
-				<spring:bind path="sim.mealCarbs1">
-					<input type="text" name="mealCarbs1" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealCarbs2">
-					<input type="text" name="mealCarbs2" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealCarbs3">
-					<input type="text" name="mealCarbs3" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealCarbs4">
-					<input type="text" name="mealCarbs4" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealCarbs5">
-					<input type="text" name="mealCarbs5" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.mealCarbs6">
-					<input type="text" name="mealCarbs6" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-		</tr>
-	</table>
-</div>
-<br />
-<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.insulin" /></div>
-<div class="box" id="insulin">
-	<table cellspacing="0" cellpadding="2" width="100%">
-		<tr>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.preparations" /></th>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.time" /></th>
-			<td>
-				<spring:bind path="sim.insulinTime1">
-					<input type="text" name="insulinTime1" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulinTime2">
-					<input type="text" name="insulinTime2" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulinTime3">
-					<input type="text" name="insulinTime3" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulinTime4">
-					<input type="text" name="insulinTime4" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-		</tr>
-		<tr>
-			<td>
-				<spring:bind path="sim.insulin1">
-					<select name="insulin1">
-						<c:forEach var="type" items="${sim.insulinList}">
-							<option value="${type.insulinTypeId}" <c:if test="${type.name == status.value}">selected="selected"</c:if>>${type.name}</option>
-						</c:forEach>
-					</select>
-				</spring:bind>	
-			</td>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.dose" /></th>
-			<td>
-				<spring:bind path="sim.insulin1Dose1">
-					<input type="text" name="insulin1Dose1" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulin1Dose2">
-					<input type="text" name="insulin1Dose2" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulin1Dose3">
-					<input type="text" name="insulin1Dose3" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulin1Dose4">
-					<input type="text" name="insulin1Dose4" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-		</tr>
-		<tr>
-			<td>
-				<spring:bind path="sim.insulin2">
-					<select name="insulin2">
-						<c:forEach var="type" items="${sim.insulinList}">
-							<option value="${type.insulinTypeId}" <c:if test="${type.name == status.value}">selected="selected"</c:if>>${type.name}</option>
-						</c:forEach>
-					</select>
-				</spring:bind>
-			</td>
-			<th align="left"><spring:message code="diabetesmanagement.simulation.dose" /></th>
-			<td>
-				<spring:bind path="sim.insulin2Dose1">
-					<input type="text" name="insulin2Dose1" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulin2Dose2">
-					<input type="text" name="insulin2Dose2" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulin2Dose3">
-					<input type="text" name="insulin2Dose3" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-			<td>
-				<spring:bind path="sim.insulin2Dose4">
-					<input type="text" name="insulin2Dose4" value="${status.value}" size="5" />
-					<c:if test="${status.errorMessage != ''}">
-						<span class="error">${status.errorMessage}</span>
-					</c:if>
-				</spring:bind>
-			</td>
-		</tr>
-	</table>
-</div>
-<br />
-<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.kidneyFunction" /></div>
-<div class="box">
-	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementKidneyFunction">
-		<tr>
-			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.renalThreshold" /></th>
-			<td align="left" width="25%">
-				<spring:bind path="sim.RTG">
-					<c:choose>
-						<c:when test="${sim.patientSpecificRTG}">
-							<input name="RTG" type="hidden" value="${status.value}" />${status.value} *
-						</c:when>
-						<c:otherwise>
-							<select name="RTG">
-								<option value="${rtgLow}" <c:if test="${rtgLow == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelLow" /></option>
-								<option value="${rtgNormal}" <c:if test="${rtgNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
-								<option value="${rtgHigh}" <c:if test="${rtgHigh == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelHigh" /></option>
-							</select>
-						</c:otherwise>
-					</c:choose>
-				</spring:bind>
-			</td>
-			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.renalFunction" /></th>
-			<td align="left" width="25%">
-				<spring:bind path="sim.CCR">
-					<c:choose>
-						<c:when test="${sim.patientSpecificCCR}">
-							<input name="CCR" type="hidden" value="${status.value}" />${status.value} *
-						</c:when>
-						<c:otherwise>
-							<select name="CCR">
-								<option value="${ccrReduced}" <c:if test="${ccrReduced == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelReduced" /></option>
-								<option value="${ccrNormal}" <c:if test="${ccrNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
-							</select>
-						</c:otherwise>
-					</c:choose>
-				</spring:bind>
-			</td>
-		</tr>
-	</table>
-</div>
-<br />
-<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.insulinSensivities" /></div>
-<div class="box">
-	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementInsulinSensivities">
-		<tr>
-			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.liver" /></th>
-			<td align="left" width="25%">
-				<spring:bind path="sim.sh">
-					<c:choose>
-						<c:when test="${sim.patientSpecificSh}">
-							<input name="sh" type="hidden" value="${status.value}" />${status.value} *
-						</c:when>
-						<c:otherwise>
-							<select name="sh">
-								<option value="${insulinSensivityHepaticReduced}" <c:if test="${insulinSensivityHepaticReduced == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelReduced" /></option>
-								<option value="${insulinSensivityHepaticNormal}" <c:if test="${insulinSensivityHepaticNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
-								<option value="${insulinSensivityHepaticIncreased}" <c:if test="${insulinSensivityHepaticIncreased == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelIncreased" /></option>
-							</select>
-						</c:otherwise>
-					</c:choose>
-				</spring:bind>
-			</td>
-			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.peripheral" /></th>
-			<td align="left" width="25%">
-				<spring:bind path="sim.sp">
-					<c:choose>
-						<c:when test="${sim.patientSpecificSp}">
-							<input name="sp" type="hidden" value="${status.value}" />${status.value} *
-						</c:when>
-						<c:otherwise>
-							<select name="sp">
-								<option value="${insulinSensivityPeripheralReduced}" <c:if test="${insulinSensivityPeripheralReduced == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelReduced" /></option>
-								<option value="${insulinSensivityPeripheralNormal}" <c:if test="${insulinSensivityPeripheralNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
-								<option value="${insulinSensivityPeripheralIncreased}" <c:if test="${insulinSensivityPeripheralIncreased == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelIncreased" /></option>
-							</select>
-						</c:otherwise>
-					</c:choose>
-				</spring:bind>
-			</td>
-		</tr>
-	</table>
-</div>
-<br />* <spring:message code="diabetesmanagement.simulation.patientSpecificValue" /></td>
-<br /><br />
-<input type="submit" id="runSimulationButton" value='<spring:message code="diabetesmanagement.simulation.run" />'>
-</form>
-
-<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.afterDataEntry" type="html" />
-
-<openmrs:htmlInclude file="/dwr/engine.js" />
-<openmrs:htmlInclude file="/dwr/util.js" />
-
-<%@ include file="/WEB-INF/template/footer.jsp"%>
+<%@ include file="/WEB-INF/template/include.jsp"%>
+<openmrs:htmlInclude file="/scripts/easyAjax.js" />
+
+<openmrs:require privilege="Run Diabetes Simulations" otherwise="/login.htm" redirect="/module/diabetesmanagement/admin/simulation.form" />
+
+<%@ include file="/WEB-INF/template/header.jsp"%>
+
+<openmrs:globalProperty key="diabetesmanagement.concept.glu" defaultValue="" var="glu" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.rtgLow" defaultValue="" var="rtgLow" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.rtgNormal" defaultValue="" var="rtgNormal" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.rtgHigh" defaultValue="" var="rtgHigh" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.ccrReduced" defaultValue="" var="ccrReduced" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.ccrNormal" defaultValue="" var="ccrNormal" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityHepaticReduced" defaultValue="" var="insulinSensivityHepaticReduced" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityHepaticNormal" defaultValue="" var="insulinSensivityHepaticNormal" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityHepaticIncreased" defaultValue="" var="insulinSensivityHepaticIncreased" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityPeripheralReduced" defaultValue="" var="insulinSensivityPeripheralReduced" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityPeripheralNormal" defaultValue="" var="insulinSensivityPeripheralNormal" />
+<openmrs:globalProperty key="diabetesmanagement.simulation.insulinSensivityPeripheralIncreased" defaultValue="" var="insulinSensivityPeripheralIncreased" />
+
+<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.aboveTitle" type="html" />
+
+<h2><img src="${pageContext.request.contextPath}/moduleResources/diabetesmanagement/images/Blue_circle_for_diabetes.gif" width="32" height="32" border="0" /> <spring:message code="diabetesmanagement.simulation.simulation" /></h2>
+
+<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.belowTitle" type="html" />
+
+<spring:hasBindErrors name="sim">
+	<spring:message code="fix.error" />
+	<br />
+</spring:hasBindErrors>
+
+<br />
+
+<c:if test="${patient != null}">
+	<div id="patientSummary">
+		<table cellpadding="3" cellspacing="0">
+			<tr>
+				<th align="left"><spring:message code="medicalproblem.problem.patient" /></th>
+				<td align="left">${patient.personName}</td>
+			</tr>
+		</table>
+	</div>
+</c:if>
+<div id="resultBoxes">
+	<table width="100%">
+		<c:if test="${sim.resultsAvailableCurrent}">
+			<tr><td><spring:message code="diabetesmanagement.simulation.executionTime" />: ${sim.executionTime}s, <spring:message code="diabetesmanagement.simulation.daysSimulated" />: ${sim.daysSimulatedCurrent}</td></tr>
+			<tr>
+				<td align="center" id="resultBoxPlasmaGlucose">
+					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?hideDate&amp;hideShapes&width=800&amp;fromDate=${today}&amp;toDate=${today}&amp;seriesTitle1=<spring:message code="diabetesmanagement.simulation.current" />&amp;conceptId=${glu}&amp;filename1=${filenamePlasmaGlucoseCurrent}<c:if test="${sim.resultsAvailablePrevious}">&amp;seriesTitle2=<spring:message code="diabetesmanagement.simulation.previous" />&amp;filename2=${filenamePlasmaGlucosePrevious}</c:if>" />
+				</td>
+			</tr>
+			<tr>
+				<td align="center" id="resultBoxMeals">
+					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?chartType=bar&amp;hideDate&amp;hideLines&amp;width=800&amp;height=150&amp;maxRange=50&amp;fromDate=${today}&amp;toDate=${today}&amp;seriesTitle1=<spring:message code="diabetesmanagement.simulation.current" />&amp;customTitle=<spring:message code="diabetesmanagement.simulation.meals" />&amp;customUnits=g&filename1=${filenameMealsCurrent}<c:if test="${sim.resultsAvailablePrevious}">&amp;seriesTitle2=<spring:message code="diabetesmanagement.simulation.previous" />&amp;filename2=${filenameMealsPrevious}</c:if>" />
+				</td>
+			</tr>
+			<tr>
+				<td align="center" id="resultBoxPlasmaInsulin">
+					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?hideDate&amp;hideShapes&amp;width=800&amp;fromDate=${today}&amp;toDate=${today}&amp;seriesTitle1=<spring:message code="diabetesmanagement.simulation.current" />&amp;customTitle=<spring:message code="diabetesmanagement.simulation.plasmaInsulin" />&amp;customUnits=mU/l&amp;maxRange=50&amp;filename1=${filenamePlasmaInsulinCurrent}<c:if test="${sim.resultsAvailablePrevious}">&amp;seriesTitle2=<spring:message code="diabetesmanagement.simulation.previous" />&amp;filename2=${filenamePlasmaInsulinPrevious}</c:if>" />
+				</td>
+			</tr>
+			<tr>
+				<td align="center" id="resultBoxInjections">
+					<img src="${pageContext.request.contextPath}/moduleServlet/medicalproblem/showCustomDataGraphServlet?hideDate&amp;hideLines&amp;width=800&amp;height=150&amp;maxRange=10&amp;fromDate=${today}&amp;toDate=${today}&amp;customTitle=<spring:message code="diabetesmanagement.simulation.insulinInjections" />&amp;customUnits=U&amp;seriesTitle1=${sim.insulin1.name}&amp;filename1=${filenameInjections1}&amp;seriesTitle2=${sim.insulin2.name}&amp;filename2=${filenameInjections2}" />
+				</td>
+			</tr>
+		</c:if>
+		<c:if test="${not empty sim.riskMap}">
+			<tr>
+				<td align="center" id="resultBoxRiskMap">
+					<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.riskMap" /></div>
+					<div class="box">
+						<c:set var="riskBelowRows" value="${sim.riskMap.minutesBelowRows}" />
+						<c:set var="riskThresholds" value="${sim.riskThresholds}" />
+						<table cellspacing="0" cellpadding="0" class="diabetesmanagementRiskMap">
+							<tr>
+								<th align="left"><spring:message code="diabetesmanagement.simulation.riskDose" /> \ <spring:message code="diabetesmanagement.simulation.riskCarbs" /></th>
+								<c:forEach var="carbScale" items="${sim.riskMap.grid.carbScales}" varStatus="carbs">
+									<th style="font-size: x-small"><c:if test="${carbs.index % 5 == 0}"><fmt:formatNumber value="${carbScale * 100}" maxFractionDigits="0" /></c:if></th>
+								</c:forEach>
+							</tr>
+							<c:forEach var="row" items="${sim.riskMap.minGlucoseRows}" varStatus="dose">
+								<tr>
+									<th align="right" style="font-size: x-small"><fmt:formatNumber value="${sim.riskMap.grid.doseScales[dose.index] * 100}" maxFractionDigits="0" /></th>
+									<c:forEach var="min" items="${row}" varStatus="carbs">
+										<td width="12" height="12" style="background-color: <c:choose><c:when test="${min < riskThresholds[0]}">#d7191c</c:when><c:when test="${min < riskThresholds[1]}">#fdae61</c:when><c:when test="${min < riskThresholds[2]}">#ffffbf</c:when><c:otherwise>#a6d96a</c:otherwise></c:choose>" title="<fmt:formatNumber value="${min}" maxFractionDigits="1" /> ${sim.glucoseUnits}, ${riskBelowRows[dose.index][carbs.index]} min"></td>
+									</c:forEach>
+								</tr>
+							</c:forEach>
+						</table>
+						<fmt:formatNumber var="riskThreshold0" value="${riskThresholds[0]}" maxFractionDigits="1" />
+						<fmt:formatNumber var="riskThreshold1" value="${riskThresholds[1]}" maxFractionDigits="1" />
+						<fmt:formatNumber var="riskThreshold2" value="${riskThresholds[2]}" maxFractionDigits="1" />
+						<spring:message code="diabetesmanagement.simulation.riskLegend" arguments="${riskThreshold0} ${sim.glucoseUnits}|${riskThreshold1} ${sim.glucoseUnits}|${riskThreshold2} ${sim.glucoseUnits}" argumentSeparator="|" />
+					</div>
+				</td>
+			</tr>
+		</c:if>
+		<c:if test="${not empty sim.insulinComparison}">
+			<tr><td><spring:message code="diabetesmanagement.simulation.executionTime" />: ${sim.executionTime}s</td></tr>
+			<tr>
+				<td id="resultBoxComparison">
+					<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.comparison" /></div>
+					<div class="box">
+						<table cellspacing="0" cellpadding="2">
+							<tr>
+								<th align="left"><spring:message code="diabetesmanagement.simulation.comparisonRank" /></th>
+								<th align="left"><spring:message code="diabetesmanagement.simulation.preparations" /></th>
+								<th align="right"><spring:message code="diabetesmanagement.simulation.comparisonMean" arguments="${sim.glucoseUnits}" /></th>
+								<th align="right"><spring:message code="diabetesmanagement.simulation.comparisonPeak" arguments="${sim.glucoseUnits}" /></th>
+								<fmt:formatNumber var="hypoglycemiaThreshold" value="${sim.hypoglycemiaThreshold}" maxFractionDigits="1" />
+								<th align="right"><spring:message code="diabetesmanagement.simulation.comparisonBelow" arguments="${hypoglycemiaThreshold} ${sim.glucoseUnits}" argumentSeparator="|" /></th>
+								<th align="right"><spring:message code="diabetesmanagement.simulation.comparisonInRange" /></th>
+							</tr>
+							<c:forEach var="pair" items="${sim.insulinComparison}" varStatus="rank">
+								<tr class="<c:choose><c:when test="${rank.index % 2 == 0}">evenRow</c:when><c:otherwise>oddRow</c:otherwise></c:choose>">
+									<td>${rank.count}</td>
+									<td>${pair.insulinType1.name} / ${pair.insulinType2.name}</td>
+									<td align="right"><fmt:formatNumber value="${pair.meanGlucose}" maxFractionDigits="1" /></td>
+									<td align="right"><fmt:formatNumber value="${pair.peakGlucose}" maxFractionDigits="1" /></td>
+									<td align="right">${pair.minutesBelow}</td>
+									<td align="right"><fmt:formatNumber value="${pair.timeInRange * 100}" maxFractionDigits="0" /></td>
+								</tr>
+							</c:forEach>
+						</table>
+					</div>
+				</td>
+			</tr>
+		</c:if>
+	</table>
+</div>
+<br />
+
+<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.beforeDataEntry" type="html" />
+
+<form method="post" id="simulationForm" onchange="updatePreview()">
+<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.meals" /></div>
+<div class="box">
+	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementMeals">
+		<tr>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.weight" /></th>
+			<td>
+				<spring:bind path="sim.weight">
+					<input type="text" name="weight" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<th />
+			<th align="left"><spring:message code="diabetesmanagement.simulation.mealBreakfast" /></th>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.mealSnack" /></th>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.mealLunch" /></th>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.mealSnack" /></th>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.mealDinner" /></th>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.mealSnack" /></th>
+		</tr>
+		<tr>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.time" /></th>
+			<td>
+				<spring:bind path="sim.mealTime1">
+					<input type="text" name="mealTime1" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealTime2">
+					<input type="text" name="mealTime2" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealTime3">
+					<input type="text" name="mealTime3" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealTime4">
+					<input type="text" name="mealTime4" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealTime5">
+					<input type="text" name="mealTime5" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealTime6">
+					<input type="text" name="mealTime6" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.carbs" /></th>
+			<td>
+				<spring:bind path="sim.mealCarbs1">
+					<input type="text" name="mealCarbs1" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealCarbs2">
+					<input type="text" name="mealCarbs2" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealCarbs3">
+					<input type="text" name="mealCarbs3" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealCarbs4">
+					<input type="text" name="mealCarbs4" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealCarbs5">
+					<input type="text" name="mealCarbs5" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.mealCarbs6">
+					<input type="text" name="mealCarbs6" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+		</tr>
+	</table>
+</div>
+<br />
+<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.insulin" /></div>
+<div class="box" id="insulin">
+	<table cellspacing="0" cellpadding="2" width="100%">
+		<tr>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.preparations" /></th>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.time" /></th>
+			<td>
+				<spring:bind path="sim.insulinTime1">
+					<input type="text" name="insulinTime1" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulinTime2">
+					<input type="text" name="insulinTime2" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulinTime3">
+					<input type="text" name="insulinTime3" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulinTime4">
+					<input type="text" name="insulinTime4" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<td>
+				<spring:bind path="sim.insulin1">
+					<select name="insulin1">
+						<c:forEach var="type" items="${sim.insulinList}">
+							<option value="${type.insulinTypeId}" <c:if test="${type.name == status.value}">selected="selected"</c:if>>${type.name}</option>
+						</c:forEach>
+					</select>
+				</spring:bind>	
+			</td>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.dose" /></th>
+			<td>
+				<spring:bind path="sim.insulin1Dose1">
+					<input type="text" name="insulin1Dose1" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulin1Dose2">
+					<input type="text" name="insulin1Dose2" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulin1Dose3">
+					<input type="text" name="insulin1Dose3" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulin1Dose4">
+					<input type="text" name="insulin1Dose4" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<td>
+				<spring:bind path="sim.insulin2">
+					<select name="insulin2">
+						<c:forEach var="type" items="${sim.insulinList}">
+							<option value="${type.insulinTypeId}" <c:if test="${type.name == status.value}">selected="selected"</c:if>>${type.name}</option>
+						</c:forEach>
+					</select>
+				</spring:bind>
+			</td>
+			<th align="left"><spring:message code="diabetesmanagement.simulation.dose" /></th>
+			<td>
+				<spring:bind path="sim.insulin2Dose1">
+					<input type="text" name="insulin2Dose1" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulin2Dose2">
+					<input type="text" name="insulin2Dose2" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulin2Dose3">
+					<input type="text" name="insulin2Dose3" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+			<td>
+				<spring:bind path="sim.insulin2Dose4">
+					<input type="text" name="insulin2Dose4" value="${status.value}" size="5" />
+					<c:if test="${status.errorMessage != ''}">
+						<span class="error">${status.errorMessage}</span>
+					</c:if>
+				</spring:bind>
+			</td>
+		</tr>
+	</table>
+</div>
+<br />
+<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.kidneyFunction" /></div>
+<div class="box">
+	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementKidneyFunction">
+		<tr>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.renalThreshold" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.RTG">
+					<c:choose>
+						<c:when test="${sim.patientSpecificRTG}">
+							<input name="RTG" type="hidden" value="${status.value}" />${status.value} *
+						</c:when>
+						<c:otherwise>
+							<select name="RTG">
+								<option value="${rtgLow}" <c:if test="${rtgLow == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelLow" /></option>
+								<option value="${rtgNormal}" <c:if test="${rtgNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
+								<option value="${rtgHigh}" <c:if test="${rtgHigh == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelHigh" /></option>
+							</select>
+						</c:otherwise>
+					</c:choose>
+				</spring:bind>
+			</td>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.renalFunction" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.CCR">
+					<c:choose>
+						<c:when test="${sim.patientSpecificCCR}">
+							<input name="CCR" type="hidden" value="${status.value}" />${status.value} *
+						</c:when>
+						<c:otherwise>
+							<select name="CCR">
+								<option value="${ccrReduced}" <c:if test="${ccrReduced == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelReduced" /></option>
+								<option value="${ccrNormal}" <c:if test="${ccrNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
+							</select>
+						</c:otherwise>
+					</c:choose>
+				</spring:bind>
+			</td>
+		</tr>
+	</table>
+</div>
+<br />
+<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.insulinSensivities" /></div>
+<div class="box">
+	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementInsulinSensivities">
+		<tr>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.liver" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.sh">
+					<c:choose>
+						<c:when test="${sim.patientSpecificSh}">
+							<input name="sh" type="hidden" value="${status.value}" />${status.value} *
+						</c:when>
+						<c:otherwise>
+							<select name="sh">
+								<option value="${insulinSensivityHepaticReduced}" <c:if test="${insulinSensivityHepaticReduced == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelReduced" /></option>
+								<option value="${insulinSensivityHepaticNormal}" <c:if test="${insulinSensivityHepaticNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
+								<option value="${insulinSensivityHepaticIncreased}" <c:if test="${insulinSensivityHepaticIncreased == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelIncreased" /></option>
+							</select>
+						</c:otherwise>
+					</c:choose>
+				</spring:bind>
+			</td>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.peripheral" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.sp">
+					<c:choose>
+						<c:when test="${sim.patientSpecificSp}">
+							<input name="sp" type="hidden" value="${status.value}" />${status.value} *
+						</c:when>
+						<c:otherwise>
+							<select name="sp">
+								<option value="${insulinSensivityPeripheralReduced}" <c:if test="${insulinSensivityPeripheralReduced == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelReduced" /></option>
+								<option value="${insulinSensivityPeripheralNormal}" <c:if test="${insulinSensivityPeripheralNormal == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelNormal" /></option>
+								<option value="${insulinSensivityPeripheralIncreased}" <c:if test="${insulinSensivityPeripheralIncreased == status.value}">selected="selected"</c:if>><spring:message code="diabetesmanagement.simulation.levelIncreased" /></option>
+							</select>
+						</c:otherwise>
+					</c:choose>
+				</spring:bind>
+			</td>
+		</tr>
+	</table>
+</div>
+<br />* <spring:message code="diabetesmanagement.simulation.patientSpecificValue" /></td>
+<br /><br />
+<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.preview" /></div>
+<div class="box">
+	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementPreview">
+		<tr>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.previewTemplate" /></th>
+			<td align="left" colspan="3">
+				<spring:bind path="sim.previewTemplate">
+					<select name="previewTemplate">
+						<c:forEach var="template" items="${sim.previewTemplates}" varStatus="t">
+							<option value="${t.index}" <c:if test="${status.value == t.index}">selected</c:if>>${template}</option>
+						</c:forEach>
+					</select>
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.riskDoseRange" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.previewDoseScale">
+					<input type="range" name="previewDoseScale" min="0.5" max="1.5" step="0.05" value="${status.value}" oninput="updatePreview()" />
+				</spring:bind>
+			</td>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.riskCarbsRange" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.previewCarbScale">
+					<input type="range" name="previewCarbScale" min="0.5" max="1.5" step="0.05" value="${status.value}" oninput="updatePreview()" />
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<td colspan="4">
+				<svg width="480" height="160" style="border: 1px solid #ccc"><polyline id="previewLine" fill="none" stroke="#1f78b4" stroke-width="2" points="" /></svg>
+				<br /><span id="previewStatus"><spring:message code="diabetesmanagement.simulation.previewHint" /></span>
+			</td>
+		</tr>
+	</table>
+</div>
+<script type="text/javascript">
+	var previewRequest = null;
+	
+	function updatePreview() {
+		var form = document.getElementById("simulationForm");
+		var data = "preview=true";
+		for (var i = 0; i < form.elements.length; i++) {
+			var e = form.elements[i];
+			if (e.name && e.type != "submit" && (e.type != "checkbox" && e.type != "radio" || e.checked))
+				data += "&" + encodeURIComponent(e.name) + "=" + encodeURIComponent(e.value);
+		}
+		if (previewRequest != null)
+			previewRequest.abort();
+		previewRequest = new XMLHttpRequest();
+		previewRequest.open("POST", "simulation.form", true);
+		previewRequest.setRequestHeader("Content-Type", "application/x-www-form-urlencoded");
+		previewRequest.onreadystatechange = function() {
+			if (this.readyState != 4 || this.status != 200)
+				return;
+			var result;
+			try {
+				result = JSON.parse(this.responseText);
+			} catch (e) {
+				return;
+			}
+			var max = 0;
+			for (var k = 0; k < result.glucose.length; k++)
+				max = Math.max(max, result.glucose[k]);
+			var points = "";
+			for (var k = 0; k < result.glucose.length; k++)
+				points += (k * 480 / (result.glucose.length - 1)) + "," + (160 - 150 * result.glucose[k] / max) + " ";
+			document.getElementById("previewLine").setAttribute("points", points);
+			document.getElementById("previewStatus").innerHTML = result.error == null ? '<spring:message code="diabetesmanagement.simulation.previewModel" />'
+			        : '<spring:message code="diabetesmanagement.simulation.previewSurrogate" /> ' + result.error.toFixed(2);
+		};
+		previewRequest.send(data);
+	}
+</script>
+<br /><br />
+<div class="boxHeader"><spring:message code="diabetesmanagement.simulation.riskMap" /></div>
+<div class="box">
+	<table cellspacing="0" cellpadding="2" width="100%" class="diabetesmanagementRiskMapRange">
+		<tr>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.riskDoseRange" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.riskDoseFrom">
+					<input type="text" name="riskDoseFrom" value="${status.value}" size="5" />
+				</spring:bind>
+				-
+				<spring:bind path="sim.riskDoseTo">
+					<input type="text" name="riskDoseTo" value="${status.value}" size="5" />
+				</spring:bind>
+			</td>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.riskCarbsRange" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.riskCarbsFrom">
+					<input type="text" name="riskCarbsFrom" value="${status.value}" size="5" />
+				</spring:bind>
+				-
+				<spring:bind path="sim.riskCarbsTo">
+					<input type="text" name="riskCarbsTo" value="${status.value}" size="5" />
+				</spring:bind>
+			</td>
+		</tr>
+		<tr>
+			<th align="left" width="25%"><spring:message code="diabetesmanagement.simulation.riskSteps" /></th>
+			<td align="left" width="25%">
+				<spring:bind path="sim.riskSteps">
+					<input type="text" name="riskSteps" value="${status.value}" size="5" />
+				</spring:bind>
+			</td>
+		</tr>
+	</table>
+</div>
+<br /><br />
+<input type="submit" id="runSimulationButton" value='<spring:message code="diabetesmanagement.simulation.run" />'>
+<input type="submit" id="compareAllButton" name="compareAll" value='<spring:message code="diabetesmanagement.simulation.compareAll" />'>
+<input type="submit" id="riskMapButton" name="riskMap" value='<spring:message code="diabetesmanagement.simulation.riskMapShow" />'>
+</form>
+
+<openmrs:extensionPoint pointId="org.openmrs.diabetesmanagement.simulationForm.afterDataEntry" type="html" />
+
+<openmrs:htmlInclude file="/dwr/engine.js" />
+<openmrs:htmlInclude file="/dwr/util.js" />
+
+<%@ include file="/WEB-INF/template/footer.jsp"%>